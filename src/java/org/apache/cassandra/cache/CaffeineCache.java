@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * An adapter from a Caffeine cache to the ICache interface.
+ *
+ * Caffeine admits new entries through a small LRU window, and only keeps them if their estimated frequency
+ * (W-TinyLFU) is higher than the one of the entries they would evict, so that one-off accesses such as range
+ * reads or repairs don't flush the frequently accessed entries out of the cache.
+ */
+public class CaffeineCache<K, V> implements ICache<K, V>
+{
+    private final Cache<K, V> cache;
+    private final Eviction<K, V> policy;
+
+    private CaffeineCache(Cache<K, V> cache)
+    {
+        this.cache = cache;
+        this.policy = cache.policy().eviction().orElseThrow(() -> new IllegalArgumentException("Expected a size bounded cache"));
+        assert policy.isWeighted() : "Expected a weighted cache";
+    }
+
+    /**
+     * Initialize a cache with initial capacity with weightedCapacity, notifying the provided listener of the
+     * entries evicted or removed from the cache
+     */
+    public static <K, V> CaffeineCache<K, V> create(long weightedCapacity, Weigher<K, V> weigher, RemovalListener<K, V> listener)
+    {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                                    .maximumWeight(weightedCapacity)
+                                    .weigher(weigher)
+                                    .removalListener(listener)
+                                    .executor(MoreExecutors.directExecutor())
+                                    .build();
+        return new CaffeineCache<>(cache);
+    }
+
+    /**
+     * Initialize a cache with initial capacity with weightedCapacity
+     */
+    public static <K, V> CaffeineCache<K, V> create(long weightedCapacity, Weigher<K, V> weigher)
+    {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                                    .maximumWeight(weightedCapacity)
+                                    .weigher(weigher)
+                                    .executor(MoreExecutors.directExecutor())
+                                    .build();
+        return new CaffeineCache<>(cache);
+    }
+
+    public static <K extends IMeasurableMemory, V extends IMeasurableMemory> CaffeineCache<K, V> create(long weightedCapacity)
+    {
+        return create(weightedCapacity, (key, value) -> {
+            long size = key.unsharedHeapSize() + value.unsharedHeapSize();
+            assert size <= Integer.MAX_VALUE : "Serialized size cannot be more than 2GB/Integer.MAX_VALUE";
+            return (int) size;
+        });
+    }
+
+    public long capacity()
+    {
+        return policy.getMaximum();
+    }
+
+    public void setCapacity(long capacity)
+    {
+        policy.setMaximum(capacity);
+    }
+
+    public boolean isEmpty()
+    {
+        return cache.asMap().isEmpty();
+    }
+
+    public int size()
+    {
+        return cache.asMap().size();
+    }
+
+    public long weightedSize()
+    {
+        return policy.weightedSize().getAsLong();
+    }
+
+    public void clear()
+    {
+        cache.invalidateAll();
+    }
+
+    public V get(K key)
+    {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(K key, V value)
+    {
+        cache.put(key, value);
+    }
+
+    public boolean putIfAbsent(K key, V value)
+    {
+        return cache.asMap().putIfAbsent(key, value) == null;
+    }
+
+    public boolean replace(K key, V old, V value)
+    {
+        return cache.asMap().replace(key, old, value);
+    }
+
+    public void remove(K key)
+    {
+        cache.invalidate(key);
+    }
+
+    public Iterator<K> keyIterator()
+    {
+        return cache.asMap().keySet().iterator();
+    }
+
+    public Iterator<K> hotKeyIterator(int n)
+    {
+        return policy.hottest(n).keySet().iterator();
+    }
+
+    public boolean containsKey(K key)
+    {
+        return cache.asMap().containsKey(key);
+    }
+
+    /**
+     * A view of the entries of this cache, which doesn't count as accesses for the eviction policy.
+     */
+    public ConcurrentMap<K, V> asMap()
+    {
+        return cache.asMap();
+    }
+}
@@ -192,6 +192,20 @@ public class ChunkCache
         ((CachingRebufferer) dfile.rebuffererFactory()).invalidate(position);
     }
 
+    /**
+     * Loads the chunk holding the given position of the file into the cache, if the file goes through it.
+     *
+     * @return whether the file goes through the cache.
+     */
+    public boolean prefetchPosition(FileHandle dfile, long position)
+    {
+        if (!(dfile.rebuffererFactory() instanceof CachingRebufferer))
+            return false;
+
+        ((CachingRebufferer) dfile.rebuffererFactory()).prefetch(position);
+        return true;
+    }
+
     public void invalidateFile(String fileName)
     {
         cache.invalidateAll(Iterables.filter(cache.asMap().keySet(), x -> x.path.equals(fileName)));
@@ -245,6 +259,13 @@ public class ChunkCache
             }
         }
 
+        public void prefetch(long position)
+        {
+            // reads of the chunk that come while it is loaded wait for that load rather than repeat it
+            long pageAlignedPos = position & alignmentMask;
+            cache.get(new Key(source, pageAlignedPos));
+        }
+
         public void invalidate(long position)
         {
             long pageAlignedPos = position & alignmentMask;
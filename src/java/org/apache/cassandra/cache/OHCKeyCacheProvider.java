@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.db.rows.EncodingStats;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
+import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBufferFixed;
+import org.apache.cassandra.utils.Pair;
+import org.caffinitas.ohc.DirectValueAccess;
+import org.caffinitas.ohc.OHCache;
+import org.caffinitas.ohc.OHCacheBuilder;
+
+/**
+ * An off-heap key cache, keeping both the keys and the index entries serialized in the segments of an OHC cache.
+ *
+ * The index entries are serialized in the same format as in the saved key caches. As deserializing the indexed
+ * ones requires the clustering types of the table, the values are read through {@link OHCache#getDirect} and
+ * deserialized with the index serializer of the sstable of the key.
+ */
+public class OHCKeyCacheProvider implements CacheProvider<KeyCacheKey, RowIndexEntry>
+{
+    public ICache<KeyCacheKey, RowIndexEntry> create()
+    {
+        OHCacheBuilder<KeyCacheKey, RowIndexEntry> builder = OHCacheBuilder.newBuilder();
+        builder.capacity(DatabaseDescriptor.getKeyCacheSizeInMB() * 1024 * 1024)
+               .keySerializer(KeySerializer.instance)
+               .valueSerializer(ValueSerializer.instance);
+
+        return new OHCKeyCacheAdapter(builder.build());
+    }
+
+    private static class OHCKeyCacheAdapter implements ICache<KeyCacheKey, RowIndexEntry>
+    {
+        private final OHCache<KeyCacheKey, RowIndexEntry> ohCache;
+
+        public OHCKeyCacheAdapter(OHCache<KeyCacheKey, RowIndexEntry> ohCache)
+        {
+            this.ohCache = ohCache;
+        }
+
+        public long capacity()
+        {
+            return ohCache.capacity();
+        }
+
+        public void setCapacity(long capacity)
+        {
+            ohCache.setCapacity(capacity);
+        }
+
+        public void put(KeyCacheKey key, RowIndexEntry value)
+        {
+            // the index entries of legacy sstables can't be serialized, see CASSANDRA-10778
+            if (key.desc.version.storeRows())
+                ohCache.put(key, value);
+        }
+
+        public boolean putIfAbsent(KeyCacheKey key, RowIndexEntry value)
+        {
+            return key.desc.version.storeRows() && ohCache.putIfAbsent(key, value);
+        }
+
+        public boolean replace(KeyCacheKey key, RowIndexEntry old, RowIndexEntry value)
+        {
+            return key.desc.version.storeRows() && ohCache.addOrReplace(key, old, value);
+        }
+
+        public RowIndexEntry get(KeyCacheKey key)
+        {
+            try (DirectValueAccess value = ohCache.getDirect(key))
+            {
+                return value == null ? null : deserialize(key, value.buffer());
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static RowIndexEntry deserialize(KeyCacheKey key, ByteBuffer buf) throws IOException
+        {
+            ColumnFamilyStore cfs = Schema.instance.getColumnFamilyStoreIncludingIndexes(key.ksAndCFName);
+            if (cfs == null)
+                return null; // the table has been dropped
+
+            SerializationHeader header = new SerializationHeader(false, cfs.metadata, cfs.metadata.partitionColumns(), EncodingStats.NO_STATS);
+            RowIndexEntry.IndexSerializer<?> serializer = key.desc.getFormat().getIndexSerializer(cfs.metadata, key.desc.version, header);
+            return serializer.deserializeForCache(new DataInputBuffer(buf, false));
+        }
+
+        public void remove(KeyCacheKey key)
+        {
+            ohCache.remove(key);
+        }
+
+        public int size()
+        {
+            return (int) ohCache.size();
+        }
+
+        public long weightedSize()
+        {
+            return ohCache.memUsed();
+        }
+
+        public void clear()
+        {
+            ohCache.clear();
+        }
+
+        public Iterator<KeyCacheKey> hotKeyIterator(int n)
+        {
+            return ohCache.hotKeyIterator(n);
+        }
+
+        public Iterator<KeyCacheKey> keyIterator()
+        {
+            return ohCache.keyIterator();
+        }
+
+        public boolean containsKey(KeyCacheKey key)
+        {
+            return ohCache.containsKey(key);
+        }
+    }
+
+    private static class KeySerializer implements org.caffinitas.ohc.CacheSerializer<KeyCacheKey>
+    {
+        private static final KeySerializer instance = new KeySerializer();
+
+        public void serialize(KeyCacheKey keyCacheKey, ByteBuffer buf)
+        {
+            Descriptor desc = keyCacheKey.desc;
+            @SuppressWarnings("resource")
+            DataOutputBufferFixed dataOutput = new DataOutputBufferFixed(buf);
+            try
+            {
+                dataOutput.writeUTF(keyCacheKey.ksAndCFName.left);
+                dataOutput.writeUTF(keyCacheKey.ksAndCFName.right);
+                dataOutput.writeUTF(desc.directory.getPath());
+                dataOutput.writeUTF(desc.ksname);
+                dataOutput.writeUTF(desc.cfname);
+                dataOutput.writeInt(desc.generation);
+                dataOutput.writeUTF(desc.formatType.name());
+                dataOutput.writeUTF(desc.version.getVersion());
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+            buf.putInt(keyCacheKey.key.length);
+            buf.put(keyCacheKey.key);
+        }
+
+        public KeyCacheKey deserialize(ByteBuffer buf)
+        {
+            @SuppressWarnings("resource")
+            DataInputBuffer dataInput = new DataInputBuffer(buf, false);
+            Pair<String, String> ksAndCFName;
+            Descriptor desc;
+            try
+            {
+                ksAndCFName = Pair.create(dataInput.readUTF(), dataInput.readUTF());
+                File directory = new File(dataInput.readUTF());
+                String ksname = dataInput.readUTF();
+                String cfname = dataInput.readUTF();
+                int generation = dataInput.readInt();
+                SSTableFormat.Type formatType = SSTableFormat.Type.valueOf(dataInput.readUTF());
+                Version version = formatType.info.getVersion(dataInput.readUTF());
+                desc = new Descriptor(version, directory, ksname, cfname, generation, formatType,
+                                      Component.digestFor(version.uncompressedChecksumType()));
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+            byte[] key = new byte[buf.getInt()];
+            buf.get(key);
+            return new KeyCacheKey(ksAndCFName, desc, ByteBuffer.wrap(key));
+        }
+
+        public int serializedSize(KeyCacheKey keyCacheKey)
+        {
+            Descriptor desc = keyCacheKey.desc;
+            return TypeSizes.sizeof(keyCacheKey.ksAndCFName.left)
+                   + TypeSizes.sizeof(keyCacheKey.ksAndCFName.right)
+                   + TypeSizes.sizeof(desc.directory.getPath())
+                   + TypeSizes.sizeof(desc.ksname)
+                   + TypeSizes.sizeof(desc.cfname)
+                   + TypeSizes.sizeof(desc.generation)
+                   + TypeSizes.sizeof(desc.formatType.name())
+                   + TypeSizes.sizeof(desc.version.getVersion())
+                   + 4
+                   + keyCacheKey.key.length;
+        }
+    }
+
+    private static class ValueSerializer implements org.caffinitas.ohc.CacheSerializer<RowIndexEntry>
+    {
+        private static final ValueSerializer instance = new ValueSerializer();
+
+        public void serialize(RowIndexEntry entry, ByteBuffer buf)
+        {
+            try (DataOutputBufferFixed out = new DataOutputBufferFixed(buf))
+            {
+                entry.serializeForCache(out);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public RowIndexEntry deserialize(ByteBuffer buf)
+        {
+            // the index serializer depends on the sstable of the key, see OHCKeyCacheAdapter.get()
+            throw new UnsupportedOperationException();
+        }
+
+        public int serializedSize(RowIndexEntry entry)
+        {
+            return entry.serializedSizeForCache();
+        }
+    }
+}
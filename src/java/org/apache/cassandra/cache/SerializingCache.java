@@ -23,9 +23,12 @@ import java.util.Iterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
-import com.googlecode.concurrentlinkedhashmap.EvictionListener;
-import com.googlecode.concurrentlinkedhashmap.Weigher;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.Weigher;
 
 import org.apache.cassandra.io.ISerializer;
 import org.apache.cassandra.io.util.MemoryInputStream;
@@ -40,46 +43,39 @@ public class SerializingCache<K, V> implements ICache<K, V>
 {
     private static final Logger logger = LoggerFactory.getLogger(SerializingCache.class);
 
-    private static final int DEFAULT_CONCURENCY_LEVEL = 64;
-
-    private final ConcurrentLinkedHashMap<K, RefCountedMemory> map;
+    private final Cache<K, RefCountedMemory> cache;
+    private final Eviction<K, RefCountedMemory> policy;
     private final ISerializer<V> serializer;
 
-    private SerializingCache(long capacity, Weigher<RefCountedMemory> weigher, ISerializer<V> serializer)
+    private SerializingCache(long capacity, Weigher<K, RefCountedMemory> weigher, ISerializer<V> serializer)
     {
         this.serializer = serializer;
 
-        EvictionListener<K,RefCountedMemory> listener = new EvictionListener<K, RefCountedMemory>()
-        {
-            public void onEviction(K k, RefCountedMemory mem)
-            {
-                mem.unreference();
-            }
-        };
-
-        this.map = new ConcurrentLinkedHashMap.Builder<K, RefCountedMemory>()
-                   .weigher(weigher)
-                   .maximumWeightedCapacity(capacity)
-                   .concurrencyLevel(DEFAULT_CONCURENCY_LEVEL)
-                   .listener(listener)
-                   .build();
+        // only the entries evicted by the cache itself are released by the listener, the explicit removals and
+        // replacements release the memory they remove below
+        this.cache = Caffeine.newBuilder()
+                             .weigher(weigher)
+                             .maximumWeight(capacity)
+                             .executor(MoreExecutors.directExecutor())
+                             .removalListener((key, mem, cause) -> {
+                                 if (cause.wasEvicted())
+                                     mem.unreference();
+                             })
+                             .build();
+        this.policy = cache.policy().eviction().get();
     }
 
-    public static <K, V> SerializingCache<K, V> create(long weightedCapacity, Weigher<RefCountedMemory> weigher, ISerializer<V> serializer)
+    public static <K, V> SerializingCache<K, V> create(long weightedCapacity, Weigher<K, RefCountedMemory> weigher, ISerializer<V> serializer)
     {
         return new SerializingCache<>(weightedCapacity, weigher, serializer);
     }
 
     public static <K, V> SerializingCache<K, V> create(long weightedCapacity, ISerializer<V> serializer)
     {
-        return create(weightedCapacity, new Weigher<RefCountedMemory>()
-        {
-            public int weightOf(RefCountedMemory value)
-            {
-                long size = value.size();
-                assert size < Integer.MAX_VALUE : "Serialized size cannot be more than 2GB";
-                return (int) size;
-            }
+        return create(weightedCapacity, (key, value) -> {
+            long size = value.size();
+            assert size < Integer.MAX_VALUE : "Serialized size cannot be more than 2GB";
+            return (int) size;
         }, serializer);
     }
 
@@ -126,38 +122,38 @@ public class SerializingCache<K, V> implements ICache<K, V>
 
     public long capacity()
     {
-        return map.capacity();
+        return policy.getMaximum();
     }
 
     public void setCapacity(long capacity)
     {
-        map.setCapacity(capacity);
+        policy.setMaximum(capacity);
     }
 
     public boolean isEmpty()
     {
-        return map.isEmpty();
+        return cache.asMap().isEmpty();
     }
 
     public int size()
     {
-        return map.size();
+        return cache.asMap().size();
     }
 
     public long weightedSize()
     {
-        return map.weightedSize();
+        return policy.weightedSize().getAsLong();
     }
 
     public void clear()
     {
-        map.clear();
+        cache.invalidateAll();
     }
 
     @SuppressWarnings("resource")
     public V get(K key)
     {
-        RefCountedMemory mem = map.get(key);
+        RefCountedMemory mem = cache.getIfPresent(key);
         if (mem == null)
             return null;
         if (!mem.reference())
@@ -182,7 +178,7 @@ public class SerializingCache<K, V> implements ICache<K, V>
         RefCountedMemory old;
         try
         {
-            old = map.put(key, mem);
+            old = cache.asMap().put(key, mem);
         }
         catch (Throwable t)
         {
@@ -204,7 +200,7 @@ public class SerializingCache<K, V> implements ICache<K, V>
         RefCountedMemory old;
         try
         {
-            old = map.putIfAbsent(key, mem);
+            old = cache.asMap().putIfAbsent(key, mem);
         }
         catch (Throwable t)
         {
@@ -222,7 +218,7 @@ public class SerializingCache<K, V> implements ICache<K, V>
     public boolean replace(K key, V oldToReplace, V value)
     {
         // if there is no old value in our map, we fail
-        RefCountedMemory old = map.get(key);
+        RefCountedMemory old = cache.getIfPresent(key);
         if (old == null)
             return false;
 
@@ -245,7 +241,7 @@ public class SerializingCache<K, V> implements ICache<K, V>
         boolean success;
         try
         {
-            success = map.replace(key, old, mem);
+            success = cache.asMap().replace(key, old, mem);
         }
         catch (Throwable t)
         {
@@ -263,23 +259,23 @@ public class SerializingCache<K, V> implements ICache<K, V>
     public void remove(K key)
     {
         @SuppressWarnings("resource")
-        RefCountedMemory mem = map.remove(key);
+        RefCountedMemory mem = cache.asMap().remove(key);
         if (mem != null)
             mem.unreference();
     }
 
     public Iterator<K> keyIterator()
     {
-        return map.keySet().iterator();
+        return cache.asMap().keySet().iterator();
     }
 
     public Iterator<K> hotKeyIterator(int n)
     {
-        return map.descendingKeySetWithLimit(n).iterator();
+        return policy.hottest(n).keySet().iterator();
     }
 
     public boolean containsKey(K key)
     {
-        return map.containsKey(key);
+        return cache.asMap().containsKey(key);
     }
 }
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Splitter;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.metrics.ShardedExecutorMetrics;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.concurrent.SimpleCondition;
+
+/**
+ * An executor running its tasks on a fixed set of threads, one per core by default, that are shared by all the sharded
+ * executors (the read and mutation stages when sharded_request_stages is enabled).
+ *
+ * The token ring is split in as many contiguous ranges as there are threads, and tasks implementing
+ * {@link ShardedTask} run on the thread owning their token. All the reads and writes of a partition are then served
+ * by the same thread whatever the stage, which keeps its data in the caches of a single core and avoids contention
+ * between threads updating the same partition. Other tasks run on the submitting shard thread if there is one, and on
+ * a random shard otherwise.
+ *
+ * As with any thread-per-core design, a task blocking its thread (e.g. on a disk read) delays all the tasks of its
+ * shard, so this suits workloads served from memory better than the shared pool of {@link SEPExecutor}.
+ */
+public class ShardedExecutor extends AbstractLocalAwareExecutorService
+{
+    private static final int SHARDS = Integer.getInteger(Config.PROPERTY_PREFIX + "sharded_stage_threads", FBUtilities.getAvailableProcessors());
+
+    public final String name;
+    private final Shards shards;
+    private final ShardedExecutorMetrics metrics;
+
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private volatile boolean shuttingDown = false;
+    private final SimpleCondition shutdown = new SimpleCondition();
+
+    @VisibleForTesting
+    ShardedExecutor(Shards shards, String jmxPath, String name)
+    {
+        this.shards = shards;
+        this.name = name;
+        this.metrics = new ShardedExecutorMetrics(this, jmxPath, name);
+    }
+
+    public static ShardedExecutor create(Stage stage)
+    {
+        return new ShardedExecutor(Shards.instance(), stage.getJmxType(), stage.getJmxName());
+    }
+
+    public void execute(Runnable command)
+    {
+        shardFor(command).add(this, newTaskFor(command, null));
+    }
+
+    public void execute(Runnable command, ExecutorLocals locals)
+    {
+        shardFor(command).add(this, newTaskFor(command, null, locals));
+    }
+
+    // submit() doesn't give us access to the task before it's wrapped, so these are not routed by token
+    protected void addTask(FutureTask<?> task)
+    {
+        shardFor(null).add(this, task);
+    }
+
+    protected void onCompletion()
+    {
+        completedTasks.incrementAndGet();
+    }
+
+    public void maybeExecuteImmediately(Runnable command)
+    {
+        Shard shard = shardFor(command);
+        FutureTask<?> task = newTaskFor(command, null);
+        if (Thread.currentThread() == shard.thread)
+        {
+            submittedTasks.incrementAndGet();
+            run(task);
+        }
+        else
+        {
+            shard.add(this, task);
+        }
+    }
+
+    private Shard shardFor(Runnable command)
+    {
+        Token token = command instanceof ShardedTask ? ((ShardedTask) command).shardToken() : null;
+        if (token != null)
+            return shards.shardFor(token);
+
+        Shard current = Shards.current.get();
+        return current != null && current.shards == shards ? current : shards.randomShard();
+    }
+
+    private void run(FutureTask<?> task)
+    {
+        activeTasks.incrementAndGet();
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            activeTasks.decrementAndGet();
+            if (shuttingDown && getPendingTasks() == 0 && getActiveCount() == 0)
+                shutdown.signalAll();
+        }
+    }
+
+    public synchronized void shutdown()
+    {
+        if (shuttingDown)
+            return;
+        shuttingDown = true;
+        if (getActiveCount() == 0 && getPendingTasks() == 0)
+            shutdown.signalAll();
+
+        // release metrics
+        metrics.release();
+    }
+
+    public synchronized List<Runnable> shutdownNow()
+    {
+        // the shard threads are shared with other executors, so our queued tasks are left to complete
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    public boolean isShutdown()
+    {
+        return shuttingDown;
+    }
+
+    public boolean isTerminated()
+    {
+        return shuttingDown && shutdown.isSignaled();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        shutdown.await(timeout, unit);
+        return isTerminated();
+    }
+
+    public long getPendingTasks()
+    {
+        // tasks are counted as completed just before they stop being active
+        return Math.max(0, submittedTasks.get() - completedTasks.get() - activeTasks.get());
+    }
+
+    public long getCompletedTasks()
+    {
+        return completedTasks.get();
+    }
+
+    public int getActiveCount()
+    {
+        return activeTasks.get();
+    }
+
+    public int getMaximumPoolSize()
+    {
+        return shards.shards.length;
+    }
+
+    /**
+     * The threads shared by the sharded executors, and the assignment of tokens to them.
+     */
+    @VisibleForTesting
+    static class Shards
+    {
+        private static final ThreadLocal<Shard> current = new ThreadLocal<>();
+        private static Shards instance;
+
+        private final Shard[] shards;
+        // the last token owned by each shard, if the partitioner can split the ring
+        private final List<Token> boundaries;
+
+        @VisibleForTesting
+        Shards(String name, int count, IPartitioner partitioner)
+        {
+            Optional<Splitter> splitter = partitioner.splitter();
+            boundaries = splitter.isPresent() && count > 1
+                         ? splitter.get().splitOwnedRanges(count,
+                                                           Collections.singletonList(new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken())),
+                                                           false)
+                         : null;
+
+            shards = new Shard[count];
+            for (int i = 0; i < count; i++)
+                shards[i] = new Shard(this, name + ':' + (i + 1));
+        }
+
+        static synchronized Shards instance()
+        {
+            if (instance == null)
+                instance = new Shards("ShardedStage", SHARDS, DatabaseDescriptor.getPartitioner());
+            return instance;
+        }
+
+        @VisibleForTesting
+        Shard shardFor(Token token)
+        {
+            if (shards.length == 1)
+                return shards[0];
+
+            // partitioners that can't split the ring (e.g. order preserving ones) are sharded by hash
+            if (boundaries == null)
+                return shards[Math.floorMod(token.hashCode(), shards.length)];
+
+            int pos = Collections.binarySearch(boundaries, token);
+            return shards[Math.min(pos >= 0 ? pos : -pos - 1, shards.length - 1)];
+        }
+
+        Shard randomShard()
+        {
+            return shards[ThreadLocalRandom.current().nextInt(shards.length)];
+        }
+    }
+
+    @VisibleForTesting
+    static class Shard implements Runnable
+    {
+        private static final Logger logger = LoggerFactory.getLogger(Shard.class);
+
+        private final Shards shards;
+        private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        final Thread thread;
+
+        private Shard(Shards shards, String name)
+        {
+            this.shards = shards;
+            this.thread = NamedThreadFactory.createThread(NamedThreadFactory.threadLocalDeallocator(this), name, true);
+            thread.start();
+        }
+
+        void add(ShardedExecutor executor, FutureTask<?> task)
+        {
+            if (executor.shuttingDown)
+                throw new RejectedExecutionException("Executor " + executor.name + " has shut down");
+            executor.submittedTasks.incrementAndGet();
+            queue.add(() -> executor.run(task));
+        }
+
+        public void run()
+        {
+            Shards.current.set(this);
+            while (true)
+            {
+                try
+                {
+                    queue.take().run();
+                }
+                catch (InterruptedException e)
+                {
+                    logger.debug("Ignoring interruption of shard thread {}", thread.getName());
+                }
+                catch (Throwable t)
+                {
+                    // tasks handle their own errors, so this should never happen; keep serving the shard regardless
+                    logger.error("Unexpected exception on shard thread {}", thread.getName(), t);
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.cassandra.config;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -115,6 +116,12 @@ public class Config
     public int concurrent_counter_writes = 32;
     public int concurrent_materialized_view_writes = 32;
 
+    /**
+     * Run the read and mutation stages on one thread per core, each owning a range of tokens, instead of the shared
+     * pool sized by concurrent_reads and concurrent_writes.
+     */
+    public boolean sharded_request_stages = false;
+
     @Deprecated
     public Integer concurrent_replicates = null;
 
@@ -126,6 +133,9 @@ public class Config
     // Limit the maximum depth of repair session merkle trees
     public volatile int repair_session_max_tree_depth = 18;
 
+    // Keep validated repair session merkle trees off heap
+    public volatile boolean use_offheap_merkle_trees = true;
+
     public int storage_port = 7000;
     public int ssl_storage_port = 7001;
     public String listen_address;
@@ -161,6 +171,7 @@ public class Config
     public volatile long native_transport_max_concurrent_connections = -1L;
     public volatile long native_transport_max_concurrent_connections_per_ip = -1L;
     public boolean native_transport_flush_in_batches_legacy = true;
+    public volatile boolean native_transport_async_dispatch = false;
     public volatile long native_transport_max_concurrent_requests_in_bytes_per_ip = -1L;
     public volatile long native_transport_max_concurrent_requests_in_bytes = -1L;
     public Integer native_transport_max_negotiable_protocol_version = Integer.MIN_VALUE;
@@ -185,6 +196,22 @@ public class Config
     public volatile int batch_size_fail_threshold_in_kb = 50;
     public Integer unlogged_batch_across_partitions_warn_threshold = 10;
     public volatile Integer concurrent_compactors;
+    /**
+     * Number of token sub-ranges compacted concurrently by a single compaction whose inputs are larger than
+     * parallel_compaction_min_size_in_mb; 1 disables parallel compactions.
+     */
+    public int parallel_compaction_subranges = 1;
+    public volatile int parallel_compaction_min_size_in_mb = 10240;
+    /**
+     * Number of groups of merkle subtrees that the validation compaction of a repair session is split into, each
+     * hashed by its own thread; 1 disables parallel validations.
+     */
+    public int parallel_validation_subranges = 1;
+    /**
+     * Whether background compactions first compact the sstable estimated to reclaim the most space from its fully
+     * expired data and droppable tombstones, across the compaction strategies of a table.
+     */
+    public volatile boolean prioritize_reclaimable_compactions = false;
     public volatile int compaction_throughput_mb_per_sec = 16;
     public volatile int compaction_large_partition_warning_threshold_mb = 100;
     public int min_free_space_per_drive_in_mb = 50;
@@ -198,6 +225,12 @@ public class Config
     public volatile int stream_throughput_outbound_megabits_per_sec = 200;
     public volatile int inter_dc_stream_throughput_outbound_megabits_per_sec = 200;
 
+    /**
+     * Whether sstables entirely contained in the streamed ranges are sent as files rather than partition by partition.
+     * Nodes not supporting it fail the stream session, so this must only be enabled once all nodes do.
+     */
+    public boolean stream_entire_sstables = false;
+
     public String[] data_file_directories = new String[0];
 
     public String saved_caches_directory;
@@ -229,6 +262,7 @@ public class Config
     public int dynamic_snitch_update_interval_in_ms = 100;
     public int dynamic_snitch_reset_interval_in_ms = 600000;
     public double dynamic_snitch_badness_threshold = 0.1;
+    public DynamicSnitchType dynamic_snitch_type = DynamicSnitchType.periodic;
 
     public String request_scheduler;
     public RequestSchedulerId request_scheduler_id;
@@ -259,11 +293,13 @@ public class Config
     public Long key_cache_size_in_mb = null;
     public volatile int key_cache_save_period = 14400;
     public volatile int key_cache_keys_to_save = Integer.MAX_VALUE;
+    public String key_cache_class_name = "org.apache.cassandra.cache.CaffeineKeyCacheProvider";
 
     public String row_cache_class_name = "org.apache.cassandra.cache.OHCProvider";
     public long row_cache_size_in_mb = 0;
     public volatile int row_cache_save_period = 0;
     public volatile int row_cache_keys_to_save = Integer.MAX_VALUE;
+    public volatile boolean row_cache_merge_updates = false;
 
     public Long counter_cache_size_in_mb = null;
     public volatile int counter_cache_save_period = 7200;
@@ -297,12 +333,24 @@ public class Config
 
     public MemtableAllocationType memtable_allocation_type = MemtableAllocationType.heap_buffers;
 
+    public MemtablePartitionMapType memtable_partition_map_type = MemtablePartitionMapType.skiplist;
+
     public volatile int tombstone_warn_threshold = 1000;
     public volatile int tombstone_failure_threshold = 100000;
 
     public volatile Long index_summary_capacity_in_mb;
     public volatile int index_summary_resize_interval_in_minutes = 60;
 
+    public SSTablePartitionIndexType sstable_partition_index_type = SSTablePartitionIndexType.summary;
+
+    public BloomFilterType bloom_filter_type = BloomFilterType.classic;
+
+    public boolean sstable_partition_clustering_bounds = false;
+
+    public int concurrent_sstable_prefetches = 0;
+
+    public Set<String> drop_behind_operation_types = new HashSet<>();
+
     public int gc_log_threshold_in_ms = 200;
     public int gc_warn_threshold_in_ms = 0;
 
@@ -333,6 +381,12 @@ public class Config
     public static final int otc_backlog_expiration_interval_ms_default = 200;
     public volatile int otc_backlog_expiration_interval_ms = otc_backlog_expiration_interval_ms_default;
 
+    /**
+     * Whether outbound internode connections are handled by a shared pool of Netty event loops rather than a thread
+     * per connection.
+     */
+    public boolean otc_netty_enabled = false;
+
     public int windows_timer_interval = 0;
 
     /**
@@ -444,6 +498,30 @@ public class Config
         offheap_objects
     }
 
+    public enum MemtablePartitionMapType
+    {
+        skiplist,
+        trie
+    }
+
+    public enum DynamicSnitchType
+    {
+        periodic,
+        adaptive
+    }
+
+    public enum SSTablePartitionIndexType
+    {
+        summary,
+        trie
+    }
+
+    public enum BloomFilterType
+    {
+        classic,
+        blocked
+    }
+
     public enum DiskFailurePolicy
     {
         best_effort,
@@ -43,6 +43,7 @@ import org.apache.cassandra.auth.IInternodeAuthenticator;
 import org.apache.cassandra.auth.IRoleManager;
 import org.apache.cassandra.config.Config.CommitLogSync;
 import org.apache.cassandra.config.Config.RequestSchedulerId;
+import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.FSWriteError;
@@ -50,6 +51,7 @@ import org.apache.cassandra.io.util.DiskOptimizationStrategy;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.SpinningDiskOptimizationStrategy;
 import org.apache.cassandra.io.util.SsdDiskOptimizationStrategy;
+import org.apache.cassandra.locator.AdaptiveEndpointSnitch;
 import org.apache.cassandra.locator.DynamicEndpointSnitch;
 import org.apache.cassandra.locator.EndpointSnitchInfo;
 import org.apache.cassandra.locator.IEndpointSnitch;
@@ -119,6 +121,7 @@ public class DatabaseDescriptor
 
     private static BackPressureStrategy backPressureStrategy;
     private static DiskOptimizationStrategy diskOptimizationStrategy;
+    private static Set<OperationType> dropBehindOperationTypes;
 
     private static boolean clientInitialized;
     private static boolean toolInitialized;
@@ -616,6 +619,25 @@ public class DatabaseDescriptor
         if (conf.concurrent_compactors <= 0)
             throw new ConfigurationException("concurrent_compactors should be strictly greater than 0, but was " + conf.concurrent_compactors, false);
 
+        if (conf.parallel_compaction_subranges <= 0)
+            throw new ConfigurationException("parallel_compaction_subranges should be strictly greater than 0, but was " + conf.parallel_compaction_subranges, false);
+
+        if (conf.parallel_validation_subranges <= 0)
+            throw new ConfigurationException("parallel_validation_subranges should be strictly greater than 0, but was " + conf.parallel_validation_subranges, false);
+
+        dropBehindOperationTypes = EnumSet.noneOf(OperationType.class);
+        for (String type : conf.drop_behind_operation_types)
+        {
+            try
+            {
+                dropBehindOperationTypes.add(OperationType.valueOf(type.toUpperCase()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new ConfigurationException("Unknown operation type " + type + " in drop_behind_operation_types, supported values are " + Arrays.toString(OperationType.values()), false);
+            }
+        }
+
         if (conf.num_tokens > MAX_NUM_TOKENS)
             throw new ConfigurationException(String.format("A maximum number of %d tokens per node is supported", MAX_NUM_TOKENS), false);
 
@@ -1081,7 +1103,11 @@ public class DatabaseDescriptor
         if (!snitchClassName.contains("."))
             snitchClassName = "org.apache.cassandra.locator." + snitchClassName;
         IEndpointSnitch snitch = FBUtilities.construct(snitchClassName, "snitch");
-        return dynamic ? new DynamicEndpointSnitch(snitch) : snitch;
+        if (!dynamic)
+            return snitch;
+        return conf.dynamic_snitch_type == Config.DynamicSnitchType.adaptive
+               ? new AdaptiveEndpointSnitch(snitch)
+               : new DynamicEndpointSnitch(snitch);
     }
 
     public static IAuthenticator getAuthenticator()
@@ -1545,6 +1571,11 @@ public class DatabaseDescriptor
         conf.phi_convict_threshold = phiConvictThreshold;
     }
 
+    public static boolean useShardedRequestStages()
+    {
+        return conf.sharded_request_stages;
+    }
+
     public static int getConcurrentReaders()
     {
         return conf.concurrent_reads;
@@ -1580,6 +1611,50 @@ public class DatabaseDescriptor
         conf.concurrent_compactors = value;
     }
 
+    public static int getParallelCompactionSubranges()
+    {
+        return conf.parallel_compaction_subranges;
+    }
+
+    @VisibleForTesting
+    public static void setParallelCompactionSubranges(int subranges)
+    {
+        conf.parallel_compaction_subranges = subranges;
+    }
+
+    public static int getParallelValidationSubranges()
+    {
+        return conf.parallel_validation_subranges;
+    }
+
+    @VisibleForTesting
+    public static void setParallelValidationSubranges(int subranges)
+    {
+        conf.parallel_validation_subranges = subranges;
+    }
+
+    public static boolean getPrioritizeReclaimableCompactions()
+    {
+        return conf.prioritize_reclaimable_compactions;
+    }
+
+    @VisibleForTesting
+    public static void setPrioritizeReclaimableCompactions(boolean prioritize)
+    {
+        conf.prioritize_reclaimable_compactions = prioritize;
+    }
+
+    public static long getParallelCompactionMinSize()
+    {
+        return conf.parallel_compaction_min_size_in_mb * 1024L * 1024L;
+    }
+
+    @VisibleForTesting
+    public static void setParallelCompactionMinSizeInMB(int sizeInMB)
+    {
+        conf.parallel_compaction_min_size_in_mb = sizeInMB;
+    }
+
     public static int getCompactionThroughputMbPerSec()
     {
         return conf.compaction_throughput_mb_per_sec;
@@ -1622,6 +1697,17 @@ public class DatabaseDescriptor
         conf.inter_dc_stream_throughput_outbound_megabits_per_sec = value;
     }
 
+    public static boolean streamEntireSSTables()
+    {
+        return conf.stream_entire_sstables;
+    }
+
+    @VisibleForTesting
+    public static void setStreamEntireSSTables(boolean value)
+    {
+        conf.stream_entire_sstables = value;
+    }
+
     public static String[] getAllDataFileLocations()
     {
         return conf.data_file_directories;
@@ -1866,6 +1952,17 @@ public class DatabaseDescriptor
         return conf.native_transport_flush_in_batches_legacy;
     }
 
+    public static boolean useNativeTransportAsyncDispatch()
+    {
+        return conf.native_transport_async_dispatch;
+    }
+
+    @VisibleForTesting
+    public static void setNativeTransportAsyncDispatch(boolean asyncDispatch)
+    {
+        conf.native_transport_async_dispatch = asyncDispatch;
+    }
+
     public static int getNativeProtocolMaxVersionOverride()
     {
         return conf.native_transport_max_negotiable_protocol_version;
@@ -2066,6 +2163,17 @@ public class DatabaseDescriptor
         conf.dynamic_snitch_badness_threshold = dynamicBadnessThreshold;
     }
 
+    public static Config.DynamicSnitchType getDynamicSnitchType()
+    {
+        return conf.dynamic_snitch_type;
+    }
+
+    @VisibleForTesting
+    public static void setDynamicSnitchType(Config.DynamicSnitchType dynamicSnitchType)
+    {
+        conf.dynamic_snitch_type = dynamicSnitchType;
+    }
+
     public static EncryptionOptions.ServerEncryptionOptions getServerEncryptionOptions()
     {
         return conf.server_encryption_options;
@@ -2219,6 +2327,17 @@ public class DatabaseDescriptor
         conf.key_cache_keys_to_save = keyCacheKeysToSave;
     }
 
+    public static String getKeyCacheClassName()
+    {
+        return conf.key_cache_class_name;
+    }
+
+    @VisibleForTesting
+    public static void setKeyCacheClassName(String keyCacheClassName)
+    {
+        conf.key_cache_class_name = keyCacheClassName;
+    }
+
     public static String getRowCacheClassName()
     {
         return conf.row_cache_class_name;
@@ -2260,6 +2379,17 @@ public class DatabaseDescriptor
         conf.row_cache_keys_to_save = rowCacheKeysToSave;
     }
 
+    public static boolean getRowCacheMergeUpdates()
+    {
+        return conf.row_cache_merge_updates;
+    }
+
+    @VisibleForTesting
+    public static void setRowCacheMergeUpdates(boolean rowCacheMergeUpdates)
+    {
+        conf.row_cache_merge_updates = rowCacheMergeUpdates;
+    }
+
     public static int getCounterCacheSavePeriod()
     {
         return conf.counter_cache_save_period;
@@ -2315,6 +2445,12 @@ public class DatabaseDescriptor
         return conf.internode_compression;
     }
 
+    @VisibleForTesting
+    public static void setInternodeCompression(Config.InternodeCompression compression)
+    {
+        conf.internode_compression = compression;
+    }
+
     public static boolean getInterDCTcpNoDelay()
     {
         return conf.inter_dc_tcp_nodelay;
@@ -2335,6 +2471,17 @@ public class DatabaseDescriptor
         return conf.memtable_allocation_type;
     }
 
+    public static Config.MemtablePartitionMapType getMemtablePartitionMapType()
+    {
+        return conf.memtable_partition_map_type;
+    }
+
+    @VisibleForTesting
+    public static void setMemtablePartitionMapType(Config.MemtablePartitionMapType type)
+    {
+        conf.memtable_partition_map_type = type;
+    }
+
     public static Float getMemtableCleanupThreshold()
     {
         return conf.memtable_cleanup_threshold;
@@ -2356,11 +2503,81 @@ public class DatabaseDescriptor
         conf.repair_session_max_tree_depth = depth;
     }
 
+    public static boolean useOffheapMerkleTrees()
+    {
+        return conf.use_offheap_merkle_trees;
+    }
+
+    @VisibleForTesting
+    public static void setUseOffheapMerkleTrees(boolean value)
+    {
+        conf.use_offheap_merkle_trees = value;
+    }
+
     public static int getIndexSummaryResizeIntervalInMinutes()
     {
         return conf.index_summary_resize_interval_in_minutes;
     }
 
+    public static Config.SSTablePartitionIndexType getSSTablePartitionIndexType()
+    {
+        return conf.sstable_partition_index_type;
+    }
+
+    @VisibleForTesting
+    public static void setSSTablePartitionIndexType(Config.SSTablePartitionIndexType type)
+    {
+        conf.sstable_partition_index_type = type;
+    }
+
+    public static Config.BloomFilterType getBloomFilterType()
+    {
+        return conf.bloom_filter_type;
+    }
+
+    @VisibleForTesting
+    public static void setBloomFilterType(Config.BloomFilterType type)
+    {
+        conf.bloom_filter_type = type;
+    }
+
+    public static boolean getSSTablePartitionClusteringBounds()
+    {
+        return conf.sstable_partition_clustering_bounds;
+    }
+
+    @VisibleForTesting
+    public static void setSSTablePartitionClusteringBounds(boolean enabled)
+    {
+        conf.sstable_partition_clustering_bounds = enabled;
+    }
+
+    /**
+     * Whether the sstables written and scanned by the given kind of operation are dropped from the page cache as
+     * they are.
+     */
+    public static boolean getDropBehind(OperationType operationType)
+    {
+        return dropBehindOperationTypes != null && dropBehindOperationTypes.contains(operationType);
+    }
+
+    @VisibleForTesting
+    public static void setDropBehindOperationTypes(Set<OperationType> operationTypes)
+    {
+        dropBehindOperationTypes = operationTypes.isEmpty() ? EnumSet.noneOf(OperationType.class) : EnumSet.copyOf(operationTypes);
+    }
+
+    public static int getConcurrentSSTablePrefetches()
+    {
+        return conf.concurrent_sstable_prefetches;
+    }
+
+    @VisibleForTesting
+    public static void setConcurrentSSTablePrefetches(int prefetches)
+    {
+        conf.concurrent_sstable_prefetches = prefetches;
+    }
+
     public static boolean hasLargeAddressSpace()
     {
         // currently we just check if it's a 64bit arch, but any we only really care if the address space is large
@@ -2416,6 +2633,17 @@ public class DatabaseDescriptor
     {
         conf.otc_backlog_expiration_interval_ms = intervalInMillis;
     }
+
+    public static boolean isOtcNettyEnabled()
+    {
+        return conf.otc_netty_enabled;
+    }
+
+    @VisibleForTesting
+    public static void setOtcNettyEnabled(boolean enabled)
+    {
+        conf.otc_netty_enabled = enabled;
+    }
  
     public static int getWindowsTimerInterval()
     {
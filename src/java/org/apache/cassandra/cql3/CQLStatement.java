@@ -17,6 +17,11 @@
  */
 package org.apache.cassandra.cql3;
 
+import java.util.concurrent.Executor;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import org.apache.cassandra.cql3.functions.Function;
 import org.apache.cassandra.exceptions.*;
 import org.apache.cassandra.service.ClientState;
@@ -54,6 +59,22 @@ public interface CQLStatement
      */
     public ResultMessage execute(QueryState state, QueryOptions options, long queryStartNanoTime) throws RequestValidationException, RequestExecutionException;
 
+    /**
+     * Asynchronous variant of {@link #execute}: statements supporting it don't block the calling thread while
+     * waiting on the replicas, and return a future completed by a task run on the provided executor instead.
+     * By default, the statement is executed synchronously.
+     *
+     * @param state the current query state
+     * @param options options for this query (consistency, variables, pageSize, ...)
+     * @param queryStartNanoTime the timestamp returned by System.nanoTime() when this statement was received
+     * @param executor the executor on which to complete the execution once the replicas have answered
+     */
+    public default ListenableFuture<ResultMessage> executeAsync(QueryState state, QueryOptions options, long queryStartNanoTime, Executor executor)
+    throws RequestValidationException, RequestExecutionException
+    {
+        return Futures.immediateFuture(execute(state, options, queryStartNanoTime));
+    }
+
     /**
      * Variant of execute used for internal query against the system tables, and thus only query the local node.
      *
@@ -19,6 +19,10 @@ package org.apache.cassandra.cql3;
 
 import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.Executor;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.apache.cassandra.cql3.statements.BatchStatement;
 import org.apache.cassandra.cql3.statements.ParsedStatement;
@@ -36,6 +40,20 @@ public interface QueryHandler
                           Map<String, ByteBuffer> customPayload,
                           long queryStartNanoTime) throws RequestExecutionException, RequestValidationException;
 
+    /**
+     * Asynchronous variant of {@link #process}, see {@link CQLStatement#executeAsync}. By default, the query is
+     * processed synchronously.
+     */
+    default ListenableFuture<ResultMessage> processAsync(String query,
+                                                         QueryState state,
+                                                         QueryOptions options,
+                                                         Map<String, ByteBuffer> customPayload,
+                                                         long queryStartNanoTime,
+                                                         Executor executor) throws RequestExecutionException, RequestValidationException
+    {
+        return Futures.immediateFuture(process(query, state, options, customPayload, queryStartNanoTime));
+    }
+
     ResultMessage.Prepared prepare(String query,
                                    QueryState state,
                                    Map<String, ByteBuffer> customPayload) throws RequestValidationException;
@@ -50,6 +68,20 @@ public interface QueryHandler
                                   Map<String, ByteBuffer> customPayload,
                                   long queryStartNanoTime) throws RequestExecutionException, RequestValidationException;
 
+    /**
+     * Asynchronous variant of {@link #processPrepared}, see {@link CQLStatement#executeAsync}. By default, the
+     * statement is processed synchronously.
+     */
+    default ListenableFuture<ResultMessage> processPreparedAsync(CQLStatement statement,
+                                                                 QueryState state,
+                                                                 QueryOptions options,
+                                                                 Map<String, ByteBuffer> customPayload,
+                                                                 long queryStartNanoTime,
+                                                                 Executor executor) throws RequestExecutionException, RequestValidationException
+    {
+        return Futures.immediateFuture(processPrepared(statement, state, options, customPayload, queryStartNanoTime));
+    }
+
     ResultMessage processBatch(BatchStatement statement,
                                QueryState state,
                                BatchQueryOptions options,
@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,11 +30,14 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.antlr.runtime.*;
+import org.apache.cassandra.cache.CaffeineCache;
 import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
@@ -48,6 +52,7 @@ import org.apache.cassandra.db.partitions.PartitionIterators;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.exceptions.*;
 import org.apache.cassandra.metrics.CQLMetrics;
+import org.apache.cassandra.metrics.CacheMetrics;
 import org.apache.cassandra.service.*;
 import org.apache.cassandra.service.pager.QueryPager;
 import org.apache.cassandra.thrift.ThriftClientState;
@@ -66,8 +71,8 @@ public class QueryProcessor implements QueryHandler
 
     private static final Logger logger = LoggerFactory.getLogger(QueryProcessor.class);
 
-    private static final ConcurrentLinkedHashMap<MD5Digest, ParsedStatement.Prepared> preparedStatements;
-    private static final ConcurrentLinkedHashMap<Integer, ParsedStatement.Prepared> thriftPreparedStatements;
+    private static final CaffeineCache<MD5Digest, ParsedStatement.Prepared> preparedStatements;
+    private static final CaffeineCache<Integer, ParsedStatement.Prepared> thriftPreparedStatements;
 
     // A map for prepared statements used internally (which we don't want to mix with user statement, in particular we don't
     // bother with expiration on those.
@@ -77,28 +82,36 @@ public class QueryProcessor implements QueryHandler
     // counters. Callers of processStatement are responsible for correctly notifying metrics
     public static final CQLMetrics metrics = new CQLMetrics();
 
+    public static final CacheMetrics preparedStatementsCacheMetrics;
+    public static final CacheMetrics thriftPreparedStatementsCacheMetrics;
+
     private static final AtomicInteger lastMinuteEvictionsCount = new AtomicInteger(0);
     private static final AtomicInteger thriftLastMinuteEvictionsCount = new AtomicInteger(0);
 
     static
     {
-        preparedStatements = new ConcurrentLinkedHashMap.Builder<MD5Digest, ParsedStatement.Prepared>()
-                             .maximumWeightedCapacity(capacityToBytes(DatabaseDescriptor.getPreparedStatementsCacheSizeMB()))
-                             .weigher(QueryProcessor::measure)
-                             .listener((md5Digest, prepared) -> {
-                                 metrics.preparedStatementsEvicted.inc();
-                                 lastMinuteEvictionsCount.incrementAndGet();
-                                 SystemKeyspace.removePreparedStatement(md5Digest);
-                             }).build();
-
-        thriftPreparedStatements = new ConcurrentLinkedHashMap.Builder<Integer, ParsedStatement.Prepared>()
-                                   .maximumWeightedCapacity(capacityToBytes(DatabaseDescriptor.getThriftPreparedStatementsCacheSizeMB()))
-                                   .weigher(QueryProcessor::measure)
-                                   .listener((integer, prepared) -> {
-                                       metrics.preparedStatementsEvicted.inc();
-                                       thriftLastMinuteEvictionsCount.incrementAndGet();
-                                   })
-                                   .build();
+        // only the statements evicted because of the size limit are counted, not the ones removed or replaced
+        preparedStatements = CaffeineCache.create(capacityToBytes(DatabaseDescriptor.getPreparedStatementsCacheSizeMB()),
+                                                  QueryProcessor::measure,
+                                                  (md5Digest, prepared, cause) -> {
+                                                      if (cause != RemovalCause.SIZE)
+                                                          return;
+                                                      metrics.preparedStatementsEvicted.inc();
+                                                      lastMinuteEvictionsCount.incrementAndGet();
+                                                      SystemKeyspace.removePreparedStatement(md5Digest);
+                                                  });
+
+        thriftPreparedStatements = CaffeineCache.create(capacityToBytes(DatabaseDescriptor.getThriftPreparedStatementsCacheSizeMB()),
+                                                        QueryProcessor::measure,
+                                                        (integer, prepared, cause) -> {
+                                                            if (cause != RemovalCause.SIZE)
+                                                                return;
+                                                            metrics.preparedStatementsEvicted.inc();
+                                                            thriftLastMinuteEvictionsCount.incrementAndGet();
+                                                        });
+
+        preparedStatementsCacheMetrics = new CacheMetrics("PreparedStatementCache", preparedStatements);
+        thriftPreparedStatementsCacheMetrics = new CacheMetrics("ThriftPreparedStatementCache", thriftPreparedStatements);
 
         ScheduledExecutors.scheduledTasks.scheduleAtFixedRate(() -> {
             long count = lastMinuteEvictionsCount.getAndSet(0);
@@ -189,12 +202,22 @@ public class QueryProcessor implements QueryHandler
 
     public ParsedStatement.Prepared getPrepared(MD5Digest id)
     {
-        return preparedStatements.get(id);
+        return markLookup(preparedStatementsCacheMetrics, preparedStatements.get(id));
     }
 
     public ParsedStatement.Prepared getPreparedForThrift(Integer id)
     {
-        return thriftPreparedStatements.get(id);
+        return markLookup(thriftPreparedStatementsCacheMetrics, thriftPreparedStatements.get(id));
+    }
+
+    private static ParsedStatement.Prepared markLookup(CacheMetrics cacheMetrics, ParsedStatement.Prepared prepared)
+    {
+        cacheMetrics.requests.mark();
+        if (prepared == null)
+            cacheMetrics.misses.mark();
+        else
+            cacheMetrics.hits.mark();
+        return prepared;
     }
 
     public static void validateKey(ByteBuffer key) throws InvalidRequestException
@@ -216,13 +239,32 @@ public class QueryProcessor implements QueryHandler
 
     public ResultMessage processStatement(CQLStatement statement, QueryState queryState, QueryOptions options, long queryStartNanoTime)
     throws RequestExecutionException, RequestValidationException
+    {
+        checkAccessAndValidate(statement, queryState, options);
+        return orVoid(statement.execute(queryState, options, queryStartNanoTime));
+    }
+
+    /**
+     * Asynchronous variant of {@link #processStatement}, see {@link CQLStatement#executeAsync}.
+     */
+    public ListenableFuture<ResultMessage> processStatementAsync(CQLStatement statement, QueryState queryState, QueryOptions options, long queryStartNanoTime, Executor executor)
+    throws RequestExecutionException, RequestValidationException
+    {
+        checkAccessAndValidate(statement, queryState, options);
+        return Futures.transform(statement.executeAsync(queryState, options, queryStartNanoTime, executor),
+                                 (com.google.common.base.Function<ResultMessage, ResultMessage>) QueryProcessor::orVoid);
+    }
+
+    private static void checkAccessAndValidate(CQLStatement statement, QueryState queryState, QueryOptions options)
     {
         logger.trace("Process {} @CL.{}", statement, options.getConsistency());
         ClientState clientState = queryState.getClientState();
         statement.checkAccess(clientState);
         statement.validate(clientState);
+    }
 
-        ResultMessage result = statement.execute(queryState, options, queryStartNanoTime);
+    private static ResultMessage orVoid(ResultMessage result)
+    {
         return result == null ? new ResultMessage.Void() : result;
     }
 
@@ -243,6 +285,23 @@ public class QueryProcessor implements QueryHandler
 
     public ResultMessage process(String queryString, QueryState queryState, QueryOptions options, long queryStartNanoTime)
     throws RequestExecutionException, RequestValidationException
+    {
+        return processStatement(prepareForExecution(queryString, queryState, options), queryState, options, queryStartNanoTime);
+    }
+
+    @Override
+    public ListenableFuture<ResultMessage> processAsync(String query,
+                                                        QueryState state,
+                                                        QueryOptions options,
+                                                        Map<String, ByteBuffer> customPayload,
+                                                        long queryStartNanoTime,
+                                                        Executor executor) throws RequestExecutionException, RequestValidationException
+    {
+        return processStatementAsync(prepareForExecution(query, state, options), state, options, queryStartNanoTime, executor);
+    }
+
+    private static CQLStatement prepareForExecution(String queryString, QueryState queryState, QueryOptions options)
+    throws RequestValidationException
     {
         ParsedStatement.Prepared p = getStatement(queryString, queryState.getClientState());
         options.prepare(p.boundNames);
@@ -253,7 +312,7 @@ public class QueryProcessor implements QueryHandler
         if (!queryState.getClientState().isInternal)
             metrics.regularStatementsExecuted.inc();
 
-        return processStatement(prepared, queryState, options, queryStartNanoTime);
+        return prepared;
     }
 
     public static ParsedStatement.Prepared parseStatement(String queryStr, QueryState queryState) throws RequestValidationException
@@ -511,6 +570,26 @@ public class QueryProcessor implements QueryHandler
 
     public ResultMessage processPrepared(CQLStatement statement, QueryState queryState, QueryOptions options, long queryStartNanoTime)
     throws RequestExecutionException, RequestValidationException
+    {
+        checkBoundVariables(statement, options);
+        metrics.preparedStatementsExecuted.inc();
+        return processStatement(statement, queryState, options, queryStartNanoTime);
+    }
+
+    @Override
+    public ListenableFuture<ResultMessage> processPreparedAsync(CQLStatement statement,
+                                                                QueryState state,
+                                                                QueryOptions options,
+                                                                Map<String, ByteBuffer> customPayload,
+                                                                long queryStartNanoTime,
+                                                                Executor executor) throws RequestExecutionException, RequestValidationException
+    {
+        checkBoundVariables(statement, options);
+        metrics.preparedStatementsExecuted.inc();
+        return processStatementAsync(statement, state, options, queryStartNanoTime, executor);
+    }
+
+    private static void checkBoundVariables(CQLStatement statement, QueryOptions options) throws InvalidRequestException
     {
         List<ByteBuffer> variables = options.getValues();
         // Check to see if there are any bound variables to verify
@@ -527,9 +606,6 @@ public class QueryProcessor implements QueryHandler
                 for (int i = 0; i < variables.size(); i++)
                     logger.trace("[{}] '{}'", i+1, variables.get(i));
         }
-
-        metrics.preparedStatementsExecuted.inc();
-        return processStatement(statement, queryState, options, queryStartNanoTime);
     }
 
     public ResultMessage processBatch(BatchStatement statement,
@@ -625,15 +701,15 @@ public class QueryProcessor implements QueryHandler
         private static void removeInvalidPreparedStatements(String ksName, String cfName)
         {
             removeInvalidPreparedStatements(internalStatements.values().iterator(), ksName, cfName);
-            removeInvalidPersistentPreparedStatements(preparedStatements.entrySet().iterator(), ksName, cfName);
-            removeInvalidPreparedStatements(thriftPreparedStatements.values().iterator(), ksName, cfName);
+            removeInvalidPersistentPreparedStatements(preparedStatements.asMap().entrySet().iterator(), ksName, cfName);
+            removeInvalidPreparedStatements(thriftPreparedStatements.asMap().values().iterator(), ksName, cfName);
         }
 
         private static void removeInvalidPreparedStatementsForFunction(String ksName, String functionName)
         {
             Predicate<Function> matchesFunction = f -> ksName.equals(f.name().keyspace) && functionName.equals(f.name().name);
 
-            for (Iterator<Map.Entry<MD5Digest, ParsedStatement.Prepared>> iter = preparedStatements.entrySet().iterator();
+            for (Iterator<Map.Entry<MD5Digest, ParsedStatement.Prepared>> iter = preparedStatements.asMap().entrySet().iterator();
                  iter.hasNext();)
             {
                 Map.Entry<MD5Digest, ParsedStatement.Prepared> pstmt = iter.next();
@@ -648,7 +724,7 @@ public class QueryProcessor implements QueryHandler
             Iterators.removeIf(internalStatements.values().iterator(),
                                statement -> Iterables.any(statement.statement.getFunctions(), matchesFunction));
 
-            Iterators.removeIf(thriftPreparedStatements.values().iterator(),
+            Iterators.removeIf(thriftPreparedStatements.asMap().values().iterator(),
                                statement -> Iterables.any(statement.statement.getFunctions(), matchesFunction));
         }
 
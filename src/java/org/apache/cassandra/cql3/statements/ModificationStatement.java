@@ -19,8 +19,11 @@ package org.apache.cassandra.cql3.statements;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -425,8 +428,39 @@ public abstract class ModificationStatement implements CQLStatement
              : executeWithoutCondition(queryState, options, queryStartNanoTime);
     }
 
+    /**
+     * Only the writes without condition are done asynchronously, see {@link StorageProxy#mutateWithTriggersAsync}.
+     */
+    @Override
+    public ListenableFuture<ResultMessage> executeAsync(QueryState queryState, QueryOptions options, long queryStartNanoTime, Executor executor)
+    throws RequestExecutionException, RequestValidationException
+    {
+        if (options.getConsistency() == null)
+            throw new InvalidRequestException("Invalid empty consistency level");
+
+        if (hasConditions())
+            return Futures.immediateFuture(executeWithCondition(queryState, options, queryStartNanoTime));
+
+        Collection<? extends IMutation> mutations = getMutationsForWrite(queryState, options, queryStartNanoTime);
+        if (mutations.isEmpty())
+            return Futures.immediateFuture(null);
+
+        return Futures.transform(StorageProxy.mutateWithTriggersAsync(mutations, options.getConsistency(), queryStartNanoTime, executor),
+                                 (com.google.common.base.Function<Void, ResultMessage>) ignored -> null);
+    }
+
     private ResultMessage executeWithoutCondition(QueryState queryState, QueryOptions options, long queryStartNanoTime)
     throws RequestExecutionException, RequestValidationException
+    {
+        Collection<? extends IMutation> mutations = getMutationsForWrite(queryState, options, queryStartNanoTime);
+        if (!mutations.isEmpty())
+            StorageProxy.mutateWithTriggers(mutations, options.getConsistency(), false, queryStartNanoTime);
+
+        return null;
+    }
+
+    private Collection<? extends IMutation> getMutationsForWrite(QueryState queryState, QueryOptions options, long queryStartNanoTime)
+    throws RequestExecutionException, RequestValidationException
     {
         ConsistencyLevel cl = options.getConsistency();
         if (isCounter())
@@ -434,11 +468,7 @@ public abstract class ModificationStatement implements CQLStatement
         else
             cl.validateForWrite(cfm.ksName);
 
-        Collection<? extends IMutation> mutations = getMutations(options, false, options.getTimestamp(queryState), queryStartNanoTime);
-        if (!mutations.isEmpty())
-            StorageProxy.mutateWithTriggers(mutations, cl, false, queryStartNanoTime);
-
-        return null;
+        return getMutations(options, false, options.getTimestamp(queryState), queryStartNanoTime);
     }
 
     public ResultMessage executeWithCondition(QueryState queryState, QueryOptions options, long queryStartNanoTime)
@@ -27,8 +27,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.SortedSet;
+import java.util.concurrent.Executor;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,9 +93,11 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.service.ClientState;
 import org.apache.cassandra.service.ClientWarn;
 import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.StorageProxy;
 import org.apache.cassandra.service.pager.AggregationQueryPager;
 import org.apache.cassandra.service.pager.PagingState;
 import org.apache.cassandra.service.pager.QueryPager;
+import org.apache.cassandra.service.pager.SinglePartitionPager;
 import org.apache.cassandra.thrift.ThriftValidation;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.transport.messages.ResultMessage;
@@ -289,6 +294,59 @@ public class SelectStatement implements CQLStatement
         return execute(Pager.forDistributedQuery(pager, cl, state.getClientState()), options, pageSize, nowInSec, userLimit, queryStartNanoTime);
     }
 
+    /**
+     * Only the reads of a single partition, or of a non-paged IN, are done asynchronously: the other queries may
+     * need several requests to the replicas (range queries, aggregations, multi-partition paging) or go through
+     * Paxos (serial reads), and are executed synchronously.
+     */
+    @Override
+    public ListenableFuture<ResultMessage> executeAsync(QueryState state, QueryOptions options, long queryStartNanoTime, Executor executor)
+    throws RequestExecutionException, RequestValidationException
+    {
+        ConsistencyLevel cl = options.getConsistency();
+        checkNotNull(cl, "Invalid empty consistency level");
+
+        if (aggregationSpec != null || cl.isSerialConsistency())
+            return Futures.immediateFuture(execute(state, options, queryStartNanoTime));
+
+        cl.validateForRead(keyspace());
+
+        int nowInSec = FBUtilities.nowInSeconds();
+        int userLimit = getLimit(options);
+        int userPerPartitionLimit = getPerPartitionLimit(options);
+        int pageSize = options.getPageSize();
+        ReadQuery query = getQuery(options, nowInSec, userLimit, userPerPartitionLimit, pageSize);
+
+        if (pageSize <= 0 || (query.limits().count() <= pageSize))
+        {
+            if (!(query instanceof SinglePartitionReadCommand.Group))
+                return Futures.immediateFuture(execute(query, options, state, nowInSec, userLimit, queryStartNanoTime));
+
+            return Futures.transform(StorageProxy.readAsync((SinglePartitionReadCommand.Group) query, cl, queryStartNanoTime, executor),
+                                     (com.google.common.base.Function<PartitionIterator, ResultMessage>) partitions -> {
+                                         try (PartitionIterator data = partitions)
+                                         {
+                                             return processResults(data, options, nowInSec, userLimit);
+                                         }
+                                     });
+        }
+
+        QueryPager pager = getPager(query, options);
+        if (!(pager instanceof SinglePartitionPager))
+            return Futures.immediateFuture(execute(Pager.forDistributedQuery(pager, cl, state.getClientState()), options, pageSize, nowInSec, userLimit, queryStartNanoTime));
+
+        checkPageable(pageSize);
+        return Futures.transform(((SinglePartitionPager) pager).fetchPageAsync(pageSize, cl, queryStartNanoTime, executor),
+                                 (com.google.common.base.Function<PartitionIterator, ResultMessage>) partitions -> {
+                                     ResultMessage.Rows msg;
+                                     try (PartitionIterator page = partitions)
+                                     {
+                                         msg = processResults(page, options, nowInSec, userLimit);
+                                     }
+                                     return withPagingState(msg, pager);
+                                 });
+    }
+
     public ReadQuery getQuery(QueryOptions options, int nowInSec) throws RequestValidationException
     {
         return getQuery(options, nowInSec, getLimit(options), getPerPartitionLimit(options), options.getPageSize());
@@ -391,6 +449,21 @@ public class SelectStatement implements CQLStatement
                                        int nowInSec,
                                        int userLimit,
                                        long queryStartNanoTime) throws RequestValidationException, RequestExecutionException
+    {
+        checkPageable(pageSize);
+
+        ResultMessage.Rows msg;
+        try (PartitionIterator page = pager.fetchPage(pageSize, queryStartNanoTime))
+        {
+            msg = processResults(page, options, nowInSec, userLimit);
+        }
+
+        // Please note that the isExhausted state of the pager only gets updated when we've closed the page, so this
+        // shouldn't be moved inside the 'try' above.
+        return withPagingState(msg, pager.pager);
+    }
+
+    private void checkPageable(int pageSize)
     {
         if (aggregationSpec != null)
         {
@@ -409,15 +482,13 @@ public class SelectStatement implements CQLStatement
         checkFalse(pageSize > 0 && needsPostQueryOrdering(),
                   "Cannot page queries with both ORDER BY and a IN restriction on the partition key;"
                   + " you must either remove the ORDER BY or the IN and sort client side, or disable paging for this query");
+    }
 
-        ResultMessage.Rows msg;
-        try (PartitionIterator page = pager.fetchPage(pageSize, queryStartNanoTime))
-        {
-            msg = processResults(page, options, nowInSec, userLimit);
-        }
-
-        // Please note that the isExhausted state of the pager only gets updated when we've closed the page, so this
-        // shouldn't be moved inside the 'try' above.
+    /**
+     * Adds the paging state to a page of results, once that page has been closed.
+     */
+    private static ResultMessage.Rows withPagingState(ResultMessage.Rows msg, QueryPager pager)
+    {
         if (!pager.isExhausted())
             msg.result.metadata.setHasMorePages(pager.state());
 
@@ -30,6 +30,8 @@ import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.serializers.MarshalException;
 
 import org.apache.cassandra.io.sstable.IndexInfo;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * A comparator of clustering prefixes (or more generally of {@link Clusterable}}.
@@ -40,6 +42,9 @@ import org.apache.cassandra.io.sstable.IndexInfo;
  */
 public class ClusteringComparator implements Comparator<Clusterable>
 {
+    // terminates the static clustering, which sorts before any other prefix but the empty start bound
+    private static final int STATIC_CLUSTERING_TERMINATOR = 0x30;
+
     private final List<AbstractType<?>> clusteringTypes;
 
     private final Comparator<IndexInfo> indexComparator;
@@ -177,6 +182,45 @@ public class ClusteringComparator implements Comparator<Clusterable>
         return clusteringTypes.get(i).compare(v1, v2);
     }
 
+    /**
+     * @return true if all the clustering types support byte-comparable representations, i.e. if
+     * {@link #asByteComparable(ClusteringPrefix)} can be used.
+     */
+    public boolean supportsByteComparable()
+    {
+        for (AbstractType<?> type : clusteringTypes)
+            if (!type.supportsComparableBytes())
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns a byte-comparable representation of the given prefix, whose unsigned lexicographic order is the order of
+     * {@link #compare(ClusteringPrefix, ClusteringPrefix)}. Every value is encoded as a component (see
+     * {@link AbstractType#asComparableComponent}), followed by a terminator that places the prefix before or after
+     * the prefixes extending it according to its kind.
+     */
+    public ByteComparable asByteComparable(ClusteringPrefix clustering)
+    {
+        return () -> {
+            int size = clustering.size();
+            ByteSource[] components = new ByteSource[size + 1];
+            for (int i = 0; i < size; i++)
+                components[i] = clusteringTypes.get(i).asComparableComponent(clustering.get(i));
+            components[size] = ByteSource.oneByte(terminator(clustering.kind()));
+            return ByteSource.of(components);
+        };
+    }
+
+    private static int terminator(ClusteringPrefix.Kind kind)
+    {
+        if (kind == ClusteringPrefix.Kind.STATIC_CLUSTERING)
+            return STATIC_CLUSTERING_TERMINATOR;
+        return kind.comparedToClustering < 0 ? ByteSource.LT_NEXT_COMPONENT
+             : kind.comparedToClustering > 0 ? ByteSource.GT_NEXT_COMPONENT
+             : ByteSource.TERMINATOR_COMPONENTS;
+    }
+
     /**
      * Returns whether this clustering comparator is compatible with the provided one,
      * that is if the provided one can be safely replaced by this new one.
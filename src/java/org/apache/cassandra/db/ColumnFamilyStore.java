@@ -49,6 +49,7 @@ import org.apache.cassandra.db.filter.ClusteringIndexFilter;
 import org.apache.cassandra.db.filter.DataLimits;
 import org.apache.cassandra.db.view.TableViews;
 import org.apache.cassandra.db.lifecycle.*;
+import org.apache.cassandra.db.partitions.CachedBTreePartition;
 import org.apache.cassandra.db.partitions.CachedPartition;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.CellPath;
@@ -243,6 +244,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
     private volatile DefaultValue<Double> crcCheckChance;
 
     private final CompactionStrategyManager compactionStrategyManager;
+    private final CompressionDictionaryTrainer compressionDictionaryTrainer = new CompressionDictionaryTrainer(this);
 
     private volatile Directories directories;
 
@@ -1348,7 +1350,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
             Memtable mt = data.getMemtableFor(opGroup, commitLogPosition);
             long timeDelta = mt.put(update, indexer, opGroup);
             DecoratedKey key = update.partitionKey();
-            invalidateCachedPartition(key);
+            updateCachedPartition(update);
             metric.samplers.get(Sampler.WRITES).addSample(key.getKey(), key.hashCode(), 1);
             StorageHook.instance.reportWrite(metadata.cfId, update);
             metric.writeLatency.addNano(System.nanoTime() - start);
@@ -2081,6 +2083,39 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         invalidateCachedPartition(new RowCacheKey(metadata.ksAndCFName, key));
     }
 
+    /**
+     * Merges an update applied to this table into its cached partition if row_cache_merge_updates is enabled,
+     * invalidates the cached partition otherwise, or if the update can't be merged.
+     */
+    private void updateCachedPartition(PartitionUpdate update)
+    {
+        if (!isRowCacheEnabled())
+            return;
+
+        RowCacheKey key = new RowCacheKey(metadata.ksAndCFName, update.partitionKey());
+        // counter updates are not idempotent, so they can't be merged in cached partitions that may already have them
+        if (DatabaseDescriptor.getRowCacheMergeUpdates() && !metadata.isCounter())
+        {
+            IRowCacheEntry cached = CacheService.instance.rowCache.getInternal(key);
+            if (cached == null)
+                return;
+
+            // a sentinel means that a read is caching the partition, and it may not have read the update: it's
+            // invalidated so that it doesn't get cached
+            if (cached instanceof CachedBTreePartition)
+            {
+                CachedBTreePartition merged = ((CachedBTreePartition) cached).mergeUpdate(update,
+                                                                                          metadata.params.caching.rowsPerPartitionToCache(),
+                                                                                          FBUtilities.nowInSeconds());
+                // if the cached partition has changed in the meantime, it's invalidated as it might not have the update
+                if (merged != null && CacheService.instance.rowCache.replace(key, cached, merged))
+                    return;
+            }
+        }
+
+        invalidateCachedPartition(key);
+    }
+
     public ClockAndCount getCachedCounter(ByteBuffer partitionKey, Clustering clustering, ColumnDefinition column, CellPath path)
     {
         if (CacheService.instance.counterCache.getCapacity() == 0L) // counter cache disabled.
@@ -2404,6 +2439,19 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         return compactionStrategyManager;
     }
 
+    public CompressionDictionaryTrainer getCompressionDictionaryTrainer()
+    {
+        return compressionDictionaryTrainer;
+    }
+
+    /**
+     * The dictionary to compress new sstables with, if the compressor of the table uses one and it has been trained.
+     */
+    public byte[] getCompressionDictionary()
+    {
+        return compressionDictionaryTrainer.dictionary();
+    }
+
     public void setCrcCheckChance(double crcCheckChance)
     {
         try
@@ -28,6 +28,7 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.ISerializer;
 import org.apache.cassandra.io.sstable.IndexInfo;
+import org.apache.cassandra.io.sstable.RowIndexBuilder;
 import org.apache.cassandra.io.sstable.format.SSTableFlushObserver;
 import org.apache.cassandra.io.sstable.format.Version;
 import org.apache.cassandra.io.util.DataOutputBuffer;
@@ -71,17 +72,31 @@ public class ColumnIndex
 
     private final Collection<SSTableFlushObserver> observers;
 
+    // also receives the index blocks if not null
+    private final RowIndexBuilder rowIndex;
+
     public ColumnIndex(SerializationHeader header,
                         SequentialWriter writer,
                         Version version,
                         Collection<SSTableFlushObserver> observers,
                         ISerializer<IndexInfo> indexInfoSerializer)
+    {
+        this(header, writer, version, observers, indexInfoSerializer, null);
+    }
+
+    public ColumnIndex(SerializationHeader header,
+                        SequentialWriter writer,
+                        Version version,
+                        Collection<SSTableFlushObserver> observers,
+                        ISerializer<IndexInfo> indexInfoSerializer,
+                        RowIndexBuilder rowIndex)
     {
         this.header = header;
         this.writer = writer;
         this.version = version.correspondingMessagingVersion();
         this.observers = observers;
         this.idxSerializer = indexInfoSerializer;
+        this.rowIndex = rowIndex;
     }
 
     public void reset()
@@ -190,6 +205,8 @@ public class ColumnIndex
                 : indexSamplesSerializedSize;
             }
         }
+        if (rowIndex != null)
+            rowIndex.addBlock(firstClustering, columnIndexCount);
         columnIndexCount++;
 
         // First, we collect the IndexInfo objects until we reach Config.column_index_cache_size_in_kb in an ArrayList.
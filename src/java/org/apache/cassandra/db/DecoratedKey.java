@@ -26,6 +26,7 @@ import org.apache.cassandra.dht.Token.KeyBound;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.MurmurHash;
 import org.apache.cassandra.utils.IFilter.FilterKey;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * Represents a decorated key, handy for certain operations
@@ -118,6 +119,11 @@ public abstract class DecoratedKey implements PartitionPosition, FilterKey
         return PartitionPosition.Kind.ROW_KEY;
     }
 
+    public ByteSource asComparableBytes()
+    {
+        return ByteSource.of(getToken().asComparableBytes(), ByteSource.oneByte(KEY_BYTE), ByteSource.of(getKey()));
+    }
+
     @Override
     public String toString()
     {
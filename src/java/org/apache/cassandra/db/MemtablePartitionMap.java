@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.google.common.collect.AbstractIterator;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.partitions.AtomicBTreePartition;
+import org.apache.cassandra.db.tries.MemtableTrie;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
+
+/**
+ * The partitions of a memtable, indexed by key.
+ *
+ * We index the memtable by PartitionPosition only for the purpose of being able to select key range using
+ * Token.KeyBound. However, only DecoratedKey are ever stored.
+ */
+abstract class MemtablePartitionMap
+{
+    static MemtablePartitionMap create(IPartitioner partitioner, MemtableAllocator allocator)
+    {
+        if (DatabaseDescriptor.getMemtablePartitionMapType() == Config.MemtablePartitionMapType.trie
+            && partitioner.hasByteComparableTokens())
+        {
+            Config.MemtableAllocationType allocationType = DatabaseDescriptor.getMemtableAllocationType();
+            boolean offHeap = allocationType == Config.MemtableAllocationType.offheap_buffers
+                              || allocationType == Config.MemtableAllocationType.offheap_objects;
+            return new Trie(allocator, offHeap);
+        }
+        return new SkipList();
+    }
+
+    abstract AtomicBTreePartition get(PartitionPosition key);
+
+    /**
+     * Adds the given partition unless one with the same key is already present.
+     *
+     * @return the partition already present, or null if the given partition was added
+     */
+    abstract AtomicBTreePartition putIfAbsent(DecoratedKey key, AtomicBTreePartition partition, OpOrder.Group opGroup);
+
+    abstract boolean isEmpty();
+
+    abstract int size();
+
+    /**
+     * @return the heap size of the structures added for each partition, beyond the partition and its key
+     */
+    abstract long partitionOverhead();
+
+    /**
+     * The partitions between the given bounds, in order. A null bound means the range is unbounded on that side.
+     */
+    abstract Iterable<AtomicBTreePartition> subMap(PartitionPosition left, boolean includeLeft, PartitionPosition right, boolean includeRight);
+
+    Iterable<AtomicBTreePartition> values()
+    {
+        return subMap(null, true, null, true);
+    }
+
+    /**
+     * Releases any resource held by the map; called once the memtable can no longer be read.
+     */
+    void release()
+    {
+    }
+
+    static class SkipList extends MemtablePartitionMap
+    {
+        private static final long PARTITION_OVERHEAD = estimatePartitionOverhead(Integer.parseInt(System.getProperty("cassandra.memtable_row_overhead_computation_step", "100000")));
+
+        private final ConcurrentNavigableMap<PartitionPosition, AtomicBTreePartition> partitions = new ConcurrentSkipListMap<>();
+
+        AtomicBTreePartition get(PartitionPosition key)
+        {
+            return partitions.get(key);
+        }
+
+        AtomicBTreePartition putIfAbsent(DecoratedKey key, AtomicBTreePartition partition, OpOrder.Group opGroup)
+        {
+            return partitions.putIfAbsent(key, partition);
+        }
+
+        boolean isEmpty()
+        {
+            return partitions.isEmpty();
+        }
+
+        int size()
+        {
+            return partitions.size();
+        }
+
+        long partitionOverhead()
+        {
+            return PARTITION_OVERHEAD;
+        }
+
+        Iterable<AtomicBTreePartition> subMap(PartitionPosition left, boolean includeLeft, PartitionPosition right, boolean includeRight)
+        {
+            if (left == null)
+                return right == null ? partitions.values() : partitions.headMap(right, includeRight).values();
+            return right == null
+                   ? partitions.tailMap(left, includeLeft).values()
+                   : partitions.subMap(left, includeLeft, right, includeRight).values();
+        }
+
+        private static long estimatePartitionOverhead(int count)
+        {
+            // measure the skip list nodes and key (excluding the token, accounted separately), using keys cloned like the ones we store
+            try (OpOrder.Group group = new OpOrder().start())
+            {
+                MemtableAllocator allocator = Memtable.MEMORY_POOL.newAllocator();
+                ConcurrentNavigableMap<PartitionPosition, Object> partitions = new ConcurrentSkipListMap<>();
+                Object val = new Object();
+                for (int i = 0 ; i < count ; i++)
+                    partitions.put(allocator.clone(new BufferDecoratedKey(new LongToken(i), ByteBufferUtil.EMPTY_BYTE_BUFFER), group), val);
+                double avgSize = ObjectSizes.measureDeep(partitions) / (double) count;
+                long overhead = (long) ((avgSize - Math.floor(avgSize)) < 0.05 ? Math.floor(avgSize) : Math.ceil(avgSize));
+                overhead -= ObjectSizes.measureDeep(new LongToken(0));
+                allocator.setDiscarding();
+                allocator.setDiscarded();
+                return overhead;
+            }
+        }
+    }
+
+    /**
+     * Partitions indexed by a {@link MemtableTrie} over the byte-comparable representation of their keys. This only
+     * costs the partition object and a reference on heap for every partition, the trie nodes being allocated in
+     * large blocks (off heap if the memtable allocation type is).
+     */
+    static class Trie extends MemtablePartitionMap
+    {
+        private static final long PARTITION_OVERHEAD = estimatePartitionOverhead();
+
+        private final MemtableTrie<AtomicBTreePartition> trie;
+
+        Trie(MemtableAllocator allocator, boolean offHeap)
+        {
+            trie = new MemtableTrie<>(AtomicBTreePartition::partitionKey, allocator, offHeap);
+        }
+
+        AtomicBTreePartition get(PartitionPosition key)
+        {
+            return trie.get(ByteSource.readBytes(key.asComparableBytes()));
+        }
+
+        AtomicBTreePartition putIfAbsent(DecoratedKey key, AtomicBTreePartition partition, OpOrder.Group opGroup)
+        {
+            return trie.putIfAbsent(ByteSource.readBytes(key.asComparableBytes()), partition, opGroup);
+        }
+
+        boolean isEmpty()
+        {
+            return trie.isEmpty();
+        }
+
+        int size()
+        {
+            return trie.size();
+        }
+
+        long partitionOverhead()
+        {
+            return PARTITION_OVERHEAD;
+        }
+
+        Iterable<AtomicBTreePartition> subMap(PartitionPosition left, boolean includeLeft, PartitionPosition right, boolean includeRight)
+        {
+            byte[] lowerBound = left == null ? null : ByteSource.readBytes(left.asComparableBytes());
+            return () -> new AbstractIterator<AtomicBTreePartition>()
+            {
+                private final Iterator<AtomicBTreePartition> iter = trie.iterator(lowerBound);
+                private boolean first = true;
+
+                protected AtomicBTreePartition computeNext()
+                {
+                    while (iter.hasNext())
+                    {
+                        AtomicBTreePartition partition = iter.next();
+                        // the trie iterator includes the lower bound, which only the first partition can be equal to
+                        if (first && !includeLeft && partition.partitionKey().equals(left))
+                        {
+                            first = false;
+                            continue;
+                        }
+                        first = false;
+                        if (right != null)
+                        {
+                            int cmp = partition.partitionKey().compareTo(right);
+                            if (cmp > 0 || (cmp == 0 && !includeRight))
+                                break;
+                        }
+                        return partition;
+                    }
+                    return endOfData();
+                }
+            };
+        }
+
+        void release()
+        {
+            trie.release();
+        }
+
+        private static long estimatePartitionOverhead()
+        {
+            // the cloned key (excluding the token, accounted separately) and the reference to the partition
+            try (OpOrder.Group group = new OpOrder().start())
+            {
+                MemtableAllocator allocator = Memtable.MEMORY_POOL.newAllocator();
+                DecoratedKey key = allocator.clone(new BufferDecoratedKey(new LongToken(0), ByteBufferUtil.EMPTY_BYTE_BUFFER), group);
+                long overhead = ObjectSizes.measureDeep(key) - ObjectSizes.measureDeep(new LongToken(0)) + ObjectSizes.sizeOfReferenceArray(1) - ObjectSizes.sizeOfReferenceArray(0);
+                allocator.setDiscarding();
+                allocator.setDiscarded();
+                return overhead;
+            }
+        }
+    }
+}
@@ -24,9 +24,18 @@ import java.nio.ByteBuffer;
 import org.apache.cassandra.dht.*;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
 
-public interface PartitionPosition extends RingPosition<PartitionPosition>
+public interface PartitionPosition extends RingPosition<PartitionPosition>, ByteComparable
 {
+    /*
+     * The byte-comparable representation of a position is the one of its token followed by one of these bytes,
+     * which for a key is followed by the key itself. This orders the bounds of a token around the keys it owns.
+     */
+    public static final int MIN_BOUND_BYTE = 0x20;
+    public static final int KEY_BYTE = 0x40;
+    public static final int MAX_BOUND_BYTE = 0x60;
+
     public static enum Kind
     {
         // Only add new values to the end of the enum, the ordinal is used
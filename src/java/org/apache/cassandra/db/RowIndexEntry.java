@@ -22,6 +22,8 @@ import java.nio.ByteBuffer;
 import java.util.List;
 
 import com.codahale.metrics.Histogram;
+import com.google.common.primitives.Ints;
+
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.cache.IMeasurableMemory;
 import org.apache.cassandra.config.DatabaseDescriptor;
@@ -413,6 +415,15 @@ public class RowIndexEntry<T> implements IMeasurableMemory
         out.writeByte(CACHE_NOT_INDEXED);
     }
 
+    /**
+     * @return the size of the serialization of this entry by {@link #serializeForCache(DataOutputPlus)}.
+     */
+    public int serializedSizeForCache()
+    {
+        return TypeSizes.sizeofUnsignedVInt(position)
+               + TypeSizes.sizeof((byte) CACHE_NOT_INDEXED);
+    }
+
     private static final class LegacyShallowIndexedEntry extends RowIndexEntry<IndexInfo>
     {
         private static final long BASE_SIZE;
@@ -479,6 +490,12 @@ public class RowIndexEntry<T> implements IMeasurableMemory
             throw new UnsupportedOperationException("serializing legacy index entries is not supported");
         }
 
+        @Override
+        public int serializedSizeForCache()
+        {
+            throw new UnsupportedOperationException("serializing legacy index entries is not supported");
+        }
+
         @Override
         public IndexInfoRetriever openWithIndex(FileHandle indexFile)
         {
@@ -780,6 +797,20 @@ public class RowIndexEntry<T> implements IMeasurableMemory
                 idxInfoSerializer.serialize(indexInfo, out);
         }
 
+        @Override
+        public int serializedSizeForCache()
+        {
+            long size = TypeSizes.sizeofUnsignedVInt(position)
+                        + TypeSizes.sizeof((byte) CACHE_INDEXED)
+                        + TypeSizes.sizeofUnsignedVInt(headerLength)
+                        + DeletionTime.serializer.serializedSize(deletionTime)
+                        + TypeSizes.sizeofUnsignedVInt(columnsIndexCount());
+
+            for (IndexInfo indexInfo : columnsIndex)
+                size += idxInfoSerializer.serializedSize(indexInfo);
+            return Ints.checkedCast(size);
+        }
+
         static void skipForCache(DataInputPlus in) throws IOException
         {
             /*long headerLength =*/in.readUnsignedVInt();
@@ -937,6 +968,18 @@ public class RowIndexEntry<T> implements IMeasurableMemory
             out.writeUnsignedVInt(indexedPartSize);
         }
 
+        @Override
+        public int serializedSizeForCache()
+        {
+            return TypeSizes.sizeofUnsignedVInt(position)
+                   + TypeSizes.sizeof((byte) CACHE_INDEXED_SHALLOW)
+                   + TypeSizes.sizeofUnsignedVInt(indexFilePosition)
+                   + TypeSizes.sizeofUnsignedVInt(headerLength)
+                   + (int) DeletionTime.serializer.serializedSize(deletionTime)
+                   + TypeSizes.sizeofUnsignedVInt(columnsIndexCount)
+                   + TypeSizes.sizeofUnsignedVInt(indexedPartSize);
+        }
+
         static void skipForCache(DataInputPlus in) throws IOException
         {
             /*long indexFilePosition =*/in.readUnsignedVInt();
@@ -575,39 +575,13 @@ public class SinglePartitionReadCommand extends ReadCommand
             try
             {
                 final int rowsToCache = metadata().params.caching.rowsPerPartitionToCache();
-                final boolean enforceStrictLiveness = metadata().enforceStrictLiveness();
 
                 @SuppressWarnings("resource") // we close on exception or upon closing the result of this method
                 UnfilteredRowIterator iter = fullPartitionRead(metadata(), nowInSec(), partitionKey()).queryMemtableAndDisk(cfs, executionController);
                 try
                 {
-                    // Use a custom iterator instead of DataLimits to avoid stopping the original iterator
-                    UnfilteredRowIterator toCacheIterator = new WrappingUnfilteredRowIterator(iter)
-                    {
-                        private int rowsCounted = 0;
-
-                        @Override
-                        public boolean hasNext()
-                        {
-                            return rowsCounted < rowsToCache && super.hasNext();
-                        }
-
-                        @Override
-                        public Unfiltered next()
-                        {
-                            Unfiltered unfiltered = super.next();
-                            if (unfiltered.isRow())
-                            {
-                                Row row = (Row) unfiltered;
-                                if (row.hasLiveData(nowInSec(), enforceStrictLiveness))
-                                    rowsCounted++;
-                            }
-                            return unfiltered;
-                        }
-                    };
-
                     // We want to cache only rowsToCache rows
-                    CachedPartition toCache = CachedBTreePartition.create(toCacheIterator, nowInSec());
+                    CachedPartition toCache = CachedBTreePartition.createHead(iter, rowsToCache, nowInSec());
 
                     if (sentinelSuccess && !toCache.isEmpty())
                     {
@@ -734,6 +708,14 @@ public class SinglePartitionReadCommand extends ReadCommand
             List<SSTableReader> skippedSSTablesWithTombstones = null;
             SSTableReadMetricsCollector metricsCollector = new SSTableReadMetricsCollector();
 
+            // the sstables that may have data within the slices, when already found to prefetch them
+            Set<SSTableReader> intersectingSSTables = null;
+            if (SSTableReader.isPrefetchEnabled())
+            {
+                intersectingSSTables = intersectingSSTables(view.sstables, filter.getSlices(metadata()));
+                prefetch(intersectingSSTables);
+            }
+
             for (SSTableReader sstable : view.sstables)
             {
                 // if we've already seen a partition tombstone with a timestamp greater
@@ -754,6 +736,14 @@ public class SinglePartitionReadCommand extends ReadCommand
                     continue;
                 }
 
+                if (intersectingSSTables == null
+                    ? !mayIntersectPartition(sstable, filter.getSlices(metadata()))
+                    : !intersectingSSTables.contains(sstable))
+                {
+                    nonIntersectingSSTables++;
+                    continue;
+                }
+
                 minTimestamp = Math.min(minTimestamp, sstable.getMinTimestamp());
 
                 @SuppressWarnings("resource") // 'iter' is added to iterators which is closed on exception,
@@ -821,6 +811,48 @@ public class SinglePartitionReadCommand extends ReadCommand
         return clusteringIndexFilter().shouldInclude(sstable);
     }
 
+    /**
+     * Whether the sstable may have data of the queried partition within the given slices, according to the
+     * clustering bounds of its partitions if it has them. Those bounds account for partition deletions, so an
+     * sstable they exclude has nothing to contribute to the query, provided no static column is queried.
+     */
+    private boolean mayIntersectPartition(SSTableReader sstable, Slices slices)
+    {
+        if (!columnFilter().fetchedColumns().statics.isEmpty())
+            return true;
+
+        return sstable.mayIntersect(partitionKey(), slices);
+    }
+
+    /**
+     * @return the given sstables that may have data for the query, in their order
+     */
+    private Set<SSTableReader> intersectingSSTables(List<SSTableReader> sstables, Slices slices)
+    {
+        Set<SSTableReader> intersecting = new LinkedHashSet<>();
+        for (SSTableReader sstable : sstables)
+        {
+            if (shouldInclude(sstable) && mayIntersectPartition(sstable, slices))
+                intersecting.add(sstable);
+        }
+        return intersecting;
+    }
+
+    /**
+     * Starts reading the queried partition in the background in the given sstables that may have data for the
+     * query, if there is more than one of them. Those sstables are still read one after the other, but their reads
+     * then mostly wait for their disk accesses at once rather than in turn.
+     */
+    private void prefetch(Set<SSTableReader> intersectingSSTables)
+    {
+        if (intersectingSSTables.size() < 2)
+            return;
+
+        Tracing.trace("Prefetching partition from {} sstables", intersectingSSTables.size());
+        for (SSTableReader sstable : intersectingSSTables)
+            sstable.prefetchAsync(partitionKey());
+    }
+
     private UnfilteredRowIteratorWithLowerBound makeIterator(ColumnFamilyStore cfs,
                                                              final SSTableReader sstable,
                                                              boolean applyThriftTransformation,
@@ -979,6 +1011,9 @@ public class SinglePartitionReadCommand extends ReadCommand
                 continue;
             }
 
+            if (!mayIntersectPartition(sstable, filter.getSlices(metadata())))
+                continue;
+
             try (UnfilteredRowIterator iter = StorageHook.instance.makeRowIterator(cfs,
                                                                                    sstable,
                                                                                    partitionKey(),
@@ -29,6 +29,7 @@ import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.sstable.IndexInfo;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.io.sstable.RowIndex;
 import org.apache.cassandra.io.sstable.format.Version;
 import org.apache.cassandra.io.util.FileDataInput;
 import org.apache.cassandra.io.util.DataPosition;
@@ -458,6 +459,8 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
 
         private final RowIndexEntry indexEntry;
         private final RowIndexEntry.IndexInfoRetriever indexInfoRetriever;
+        // the trie of the blocks of the partition, if the sstable has them
+        private final RowIndex.Searcher rowIndexSearcher;
         private final boolean reversed;
 
         private int currentIndexIdx;
@@ -466,11 +469,17 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
         private DataPosition mark;
 
         public IndexState(Reader reader, ClusteringComparator comparator, RowIndexEntry indexEntry, boolean reversed, FileHandle indexFile)
+        {
+            this(reader, comparator, indexEntry, reversed, indexFile, null);
+        }
+
+        public IndexState(Reader reader, ClusteringComparator comparator, RowIndexEntry indexEntry, boolean reversed, FileHandle indexFile, RowIndex rowIndex)
         {
             this.reader = reader;
             this.comparator = comparator;
             this.indexEntry = indexEntry;
             this.indexInfoRetriever = indexEntry.openWithIndex(indexFile);
+            this.rowIndexSearcher = rowIndex != null ? rowIndex.open(indexEntry.position) : null;
             this.reversed = reversed;
             this.currentIndexIdx = reversed ? indexEntry.columnsIndexCount() : -1;
         }
@@ -606,6 +615,9 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
             i.e. 17 in this example, compared to the firstName part of the index slots.  bsearch will give us the
             first slot where firstName > start ([20..25] here), so we subtract an extra one to get the slot just before.
             */
+            if (rowIndexSearcher != null)
+                return indexFromRowIndex(name, lastIndex);
+
             int startIdx = 0;
             int endIdx = indexEntry.columnsIndexCount() - 1;
 
@@ -628,6 +640,24 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
             return (index < 0 ? -index - (reversed ? 2 : 1) : index);
         }
 
+        // Same as indexFor, using the trie of the blocks to only read the IndexInfo of the found block.
+        private int indexFromRowIndex(ClusteringPrefix name, int lastIndex) throws IOException
+        {
+            // the last block starting at or before the name: the blocks before the one found by the trie all do, but
+            // that one may start after the name if it only shares a prefix with it
+            int index = rowIndexSearcher.floor(comparator.asByteComparable(name));
+            if (index >= 0 && comparator.compare(index(index).firstName, name) > 0)
+                --index;
+
+            if (reversed)
+                return lastIndex < indexEntry.columnsIndexCount() - 1 ? Math.min(index, lastIndex) : index;
+
+            // the first block ending at or after the name
+            if (index < 0 || comparator.compare(index(index).lastName, name) < 0)
+                ++index;
+            return Math.max(index, lastIndex);
+        }
+
         private int binarySearch(IndexInfo key, Comparator<IndexInfo> c, int low, int high) throws IOException
         {
             while (low <= high)
@@ -655,6 +685,8 @@ public abstract class AbstractSSTableIterator implements UnfilteredRowIterator
         @Override
         public void close() throws IOException
         {
+            if (rowIndexSearcher != null)
+                rowIndexSearcher.close();
             indexInfoRetriever.close();
         }
     }
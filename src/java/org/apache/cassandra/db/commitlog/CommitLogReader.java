@@ -19,14 +19,20 @@ package org.apache.cassandra.db.commitlog;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.CRC32;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.UnknownColumnFamilyException;
@@ -52,16 +58,12 @@ public class CommitLogReader
 
     @VisibleForTesting
     public static final int ALL_MUTATIONS = -1;
-    private final CRC32 checksum;
     private final Map<UUID, AtomicInteger> invalidMutations;
 
-    private byte[] buffer;
-
     public CommitLogReader()
     {
-        checksum = new CRC32();
-        invalidMutations = new HashMap<>();
-        buffer = new byte[4096];
+        // segments may be read concurrently by readAllFiles, so all per-read state is kept in the ReadStatusTracker
+        invalidMutations = new ConcurrentHashMap<>();
     }
 
     public Set<Map.Entry<UUID, AtomicInteger>> getInvalidMutations()
@@ -124,7 +126,11 @@ public class CommitLogReader
      */
     public void readAllFiles(CommitLogReadHandler handler, File[] files, CommitLogPosition minPosition) throws IOException
     {
-        List<File> filteredLogs = filterCommitLogFiles(files);
+        readFilteredFiles(handler, filterCommitLogFiles(files), minPosition);
+    }
+
+    private void readFilteredFiles(CommitLogReadHandler handler, List<File> filteredLogs, CommitLogPosition minPosition) throws IOException
+    {
         int i = 0;
         for (File file: filteredLogs)
         {
@@ -133,6 +139,54 @@ public class CommitLogReader
         }
     }
 
+    /**
+     * Reads all passed in files with minPosition and no mutation limit, using up to {@code readers} threads to read,
+     * decompress or decrypt, and deserialize different segments concurrently.
+     *
+     * The handler is only ever called from the calling thread, and sees exactly the same sequence of mutations and
+     * errors as with {@link #readAllFiles(CommitLogReadHandler, File[], CommitLogPosition)}, so mutations to a given
+     * partition are still handed over in log order. The segments are read ahead in a window of {@code readers}
+     * segments, each buffering at most its share of {@code maxBufferedBytes} (in serialized mutation size) until the
+     * handler catches up with it.
+     */
+    public void readAllFiles(CommitLogReadHandler handler, File[] files, CommitLogPosition minPosition, int readers, long maxBufferedBytes) throws IOException
+    {
+        List<File> filteredLogs = filterCommitLogFiles(files);
+        readers = Math.min(readers, filteredLogs.size());
+        if (readers <= 1)
+        {
+            readFilteredFiles(handler, filteredLogs, minPosition);
+            return;
+        }
+
+        long maxBufferedBytesPerSegment = Math.max(1, maxBufferedBytes / readers);
+        List<ReadAheadSegment> segments = new ArrayList<>(filteredLogs.size());
+        for (int i = 0; i < filteredLogs.size(); i++)
+            segments.add(new ReadAheadSegment(filteredLogs.get(i), minPosition, i == filteredLogs.size() - 1, maxBufferedBytesPerSegment));
+
+        // Only the segments within the window are submitted, so that every submitted segment has a thread, and in
+        // particular the one the handler is waiting on.
+        ExecutorService executor = DebuggableThreadPoolExecutor.createWithFixedPoolSize("CommitLogReader", readers);
+        try
+        {
+            for (int i = 0; i < readers; i++)
+                executor.submit(segments.get(i));
+            for (int i = 0; i < segments.size(); i++)
+            {
+                segments.get(i).replay(handler);
+                if (i + readers < segments.size())
+                    executor.submit(segments.get(i + readers));
+            }
+        }
+        finally
+        {
+            // release any reader still waiting for the handler if we are bailing out on error
+            for (ReadAheadSegment segment : segments)
+                segment.abort();
+            executor.shutdown();
+        }
+    }
+
     /**
      * Reads passed in file fully
      */
@@ -354,10 +408,10 @@ public class CommitLogReader
                 }
 
                 long claimedSizeChecksum = CommitLogFormat.calculateClaimedChecksum(reader, desc.version);
-                checksum.reset();
-                CommitLogFormat.updateChecksum(checksum, serializedSize, desc.version);
+                statusTracker.checksum.reset();
+                CommitLogFormat.updateChecksum(statusTracker.checksum, serializedSize, desc.version);
 
-                if (checksum.getValue() != claimedSizeChecksum)
+                if (statusTracker.checksum.getValue() != claimedSizeChecksum)
                 {
                     if (handler.shouldSkipSegmentOnError(new CommitLogReadException(
                                                     String.format("Mutation size checksum failure at %d in %s", mutationStart, statusTracker.errorContext),
@@ -369,9 +423,9 @@ public class CommitLogReader
                     return;
                 }
 
-                if (serializedSize > buffer.length)
-                    buffer = new byte[(int) (1.2 * serializedSize)];
-                reader.readFully(buffer, 0, serializedSize);
+                if (serializedSize > statusTracker.buffer.length)
+                    statusTracker.buffer = new byte[(int) (1.2 * serializedSize)];
+                reader.readFully(statusTracker.buffer, 0, serializedSize);
 
                 claimedCRC32 = CommitLogFormat.calculateClaimedCRC32(reader, desc.version);
             }
@@ -387,8 +441,8 @@ public class CommitLogReader
                 return;
             }
 
-            checksum.update(buffer, 0, serializedSize);
-            if (claimedCRC32 != checksum.getValue())
+            statusTracker.checksum.update(statusTracker.buffer, 0, serializedSize);
+            if (claimedCRC32 != statusTracker.checksum.getValue())
             {
                 if (handler.shouldSkipSegmentOnError(new CommitLogReadException(
                                                 String.format("Mutation checksum failure at %d in %s", mutationStart, statusTracker.errorContext),
@@ -401,7 +455,7 @@ public class CommitLogReader
             }
 
             long mutationPosition = reader.getFilePointer();
-            readMutation(handler, buffer, serializedSize, minPosition, (int)mutationPosition, desc);
+            readMutation(handler, statusTracker.buffer, serializedSize, minPosition, (int)mutationPosition, desc);
 
             // Only count this as a processed mutation if it is after our min as we suppress reading of mutations that
             // are before this mark.
@@ -446,14 +500,7 @@ public class CommitLogReader
         {
             if (ex.cfId == null)
                 return;
-            AtomicInteger i = invalidMutations.get(ex.cfId);
-            if (i == null)
-            {
-                i = new AtomicInteger(1);
-                invalidMutations.put(ex.cfId, i);
-            }
-            else
-                i.incrementAndGet();
+            invalidMutations.computeIfAbsent(ex.cfId, k -> new AtomicInteger()).incrementAndGet();
             return;
         }
         catch (Throwable t)
@@ -531,6 +578,244 @@ public class CommitLogReader
         }
     }
 
+    /**
+     * A segment read on a separate thread, buffering what it reads for the handler. It acts as the handler of the
+     * reading thread, queuing mutations and errors so that {@link #replay} can pass them on, in order, from the
+     * thread calling the actual handler. Errors are answered by the actual handler before the read proceeds.
+     */
+    private class ReadAheadSegment implements CommitLogReadHandler, Runnable
+    {
+        private final File file;
+        private final CommitLogPosition minPosition;
+        private final boolean tolerateTruncation;
+        private final long maxBufferedBytes;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        // all guarded by lock
+        private final Queue<Object> buffered = new ArrayDeque<>();
+        private long bufferedBytes;
+        private boolean finished;
+        private boolean aborted;
+        private Throwable failure;
+
+        ReadAheadSegment(File file, CommitLogPosition minPosition, boolean tolerateTruncation, long maxBufferedBytes)
+        {
+            this.file = file;
+            this.minPosition = minPosition;
+            this.tolerateTruncation = tolerateTruncation;
+            this.maxBufferedBytes = maxBufferedBytes;
+        }
+
+        public void run()
+        {
+            Throwable failure = null;
+            try
+            {
+                if (!isAborted())
+                    readCommitLogSegment(this, file, minPosition, ALL_MUTATIONS, tolerateTruncation);
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+
+            lock.lock();
+            try
+            {
+                this.failure = failure;
+                finished = true;
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Passes everything read from the segment to the given handler, returning once the segment has been fully read.
+         */
+        void replay(CommitLogReadHandler handler) throws IOException
+        {
+            while (true)
+            {
+                Object next;
+                lock.lock();
+                try
+                {
+                    while (buffered.isEmpty() && !finished)
+                        changed.awaitUninterruptibly();
+
+                    next = buffered.poll();
+                    if (next == null)
+                    {
+                        if (failure != null)
+                        {
+                            Throwables.propagateIfInstanceOf(failure, IOException.class);
+                            throw Throwables.propagate(failure);
+                        }
+                        return;
+                    }
+
+                    if (next instanceof BufferedMutation)
+                    {
+                        bufferedBytes -= ((BufferedMutation) next).size;
+                        changed.signalAll();
+                    }
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+
+                if (next instanceof BufferedMutation)
+                {
+                    BufferedMutation mutation = (BufferedMutation) next;
+                    handler.handleMutation(mutation.mutation, mutation.size, mutation.entryLocation, mutation.desc);
+                }
+                else
+                {
+                    BufferedError error = (BufferedError) next;
+                    boolean skip = false;
+                    if (error.unrecoverable)
+                        handler.handleUnrecoverableError(error.exception);
+                    else
+                        skip = handler.shouldSkipSegmentOnError(error.exception);
+                    answer(error, skip);
+                }
+            }
+        }
+
+        void abort()
+        {
+            lock.lock();
+            try
+            {
+                aborted = true;
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private boolean isAborted()
+        {
+            lock.lock();
+            try
+            {
+                return aborted;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private void answer(BufferedError error, boolean skip)
+        {
+            lock.lock();
+            try
+            {
+                error.skip = skip;
+                error.answered = true;
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        public void handleMutation(Mutation m, int size, int entryLocation, CommitLogDescriptor desc)
+        {
+            lock.lock();
+            try
+            {
+                // a mutation is always accepted in an empty buffer, whatever its size, so that reading makes progress
+                while (!aborted && !buffered.isEmpty() && bufferedBytes + size > maxBufferedBytes)
+                    changed.awaitUninterruptibly();
+                checkNotAborted();
+
+                buffered.add(new BufferedMutation(m, size, entryLocation, desc));
+                bufferedBytes += size;
+                changed.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        public boolean shouldSkipSegmentOnError(CommitLogReadException exception)
+        {
+            return awaitAnswer(new BufferedError(exception, false));
+        }
+
+        public void handleUnrecoverableError(CommitLogReadException exception)
+        {
+            awaitAnswer(new BufferedError(exception, true));
+        }
+
+        private boolean awaitAnswer(BufferedError error)
+        {
+            lock.lock();
+            try
+            {
+                buffered.add(error);
+                changed.signalAll();
+                while (!aborted && !error.answered)
+                    changed.awaitUninterruptibly();
+                checkNotAborted();
+                return error.skip;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private void checkNotAborted()
+        {
+            if (aborted)
+                throw new IllegalStateException("Reading of " + file + " aborted");
+        }
+    }
+
+    private static class BufferedMutation
+    {
+        final Mutation mutation;
+        final int size;
+        final int entryLocation;
+        final CommitLogDescriptor desc;
+
+        BufferedMutation(Mutation mutation, int size, int entryLocation, CommitLogDescriptor desc)
+        {
+            this.mutation = mutation;
+            this.size = size;
+            this.entryLocation = entryLocation;
+            this.desc = desc;
+        }
+    }
+
+    private static class BufferedError
+    {
+        final CommitLogReadException exception;
+        final boolean unrecoverable;
+        // guarded by the lock of the ReadAheadSegment
+        boolean answered;
+        boolean skip;
+
+        BufferedError(CommitLogReadException exception, boolean unrecoverable)
+        {
+            this.exception = exception;
+            this.unrecoverable = unrecoverable;
+        }
+    }
+
     private static class ReadStatusTracker
     {
         private int mutationsLeft;
@@ -538,6 +823,9 @@ public class CommitLogReader
         public boolean tolerateErrorsInSection;
         private boolean error;
 
+        private final CRC32 checksum = new CRC32();
+        private byte[] buffer = new byte[4096];
+
         public ReadStatusTracker(int mutationLimit, boolean tolerateErrorsInSection)
         {
             this.mutationsLeft = mutationLimit;
@@ -51,6 +51,12 @@ public class CommitLogReplayer implements CommitLogReadHandler
 {
     @VisibleForTesting
     public static long MAX_OUTSTANDING_REPLAY_BYTES = Long.getLong("cassandra.commitlog_max_outstanding_replay_bytes", 1024 * 1024 * 64);
+    /**
+     * The number of segments read concurrently. The mutations read ahead of the ones being applied are bounded by
+     * {@link #MAX_OUTSTANDING_REPLAY_BYTES} too, shared between the readers.
+     */
+    @VisibleForTesting
+    public static int REPLAY_READERS = Integer.getInteger(Config.PROPERTY_PREFIX + "commitlog_replay_readers", FBUtilities.getAvailableProcessors());
     @VisibleForTesting
     public static MutationInitiator mutationInitiator = new MutationInitiator();
     static final String IGNORE_REPLAY_ERRORS_PROPERTY = Config.PROPERTY_PREFIX + "commitlog.ignorereplayerrors";
@@ -134,7 +140,7 @@ public class CommitLogReplayer implements CommitLogReadHandler
 
     public void replayFiles(File[] clogs) throws IOException
     {
-        commitLogReader.readAllFiles(this, clogs, globalPosition);
+        commitLogReader.readAllFiles(this, clogs, globalPosition, REPLAY_READERS, MAX_OUTSTANDING_REPLAY_BYTES);
     }
 
     /**
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.index.Index;
@@ -274,20 +275,27 @@ public abstract class AbstractCompactionStrategy
     {
         return range == null ? getScanners(sstables, (Collection<Range<Token>>)null) : getScanners(sstables, Collections.singleton(range));
     }
+
+    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    {
+        return getScanners(sstables, ranges, OperationType.UNKNOWN);
+    }
+
     /**
-     * Returns a list of KeyScanners given sstables and a range on which to scan.
+     * Returns a list of KeyScanners given sstables and a range on which to scan, for an operation of the given type.
      * The default implementation simply grab one SSTableScanner per-sstable, but overriding this method
      * allow for a more memory efficient solution if we know the sstable don't overlap (see
      * LeveledCompactionStrategy for instance).
      */
     @SuppressWarnings("resource")
-    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, OperationType operationType)
     {
+        boolean dropBehind = DatabaseDescriptor.getDropBehind(operationType);
         ArrayList<ISSTableScanner> scanners = new ArrayList<ISSTableScanner>();
         try
         {
             for (SSTableReader sstable : sstables)
-                scanners.add(sstable.getScanner(ranges, null));
+                scanners.add(sstable.getScanner(ranges, null, dropBehind));
         }
         catch (Throwable t)
         {
@@ -441,27 +449,94 @@ public abstract class AbstractCompactionStrategy
         }
         else
         {
-            // what percentage of columns do we expect to compact outside of overlap?
-            if (sstable.getIndexSummarySize() < 2)
-            {
-                // we have too few samples to estimate correct percentage
-                return false;
-            }
-            // first, calculate estimated keys that do not overlap
-            long keys = sstable.estimatedKeys();
-            Set<Range<Token>> ranges = new HashSet<Range<Token>>(overlaps.size());
-            for (SSTableReader overlap : overlaps)
-                ranges.add(new Range<>(overlap.first.getToken(), overlap.last.getToken()));
-            long remainingKeys = keys - sstable.estimatedKeysForRanges(ranges);
-            // next, calculate what percentage of columns we have within those keys
-            long columns = sstable.getEstimatedColumnCount().mean() * remainingKeys;
-            double remainingColumnsRatio = ((double) columns) / (sstable.getEstimatedColumnCount().count() * sstable.getEstimatedColumnCount().mean());
-
             // return if we still expect to have droppable tombstones in rest of columns
-            return remainingColumnsRatio * droppableRatio > tombstoneThreshold;
+            return nonOverlappingColumnsRatio(sstable, overlaps) * droppableRatio > tombstoneThreshold;
         }
     }
 
+    /**
+     * @return the estimated ratio of the columns of the given sstable that are outside of the key ranges of the
+     * given overlapping sstables, or 0 if it has too few samples to estimate it.
+     */
+    private static double nonOverlappingColumnsRatio(SSTableReader sstable, Collection<SSTableReader> overlaps)
+    {
+        // what percentage of columns do we expect to compact outside of overlap?
+        if (sstable.getIndexSummarySize() < 2)
+        {
+            // we have too few samples to estimate correct percentage
+            return 0;
+        }
+        // first, calculate estimated keys that do not overlap
+        long keys = sstable.estimatedKeys();
+        Set<Range<Token>> ranges = new HashSet<Range<Token>>(overlaps.size());
+        for (SSTableReader overlap : overlaps)
+            ranges.add(new Range<>(overlap.first.getToken(), overlap.last.getToken()));
+        long remainingKeys = keys - sstable.estimatedKeysForRanges(ranges);
+        // next, calculate what percentage of columns we have within those keys
+        long columns = sstable.getEstimatedColumnCount().mean() * remainingKeys;
+        return ((double) columns) / (sstable.getEstimatedColumnCount().count() * sstable.getEstimatedColumnCount().mean());
+    }
+
+    /**
+     * Estimates the bytes that compacting the given sstable on its own would reclaim: all of it if its data is fully
+     * expired, or its droppable tombstones that don't shadow data of older overlapping sstables otherwise.
+     *
+     * @param sstable SSTable to check
+     * @param gcBefore time to drop tombstones
+     * @return the estimated reclaimable bytes, or 0 if the given sstable isn't worth compacting for them, with the
+     * same thresholds as {@link #worthDroppingTombstones(SSTableReader, int)}
+     */
+    public long getReclaimableBytes(SSTableReader sstable, int gcBefore)
+    {
+        if (getMaxReclaimableBytes(sstable, gcBefore) == 0)
+            return 0;
+
+        Collection<SSTableReader> overlaps = uncheckedTombstoneCompaction
+                                             ? Collections.emptySet()
+                                             : CompactionController.getShadowedOverlaps(sstable, cfs.getOverlappingLiveSSTables(Collections.singleton(sstable)));
+        if (!CompactionController.getFullyExpiredSSTables(cfs, Collections.singleton(sstable), overlaps, gcBefore).isEmpty())
+            return sstable.onDiskLength();
+
+        double droppableRatio = sstable.getEstimatedDroppableTombstoneRatio(gcBefore);
+        if (!overlaps.isEmpty())
+            droppableRatio *= nonOverlappingColumnsRatio(sstable, overlaps);
+        return droppableRatio > tombstoneThreshold ? (long) (droppableRatio * sstable.onDiskLength()) : 0;
+    }
+
+    /**
+     * @return an upper bound of {@link #getReclaimableBytes(SSTableReader, int)} from the metadata of the given
+     * sstable only, ignoring the sstables overlapping it.
+     */
+    long getMaxReclaimableBytes(SSTableReader sstable, int gcBefore)
+    {
+        if (disableTombstoneCompactions || CompactionController.NEVER_PURGE_TOMBSTONES)
+            return 0;
+        if (cfs.getCompactionStrategyManager().onlyPurgeRepairedTombstones() && !sstable.isRepaired())
+            return 0;
+        if (System.currentTimeMillis() < sstable.getCreationTimeFor(Component.DATA) + tombstoneCompactionInterval * 1000)
+            return 0;
+        if (sstable.getSSTableMetadata().maxLocalDeletionTime < gcBefore)
+            return sstable.onDiskLength();
+
+        double droppableRatio = sstable.getEstimatedDroppableTombstoneRatio(gcBefore);
+        return droppableRatio > tombstoneThreshold ? (long) (droppableRatio * sstable.onDiskLength()) : 0;
+    }
+
+    /**
+     * @return a task compacting the given sstable on its own to reclaim its expired data and droppable tombstones,
+     * or null if it could not be marked compacting.
+     */
+    @SuppressWarnings("resource")
+    protected AbstractCompactionTask getReclaimTask(SSTableReader sstable, int gcBefore)
+    {
+        LifecycleTransaction txn = cfs.getTracker().tryModify(sstable, OperationType.COMPACTION);
+        if (txn == null)
+            return null;
+        AbstractCompactionTask task = getCompactionTask(txn, gcBefore, getMaxSSTableBytes());
+        task.setCompactionType(OperationType.TOMBSTONE_COMPACTION);
+        return task;
+    }
+
     public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException
     {
         String threshold = options.get(TOMBSTONE_THRESHOLD_OPTION);
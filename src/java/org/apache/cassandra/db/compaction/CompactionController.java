@@ -239,6 +239,23 @@ public class CompactionController implements AutoCloseable
         return getFullyExpiredSSTables(cfStore, compacting, overlapping, gcBefore, false);
     }
 
+    /**
+     * @param sstable the sstable whose tombstones are to be purged
+     * @param overlapping the sstables that overlap it
+     * @return the overlapping sstables that may contain data older than the given sstable, and thus shadowed by its
+     * tombstones: those can't be purged by a compaction that does not include these sstables.
+     */
+    public static Set<SSTableReader> getShadowedOverlaps(SSTableReader sstable, Iterable<SSTableReader> overlapping)
+    {
+        Set<SSTableReader> shadowed = new HashSet<>();
+        for (SSTableReader candidate : overlapping)
+        {
+            if (candidate.getMinTimestamp() <= sstable.getMaxTimestamp())
+                shadowed.add(candidate);
+        }
+        return shadowed;
+    }
+
     public String getKeyspace()
     {
         return cfs.keyspace.getName();
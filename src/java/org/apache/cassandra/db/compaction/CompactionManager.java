@@ -113,6 +113,8 @@ public class CompactionManager implements CompactionManagerMBean
     private final CompactionExecutor executor = new CompactionExecutor();
     private final CompactionExecutor validationExecutor = new ValidationExecutor();
     private final CompactionExecutor cacheCleanupExecutor = new CacheCleanupExecutor();
+    private final CompactionExecutor subrangeExecutor = new SubrangeCompactionExecutor();
+    private final CompactionExecutor validationSubrangeExecutor = new ValidationSubrangeExecutor();
 
     private final CompactionMetrics metrics = new CompactionMetrics(executor, validationExecutor);
     @VisibleForTesting
@@ -209,6 +211,8 @@ public class CompactionManager implements CompactionManagerMBean
         executor.shutdown();
         validationExecutor.shutdown();
         cacheCleanupExecutor.shutdown();
+        subrangeExecutor.shutdown();
+        validationSubrangeExecutor.shutdown();
 
         // interrupt compactions and validations
         for (Holder compactionHolder : CompactionMetrics.getCompactions())
@@ -219,7 +223,7 @@ public class CompactionManager implements CompactionManagerMBean
         // wait for tasks to terminate
         // compaction tasks are interrupted above, so it shuold be fairy quick
         // until not interrupted tasks to complete.
-        for (ExecutorService exec : Arrays.asList(executor, validationExecutor, cacheCleanupExecutor))
+        for (ExecutorService exec : Arrays.asList(executor, validationExecutor, cacheCleanupExecutor, subrangeExecutor, validationSubrangeExecutor))
         {
             try
             {
@@ -1273,7 +1277,7 @@ public class CompactionManager implements CompactionManagerMBean
             @Override
             public ISSTableScanner getScanner(SSTableReader sstable, RateLimiter limiter)
             {
-                return sstable.getScanner(ranges, limiter);
+                return sstable.getScanner(ranges, limiter, DatabaseDescriptor.getDropBehind(OperationType.CLEANUP));
             }
 
             @Override
@@ -1296,7 +1300,7 @@ public class CompactionManager implements CompactionManagerMBean
             @Override
             public ISSTableScanner getScanner(SSTableReader sstable, RateLimiter limiter)
             {
-                return sstable.getScanner(limiter);
+                return sstable.getScanner(null, limiter, DatabaseDescriptor.getDropBehind(OperationType.CLEANUP));
             }
 
             @Override
@@ -1430,19 +1434,31 @@ public class CompactionManager implements CompactionManagerMBean
             // We blindly assume that a partition is evenly distributed on all sstables for now.
             MerkleTrees tree = createMerkleTrees(sstables, validator.desc.ranges, cfs);
             long start = System.nanoTime();
-            try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables, validator.desc.ranges);
-                 ValidationCompactionController controller = new ValidationCompactionController(cfs, gcBefore);
-                 CompactionIterator ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, metrics))
+            try
             {
-                // validate the CF as we iterate over it
                 validator.prepare(cfs, tree);
-                while (ci.hasNext())
+                List<List<Range<Token>>> subranges = validator.subranges(DatabaseDescriptor.getParallelValidationSubranges());
+                if (subranges.size() > 1)
                 {
-                    if (ci.isStopRequested())
-                        throw new CompactionInterruptedException(ci.getCompactionInfo());
-                    try (UnfilteredRowIterator partition = ci.next())
+                    logger.debug("Validating {} in {} parallel subranges", validator.desc, subranges.size());
+                    new ParallelValidation(cfs, validator, sstables, subranges, gcBefore, nowInSec).run();
+                }
+                else
+                {
+                    try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables, validator.desc.ranges, OperationType.VALIDATION);
+                         ValidationCompactionController controller = new ValidationCompactionController(cfs, gcBefore);
+                         CompactionIterator ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, metrics))
                     {
-                        validator.add(partition);
+                        // validate the CF as we iterate over it
+                        while (ci.hasNext())
+                        {
+                            if (ci.isStopRequested())
+                                throw new CompactionInterruptedException(ci.getCompactionInfo());
+                            try (UnfilteredRowIterator partition = ci.next())
+                            {
+                                validator.add(partition);
+                            }
+                        }
                     }
                 }
                 validator.complete();
@@ -1472,6 +1488,115 @@ public class CompactionManager implements CompactionManagerMBean
         }
     }
 
+    /**
+     * A validation split in groups of subtrees of its merkle trees (see {@link Validator#subranges}), each scanned and
+     * hashed by its own thread. The validation thread hashes the first group itself and the others run on the
+     * ValidationSubrangeExecutor, which bounds the number of extra threads used by all the validations of this node.
+     */
+    private class ParallelValidation
+    {
+        private final ColumnFamilyStore cfs;
+        private final Validator validator;
+        private final Collection<SSTableReader> sstables;
+        private final List<Subrange> subranges = new ArrayList<>();
+        private final int gcBefore;
+        private final int nowInSec;
+        private volatile boolean stopRequested;
+
+        ParallelValidation(ColumnFamilyStore cfs, Validator validator, Collection<SSTableReader> sstables, List<List<Range<Token>>> ranges, int gcBefore, int nowInSec)
+        {
+            this.cfs = cfs;
+            this.validator = validator;
+            this.sstables = sstables;
+            this.gcBefore = gcBefore;
+            this.nowInSec = nowInSec;
+            for (List<Range<Token>> subrange : ranges)
+                subranges.add(new Subrange(subrange));
+        }
+
+        void run() throws IOException
+        {
+            Throwable fail = null;
+            List<Future<Void>> futures = new ArrayList<>(subranges.size() - 1);
+            for (Subrange subrange : subranges.subList(1, subranges.size()))
+                futures.add(validationSubrangeExecutor.submit(subrange));
+            try
+            {
+                subranges.get(0).call();
+            }
+            catch (Throwable t)
+            {
+                fail = t;
+            }
+            // a failed sub-range has stopped the others already, so they are only waited for to not outlive the validation
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    fail = Throwables.merge(fail, e.getCause());
+                }
+                catch (Throwable t)
+                {
+                    fail = Throwables.merge(fail, t);
+                    stop();
+                }
+            }
+            Throwables.maybeFail(fail, IOException.class);
+        }
+
+        private void stop()
+        {
+            stopRequested = true;
+            for (Subrange subrange : subranges)
+            {
+                CompactionIterator ci = subrange.ci;
+                if (ci != null)
+                    ci.stop();
+            }
+        }
+
+        private class Subrange implements Callable<Void>
+        {
+            private final Collection<Range<Token>> ranges;
+            private volatile CompactionIterator ci;
+
+            Subrange(Collection<Range<Token>> ranges)
+            {
+                this.ranges = ranges;
+            }
+
+            public Void call() throws Exception
+            {
+                try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables, ranges, OperationType.VALIDATION);
+                     ValidationCompactionController controller = new ValidationCompactionController(cfs, gcBefore);
+                     CompactionIterator ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, metrics))
+                {
+                    this.ci = ci;
+                    while (ci.hasNext())
+                    {
+                        if (ci.isStopRequested() || stopRequested)
+                            throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        try (UnfilteredRowIterator partition = ci.next())
+                        {
+                            validator.addUnordered(partition);
+                        }
+                    }
+                }
+                catch (Throwable t)
+                {
+                    // stop the other sub-ranges as soon as one fails, whichever thread runs them
+                    stop();
+                    throw t;
+                }
+                return null;
+            }
+        }
+    }
+
     private static MerkleTrees createMerkleTrees(Iterable<SSTableReader> sstables, Collection<Range<Token>> ranges, ColumnFamilyStore cfs)
     {
         MerkleTrees tree = new MerkleTrees(cfs.getPartitioner());
@@ -1640,7 +1765,7 @@ public class CompactionManager implements CompactionManagerMBean
         try (SharedTxn sharedTxn = new SharedTxn(anticompactionGroup);
              SSTableRewriter repairedSSTableWriter = SSTableRewriter.constructWithoutEarlyOpening(sharedTxn, false, groupMaxDataAge);
              SSTableRewriter unRepairedSSTableWriter = SSTableRewriter.constructWithoutEarlyOpening(sharedTxn, false, groupMaxDataAge);
-             AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(anticompactionGroup.originals());
+             AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(anticompactionGroup.originals(), OperationType.ANTICOMPACTION);
              CompactionController controller = new CompactionController(cfs, sstableAsSet, getDefaultGcBefore(cfs, nowInSec));
              CompactionIterator ci = new CompactionIterator(OperationType.ANTICOMPACTION, scanners.scanners, controller, nowInSec, UUIDGen.getTimeUUID(), metrics))
         {
@@ -1954,6 +2079,37 @@ public class CompactionManager implements CompactionManagerMBean
         }
     }
 
+    /**
+     * Runs the token sub-ranges of parallel compactions, but the first one that the compaction thread runs itself.
+     */
+    private static class SubrangeCompactionExecutor extends CompactionExecutor
+    {
+        public SubrangeCompactionExecutor()
+        {
+            super(Math.max(1, DatabaseDescriptor.getConcurrentCompactors() * (DatabaseDescriptor.getParallelCompactionSubranges() - 1)),
+                  "CompactionSubrangeExecutor");
+        }
+    }
+
+    /**
+     * Runs the groups of merkle subtrees of parallel validations, but the first one that the validation thread runs itself.
+     */
+    private static class ValidationSubrangeExecutor extends CompactionExecutor
+    {
+        public ValidationSubrangeExecutor()
+        {
+            super(Math.max(1, DatabaseDescriptor.getParallelValidationSubranges() - 1), "ValidationSubrangeExecutor");
+        }
+    }
+
+    /**
+     * Submits the compaction of a token sub-range of a parallel compaction (see {@link CompactionTask}).
+     */
+    <T> Future<T> submitSubrange(Callable<T> subrange)
+    {
+        return subrangeExecutor.submit(subrange);
+    }
+
     public interface CompactionExecutorStatsCollector
     {
         void beginCompaction(CompactionInfo.Holder ci);
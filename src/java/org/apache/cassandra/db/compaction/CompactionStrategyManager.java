@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.DiskBoundaries;
@@ -74,6 +75,7 @@ public class CompactionStrategyManager implements INotificationConsumer
 {
     private static final Logger logger = LoggerFactory.getLogger(CompactionStrategyManager.class);
     public final CompactionLogger compactionLogger;
+    private final ReclaimingCompactionScheduler reclaimingScheduler;
     private final ColumnFamilyStore cfs;
     private final boolean partitionSSTablesByTokenRange;
     private final Supplier<DiskBoundaries> boundariesSupplier;
@@ -121,6 +123,7 @@ public class CompactionStrategyManager implements INotificationConsumer
         logger.trace("{} subscribed to the data tracker.", this);
         this.cfs = cfs;
         this.compactionLogger = new CompactionLogger(cfs, this);
+        this.reclaimingScheduler = new ReclaimingCompactionScheduler(cfs, this);
         this.boundariesSupplier = boundariesSupplier;
         this.partitionSSTablesByTokenRange = partitionSSTablesByTokenRange;
         params = cfs.metadata.params.compaction;
@@ -143,6 +146,13 @@ public class CompactionStrategyManager implements INotificationConsumer
             if (!isEnabled())
                 return null;
 
+            if (DatabaseDescriptor.getPrioritizeReclaimableCompactions())
+            {
+                AbstractCompactionTask task = reclaimingScheduler.getNextBackgroundTask(gcBefore);
+                if (task != null)
+                    return task;
+            }
+
             List<AbstractCompactionStrategy> strategies = new ArrayList<>();
 
             strategies.addAll(repaired);
@@ -688,6 +698,21 @@ public class CompactionStrategyManager implements INotificationConsumer
      */
     @SuppressWarnings("resource")
     public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables,  Collection<Range<Token>> ranges)
+    {
+        return getScanners(sstables, ranges, OperationType.UNKNOWN);
+    }
+
+    /**
+     * Create ISSTableScanners from the given sstables, for an operation of the given type
+     *
+     * Delegates the call to the compaction strategies to allow LCS to create a scanner
+     * @param sstables
+     * @param ranges
+     * @param operationType
+     * @return
+     */
+    @SuppressWarnings("resource")
+    public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, OperationType operationType)
     {
         maybeReloadDiskBoundaries();
         readLock.lock();
@@ -715,12 +740,12 @@ public class CompactionStrategyManager implements INotificationConsumer
             for (int i = 0; i < repairedSSTables.size(); i++)
             {
                 if (!repairedSSTables.get(i).isEmpty())
-                    scanners.addAll(repaired.get(i).getScanners(repairedSSTables.get(i), ranges).scanners);
+                    scanners.addAll(repaired.get(i).getScanners(repairedSSTables.get(i), ranges, operationType).scanners);
             }
             for (int i = 0; i < unrepairedSSTables.size(); i++)
             {
                 if (!unrepairedSSTables.get(i).isEmpty())
-                    scanners.addAll(unrepaired.get(i).getScanners(unrepairedSSTables.get(i), ranges).scanners);
+                    scanners.addAll(unrepaired.get(i).getScanners(unrepairedSSTables.get(i), ranges, operationType).scanners);
             }
 
             return new AbstractCompactionStrategy.ScannerList(scanners);
@@ -733,7 +758,12 @@ public class CompactionStrategyManager implements INotificationConsumer
 
     public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables)
     {
-        return getScanners(sstables, null);
+        return getScanners(sstables, (Collection<Range<Token>>) null);
+    }
+
+    public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables, OperationType operationType)
+    {
+        return getScanners(sstables, null, operationType);
     }
 
     public Collection<Collection<SSTableReader>> groupSSTablesForAntiCompaction(Collection<SSTableReader> sstablesToGroup)
@@ -925,6 +955,38 @@ public class CompactionStrategyManager implements INotificationConsumer
         return tasks;
     }
 
+    /**
+     * @return the write amplification estimated by the unified compaction strategies of the table, averaged by the
+     * size of their data, or NaN if the table doesn't use that strategy
+     */
+    public double getEstimatedWriteAmplification()
+    {
+        readLock.lock();
+        try
+        {
+            double writeAmplification = 0;
+            long bytes = 0;
+            boolean estimated = false;
+            for (AbstractCompactionStrategy strategy : Iterables.concat(repaired, unrepaired))
+            {
+                if (!(strategy instanceof UnifiedCompactionStrategy))
+                    continue;
+                UnifiedCompactionStrategy unified = (UnifiedCompactionStrategy) strategy;
+                long strategyBytes = unified.getTotalBytes();
+                writeAmplification += unified.getEstimatedWriteAmplification() * strategyBytes;
+                bytes += strategyBytes;
+                estimated = true;
+            }
+            if (!estimated)
+                return Double.NaN;
+            return bytes == 0 ? 0 : writeAmplification / bytes;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
     public boolean shouldBeEnabled()
     {
         return params.isEnabled();
@@ -17,19 +17,28 @@
  */
 package org.apache.cassandra.db.compaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.RateLimiter;
 
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Directories;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.DefaultCompactionWriter;
@@ -43,9 +52,14 @@ import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.compaction.CompactionManager.CompactionExecutorStatsCollector;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.lifecycle.PartialLifecycleTransaction;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.concurrent.Refs;
 
 public class CompactionTask extends AbstractCompactionTask
@@ -172,64 +186,84 @@ public class CompactionTask extends AbstractCompactionTask
             // to both ifile and dfile and SSTR will throw deletion errors on Windows if it tries to delete before scanner is closed.
             // See CASSANDRA-8019 and CASSANDRA-8399
             int nowInSec = FBUtilities.nowInSeconds();
-            try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
-                 AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
-                 CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+            // before creating the writers, which compress with the last trained dictionary
+            cfs.getCompressionDictionaryTrainer().maybeTrain(actuallyCompact);
+            List<Range<Token>> subranges = getParallelSubranges(actuallyCompact);
+            if (!subranges.isEmpty())
             {
-                long lastCheckObsoletion = start;
-                inputSizeBytes = scanners.getTotalCompressedSize();
-                double compressionRatio = scanners.getCompressionRatio();
-                if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
-                    compressionRatio = 1.0;
+                logger.debug("Compacting ({}) in {} token sub-ranges concurrently", taskId, subranges.size());
+                try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact))
+                {
+                    ParallelCompaction compaction = new ParallelCompaction(strategy, actuallyCompact, subranges, nowInSec, taskId);
+                    newSStables = compaction.run();
+                    inputSizeBytes = SSTableReader.getTotalBytes(actuallyCompact);
+                    estimatedKeys = compaction.estimatedKeys;
+                    totalKeysWritten = compaction.keysWritten;
+                    mergedRowCounts = compaction.mergedRowCounts;
+                    totalSourceCQLRows = compaction.sourceCQLRows;
+                }
+            }
+            else
+            {
+                try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
+                     AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact, compactionType);
+                     CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+                {
+                    long lastCheckObsoletion = start;
+                    inputSizeBytes = scanners.getTotalCompressedSize();
+                    double compressionRatio = scanners.getCompressionRatio();
+                    if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+                        compressionRatio = 1.0;
 
-                long lastBytesScanned = 0;
+                    long lastBytesScanned = 0;
 
-                if (collector != null)
-                    collector.beginCompaction(ci);
+                    if (collector != null)
+                        collector.beginCompaction(ci);
 
-                try (CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
-                {
-                    // Note that we need to re-check this flag after calling beginCompaction above to avoid a window
-                    // where the compaction does not exist in activeCompactions but the CSM gets paused.
-                    // We already have the sstables marked compacting here so CompactionManager#waitForCessation will
-                    // block until the below exception is thrown and the transaction is cancelled.
-                    if (!controller.cfs.getCompactionStrategyManager().isActive())
-                        throw new CompactionInterruptedException(ci.getCompactionInfo());
-                    estimatedKeys = writer.estimatedKeys();
-                    while (ci.hasNext())
+                    try (CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
                     {
-                        if (ci.isStopRequested())
+                        // Note that we need to re-check this flag after calling beginCompaction above to avoid a window
+                        // where the compaction does not exist in activeCompactions but the CSM gets paused.
+                        // We already have the sstables marked compacting here so CompactionManager#waitForCessation will
+                        // block until the below exception is thrown and the transaction is cancelled.
+                        if (!controller.cfs.getCompactionStrategyManager().isActive())
                             throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        estimatedKeys = writer.estimatedKeys();
+                        while (ci.hasNext())
+                        {
+                            if (ci.isStopRequested())
+                                throw new CompactionInterruptedException(ci.getCompactionInfo());
 
-                        if (writer.append(ci.next()))
-                            totalKeysWritten++;
+                            if (writer.append(ci.next()))
+                                totalKeysWritten++;
 
 
-                        long bytesScanned = scanners.getTotalBytesScanned();
+                            long bytesScanned = scanners.getTotalBytesScanned();
 
-                        //Rate limit the scanners, and account for compression
-                        CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+                            //Rate limit the scanners, and account for compression
+                            CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
 
-                        lastBytesScanned = bytesScanned;
+                            lastBytesScanned = bytesScanned;
 
-                        if (System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
-                        {
-                            controller.maybeRefreshOverlaps();
-                            lastCheckObsoletion = System.nanoTime();
+                            if (System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
+                            {
+                                controller.maybeRefreshOverlaps();
+                                lastCheckObsoletion = System.nanoTime();
+                            }
                         }
-                    }
 
-                    // point of no return
-                    newSStables = writer.finish();
-                }
-                finally
-                {
-                    if (collector != null)
-                        collector.finishCompaction(ci);
+                        // point of no return
+                        newSStables = writer.finish();
+                    }
+                    finally
+                    {
+                        if (collector != null)
+                            collector.finishCompaction(ci);
 
-                    mergedRowCounts = ci.getMergedRowCounts();
+                        mergedRowCounts = ci.getMergedRowCounts();
 
-                    totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                        totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                    }
                 }
             }
 
@@ -280,6 +314,288 @@ public class CompactionTask extends AbstractCompactionTask
         }
     }
 
+    /**
+     * The token sub-ranges to compact concurrently, or an empty list if the compaction should run on a single thread.
+     *
+     * Only background compactions of inputs larger than parallel_compaction_min_size_in_mb are split, in ranges
+     * covering equal shares of the span of the input tokens if the partitioner can split it, and else equal shares
+     * of the index summary samples of the inputs.
+     */
+    @VisibleForTesting
+    List<Range<Token>> getParallelSubranges(Set<SSTableReader> sstables)
+    {
+        int parts = DatabaseDescriptor.getParallelCompactionSubranges();
+        if (parts <= 1
+            || isUserDefined
+            || compactionType != OperationType.COMPACTION
+            || !supportsParallelSubranges()
+            || transaction.isOffline()
+            || SSTableReader.getTotalBytes(sstables) < DatabaseDescriptor.getParallelCompactionMinSize())
+            return Collections.emptyList();
+
+        IPartitioner partitioner = cfs.getPartitioner();
+        Token minimum = partitioner.getMinimumToken();
+        List<Token> boundaries = new ArrayList<>(parts - 1);
+        if (partitioner.splitter().isPresent())
+        {
+            Token first = null;
+            Token last = null;
+            for (SSTableReader sstable : sstables)
+            {
+                first = first == null || sstable.first.getToken().compareTo(first) < 0 ? sstable.first.getToken() : first;
+                last = last == null || sstable.last.getToken().compareTo(last) > 0 ? sstable.last.getToken() : last;
+            }
+            List<Token> split = partitioner.splitter().get().splitOwnedRanges(parts, Collections.singletonList(new Range<>(first, last)), false);
+            // the last boundary is the end of the ring
+            boundaries.addAll(split.subList(0, split.size() - 1));
+        }
+        else
+        {
+            List<Token> samples = new ArrayList<>();
+            for (SSTableReader sstable : sstables)
+                for (DecoratedKey key : sstable.getKeySamples(new Range<>(minimum, minimum)))
+                    samples.add(key.getToken());
+            Collections.sort(samples);
+            for (int i = 1; i < parts && !samples.isEmpty(); i++)
+            {
+                Token boundary = samples.get(i * samples.size() / parts);
+                if (boundaries.isEmpty() || boundary.compareTo(boundaries.get(boundaries.size() - 1)) > 0)
+                    boundaries.add(boundary);
+            }
+        }
+
+        if (boundaries.isEmpty())
+            return Collections.emptyList();
+
+        List<Range<Token>> subranges = new ArrayList<>(boundaries.size() + 1);
+        Token left = minimum;
+        for (Token boundary : boundaries)
+        {
+            subranges.add(new Range<>(left, boundary));
+            left = boundary;
+        }
+        subranges.add(new Range<>(left, minimum));
+        return subranges;
+    }
+
+    /**
+     * Whether the compaction can be split in token sub-ranges written concurrently, which tasks whose writer lays out
+     * its output according to the whole set of keys (e.g. splitting it in sstables of decreasing sizes) don't support.
+     */
+    protected boolean supportsParallelSubranges()
+    {
+        return true;
+    }
+
+    /**
+     * The writer for the given share of a compaction split in token sub-ranges.
+     */
+    protected CompactionAwareWriter getSubrangeCompactionAwareWriter(ColumnFamilyStore cfs,
+                                                                     Directories directories,
+                                                                     PartialLifecycleTransaction txn,
+                                                                     Set<SSTableReader> nonExpiredSSTables)
+    {
+        return new DefaultCompactionWriter(cfs, directories, txn, nonExpiredSSTables, keepOriginals, getLevel());
+    }
+
+    /**
+     * A compaction split in disjoint token sub-ranges, each compacted by its own thread into its own writer. The
+     * writers share the transaction of the task through {@link PartialLifecycleTransaction}, and their results replace
+     * the inputs all together once they have all been written, as a single compaction would.
+     */
+    private class ParallelCompaction
+    {
+        private final CompactionStrategyManager strategy;
+        private final Set<SSTableReader> actuallyCompact;
+        private final List<Subrange> subranges = new ArrayList<>();
+        private final int nowInSec;
+        private final UUID taskId;
+        private volatile boolean stopRequested;
+
+        long estimatedKeys;
+        long keysWritten;
+        long[] mergedRowCounts = new long[0];
+        long sourceCQLRows;
+
+        ParallelCompaction(CompactionStrategyManager strategy, Set<SSTableReader> actuallyCompact, List<Range<Token>> ranges, int nowInSec, UUID taskId)
+        {
+            this.strategy = strategy;
+            this.actuallyCompact = actuallyCompact;
+            this.nowInSec = nowInSec;
+            this.taskId = taskId;
+            for (Range<Token> range : ranges)
+                subranges.add(new Subrange(range));
+        }
+
+        Collection<SSTableReader> run() throws Exception
+        {
+            Throwable fail = null;
+            try
+            {
+                // the compaction thread compacts the first sub-range itself
+                List<Future<Void>> futures = new ArrayList<>(subranges.size() - 1);
+                for (Subrange subrange : subranges.subList(1, subranges.size()))
+                    futures.add(CompactionManager.instance.submitSubrange(subrange));
+                try
+                {
+                    subranges.get(0).call();
+                }
+                catch (Throwable t)
+                {
+                    fail = t;
+                }
+                // a failed sub-range has stopped the others already, so they are only waited for to not outlive the task
+                for (Future<Void> future : futures)
+                {
+                    try
+                    {
+                        future.get();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        fail = Throwables.merge(fail, e.getCause());
+                    }
+                    catch (Throwable t)
+                    {
+                        fail = Throwables.merge(fail, t);
+                        stop();
+                    }
+                }
+                Throwables.maybeFail(fail, Exception.class);
+
+                // all written: replace the originals in one go, as anticompaction does with its two writers
+                for (Subrange subrange : subranges)
+                    subrange.writer.prepareToCommit();
+                transaction.checkpoint();
+                if (!keepOriginals)
+                    transaction.obsoleteOriginals();
+                transaction.prepareToCommit();
+
+                List<SSTableReader> newSSTables = new ArrayList<>();
+                for (Subrange subrange : subranges)
+                    newSSTables.addAll(subrange.writer.finished());
+                for (Subrange subrange : subranges)
+                    subrange.writer.commit();
+                Throwables.maybeFail(transaction.commit(null));
+
+                for (Subrange subrange : subranges)
+                {
+                    estimatedKeys += subrange.writer.estimatedKeys();
+                    keysWritten += subrange.keysWritten;
+                    sourceCQLRows += subrange.sourceCQLRows;
+                    if (subrange.mergedRowCounts.length > mergedRowCounts.length)
+                        mergedRowCounts = Arrays.copyOf(mergedRowCounts, subrange.mergedRowCounts.length);
+                    for (int i = 0; i < subrange.mergedRowCounts.length; i++)
+                        mergedRowCounts[i] += subrange.mergedRowCounts[i];
+                }
+                return newSSTables;
+            }
+            finally
+            {
+                // aborts the writers of a failed compaction, the transaction being aborted by the task
+                Throwable t = null;
+                for (Subrange subrange : subranges)
+                    if (subrange.writer != null)
+                        t = Throwables.close(t, Collections.singleton(subrange.writer));
+                Throwables.maybeFail(t);
+            }
+        }
+
+        private void stop()
+        {
+            stopRequested = true;
+            for (Subrange subrange : subranges)
+            {
+                CompactionIterator ci = subrange.ci;
+                if (ci != null)
+                    ci.stop();
+            }
+        }
+
+        private class Subrange implements Callable<Void>
+        {
+            private final Range<Token> range;
+            private volatile CompactionIterator ci;
+
+            volatile CompactionAwareWriter writer;
+            long keysWritten;
+            long[] mergedRowCounts = new long[0];
+            long sourceCQLRows;
+
+            Subrange(Range<Token> range)
+            {
+                this.range = range;
+            }
+
+            public Void call() throws Exception
+            {
+                RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+                try (CompactionController controller = getCompactionController(transaction.originals());
+                     AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact, Collections.singleton(range), compactionType);
+                     CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+                {
+                    this.ci = ci;
+                    long lastCheckObsoletion = System.nanoTime();
+                    double compressionRatio = scanners.getCompressionRatio();
+                    if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+                        compressionRatio = 1.0;
+
+                    long lastBytesScanned = 0;
+
+                    if (collector != null)
+                        collector.beginCompaction(ci);
+
+                    try
+                    {
+                        writer = getSubrangeCompactionAwareWriter(cfs, getDirectories(), new PartialLifecycleTransaction(transaction, Collections.singleton(range)), actuallyCompact);
+                        if (!controller.cfs.getCompactionStrategyManager().isActive())
+                            throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        while (ci.hasNext())
+                        {
+                            if (ci.isStopRequested() || stopRequested)
+                                throw new CompactionInterruptedException(ci.getCompactionInfo());
+
+                            if (writer.append(ci.next()))
+                                keysWritten++;
+
+                            long bytesScanned = scanners.getTotalBytesScanned();
+                            CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+                            lastBytesScanned = bytesScanned;
+
+                            if (System.nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
+                            {
+                                controller.maybeRefreshOverlaps();
+                                lastCheckObsoletion = System.nanoTime();
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        if (collector != null)
+                            collector.finishCompaction(ci);
+
+                        mergedRowCounts = ci.getMergedRowCounts();
+                        sourceCQLRows = ci.getTotalSourceCQLRows();
+                    }
+                }
+                catch (Throwable t)
+                {
+                    // stop the other sub-ranges as soon as one fails, whichever thread runs them, and discard what
+                    // this one wrote through its share of the transaction right away
+                    stop();
+                    if (writer != null)
+                    {
+                        Throwable abortFailure = writer.abort(null);
+                        if (abortFailure != null)
+                            t.addSuppressed(abortFailure);
+                    }
+                    throw t;
+                }
+                return null;
+            }
+        }
+    }
+
     @Override
     public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
                                                           Directories directories,
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.io.compress.ZstdCompressor;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.schema.CompressionParams;
+
+/**
+ * Trains the compression dictionaries of a table whose compressor uses them (see {@link CompressionParams#usesDictionary}),
+ * from chunks sampled in the sstables being compacted.
+ * <p>
+ * The sstables written for the table, by flushes and compactions alike, use the last trained dictionary, which is
+ * stored with each of them so that they can be read independently of later trainings. A new dictionary is trained
+ * when there is none yet, when the configured dictionary size changes, or when the current one is older than
+ * {@code cassandra.compression_dictionary_retrain_interval_ms} (one day by default), so that it follows the data.
+ */
+public class CompressionDictionaryTrainer
+{
+    private static final Logger logger = LoggerFactory.getLogger(CompressionDictionaryTrainer.class);
+
+    private static final long RETRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("cassandra.compression_dictionary_retrain_interval_ms",
+                                                                                                  TimeUnit.DAYS.toMillis(1)));
+
+    // Zstandard recommends training on about a hundred times the size of the dictionary
+    private static final int SAMPLE_SIZE_RATIO = 100;
+
+    private final ColumnFamilyStore cfs;
+    private final AtomicBoolean training = new AtomicBoolean();
+
+    private volatile byte[] dictionary;
+    private volatile int dictionarySize;
+    private volatile long trainedAtNanos;
+
+    public CompressionDictionaryTrainer(ColumnFamilyStore cfs)
+    {
+        this.cfs = cfs;
+    }
+
+    /**
+     * The dictionary to compress new sstables with, or {@code null} if none has been trained yet.
+     */
+    public byte[] dictionary()
+    {
+        return cfs.metadata.params.compression.usesDictionary() ? dictionary : null;
+    }
+
+    /**
+     * Trains a new dictionary from the provided sstables if the table uses dictionaries and its current one, if any,
+     * is due for replacement. Does nothing if another compaction of the table is already training one.
+     */
+    public void maybeTrain(Collection<SSTableReader> sstables)
+    {
+        CompressionParams params = cfs.metadata.params.compression;
+        if (!params.usesDictionary())
+            return;
+
+        int size = ((ZstdCompressor) params.getSstableCompressor()).dictionarySize();
+        if (dictionary != null && dictionarySize == size && System.nanoTime() - trainedAtNanos < RETRAIN_INTERVAL_NANOS)
+            return;
+
+        if (!training.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            long start = System.nanoTime();
+            byte[] trained = train(sstables, params.chunkLength(), size, ThreadLocalRandom.current());
+            dictionary = trained;
+            dictionarySize = size;
+            trainedAtNanos = System.nanoTime();
+            logger.debug("Trained a compression dictionary of {} bytes for {}.{} in {}ms",
+                         trained.length, cfs.keyspace.getName(), cfs.name, TimeUnit.NANOSECONDS.toMillis(trainedAtNanos - start));
+        }
+        catch (IOException e)
+        {
+            // typically, there isn't enough data yet: keep the current dictionary, if any, and try again later
+            logger.debug("Could not train a compression dictionary for {}.{}: {}", cfs.keyspace.getName(), cfs.name, e.getMessage());
+        }
+        finally
+        {
+            training.set(false);
+        }
+    }
+
+    /**
+     * Trains a dictionary of at most {@code dictionarySize} bytes from chunks of {@code chunkLength} bytes of
+     * uncompressed data, sampled at random from the provided sstables in proportion to their size.
+     */
+    @VisibleForTesting
+    static byte[] train(Collection<SSTableReader> sstables, int chunkLength, int dictionarySize, Random random) throws IOException
+    {
+        long totalLength = 0;
+        for (SSTableReader sstable : sstables)
+            totalLength += sstable.uncompressedLength();
+        if (totalLength == 0)
+            throw new IOException("No data to sample");
+
+        long sampleCount = Math.max(1, (long) SAMPLE_SIZE_RATIO * dictionarySize / chunkLength);
+        List<byte[]> samples = new ArrayList<>();
+        for (SSTableReader sstable : sstables)
+        {
+            long length = sstable.uncompressedLength();
+            long chunks = (length + chunkLength - 1) / chunkLength;
+            long count = Math.min(chunks, (sampleCount * length + totalLength - 1) / totalLength);
+            if (count == 0)
+                continue;
+
+            try (RandomAccessReader reader = sstable.openDataReader())
+            {
+                for (long i = 0; i < count; i++)
+                {
+                    // whole chunks, as they are compressed
+                    long position = (count == chunks ? i : (long) (random.nextDouble() * chunks)) * chunkLength;
+                    byte[] sample = new byte[(int) Math.min(chunkLength, length - position)];
+                    reader.seek(position);
+                    reader.readFully(sample);
+                    samples.add(sample);
+                }
+            }
+        }
+        return ZstdCompressor.trainDictionary(samples, dictionarySize);
+    }
+}
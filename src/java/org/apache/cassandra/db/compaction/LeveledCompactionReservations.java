@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cassandra.dht.Bounds;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+/**
+ * The token spans that the running compactions of a {@link LeveledManifest} write to, by target level.
+ *
+ * A compaction into a level can write sstables anywhere between the first and last keys of its inputs, so another
+ * compaction into the same level may only start if its own span does not intersect any of them, or the level would
+ * end up with overlapping sstables. Compactions into a level over disjoint spans can run concurrently.
+ *
+ * A reservation lasts as long as its inputs are marked compacting, so that it does not need to be released
+ * explicitly when its compaction completes or is aborted. Not thread-safe: accessed under the manifest lock.
+ */
+class LeveledCompactionReservations
+{
+    private final List<Reservation> reservations = new ArrayList<>();
+
+    void reserve(Collection<SSTableReader> inputs, int level)
+    {
+        reservations.add(new Reservation(inputs, level));
+    }
+
+    /**
+     * Drops the reservations of the compactions that are not running anymore, given the sstables marked compacting.
+     */
+    void purge(Set<SSTableReader> compacting)
+    {
+        Iterator<Reservation> iter = reservations.iterator();
+        while (iter.hasNext())
+        {
+            if (!compacting.containsAll(iter.next().inputs))
+                iter.remove();
+        }
+    }
+
+    /**
+     * @return whether the given sstable is an input of a reserved compaction.
+     */
+    boolean isReserved(SSTableReader sstable)
+    {
+        for (Reservation reservation : reservations)
+        {
+            if (reservation.inputs.contains(sstable))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the token spans reserved by the compactions into the given level.
+     */
+    List<Bounds<Token>> spans(int level)
+    {
+        List<Bounds<Token>> spans = new ArrayList<>();
+        for (Reservation reservation : reservations)
+        {
+            if (reservation.level == level)
+                spans.add(reservation.span);
+        }
+        return spans;
+    }
+
+    /**
+     * @return whether a compaction of the given sstables into the given level would write to a reserved span.
+     */
+    boolean intersects(int level, Collection<SSTableReader> sstables)
+    {
+        Bounds<Token> span = span(sstables);
+        for (Reservation reservation : reservations)
+        {
+            if (reservation.level == level && reservation.span.intersects(span))
+                return true;
+        }
+        return false;
+    }
+
+    int size()
+    {
+        return reservations.size();
+    }
+
+    private static Bounds<Token> span(Collection<SSTableReader> sstables)
+    {
+        assert !sstables.isEmpty();
+        Token first = null;
+        Token last = null;
+        for (SSTableReader sstable : sstables)
+        {
+            if (first == null || sstable.first.getToken().compareTo(first) < 0)
+                first = sstable.first.getToken();
+            if (last == null || sstable.last.getToken().compareTo(last) > 0)
+                last = sstable.last.getToken();
+        }
+        return new Bounds<>(first, last);
+    }
+
+    private static class Reservation
+    {
+        private final Set<SSTableReader> inputs;
+        private final Bounds<Token> span;
+        private final int level;
+
+        private Reservation(Collection<SSTableReader> inputs, int level)
+        {
+            this.inputs = new HashSet<>(inputs);
+            this.span = span(inputs);
+            this.level = level;
+        }
+    }
+}
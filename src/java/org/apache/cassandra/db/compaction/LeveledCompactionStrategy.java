@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
@@ -114,47 +115,53 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
     public AbstractCompactionTask getNextBackgroundTask(int gcBefore)
     {
         Collection<SSTableReader> previousCandidate = null;
-        while (true)
+        // choose the candidates and mark them compacting atomically, so that the next candidates are chosen
+        // knowing the token spans these ones will write to
+        synchronized (manifest)
         {
-            OperationType op;
-            LeveledManifest.CompactionCandidate candidate = manifest.getCompactionCandidates();
-            if (candidate == null)
+            while (true)
             {
-                // if there is no sstable to compact in standard way, try compacting based on droppable tombstone ratio
-                SSTableReader sstable = findDroppableSSTable(gcBefore);
-                if (sstable == null)
+                OperationType op;
+                LeveledManifest.CompactionCandidate candidate = manifest.getCompactionCandidates();
+                if (candidate == null)
                 {
-                    logger.trace("No compaction necessary for {}", this);
-                    return null;
+                    // if there is no sstable to compact in standard way, try compacting based on droppable tombstone ratio
+                    SSTableReader sstable = findDroppableSSTable(gcBefore);
+                    if (sstable == null)
+                    {
+                        logger.trace("No compaction necessary for {}", this);
+                        return null;
+                    }
+                    candidate = new LeveledManifest.CompactionCandidate(Collections.singleton(sstable),
+                                                                        sstable.getSSTableLevel(),
+                                                                        getMaxSSTableBytes());
+                    op = OperationType.TOMBSTONE_COMPACTION;
+                }
+                else
+                {
+                    op = OperationType.COMPACTION;
                 }
-                candidate = new LeveledManifest.CompactionCandidate(Collections.singleton(sstable),
-                                                                    sstable.getSSTableLevel(),
-                                                                    getMaxSSTableBytes());
-                op = OperationType.TOMBSTONE_COMPACTION;
-            }
-            else
-            {
-                op = OperationType.COMPACTION;
-            }
 
-            // Already tried acquiring references without success. It means there is a race with
-            // the tracker but candidate SSTables were not yet replaced in the compaction strategy manager
-            if (candidate.sstables.equals(previousCandidate))
-            {
-                logger.warn("Could not acquire references for compacting SSTables {} which is not a problem per se," +
-                            "unless it happens frequently, in which case it must be reported. Will retry later.",
-                            candidate.sstables);
-                return null;
-            }
+                // Already tried acquiring references without success. It means there is a race with
+                // the tracker but candidate SSTables were not yet replaced in the compaction strategy manager
+                if (candidate.sstables.equals(previousCandidate))
+                {
+                    logger.warn("Could not acquire references for compacting SSTables {} which is not a problem per se," +
+                                "unless it happens frequently, in which case it must be reported. Will retry later.",
+                                candidate.sstables);
+                    return null;
+                }
 
-            LifecycleTransaction txn = cfs.getTracker().tryModify(candidate.sstables, OperationType.COMPACTION);
-            if (txn != null)
-            {
-                LeveledCompactionTask newTask = new LeveledCompactionTask(cfs, txn, candidate.level, gcBefore, candidate.maxSSTableBytes, false);
-                newTask.setCompactionType(op);
-                return newTask;
+                LifecycleTransaction txn = cfs.getTracker().tryModify(candidate.sstables, OperationType.COMPACTION);
+                if (txn != null)
+                {
+                    manifest.reserve(candidate);
+                    LeveledCompactionTask newTask = new LeveledCompactionTask(cfs, txn, candidate.level, gcBefore, candidate.maxSSTableBytes, false);
+                    newTask.setCompactionType(op);
+                    return newTask;
+                }
+                previousCandidate = candidate.sstables;
             }
-            previousCandidate = candidate.sstables;
         }
     }
 
@@ -191,6 +198,19 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
         return new LeveledCompactionTask(cfs, transaction, level, gcBefore, level == 0 ? Long.MAX_VALUE : getMaxSSTableBytes(), false);
     }
 
+    @Override
+    protected AbstractCompactionTask getReclaimTask(SSTableReader sstable, int gcBefore)
+    {
+        // the sstable is compacted within its level, which must be reserved like for the other background tasks
+        synchronized (manifest)
+        {
+            AbstractCompactionTask task = super.getReclaimTask(sstable, gcBefore);
+            if (task != null)
+                manifest.reserve(new LeveledManifest.CompactionCandidate(Collections.singleton(sstable), sstable.getSSTableLevel(), getMaxSSTableBytes()));
+            return task;
+        }
+    }
+
     @Override
     public AbstractCompactionTask getCompactionTask(LifecycleTransaction txn, int gcBefore, long maxSSTableBytes)
     {
@@ -270,8 +290,9 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
         return levelFanoutSize;
     }
 
-    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, OperationType operationType)
     {
+        boolean dropBehind = DatabaseDescriptor.getDropBehind(operationType);
         Set<SSTableReader>[] sstablesPerLevel = manifest.getSStablesPerLevelSnapshot();
 
         Multimap<Integer, SSTableReader> byLevel = ArrayListMultimap.create();
@@ -302,7 +323,7 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
                 {
                     // L0 makes no guarantees about overlapping-ness.  Just create a direct scanner for each
                     for (SSTableReader sstable : byLevel.get(level))
-                        scanners.add(sstable.getScanner(ranges, null));
+                        scanners.add(sstable.getScanner(ranges, null, dropBehind));
                 }
                 else
                 {
@@ -311,7 +332,7 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
                     if (!intersecting.isEmpty())
                     {
                         @SuppressWarnings("resource") // The ScannerList will be in charge of closing (and we close properly on errors)
-                        ISSTableScanner scanner = new LeveledScanner(intersecting, ranges);
+                        ISSTableScanner scanner = new LeveledScanner(intersecting, ranges, dropBehind);
                         scanners.add(scanner);
                     }
                 }
@@ -356,6 +377,7 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
     private static class LeveledScanner extends AbstractIterator<UnfilteredRowIterator> implements ISSTableScanner
     {
         private final Collection<Range<Token>> ranges;
+        private final boolean dropBehind;
         private final List<SSTableReader> sstables;
         private final Iterator<SSTableReader> sstableIterator;
         private final long totalLength;
@@ -365,9 +387,10 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
         private long positionOffset;
         private long totalBytesScanned = 0;
 
-        public LeveledScanner(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+        public LeveledScanner(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, boolean dropBehind)
         {
             this.ranges = ranges;
+            this.dropBehind = dropBehind;
 
             // add only sstables that intersect our range, and estimate how much data that involves
             this.sstables = new ArrayList<>(sstables.size());
@@ -392,7 +415,7 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
             sstableIterator = this.sstables.iterator();
             assert sstableIterator.hasNext(); // caller should check intersecting first
             SSTableReader currentSSTable = sstableIterator.next();
-            currentScanner = currentSSTable.getScanner(ranges, null);
+            currentScanner = currentSSTable.getScanner(ranges, null, dropBehind);
 
         }
 
@@ -446,7 +469,7 @@ public class LeveledCompactionStrategy extends AbstractCompactionStrategy
                     return endOfData();
                 }
                 SSTableReader currentSSTable = sstableIterator.next();
-                currentScanner = currentSSTable.getScanner(ranges, null);
+                currentScanner = currentSSTable.getScanner(ranges, null, dropBehind);
             }
         }
 
@@ -26,6 +26,7 @@ import org.apache.cassandra.db.compaction.writers.MajorLeveledCompactionWriter;
 import org.apache.cassandra.db.compaction.writers.MaxSSTableSizeWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.lifecycle.PartialLifecycleTransaction;
 
 public class LeveledCompactionTask extends CompactionTask
 {
@@ -52,6 +53,21 @@ public class LeveledCompactionTask extends CompactionTask
         return new MaxSSTableSizeWriter(cfs, directories, txn, nonExpiredSSTables, maxSSTableBytes, getLevel(), false);
     }
 
+    @Override
+    protected boolean supportsParallelSubranges()
+    {
+        return !majorCompaction;
+    }
+
+    @Override
+    protected CompactionAwareWriter getSubrangeCompactionAwareWriter(ColumnFamilyStore cfs,
+                                                                     Directories directories,
+                                                                     PartialLifecycleTransaction txn,
+                                                                     Set<SSTableReader> nonExpiredSSTables)
+    {
+        return new MaxSSTableSizeWriter(cfs, directories, txn, nonExpiredSSTables, maxSSTableBytes, getLevel(), false);
+    }
+
     @Override
     protected boolean partialCompactionsAcceptable()
     {
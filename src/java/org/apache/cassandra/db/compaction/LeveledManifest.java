@@ -71,6 +71,7 @@ public class LeveledManifest
     private final SizeTieredCompactionStrategyOptions options;
     private final int [] compactionCounter;
     private final int levelFanoutSize;
+    private final LeveledCompactionReservations reservations = new LeveledCompactionReservations();
 
     LeveledManifest(ColumnFamilyStore cfs, int maxSSTableSizeInMB, int fanoutSize, SizeTieredCompactionStrategyOptions options)
     {
@@ -325,6 +326,8 @@ public class LeveledManifest
      */
     public synchronized CompactionCandidate getCompactionCandidates()
     {
+        reservations.purge(cfs.getTracker().getCompacting());
+
         // during bootstrap we only do size tiering in L0 to make sure
         // the streamed files can be placed in their original levels
         if (StorageService.instance.isBootstrapMode())
@@ -413,6 +416,22 @@ public class LeveledManifest
         return new CompactionCandidate(candidates, getNextLevel(candidates), maxSSTableSizeInBytes);
     }
 
+    /**
+     * Records that the given candidate has been marked compacting, so that the next candidates are chosen to not
+     * write to the same token span of its target level and can be compacted concurrently.
+     */
+    synchronized void reserve(CompactionCandidate candidate)
+    {
+        reservations.reserve(candidate.sstables, candidate.level);
+    }
+
+    @VisibleForTesting
+    synchronized int reservedCount()
+    {
+        reservations.purge(cfs.getTracker().getCompacting());
+        return reservations.size();
+    }
+
     private CompactionCandidate getSTCSInL0CompactionCandidate()
     {
         if (!DatabaseDescriptor.getDisableSTCSInL0() && getLevel(0).size() > MAX_COMPACTING_L0)
@@ -635,15 +654,24 @@ public class LeveledManifest
         {
             Set<SSTableReader> compactingL0 = getCompacting(0);
 
+            // the token spans of L1 that L0 candidates can't be promoted to: those written to by the running
+            // compactions into L1, those of the compacting L1 sstables, and those of the compacting L0 sstables
+            // that we don't know the target level of
+            List<Bounds<Token>> busyL1 = reservations.spans(1);
+            busyL1.addAll(genBounds(getCompacting(1)).values());
             PartitionPosition lastCompactingKey = null;
             PartitionPosition firstCompactingKey = null;
             for (SSTableReader candidate : compactingL0)
             {
+                if (reservations.isReserved(candidate))
+                    continue;
                 if (firstCompactingKey == null || candidate.first.compareTo(firstCompactingKey) < 0)
                     firstCompactingKey = candidate.first;
                 if (lastCompactingKey == null || candidate.last.compareTo(lastCompactingKey) > 0)
                     lastCompactingKey = candidate.last;
             }
+            if (firstCompactingKey != null)
+                busyL1.add(new Bounds<>(firstCompactingKey.getToken(), lastCompactingKey.getToken()));
 
             // L0 is the dumping ground for new sstables which thus may overlap each other.
             //
@@ -651,6 +679,8 @@ public class LeveledManifest
             // 1a. add sstables to the candidate set until we have at least maxSSTableSizeInMB
             // 1b. prefer choosing older sstables as candidates, to newer ones
             // 1c. any L0 sstables that overlap a candidate, will also become candidates
+            // 1d. leave out sstables that would extend the span of the candidates over a busy span of L1, so that
+            //     the candidates can be compacted concurrently with the running compactions
             // 2. At most MAX_COMPACTING_L0 sstables from L0 will be compacted at once
             // 3. If total candidate size is less than maxSSTableSizeInMB, we won't bother compacting with L1,
             //    and the result of the compaction will stay in L0 instead of being promoted (see promote())
@@ -659,6 +689,7 @@ public class LeveledManifest
             // basically screwed, since we expect all or most L0 sstables to overlap with each L1 sstable.
             // So if an L1 sstable is suspect we can't do much besides try anyway and hope for the best.
             Set<SSTableReader> candidates = new HashSet<>();
+            Bounds<Token> span = null;
             Map<SSTableReader, Bounds<Token>> remaining = genBounds(Iterables.filter(getLevel(0), Predicates.not(suspectP)));
 
             for (SSTableReader sstable : ageSortedSSTables(remaining.keySet()))
@@ -672,8 +703,13 @@ public class LeveledManifest
 
                 for (SSTableReader newCandidate : overlappedL0)
                 {
-                    if (firstCompactingKey == null || lastCompactingKey == null || overlapping(firstCompactingKey.getToken(), lastCompactingKey.getToken(), Arrays.asList(newCandidate)).size() == 0)
+                    Bounds<Token> bounds = remaining.get(newCandidate);
+                    Bounds<Token> newSpan = span == null ? bounds : new Bounds<>(min(span.left, bounds.left), max(span.right, bounds.right));
+                    if (!intersectsAny(newSpan, busyL1))
+                    {
                         candidates.add(newCandidate);
+                        span = newSpan;
+                    }
                     remaining.remove(newCandidate);
                 }
 
@@ -690,13 +726,12 @@ public class LeveledManifest
             {
                 // add sstables from L1 that overlap candidates
                 // if the overlapping ones are already busy in a compaction, leave it out.
-                // TODO try to find a set of L0 sstables that only overlaps with non-busy L1 sstables
                 Set<SSTableReader> l1overlapping = overlapping(candidates, getLevel(1));
                 if (Sets.intersection(l1overlapping, compacting).size() > 0)
                     return Collections.emptyList();
-                if (!overlapping(candidates, compactingL0).isEmpty())
-                    return Collections.emptyList();
                 candidates = Sets.union(candidates, l1overlapping);
+                if (reservations.intersects(1, candidates))
+                    return Collections.emptyList();
             }
             if (candidates.size() < 2)
                 return Collections.emptyList();
@@ -726,14 +761,34 @@ public class LeveledManifest
             Set<SSTableReader> candidates = Sets.union(Collections.singleton(sstable), overlappingWithBounds(sstable, sstablesNextLevel));
             if (Iterables.any(candidates, suspectP))
                 continue;
-            if (Sets.intersection(candidates, compacting).isEmpty())
+            if (Sets.intersection(candidates, compacting).isEmpty() && !reservations.intersects(level + 1, candidates))
                 return candidates;
         }
 
-        // all the sstables were suspect or overlapped with something suspect
+        // all the sstables were suspect or overlapped with something suspect or busy
         return Collections.emptyList();
     }
 
+    private static Token min(Token a, Token b)
+    {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Token max(Token a, Token b)
+    {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static boolean intersectsAny(Bounds<Token> bounds, Collection<Bounds<Token>> others)
+    {
+        for (Bounds<Token> other : others)
+        {
+            if (bounds.intersects(other))
+                return true;
+        }
+        return false;
+    }
+
     private Set<SSTableReader> getCompacting(int level)
     {
         Set<SSTableReader> sstables = new HashSet<>();
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * Schedules the compaction that reclaims the most disk space across the compaction strategies of a table, ahead of
+ * the tasks the strategies pick themselves.
+ *
+ * The candidates are the single sstables that are worth compacting for their fully expired data or droppable
+ * tombstones, with the tombstone options of the strategy they belong to. They are ranked by the bytes that
+ * compacting them is estimated to reclaim, which accounts for the overlapping sstables holding data that their
+ * tombstones shadow (see {@link AbstractCompactionStrategy#getReclaimableBytes(SSTableReader, int)}). As that part
+ * of the estimate requires looking up the overlapping sstables, it is only computed for the candidates whose
+ * metadata alone allows to reclaim more than the best candidate so far.
+ */
+class ReclaimingCompactionScheduler
+{
+    private static final Logger logger = LoggerFactory.getLogger(ReclaimingCompactionScheduler.class);
+
+    private final ColumnFamilyStore cfs;
+    private final CompactionStrategyManager manager;
+
+    ReclaimingCompactionScheduler(ColumnFamilyStore cfs, CompactionStrategyManager manager)
+    {
+        this.cfs = cfs;
+        this.manager = manager;
+    }
+
+    /**
+     * @return a task compacting the sstable that reclaims the most bytes, or null if no sstable is worth compacting
+     * for its expired data and tombstones.
+     */
+    AbstractCompactionTask getNextBackgroundTask(int gcBefore)
+    {
+        Pair<SSTableReader, AbstractCompactionStrategy> best = getBestCandidate(gcBefore);
+        if (best == null)
+            return null;
+
+        logger.debug("Compacting {} to reclaim its expired data and droppable tombstones", best.left);
+        return best.right.getReclaimTask(best.left, gcBefore);
+    }
+
+    private Pair<SSTableReader, AbstractCompactionStrategy> getBestCandidate(int gcBefore)
+    {
+        Set<SSTableReader> compacting = cfs.getTracker().getCompacting();
+        List<Candidate> candidates = new ArrayList<>();
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            if (compacting.contains(sstable) || sstable.isMarkedSuspect())
+                continue;
+            AbstractCompactionStrategy strategy = manager.compactionStrategyFor(sstable);
+            long maxReclaimableBytes = strategy.getMaxReclaimableBytes(sstable, gcBefore);
+            if (maxReclaimableBytes > 0)
+                candidates.add(new Candidate(sstable, strategy, maxReclaimableBytes));
+        }
+        Collections.sort(candidates, (c1, c2) -> Long.compare(c2.maxReclaimableBytes, c1.maxReclaimableBytes));
+
+        Candidate best = null;
+        long bestReclaimableBytes = 0;
+        for (Candidate candidate : candidates)
+        {
+            if (candidate.maxReclaimableBytes <= bestReclaimableBytes)
+                break;
+            long reclaimableBytes = candidate.strategy.getReclaimableBytes(candidate.sstable, gcBefore);
+            if (reclaimableBytes > bestReclaimableBytes)
+            {
+                best = candidate;
+                bestReclaimableBytes = reclaimableBytes;
+            }
+        }
+        return best == null ? null : Pair.create(best.sstable, best.strategy);
+    }
+
+    private static class Candidate
+    {
+        private final SSTableReader sstable;
+        private final AbstractCompactionStrategy strategy;
+        private final long maxReclaimableBytes;
+
+        private Candidate(SSTableReader sstable, AbstractCompactionStrategy strategy, long maxReclaimableBytes)
+        {
+            this.sstable = sstable;
+            this.strategy = strategy;
+            this.maxReclaimableBytes = maxReclaimableBytes;
+        }
+    }
+}
@@ -362,5 +362,11 @@ public class SizeTieredCompactionStrategy extends AbstractCompactionStrategy
         {
             return new SplittingSizeTieredCompactionWriter(cfs, directories, txn, nonExpiredSSTables);
         }
+
+        @Override
+        protected boolean supportsParallelSubranges()
+        {
+            return false;
+        }
     }
 }
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Splitter;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.CompactionParams;
+
+import static com.google.common.collect.Iterables.filter;
+
+/**
+ * A compaction strategy that can be tuned continuously between size tiered and leveled compaction with a single
+ * scaling parameter (see {@link UnifiedCompactionStrategyOptions}).
+ *
+ * The sstables are grouped in levels by density, their size divided by the share of the ring their tokens span,
+ * which does not depend on how many sstables the same data is split in. Level n holds the sstables whose density is
+ * between min_sstable_size * fanout^n and min_sstable_size * fanout^(n+1). A compaction is due in a level once
+ * threshold of its sstables overlap, and the level where the most sstables overlap is compacted first.
+ *
+ * Compactions split their output at fixed token shard boundaries, whose count grows by powers of 2 from
+ * base_shard_count so that the output sstables are close to target_sstable_size. The sstables written by
+ * compactions thus line up on the same boundaries across levels, and the compactions of different shards don't
+ * overlap and can run concurrently. Partitioners that can't split the ring only split outputs between disks.
+ */
+public class UnifiedCompactionStrategy extends AbstractCompactionStrategy
+{
+    private static final Logger logger = LoggerFactory.getLogger(UnifiedCompactionStrategy.class);
+
+    // the most shards an output can be split into
+    private static final int MAX_SHARD_COUNT = 1 << 16;
+
+    private final UnifiedCompactionStrategyOptions options;
+    protected volatile int estimatedRemainingTasks;
+    private final Set<SSTableReader> sstables = new HashSet<>();
+
+    public UnifiedCompactionStrategy(ColumnFamilyStore cfs, Map<String, String> options)
+    {
+        super(cfs, options);
+        this.estimatedRemainingTasks = 0;
+        this.options = new UnifiedCompactionStrategyOptions(options);
+    }
+
+    @Override
+    @SuppressWarnings("resource") // transaction is closed by AbstractCompactionTask::execute
+    public AbstractCompactionTask getNextBackgroundTask(int gcBefore)
+    {
+        List<SSTableReader> previousCandidate = null;
+        while (true)
+        {
+            List<SSTableReader> candidate = getNextBackgroundSSTables();
+            if (candidate.isEmpty())
+                return null;
+
+            // Already tried acquiring references without success. It means there is a race with
+            // the tracker but candidate SSTables were not yet replaced in the compaction strategy manager
+            if (candidate.equals(previousCandidate))
+            {
+                logger.warn("Could not acquire references for compacting SSTables {} which is not a problem per se," +
+                            "unless it happens frequently, in which case it must be reported. Will retry later.",
+                            candidate);
+                return null;
+            }
+
+            LifecycleTransaction transaction = cfs.getTracker().tryModify(candidate, OperationType.COMPACTION);
+            if (transaction != null)
+                return createTask(transaction, gcBefore);
+            previousCandidate = candidate;
+        }
+    }
+
+    private synchronized List<SSTableReader> getNextBackgroundSSTables()
+    {
+        Set<SSTableReader> uncompacting = ImmutableSet.copyOf(filter(cfs.getUncompactingSSTables(), sstables::contains));
+        List<List<SSTableReader>> candidates = new ArrayList<>();
+        for (List<SSTableReader> level : getLevels(filterSuspectSSTables(uncompacting)).values())
+            candidates.addAll(getOverlappingBuckets(level));
+
+        List<SSTableReader> best = Collections.emptyList();
+        int bestOverlap = 0;
+        int remainingTasks = 0;
+        int maxThreshold = cfs.getMaximumCompactionThreshold();
+        for (List<SSTableReader> bucket : candidates)
+        {
+            int overlap = maxOverlap(bucket);
+            if (overlap < options.threshold)
+                continue;
+            remainingTasks += (bucket.size() + maxThreshold - 1) / maxThreshold;
+            // the levels are iterated from the lowest, which are the cheapest to compact on ties
+            if (overlap > bestOverlap)
+            {
+                best = bucket;
+                bestOverlap = overlap;
+            }
+        }
+        estimatedRemainingTasks = remainingTasks;
+        cfs.getCompactionStrategyManager().compactionLogger.pending(this, remainingTasks);
+
+        if (best.size() > maxThreshold)
+        {
+            // compact the oldest sstables first
+            best = new ArrayList<>(best);
+            Collections.sort(best, SSTableReader.maxTimestampAscending);
+            best = best.subList(0, maxThreshold);
+        }
+        return best;
+    }
+
+    /**
+     * @return the given sstables grouped by level, from the lowest
+     */
+    @VisibleForTesting
+    TreeMap<Integer, List<SSTableReader>> getLevels(Iterable<SSTableReader> candidates)
+    {
+        TreeMap<Integer, List<SSTableReader>> levels = new TreeMap<>();
+        for (SSTableReader sstable : candidates)
+            levels.computeIfAbsent(getLevel(density(sstable)), level -> new ArrayList<>()).add(sstable);
+        return levels;
+    }
+
+    @VisibleForTesting
+    int getLevel(double density)
+    {
+        if (density < options.minSSTableSize)
+            return 0;
+        return (int) Math.floor(Math.log(density / options.minSSTableSize) / Math.log(options.fanout));
+    }
+
+    /**
+     * @return the size of the given sstable divided by the share of the ring that its tokens span
+     */
+    @VisibleForTesting
+    double density(SSTableReader sstable)
+    {
+        return density(sstable.onDiskLength(), sstable.first.getToken(), sstable.last.getToken());
+    }
+
+    /**
+     * @return the total size of the given sstables divided by the share of the ring that they span together
+     */
+    private double density(Collection<SSTableReader> sstables)
+    {
+        if (sstables.isEmpty())
+            return 0;
+        Token first = null;
+        Token last = null;
+        for (SSTableReader sstable : sstables)
+        {
+            first = first == null || sstable.first.getToken().compareTo(first) < 0 ? sstable.first.getToken() : first;
+            last = last == null || sstable.last.getToken().compareTo(last) > 0 ? sstable.last.getToken() : last;
+        }
+        return density(SSTableReader.getTotalBytes(sstables), first, last);
+    }
+
+    private double density(long bytes, Token first, Token last)
+    {
+        Optional<Splitter> splitter = cfs.getPartitioner().splitter();
+        if (!splitter.isPresent())
+            return bytes;
+        double share = splitter.get().ringShare(first, last);
+        return bytes / Math.max(share, 1.0 / MAX_SHARD_COUNT);
+    }
+
+    /**
+     * @return the given sstables of a level grouped in sets of transitively overlapping sstables
+     */
+    private static List<List<SSTableReader>> getOverlappingBuckets(List<SSTableReader> level)
+    {
+        List<SSTableReader> sorted = new ArrayList<>(level);
+        Collections.sort(sorted, SSTableReader.sstableComparator);
+        List<List<SSTableReader>> buckets = new ArrayList<>();
+        List<SSTableReader> bucket = null;
+        Token last = null;
+        for (SSTableReader sstable : sorted)
+        {
+            if (bucket == null || sstable.first.getToken().compareTo(last) > 0)
+            {
+                bucket = new ArrayList<>();
+                buckets.add(bucket);
+                last = sstable.last.getToken();
+            }
+            bucket.add(sstable);
+            if (sstable.last.getToken().compareTo(last) > 0)
+                last = sstable.last.getToken();
+        }
+        return buckets;
+    }
+
+    /**
+     * @return the highest number of the given sstables that contain a same token
+     */
+    @VisibleForTesting
+    static int maxOverlap(Collection<SSTableReader> sstables)
+    {
+        // the sstables starting at a token are counted before those ending there, as their bounds are inclusive
+        TreeMap<Token, int[]> changes = new TreeMap<>();
+        for (SSTableReader sstable : sstables)
+        {
+            changes.computeIfAbsent(sstable.first.getToken(), token -> new int[2])[0]++;
+            changes.computeIfAbsent(sstable.last.getToken(), token -> new int[2])[1]++;
+        }
+        int overlap = 0;
+        int max = 0;
+        for (int[] change : changes.values())
+        {
+            overlap += change[0];
+            max = Math.max(max, overlap);
+            overlap -= change[1];
+        }
+        return max;
+    }
+
+    /**
+     * @return the shard boundaries to split the output of a compaction of the given sstables at: the last token of
+     * each shard, the last one being the maximum token, or none if the partitioner can't split the ring.
+     */
+    @VisibleForTesting
+    List<Token> getShardBoundaries(Collection<SSTableReader> sstables)
+    {
+        IPartitioner partitioner = cfs.getPartitioner();
+        if (!partitioner.splitter().isPresent())
+            return Collections.emptyList();
+
+        // the output of a shard spans 1 / shards of the ring, so its size is the density of the inputs divided by that
+        double density = density(sstables);
+        int shards = options.baseShardCount;
+        while (shards < MAX_SHARD_COUNT && density / shards > options.targetSSTableSize)
+            shards *= 2;
+        return getShardBoundaries(partitioner, shards);
+    }
+
+    @VisibleForTesting
+    static List<Token> getShardBoundaries(IPartitioner partitioner, int shards)
+    {
+        Token minimum = partitioner.getMinimumToken();
+        return partitioner.splitter().get().splitOwnedRanges(shards, Collections.singletonList(new Range<>(minimum, minimum)), false);
+    }
+
+    /**
+     * Estimates the number of times the data is written by compactions, from the number of levels that the total
+     * density of the data spans: tiered levels write it once each, and leveled ones fanout / 2 times on average as
+     * each overlapping sstable is merged with the data already in the level.
+     */
+    public synchronized double getEstimatedWriteAmplification()
+    {
+        if (sstables.isEmpty())
+            return 0;
+        int levels = getLevel(density(sstables)) + 1;
+        return options.scalingParameter < 0 ? levels * options.fanout / 2.0 : levels;
+    }
+
+    synchronized long getTotalBytes()
+    {
+        return SSTableReader.getTotalBytes(sstables);
+    }
+
+    private AbstractCompactionTask createTask(LifecycleTransaction transaction, int gcBefore)
+    {
+        return new UnifiedCompactionTask(cfs, transaction, gcBefore, getShardBoundaries(transaction.originals()));
+    }
+
+    @Override
+    @SuppressWarnings("resource") // transaction is closed by AbstractCompactionTask::execute
+    public synchronized Collection<AbstractCompactionTask> getMaximalTask(int gcBefore, boolean splitOutput)
+    {
+        Iterable<SSTableReader> filteredSSTables = filterSuspectSSTables(sstables);
+        if (Iterables.isEmpty(filteredSSTables))
+            return null;
+        LifecycleTransaction txn = cfs.getTracker().tryModify(filteredSSTables, OperationType.COMPACTION);
+        if (txn == null)
+            return null;
+        return Collections.singleton(createTask(txn, gcBefore));
+    }
+
+    @Override
+    @SuppressWarnings("resource") // transaction is closed by AbstractCompactionTask::execute
+    public synchronized AbstractCompactionTask getUserDefinedTask(Collection<SSTableReader> sstables, int gcBefore)
+    {
+        assert !sstables.isEmpty(); // checked for by CM.submitUserDefined
+
+        LifecycleTransaction transaction = cfs.getTracker().tryModify(sstables, OperationType.COMPACTION);
+        if (transaction == null)
+        {
+            logger.debug("Unable to mark {} for compaction; probably a background compaction got to it first.  You can disable background compactions temporarily if this is a problem", sstables);
+            return null;
+        }
+
+        return createTask(transaction, gcBefore).setUserDefined(true);
+    }
+
+    @Override
+    public AbstractCompactionTask getCompactionTask(LifecycleTransaction txn, int gcBefore, long maxSSTableBytes)
+    {
+        return createTask(txn, gcBefore);
+    }
+
+    public int getEstimatedRemainingTasks()
+    {
+        return estimatedRemainingTasks;
+    }
+
+    public long getMaxSSTableBytes()
+    {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public synchronized void addSSTable(SSTableReader sstable)
+    {
+        sstables.add(sstable);
+    }
+
+    @Override
+    public synchronized void removeSSTable(SSTableReader sstable)
+    {
+        sstables.remove(sstable);
+    }
+
+    public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException
+    {
+        Map<String, String> uncheckedOptions = AbstractCompactionStrategy.validateOptions(options);
+        uncheckedOptions = UnifiedCompactionStrategyOptions.validateOptions(options, uncheckedOptions);
+
+        uncheckedOptions.remove(CompactionParams.Option.MIN_THRESHOLD.toString());
+        uncheckedOptions.remove(CompactionParams.Option.MAX_THRESHOLD.toString());
+
+        return uncheckedOptions;
+    }
+
+    public String toString()
+    {
+        return String.format("UnifiedCompactionStrategy[%s]", options);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.cassandra.exceptions.ConfigurationException;
+
+public final class UnifiedCompactionStrategyOptions
+{
+    protected static final int DEFAULT_SCALING_PARAMETER = 2;
+    protected static final int DEFAULT_BASE_SHARD_COUNT = 4;
+    protected static final long DEFAULT_MIN_SSTABLE_SIZE_IN_MB = 50;
+    protected static final long DEFAULT_TARGET_SSTABLE_SIZE_IN_MB = 1024;
+
+    protected static final String SCALING_PARAMETER_KEY = "scaling_parameter";
+    protected static final String BASE_SHARD_COUNT_KEY = "base_shard_count";
+    protected static final String MIN_SSTABLE_SIZE_KEY = "min_sstable_size_in_mb";
+    protected static final String TARGET_SSTABLE_SIZE_KEY = "target_sstable_size_in_mb";
+
+    /**
+     * Tunes the strategy between leveled (negative values) and tiered (positive values) compaction: a level is
+     * compacted as soon as two of its sstables overlap with a fanout of 2 - W between the densities of the levels
+     * when W < 0, and once W + 2 of its sstables overlap with a fanout of W + 2 otherwise.
+     */
+    protected final int scalingParameter;
+    protected final int fanout;
+    protected final int threshold;
+    protected final int baseShardCount;
+    protected final long minSSTableSize;
+    protected final long targetSSTableSize;
+
+    public UnifiedCompactionStrategyOptions(Map<String, String> options)
+    {
+        String optionValue = options.get(SCALING_PARAMETER_KEY);
+        scalingParameter = optionValue == null ? DEFAULT_SCALING_PARAMETER : Integer.parseInt(optionValue);
+        optionValue = options.get(BASE_SHARD_COUNT_KEY);
+        baseShardCount = optionValue == null ? DEFAULT_BASE_SHARD_COUNT : Integer.parseInt(optionValue);
+        optionValue = options.get(MIN_SSTABLE_SIZE_KEY);
+        minSSTableSize = (optionValue == null ? DEFAULT_MIN_SSTABLE_SIZE_IN_MB : Long.parseLong(optionValue)) * 1024L * 1024L;
+        optionValue = options.get(TARGET_SSTABLE_SIZE_KEY);
+        targetSSTableSize = (optionValue == null ? DEFAULT_TARGET_SSTABLE_SIZE_IN_MB : Long.parseLong(optionValue)) * 1024L * 1024L;
+
+        fanout = scalingParameter < 0 ? 2 - scalingParameter : 2 + scalingParameter;
+        threshold = scalingParameter < 0 ? 2 : fanout;
+    }
+
+    public UnifiedCompactionStrategyOptions()
+    {
+        this(Collections.emptyMap());
+    }
+
+    public static Map<String, String> validateOptions(Map<String, String> options, Map<String, String> uncheckedOptions) throws ConfigurationException
+    {
+        String optionValue = options.get(SCALING_PARAMETER_KEY);
+        try
+        {
+            int scalingParameter = optionValue == null ? DEFAULT_SCALING_PARAMETER : Integer.parseInt(optionValue);
+            if (scalingParameter < -1000 || scalingParameter > 1000)
+                throw new ConfigurationException(String.format("%s must be between -1000 and 1000, but was %d", SCALING_PARAMETER_KEY, scalingParameter));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", optionValue, SCALING_PARAMETER_KEY), e);
+        }
+
+        optionValue = options.get(BASE_SHARD_COUNT_KEY);
+        try
+        {
+            int baseShardCount = optionValue == null ? DEFAULT_BASE_SHARD_COUNT : Integer.parseInt(optionValue);
+            if (baseShardCount < 1)
+                throw new ConfigurationException(String.format("%s must be at least 1, but was %d", BASE_SHARD_COUNT_KEY, baseShardCount));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", optionValue, BASE_SHARD_COUNT_KEY), e);
+        }
+
+        long minSSTableSize = validateSize(options, MIN_SSTABLE_SIZE_KEY, DEFAULT_MIN_SSTABLE_SIZE_IN_MB);
+        long targetSSTableSize = validateSize(options, TARGET_SSTABLE_SIZE_KEY, DEFAULT_TARGET_SSTABLE_SIZE_IN_MB);
+        if (targetSSTableSize < minSSTableSize)
+            throw new ConfigurationException(String.format("%s must not be smaller than %s, but was %d < %d", TARGET_SSTABLE_SIZE_KEY, MIN_SSTABLE_SIZE_KEY, targetSSTableSize, minSSTableSize));
+
+        uncheckedOptions.remove(SCALING_PARAMETER_KEY);
+        uncheckedOptions.remove(BASE_SHARD_COUNT_KEY);
+        uncheckedOptions.remove(MIN_SSTABLE_SIZE_KEY);
+        uncheckedOptions.remove(TARGET_SSTABLE_SIZE_KEY);
+
+        return uncheckedOptions;
+    }
+
+    private static long validateSize(Map<String, String> options, String key, long defaultValue) throws ConfigurationException
+    {
+        String optionValue = options.get(key);
+        try
+        {
+            long size = optionValue == null ? defaultValue : Long.parseLong(optionValue);
+            if (size < 1)
+                throw new ConfigurationException(String.format("%s must be at least 1, but was %d", key, size));
+            return size;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ConfigurationException(String.format("%s is not a parsable int (base10) for %s", optionValue, key), e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("scaling parameter: %d (fanout: %d, threshold: %d), base shard count: %d, min sstable size: %d, target sstable size: %d",
+                             scalingParameter, fanout, threshold, baseShardCount, minSSTableSize, targetSSTableSize);
+    }
+}
@@ -33,7 +33,10 @@ import org.apache.cassandra.db.DiskBoundaries;
 import org.apache.cassandra.db.PartitionPosition;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.db.compaction.CompactionTask;
-import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.lifecycle.ILifecycleTransaction;
+import org.apache.cassandra.db.lifecycle.PartialLifecycleTransaction;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.SSTableRewriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.utils.FBUtilities;
@@ -57,7 +60,7 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
     protected final long minRepairedAt;
 
     protected final SSTableRewriter sstableWriter;
-    protected final LifecycleTransaction txn;
+    protected final ILifecycleTransaction txn;
     private final List<Directories.DataDirectory> locations;
     private final List<PartitionPosition> diskBoundaries;
     private int locationIndex;
@@ -65,7 +68,7 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
     @Deprecated
     public CompactionAwareWriter(ColumnFamilyStore cfs,
                                  Directories directories,
-                                 LifecycleTransaction txn,
+                                 ILifecycleTransaction txn,
                                  Set<SSTableReader> nonExpiredSSTables,
                                  boolean offline,
                                  boolean keepOriginals)
@@ -75,7 +78,7 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
 
     public CompactionAwareWriter(ColumnFamilyStore cfs,
                                  Directories directories,
-                                 LifecycleTransaction txn,
+                                 ILifecycleTransaction txn,
                                  Set<SSTableReader> nonExpiredSSTables,
                                  boolean keepOriginals)
     {
@@ -84,9 +87,19 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
         this.nonExpiredSSTables = nonExpiredSSTables;
         this.txn = txn;
 
-        estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
         maxAge = CompactionTask.getMaxDataAge(nonExpiredSSTables);
-        sstableWriter = SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge);
+        if (txn instanceof PartialLifecycleTransaction)
+        {
+            // one of the concurrent writers of a parallel compaction, which only writes the keys of its ranges
+            Collection<Range<Token>> ranges = ((PartialLifecycleTransaction) txn).ranges();
+            estimatedTotalKeys = estimateKeysForRanges(nonExpiredSSTables, ranges);
+            sstableWriter = SSTableRewriter.constructWithoutEarlyOpening(txn, keepOriginals, maxAge);
+        }
+        else
+        {
+            estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
+            sstableWriter = SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge);
+        }
         minRepairedAt = CompactionTask.getMinRepairedAt(nonExpiredSSTables);
         DiskBoundaries db = cfs.getDiskBoundaries();
         diskBoundaries = db.positions;
@@ -94,6 +107,21 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
         locationIndex = -1;
     }
 
+    private static long estimateKeysForRanges(Set<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    {
+        // scale the estimate for all the keys, which accounts for their overlap between sstables
+        long keys = 0;
+        long keysInRanges = 0;
+        for (SSTableReader sstable : sstables)
+        {
+            keys += sstable.estimatedKeys();
+            keysInRanges += sstable.estimatedKeysForRanges(ranges);
+        }
+        if (keys == 0)
+            return 0;
+        return Math.max(1, Math.round(SSTableReader.getApproximateKeyCount(sstables) * Math.min(1.0, (double) keysInRanges / keys)));
+    }
+
     @Override
     protected Throwable doAbort(Throwable accumulate)
     {
@@ -120,6 +148,14 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
     public Collection<SSTableReader> finish()
     {
         super.finish();
+        return finished();
+    }
+
+    /**
+     * @return the written sstables, once prepared to commit
+     */
+    public Collection<SSTableReader> finished()
+    {
         return sstableWriter.finished();
     }
 
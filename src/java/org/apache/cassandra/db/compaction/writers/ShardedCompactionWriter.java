@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction.writers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.lifecycle.ILifecycleTransaction;
+import org.apache.cassandra.db.lifecycle.PartialLifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.format.SSTableWriter;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+
+/**
+ * Writes a new sstable for each of the token shards the compacted partitions belong to, so that the sstables
+ * written by compactions line up on the same boundaries and the compactions of different shards don't overlap.
+ */
+public class ShardedCompactionWriter extends CompactionAwareWriter
+{
+    // the last token of each shard, the last one being the maximum token of the partitioner; empty for a single shard
+    private final List<Token> boundaries;
+    private final Set<SSTableReader> allSSTables;
+    // the keys expected in each output sstable, from the number of shards the compacted token span covers
+    private final long keysPerShard;
+    private Directories.DataDirectory sstableDirectory;
+    private int shardIndex = -1;
+    private boolean written;
+
+    public ShardedCompactionWriter(ColumnFamilyStore cfs,
+                                   Directories directories,
+                                   ILifecycleTransaction txn,
+                                   Set<SSTableReader> nonExpiredSSTables,
+                                   boolean keepOriginals,
+                                   List<Token> boundaries)
+    {
+        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals);
+        this.allSSTables = txn.originals();
+        this.boundaries = boundaries;
+        this.keysPerShard = Math.max(1, estimatedTotalKeys / coveredShards(txn));
+    }
+
+    /**
+     * @return the number of shards that the keys of the compacted sstables can fall in, restricted to the ranges of
+     * a partial transaction
+     */
+    private int coveredShards(ILifecycleTransaction txn)
+    {
+        if (boundaries.isEmpty() || nonExpiredSSTables.isEmpty())
+            return 1;
+
+        Token first = null;
+        Token last = null;
+        for (SSTableReader sstable : nonExpiredSSTables)
+        {
+            if (first == null || sstable.first.getToken().compareTo(first) < 0)
+                first = sstable.first.getToken();
+            if (last == null || sstable.last.getToken().compareTo(last) > 0)
+                last = sstable.last.getToken();
+        }
+        int firstShard = shardFor(first);
+        int lastShard = shardFor(last);
+        if (!(txn instanceof PartialLifecycleTransaction))
+            return lastShard - firstShard + 1;
+
+        int shards = 0;
+        for (Range<Token> range : ((PartialLifecycleTransaction) txn).ranges())
+        {
+            for (Range<Token> unwrapped : range.unwrap())
+            {
+                int left = Math.max(firstShard, shardFor(unwrapped.left));
+                int right = Math.min(lastShard, unwrapped.right.isMinimum() ? boundaries.size() - 1 : shardFor(unwrapped.right));
+                shards += Math.max(0, right - left + 1);
+            }
+        }
+        return Math.max(1, shards);
+    }
+
+    @Override
+    protected void maybeSwitchWriter(DecoratedKey key)
+    {
+        super.maybeSwitchWriter(key);
+
+        int previousShard = shardIndex;
+        shardIndex = shardFor(key.getToken());
+        // only start a new sstable if the disk boundaries didn't just make us do it
+        if (previousShard >= 0 && shardIndex != previousShard && written)
+        {
+            logger.trace("Switching to shard {} at {}", shardIndex, key);
+            switchCompactionLocation(sstableDirectory);
+        }
+    }
+
+    private int shardFor(Token token)
+    {
+        int pos = Collections.binarySearch(boundaries, token);
+        return Math.min(pos >= 0 ? pos : -pos - 1, boundaries.size() - 1);
+    }
+
+    protected boolean realAppend(UnfilteredRowIterator partition)
+    {
+        RowIndexEntry rie = sstableWriter.append(partition);
+        written = true;
+        return rie != null;
+    }
+
+    @Override
+    public void switchCompactionLocation(Directories.DataDirectory location)
+    {
+        sstableDirectory = location;
+        written = false;
+        @SuppressWarnings("resource")
+        SSTableWriter writer = SSTableWriter.create(Descriptor.fromFilename(cfs.getSSTablePath(getDirectories().getLocationForDisk(sstableDirectory))),
+                                                    keysPerShard,
+                                                    minRepairedAt,
+                                                    cfs.metadata,
+                                                    new MetadataCollector(allSSTables, cfs.metadata.comparator, 0),
+                                                    SerializationHeader.make(cfs.metadata, nonExpiredSSTables),
+                                                    cfs.indexManager.listIndexes(),
+                                                    txn);
+
+        sstableWriter.switchWriter(writer);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.lifecycle;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.apache.cassandra.db.compaction.OperationType;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+/**
+ * The share of a transaction given to one of several writers that replace its originals concurrently, each writing
+ * the data of its own token ranges (see parallel compactions in {@link org.apache.cassandra.db.compaction.CompactionTask}).
+ *
+ * Like the SharedTxn of anticompaction, this proxies the calls adding to the transaction, but leaves checkpoint(),
+ * obsoleteOriginals(), prepareToCommit(), commit() and abort() to the owner of the transaction, who calls them once
+ * every writer has been prepared (or has failed). As the writers run on different threads, the proxied calls are
+ * serialized on the underlying transaction. For the same reason as in anticompaction, writers can't open their
+ * results early.
+ */
+public class PartialLifecycleTransaction extends WrappedLifecycleTransaction
+{
+    private final Collection<Range<Token>> ranges;
+
+    public PartialLifecycleTransaction(ILifecycleTransaction delegate, Collection<Range<Token>> ranges)
+    {
+        super(delegate);
+        this.ranges = ranges;
+    }
+
+    /**
+     * @return the token ranges written through this transaction
+     */
+    public Collection<Range<Token>> ranges()
+    {
+        return ranges;
+    }
+
+    public void checkpoint()
+    {
+    }
+
+    public void update(SSTableReader reader, boolean original)
+    {
+        synchronized (delegate)
+        {
+            delegate.update(reader, original);
+        }
+    }
+
+    public void update(Collection<SSTableReader> readers, boolean original)
+    {
+        synchronized (delegate)
+        {
+            delegate.update(readers, original);
+        }
+    }
+
+    public SSTableReader current(SSTableReader reader)
+    {
+        synchronized (delegate)
+        {
+            return delegate.current(reader);
+        }
+    }
+
+    public void obsolete(SSTableReader reader)
+    {
+        synchronized (delegate)
+        {
+            delegate.obsolete(reader);
+        }
+    }
+
+    public void obsoleteOriginals()
+    {
+    }
+
+    public Set<SSTableReader> originals()
+    {
+        synchronized (delegate)
+        {
+            return delegate.originals();
+        }
+    }
+
+    public boolean isObsolete(SSTableReader reader)
+    {
+        synchronized (delegate)
+        {
+            return delegate.isObsolete(reader);
+        }
+    }
+
+    public Throwable commit(Throwable accumulate)
+    {
+        return accumulate;
+    }
+
+    public Throwable abort(Throwable accumulate)
+    {
+        return accumulate;
+    }
+
+    public void prepareToCommit()
+    {
+    }
+
+    public void close()
+    {
+    }
+
+    public void trackNew(SSTable table)
+    {
+        synchronized (delegate)
+        {
+            delegate.trackNew(table);
+        }
+    }
+
+    public void untrackNew(SSTable table)
+    {
+        synchronized (delegate)
+        {
+            delegate.untrackNew(table);
+        }
+    }
+
+    public OperationType opType()
+    {
+        return delegate.opType();
+    }
+
+    public boolean isOffline()
+    {
+        return delegate.isOffline();
+    }
+}
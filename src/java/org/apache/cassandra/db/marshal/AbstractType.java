@@ -45,6 +45,7 @@ import org.github.jamm.Unmetered;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import static org.apache.cassandra.db.marshal.AbstractType.ComparisonType.CUSTOM;
 
@@ -183,6 +184,47 @@ public abstract class AbstractType<T> implements Comparator<ByteBuffer>, Assignm
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @return true if this type supports {@link #asComparableBytes(ByteBuffer)}.
+     */
+    public boolean supportsComparableBytes()
+    {
+        return isByteOrderComparable;
+    }
+
+    /**
+     * Returns a byte-comparable representation of the given value, i.e. one whose unsigned lexicographic order is
+     * the order of {@link #compare}, so that values can be compared with {@link FastByteOperations} only.
+     * <p>
+     * The representation of non-empty values is prefix-free. Empty values are represented by no bytes at all, which
+     * is only right where the empty value sorts first; values that are part of a multi-component value must go
+     * through {@link #asComparableComponent(ByteBuffer)}, which also handles empty values of reversed types and nulls.
+     * <p>
+     * Only supported when {@link #supportsComparableBytes()} is true.
+     */
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!supportsComparableBytes())
+            throw new UnsupportedOperationException(String.format("Type %s does not support byte-comparable representations.", this));
+
+        // byte-ordered types only need the escaping that makes the representation prefix-free
+        return ByteSource.of(value);
+    }
+
+    /**
+     * Returns the byte-comparable representation of the given value as one of the components of a multi-component
+     * value: a header byte, which orders nulls and empty values before (or after, for reversed types) the others,
+     * followed by the representation of the value for non-empty ones.
+     */
+    public ByteSource asComparableComponent(ByteBuffer value)
+    {
+        if (value == null)
+            return ByteSource.oneByte(ByteSource.NEXT_COMPONENT_NULL);
+        if (!value.hasRemaining())
+            return ByteSource.oneByte(isReversed() ? ByteSource.NEXT_COMPONENT_EMPTY_REVERSED : ByteSource.NEXT_COMPONENT_EMPTY);
+        return ByteSource.of(ByteSource.oneByte(ByteSource.NEXT_COMPONENT), asComparableBytes(value));
+    }
+
     /**
      * Validate cell value. Unlike {@linkplain #validate(java.nio.ByteBuffer)},
      * cell value is passed to validate its content.
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class ByteType extends AbstractType<Byte>
 {
@@ -42,6 +43,18 @@ public class ByteType extends AbstractType<Byte>
         return o1.get(o1.position()) - o2.get(o2.position());
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return value.hasRemaining() ? ByteSource.fixedLength(value.get(value.position()) ^ Byte.MIN_VALUE, 1) : ByteSource.EMPTY;
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
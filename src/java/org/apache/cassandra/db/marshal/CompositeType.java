@@ -35,6 +35,7 @@ import org.apache.cassandra.io.util.DataOutputBuffer;
 import org.apache.cassandra.io.util.DataOutputBufferFixed;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /*
  * The encoding of a CompositeType column name should be:
@@ -143,6 +144,38 @@ public class CompositeType extends AbstractCompositeType
         return getComparator(i, bb1);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        for (AbstractType<?> type : types)
+            if (!type.supportsComparableBytes())
+                return false;
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        ByteBuffer input = value.duplicate();
+        List<ByteSource> components = new ArrayList<>();
+        // static names sort before all others
+        if (readIsStatic(input))
+            components.add(ByteSource.oneByte(ByteSource.LT_NEXT_COMPONENT));
+        for (int i = 0; input.remaining() > 0; i++)
+        {
+            AbstractType<?> comparator = getComparator(i, input);
+            components.add(comparator.asComparableComponent(ByteBufferUtil.readBytesWithShortLength(input)));
+            // the end-of-component byte is compared signed
+            components.add(ByteSource.oneByte((input.get() & 0xFF) ^ 0x80));
+        }
+        // shorter composites sort before the ones they are a prefix of
+        components.add(ByteSource.oneByte(ByteSource.TERMINATOR_COMPONENTS));
+        return ByteSource.of(components.toArray(new ByteSource[0]));
+    }
+
     protected AbstractType<?> getAndAppendComparator(int i, ByteBuffer bb, StringBuilder sb)
     {
         return types.get(i);
@@ -19,6 +19,8 @@ package org.apache.cassandra.db.marshal;
 
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.apache.cassandra.cql3.CQL3Type;
 import org.apache.cassandra.cql3.Constants;
@@ -28,11 +30,17 @@ import org.apache.cassandra.serializers.DecimalSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class DecimalType extends AbstractType<BigDecimal>
 {
     public static final DecimalType instance = new DecimalType();
 
+    // first byte of the byte-comparable representations, by sign
+    private static final int DECIMAL_NEGATIVE = 0x40;
+    private static final int DECIMAL_ZERO = 0x80;
+    private static final int DECIMAL_POSITIVE = 0xC0;
+
     DecimalType() {super(ComparisonType.CUSTOM);} // singleton
 
     public boolean isEmptyValueMeaningless()
@@ -48,6 +56,34 @@ public class DecimalType extends AbstractType<BigDecimal>
         return compose(o1).compareTo(compose(o2));
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        BigDecimal decimal = compose(value);
+        if (decimal.signum() == 0)
+            return ByteSource.oneByte(DECIMAL_ZERO);
+
+        // The value as 0.ddd * 10^exponent, without trailing zeros so that equal values have the same digits: the
+        // exponent, then the digits followed by a terminator that sorts before any digit. The magnitude is inverted
+        // for negative values, which sort first.
+        decimal = decimal.stripTrailingZeros();
+        byte[] digits = decimal.unscaledValue().abs().toString().getBytes(StandardCharsets.US_ASCII);
+        long exponent = (long) digits.length - decimal.scale();
+        ByteSource magnitude = ByteSource.of(ByteSource.of(exponent), ByteSource.fixedLength(Arrays.copyOf(digits, digits.length + 1)));
+        return decimal.signum() > 0
+               ? ByteSource.of(ByteSource.oneByte(DECIMAL_POSITIVE), magnitude)
+               : ByteSource.of(ByteSource.oneByte(DECIMAL_NEGATIVE), ByteSource.invert(magnitude));
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.DoubleSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class DoubleType extends AbstractType<Double>
 {
@@ -47,6 +48,23 @@ public class DoubleType extends AbstractType<Double>
         return compose(o1).compareTo(compose(o2));
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        // flip the sign bit of positive values and all the bits of negative ones, with NaNs collapsed like compare does
+        long bits = Double.doubleToLongBits(value.getDouble(value.position()));
+        return ByteSource.fixedLength(bits ^ ((bits >> 63) | Long.MIN_VALUE), 8);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
       // Return an empty ByteBuffer for an empty string.
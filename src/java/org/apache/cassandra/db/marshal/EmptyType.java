@@ -27,6 +27,7 @@ import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.serializers.EmptySerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * A type that only accept empty data.
@@ -43,6 +44,18 @@ public class EmptyType extends AbstractType<Void>
         return 0;
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return ByteSource.EMPTY;
+    }
+
     public String getString(ByteBuffer bytes)
     {
         return "";
@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.FloatSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 
 public class FloatType extends AbstractType<Float>
@@ -48,6 +49,23 @@ public class FloatType extends AbstractType<Float>
         return compose(o1).compareTo(compose(o2));
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        // flip the sign bit of positive values and all the bits of negative ones, with NaNs collapsed like compare does
+        int bits = Float.floatToIntBits(value.getFloat(value.position()));
+        return ByteSource.fixedLength(bits ^ ((bits >> 31) | Integer.MIN_VALUE), 4);
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
       // Return an empty ByteBuffer for an empty string.
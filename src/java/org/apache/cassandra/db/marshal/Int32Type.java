@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.Int32Serializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class Int32Type extends AbstractType<Integer>
 {
@@ -54,6 +55,18 @@ public class Int32Type extends AbstractType<Integer>
         return ByteBufferUtil.compareUnsigned(o1, o2);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return value.hasRemaining() ? ByteSource.fixedLength(value.getInt(value.position()) ^ Integer.MIN_VALUE, 4) : ByteSource.EMPTY;
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
@@ -28,6 +28,7 @@ import org.apache.cassandra.serializers.IntegerSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public final class IntegerType extends AbstractType<BigInteger>
 {
@@ -71,6 +72,29 @@ public final class IntegerType extends AbstractType<BigInteger>
         return IntegerType.compareIntegers(lhs, rhs);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        // The significant bytes (as compared above), preceded by their count: longer values are greater if positive
+        // and smaller if negative, so the count is inverted for negative values, which also makes them sort first.
+        int start = findMostSignificantByte(value);
+        int length = value.remaining() - start;
+        boolean negative = value.get(value.position() + start) < 0;
+        ByteBuffer significant = value.duplicate();
+        significant.position(value.position() + start);
+        return ByteSource.of(ByteSource.fixedLength((negative ? ~length : length) ^ Integer.MIN_VALUE, 4),
+                             ByteSource.fixedLength(significant));
+    }
+
     public static int compareIntegers(ByteBuffer lhs, ByteBuffer rhs)
     {
         int lhsLen = lhs.remaining();
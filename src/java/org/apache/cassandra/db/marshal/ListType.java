@@ -30,6 +30,7 @@ import org.apache.cassandra.serializers.CollectionSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.ListSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -178,6 +179,33 @@ public class ListType<T> extends CollectionType<List<T>>
         return size1 == size2 ? 0 : (size1 < size2 ? -1 : 1);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return elements.supportsComparableBytes();
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return asComparableListOrSet(elements, value);
+    }
+
+    static ByteSource asComparableListOrSet(AbstractType<?> elementsComparator, ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        ByteBuffer input = value.duplicate();
+        int size = CollectionSerializer.readCollectionSize(input, ProtocolVersion.V3);
+        ByteSource[] components = new ByteSource[size + 1];
+        for (int i = 0; i < size; i++)
+            components[i] = elementsComparator.asComparableComponent(CollectionSerializer.readValue(input, ProtocolVersion.V3));
+        // shorter collections sort before the ones they are a prefix of
+        components[size] = ByteSource.oneByte(ByteSource.TERMINATOR_COMPONENTS);
+        return ByteSource.of(components);
+    }
+
     @Override
     public String toString(boolean ignoreFreezing)
     {
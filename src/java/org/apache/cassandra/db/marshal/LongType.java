@@ -27,6 +27,7 @@ import org.apache.cassandra.serializers.LongSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class LongType extends AbstractType<Long>
 {
@@ -56,6 +57,18 @@ public class LongType extends AbstractType<Long>
         return ByteBufferUtil.compareUnsigned(o1, o2);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return value.hasRemaining() ? ByteSource.of(value.getLong(value.position())) : ByteSource.EMPTY;
+    }
+
     public ByteBuffer fromString(String source) throws MarshalException
     {
         // Return an empty ByteBuffer for an empty string.
@@ -31,6 +31,7 @@ import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.MapSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class MapType<K, V> extends CollectionType<Map<K, V>>
 {
@@ -192,6 +193,30 @@ public class MapType<K, V> extends CollectionType<Map<K, V>>
         return size1 == size2 ? 0 : (size1 < size2 ? -1 : 1);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return keys.supportsComparableBytes() && values.supportsComparableBytes();
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        ByteBuffer input = value.duplicate();
+        int size = CollectionSerializer.readCollectionSize(input, ProtocolVersion.V3);
+        ByteSource[] components = new ByteSource[2 * size + 1];
+        for (int i = 0; i < size; i++)
+        {
+            components[2 * i] = keys.asComparableComponent(CollectionSerializer.readValue(input, ProtocolVersion.V3));
+            components[2 * i + 1] = values.asComparableComponent(CollectionSerializer.readValue(input, ProtocolVersion.V3));
+        }
+        components[2 * size] = ByteSource.oneByte(ByteSource.TERMINATOR_COMPONENTS);
+        return ByteSource.of(components);
+    }
+
     @Override
     public MapSerializer<K, V> getSerializer()
     {
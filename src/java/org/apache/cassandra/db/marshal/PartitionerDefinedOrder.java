@@ -29,6 +29,7 @@ import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /** for sorting columns representing row keys in the row ordering as determined by a partitioner.
  * Not intended for user-defined CFs, and will in fact error out if used with such. */
@@ -94,6 +95,18 @@ public class PartitionerDefinedOrder extends AbstractType<ByteBuffer>
         return PartitionPosition.ForKey.get(o1, partitioner).compareTo(PartitionPosition.ForKey.get(o2, partitioner));
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return partitioner.hasByteComparableTokens();
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        return PartitionPosition.ForKey.get(value, partitioner).asComparableBytes();
+    }
+
     @Override
     public void validate(ByteBuffer bytes) throws MarshalException
     {
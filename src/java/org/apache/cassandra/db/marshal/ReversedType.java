@@ -29,6 +29,7 @@ import org.apache.cassandra.exceptions.SyntaxException;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class ReversedType<T> extends AbstractType<T>
 {
@@ -72,6 +73,19 @@ public class ReversedType<T> extends AbstractType<T>
         return baseType.compare(o2, o1);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return baseType.supportsComparableBytes();
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        // inverting the bytes of a prefix-free representation reverses its order
+        return ByteSource.invert(baseType.asComparableBytes(value));
+    }
+
     @Override
     public int compareForCQL(ByteBuffer v1, ByteBuffer v2)
     {
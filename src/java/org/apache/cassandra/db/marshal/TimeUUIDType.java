@@ -26,6 +26,7 @@ import org.apache.cassandra.cql3.Term;
 import org.apache.cassandra.serializers.TypeSerializer;
 import org.apache.cassandra.serializers.MarshalException;
 import org.apache.cassandra.serializers.TimeUUIDSerializer;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class TimeUUIDType extends AbstractType<UUID>
 {
@@ -75,6 +76,23 @@ public class TimeUUIDType extends AbstractType<UUID>
         return Long.compare(lsb1, lsb2);
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        // the timestamp, then the least significant bytes compared as signed bytes
+        return ByteSource.of(ByteSource.fixedLength(reorderTimestampBytes(value.getLong(value.position())), 8),
+                             ByteSource.fixedLength(value.getLong(value.position() + 8) ^ 0x8080808080808080L, 8));
+    }
+
     // takes as input 8 signed bytes in native machine order
     // returns the first byte unchanged, and the following 7 bytes converted to an unsigned representation
     // which is the same as a 2's complement long in native format
@@ -34,6 +34,7 @@ import org.apache.cassandra.exceptions.SyntaxException;
 import org.apache.cassandra.serializers.*;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * This is essentially like a CompositeType, but it's not primarily meant for comparison, just
@@ -163,6 +164,38 @@ public class TupleType extends AbstractType<ByteBuffer>
         return 0;
     }
 
+    @Override
+    public boolean supportsComparableBytes()
+    {
+        for (AbstractType<?> type : types)
+            if (!type.supportsComparableBytes())
+                return false;
+        return true;
+    }
+
+    @Override
+    public ByteSource asComparableBytes(ByteBuffer value)
+    {
+        if (!value.hasRemaining())
+            return ByteSource.EMPTY;
+
+        ByteBuffer input = value.duplicate();
+        List<ByteSource> components = new ArrayList<>(types.size() + 1);
+        int lastNonNull = -1;
+        for (int i = 0; input.remaining() > 0; i++)
+        {
+            int size = input.getInt();
+            ByteBuffer component = size < 0 ? null : ByteBufferUtil.readBytes(input, size);
+            components.add(types.get(i).asComparableComponent(component));
+            if (component != null)
+                lastNonNull = i;
+        }
+        // trailing nulls are ignored by compare, so they are left out
+        components.subList(lastNonNull + 1, components.size()).clear();
+        components.add(ByteSource.oneByte(ByteSource.TERMINATOR_COMPONENTS));
+        return ByteSource.of(components.toArray(new ByteSource[0]));
+    }
+
     /**
      * Split a tuple value into its component values.
      */
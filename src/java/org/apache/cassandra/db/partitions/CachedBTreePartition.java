@@ -18,9 +18,11 @@
 package org.apache.cassandra.db.partitions;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.filter.DataLimits;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.ISerializer;
@@ -126,6 +128,88 @@ public class CachedBTreePartition extends ImmutableBTreePartition implements Cac
                                         nonExpiringLiveCells);
     }
 
+    /**
+     * Creates an {@code ArrayBackedCachedPartition} holding the head of the provided iterator, that is its data up to
+     * its {@code rowsToCache}-th live row.
+     *
+     * Warning: Note that this method does not close the provided iterator, nor consumes what follows the head, and it
+     * is up to the caller to do so.
+     *
+     * @param iterator the iterator got gather in memory.
+     * @param rowsToCache the number of live rows to cache.
+     * @param nowInSec the time of the creation in seconds. This is the time at which {@link #cachedLiveRows} applies.
+     * @return the created partition.
+     */
+    public static CachedBTreePartition createHead(UnfilteredRowIterator iterator, int rowsToCache, int nowInSec)
+    {
+        final boolean enforceStrictLiveness = iterator.metadata().enforceStrictLiveness();
+
+        // Use a custom iterator instead of DataLimits to avoid stopping the original iterator
+        UnfilteredRowIterator toCacheIterator = new WrappingUnfilteredRowIterator(iterator)
+        {
+            private int rowsCounted = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return rowsCounted < rowsToCache && super.hasNext();
+            }
+
+            @Override
+            public Unfiltered next()
+            {
+                Unfiltered unfiltered = super.next();
+                if (unfiltered.isRow())
+                {
+                    Row row = (Row) unfiltered;
+                    if (row.hasLiveData(nowInSec, enforceStrictLiveness))
+                        rowsCounted++;
+                }
+                return unfiltered;
+            }
+        };
+
+        return create(toCacheIterator, nowInSec);
+    }
+
+    /**
+     * Merges a partition update into this cached partition, so that writing to a cached partition doesn't have
+     * to invalidate it.
+     * <p>
+     * If this partition holds less than {@code rowsToCache} live rows, it is the whole partition and the update can
+     * always be merged into it. Otherwise it is only the head of the partition, up to its last row: only the part of
+     * the update up to that row is merged, and the update can't be merged if it deletes the partition or ranges of
+     * rows, as they could cover rows that aren't cached, or if the merged head has less than {@code rowsToCache} live
+     * rows, as it would then be taken for the whole partition.
+     *
+     * @param update the update to merge.
+     * @param rowsToCache the number of live rows cached for the partitions of the table.
+     * @param nowInSec the time of the merge in seconds.
+     * @return the merged partition, or {@code null} if the update can't be merged, in which case the cached partition
+     * must be invalidated.
+     */
+    public CachedBTreePartition mergeUpdate(PartitionUpdate update, int rowsToCache, int nowInSec)
+    {
+        boolean isWholePartition = cachedLiveRows < rowsToCache;
+        Slices slices = Slices.ALL;
+        if (!isWholePartition)
+        {
+            if (!update.partitionLevelDeletion().isLive() || update.deletionInfo().hasRanges())
+                return null;
+
+            slices = Slices.with(metadata.comparator, Slice.make(ClusteringBound.BOTTOM, ClusteringBound.inclusiveEndOf(lastRow().clustering())));
+        }
+
+        CachedBTreePartition merged;
+        try (UnfilteredRowIterator updateIterator = update.unfilteredIterator(ColumnFilter.all(metadata), slices, false);
+             UnfilteredRowIterator iterator = UnfilteredRowIterators.merge(Arrays.asList(unfilteredIterator(), updateIterator), nowInSec))
+        {
+            merged = createHead(iterator, rowsToCache, nowInSec);
+        }
+
+        return isWholePartition || merged.cachedLiveRows >= rowsToCache ? merged : null;
+    }
+
     /**
      * The number of rows that were live at the time the partition was cached.
      *
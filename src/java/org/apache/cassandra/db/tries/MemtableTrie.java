@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.tries;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import com.google.common.collect.AbstractIterator;
+
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
+import sun.misc.Unsafe;
+
+/**
+ * An insert-only, ordered map from byte-comparable keys to values, supporting concurrent lock-free writers and
+ * readers. Used by memtables to index partitions without allocating any object per entry besides the value itself.
+ *
+ * The trie is a ternary search tree: every node holds a byte label and three child slots, for keys whose byte at the
+ * node's depth is smaller than, equal to or greater than the label. Children of the "equal" slot are one byte deeper.
+ * Nodes are stored as four ints in large chunks, on heap or in native memory depending on the allocator, and are
+ * referenced by their index; this is also what is stored in the slots.
+ *
+ * Values are only stored in leaves, which are encoded as negative slot values referring to an entry in a separate
+ * array of values. A leaf is placed as soon as its key is the only one in its subtree, i.e. keys are not expanded past
+ * the point where they differ from all others. Because of this, we need to be able to recover the key of a value
+ * (see {@code keyOf}), which is done when a leaf must be split because a key sharing more bytes with it is inserted,
+ * and to confirm that a value found by {@link #get} is indeed the one requested. Keys must be prefix-free, as
+ * produced by {@link ByteComparable}, so that a key can never end on an inner node.
+ *
+ * Slots only ever change from empty to a node or leaf, or from a leaf to a node whose subtree contains the same leaf,
+ * always by compare-and-swap after the new node or leaf has been fully written. Readers can thus walk the trie
+ * without synchronization and are guaranteed to see every value that was present when they started.
+ */
+public class MemtableTrie<V>
+{
+    private static final Unsafe unsafe;
+    private static final long INT_ARRAY_BASE_OFFSET;
+    private static final long ROOT_SLOT_OFFSET;
+
+    static
+    {
+        try
+        {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+            INT_ARRAY_BASE_OFFSET = unsafe.arrayBaseOffset(int[].class);
+            ROOT_SLOT_OFFSET = unsafe.objectFieldOffset(MemtableTrie.class.getDeclaredField("root"));
+        }
+        catch (Exception e)
+        {
+            throw new AssertionError(e);
+        }
+    }
+
+    // node layout, in ints
+    private static final int LABEL = 0;
+    private static final int LESSER = 1;
+    private static final int EQUAL = 2;
+    private static final int GREATER = 3;
+    private static final int NODE_SIZE = 4;
+    private static final int NODE_SIZE_BYTES = NODE_SIZE * 4;
+
+    private static final int NODE_CHUNK_SHIFT = 14;
+    private static final int NODE_CHUNK_NODES = 1 << NODE_CHUNK_SHIFT;
+    private static final int NODE_CHUNK_MASK = NODE_CHUNK_NODES - 1;
+    public static final int NODE_CHUNK_SIZE = NODE_CHUNK_NODES * NODE_SIZE_BYTES;
+
+    private static final int CONTENT_CHUNK_SHIFT = 12;
+    private static final int CONTENT_CHUNK_SIZE = 1 << CONTENT_CHUNK_SHIFT;
+    private static final int CONTENT_CHUNK_MASK = CONTENT_CHUNK_SIZE - 1;
+    private static final long CONTENT_CHUNK_HEAP_SIZE = ObjectSizes.measure(new AtomicReferenceArray<>(0))
+                                                        + ObjectSizes.sizeOfReferenceArray(CONTENT_CHUNK_SIZE);
+
+    private final Function<V, ByteComparable> keyOf;
+    private final MemtableAllocator.SubAllocator nodeAllocator;
+    private final MemtableAllocator.SubAllocator contentAllocator;
+    private final boolean offHeap;
+
+    // the slot for the whole trie; updated through unsafe
+    private volatile int root;
+
+    // node 0 is never used, as 0 stands for an empty slot
+    private final AtomicInteger nextNode = new AtomicInteger(1);
+    private final AtomicInteger nextContent = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // chunk storage, replaced (under the trie's monitor) when growing; a chunk is addressed through its base object
+    // (the int[] for chunks on heap, null for native memory) and an offset (the address for native memory)
+    private volatile Object[] nodeChunkBases = new Object[0];
+    private volatile long[] nodeChunkOffsets = new long[0];
+    private volatile AtomicReferenceArray<?>[] contentChunks = new AtomicReferenceArray<?>[0];
+    private boolean released;
+
+    /**
+     * @param keyOf returns the key a value was inserted with
+     * @param allocator the allocator owning the memory of the trie
+     * @param offHeap whether nodes should be stored in native memory (and accounted in the allocator's off-heap pool)
+     * rather than on heap
+     */
+    public MemtableTrie(Function<V, ByteComparable> keyOf, MemtableAllocator allocator, boolean offHeap)
+    {
+        this.keyOf = keyOf;
+        this.offHeap = offHeap;
+        this.nodeAllocator = offHeap ? allocator.offHeap() : allocator.onHeap();
+        this.contentAllocator = allocator.onHeap();
+    }
+
+    public int size()
+    {
+        return size.get();
+    }
+
+    public boolean isEmpty()
+    {
+        return size.get() == 0;
+    }
+
+    /**
+     * Returns the value associated with the given key, or null.
+     */
+    public V get(byte[] key)
+    {
+        int slot = root;
+        int depth = 0;
+        while (slot > 0)
+        {
+            if (depth == key.length)
+                return null;
+            int label = getLabel(slot);
+            int b = key[depth] & 0xFF;
+            if (b < label)
+                slot = getSlot(slot, LESSER);
+            else if (b > label)
+                slot = getSlot(slot, GREATER);
+            else
+            {
+                slot = getSlot(slot, EQUAL);
+                ++depth;
+            }
+        }
+
+        if (slot == 0)
+            return null;
+
+        V value = getContent(~slot);
+        return ByteComparable.compare(keyOf.apply(value).asComparableBytes(), ByteSource.fixedLength(key)) == 0 ? value : null;
+    }
+
+    /**
+     * Associates the given value with the given key, unless the key is already present.
+     *
+     * @param opGroup the write operation, used to account for the memory of the trie in its allocator
+     * @return the value already associated with the key, or null if the given value was inserted
+     */
+    public V putIfAbsent(byte[] key, V value, OpOrder.Group opGroup)
+    {
+        int leaf = 0;
+        Object base = this;
+        long offset = ROOT_SLOT_OFFSET;
+        int depth = 0;
+
+        while (true)
+        {
+            int slot = unsafe.getIntVolatile(base, offset);
+            if (slot > 0)
+            {
+                int label = getLabel(slot);
+                int b = key[depth] & 0xFF;
+                int field;
+                if (b < label)
+                    field = LESSER;
+                else if (b > label)
+                    field = GREATER;
+                else
+                {
+                    field = EQUAL;
+                    ++depth;
+                }
+                base = nodeBase(slot);
+                offset = nodeOffset(slot, field);
+                continue;
+            }
+
+            byte[] existingKey = null;
+            if (slot < 0)
+            {
+                V existing = getContent(~slot);
+                existingKey = ByteSource.readBytes(keyOf.apply(existing).asComparableBytes());
+                if (Arrays.equals(existingKey, key))
+                {
+                    if (leaf != 0)
+                        setContent(~leaf, null);
+                    return existing;
+                }
+            }
+
+            if (leaf == 0)
+                leaf = ~addContent(value, opGroup);
+
+            int replacement = slot == 0 ? leaf : split(depth, existingKey, slot, key, leaf, opGroup);
+            if (unsafe.compareAndSwapInt(base, offset, slot, replacement))
+            {
+                size.incrementAndGet();
+                return null;
+            }
+            // someone else changed the slot; restart from it, the nodes we may have created are lost
+        }
+    }
+
+    /**
+     * Creates the subtree holding the two given leaves, whose keys are equal up to (excluding) {@code depth}.
+     */
+    private int split(int depth, byte[] key1, int leaf1, byte[] key2, int leaf2, OpOrder.Group opGroup)
+    {
+        int first = 0;
+        int parent = 0;
+        while (true)
+        {
+            // the keys are different and prefix-free, so they must differ before either ends
+            int b1 = key1[depth] & 0xFF;
+            int b2 = key2[depth] & 0xFF;
+            int node = allocateNode(b1, opGroup);
+            if (parent == 0)
+                first = node;
+            else
+                putSlot(parent, EQUAL, node);
+
+            if (b1 != b2)
+            {
+                putSlot(node, EQUAL, leaf1);
+                putSlot(node, b2 < b1 ? LESSER : GREATER, leaf2);
+                return first;
+            }
+            parent = node;
+            ++depth;
+        }
+    }
+
+    /**
+     * Returns the values in the trie in key order, starting with the first key greater than or equal to
+     * {@code lowerBound} (from the beginning if null). The iteration is weakly consistent: it will return all values
+     * that were present when it was created, and may return values added after that.
+     */
+    public Iterator<V> iterator(byte[] lowerBound)
+    {
+        return new TrieIterator(lowerBound);
+    }
+
+    public Iterable<V> values()
+    {
+        return () -> iterator(null);
+    }
+
+    /**
+     * Frees the memory used by the nodes of this trie. This must only be called once no reader can access it.
+     */
+    public synchronized void release()
+    {
+        if (released)
+            return;
+        released = true;
+        if (offHeap)
+        {
+            for (long address : nodeChunkOffsets)
+                MemoryUtil.free(address);
+        }
+        nodeChunkBases = new Object[0];
+        nodeChunkOffsets = new long[0];
+        contentChunks = new AtomicReferenceArray<?>[0];
+    }
+
+    private class TrieIterator extends AbstractIterator<V>
+    {
+        private final byte[] lowerBound;
+        // pending slots, as triples of slot, depth and whether the subtree can contain keys before the lower bound
+        private int[] stack = new int[3 * 16];
+        private int stackSize;
+
+        TrieIterator(byte[] lowerBound)
+        {
+            this.lowerBound = lowerBound;
+            push(root, 0, lowerBound != null);
+        }
+
+        private void push(int slot, int depth, boolean bounded)
+        {
+            if (slot == 0)
+                return;
+            if (stackSize == stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[stackSize++] = slot;
+            stack[stackSize++] = depth;
+            stack[stackSize++] = bounded ? 1 : 0;
+        }
+
+        protected V computeNext()
+        {
+            while (stackSize > 0)
+            {
+                boolean bounded = stack[--stackSize] != 0;
+                int depth = stack[--stackSize];
+                int slot = stack[--stackSize];
+                bounded = bounded && depth < lowerBound.length;
+
+                if (slot < 0)
+                {
+                    V value = getContent(~slot);
+                    if (!bounded || ByteComparable.compare(keyOf.apply(value).asComparableBytes(), ByteSource.fixedLength(lowerBound)) >= 0)
+                        return value;
+                    continue;
+                }
+
+                int label = getLabel(slot);
+                int b = bounded ? lowerBound[depth] & 0xFF : -1;
+                // push in reverse order, so that the lesser subtree is visited first
+                push(getSlot(slot, GREATER), depth, b > label);
+                if (b <= label)
+                    push(getSlot(slot, EQUAL), depth + 1, b == label);
+                if (b < label)
+                    push(getSlot(slot, LESSER), depth, bounded);
+            }
+            return endOfData();
+        }
+    }
+
+    private int getLabel(int node)
+    {
+        return unsafe.getInt(nodeBase(node), nodeOffset(node, LABEL));
+    }
+
+    private int getSlot(int node, int field)
+    {
+        return unsafe.getIntVolatile(nodeBase(node), nodeOffset(node, field));
+    }
+
+    private void putSlot(int node, int field, int value)
+    {
+        unsafe.putInt(nodeBase(node), nodeOffset(node, field), value);
+    }
+
+    private Object nodeBase(int node)
+    {
+        return nodeChunkBases[node >>> NODE_CHUNK_SHIFT];
+    }
+
+    private long nodeOffset(int node, int field)
+    {
+        return nodeChunkOffsets[node >>> NODE_CHUNK_SHIFT] + (long) ((node & NODE_CHUNK_MASK) * NODE_SIZE + field) * 4;
+    }
+
+    private int allocateNode(int label, OpOrder.Group opGroup)
+    {
+        int node = nextNode.getAndIncrement();
+        if (node < 0)
+            throw new IllegalStateException("Memtable trie node space exhausted");
+        int chunk = node >>> NODE_CHUNK_SHIFT;
+        if (chunk >= nodeChunkOffsets.length)
+            addNodeChunks(chunk, opGroup);
+
+        // the chunk may have been allocated dirty
+        unsafe.putInt(nodeBase(node), nodeOffset(node, LABEL), label);
+        putSlot(node, LESSER, 0);
+        putSlot(node, EQUAL, 0);
+        putSlot(node, GREATER, 0);
+        return node;
+    }
+
+    private synchronized void addNodeChunks(int upTo, OpOrder.Group opGroup)
+    {
+        assert !released;
+        int count = nodeChunkOffsets.length;
+        if (upTo < count)
+            return;
+
+        Object[] bases = Arrays.copyOf(nodeChunkBases, upTo + 1);
+        long[] offsets = Arrays.copyOf(nodeChunkOffsets, upTo + 1);
+        for (int i = count; i <= upTo; ++i)
+        {
+            nodeAllocator.allocate(NODE_CHUNK_SIZE, opGroup);
+            if (offHeap)
+            {
+                offsets[i] = MemoryUtil.allocate(NODE_CHUNK_SIZE);
+            }
+            else
+            {
+                bases[i] = new int[NODE_CHUNK_NODES * NODE_SIZE];
+                offsets[i] = INT_ARRAY_BASE_OFFSET;
+            }
+        }
+        // publish the bases first, as readers get the chunk count from the offsets
+        nodeChunkBases = bases;
+        nodeChunkOffsets = offsets;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getContent(int index)
+    {
+        return (V) contentChunks[index >>> CONTENT_CHUNK_SHIFT].get(index & CONTENT_CHUNK_MASK);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setContent(int index, V value)
+    {
+        ((AtomicReferenceArray<V>) contentChunks[index >>> CONTENT_CHUNK_SHIFT]).set(index & CONTENT_CHUNK_MASK, value);
+    }
+
+    private int addContent(V value, OpOrder.Group opGroup)
+    {
+        int index = nextContent.getAndIncrement();
+        if (index < 0)
+            throw new IllegalStateException("Memtable trie content space exhausted");
+        int chunk = index >>> CONTENT_CHUNK_SHIFT;
+        if (chunk >= contentChunks.length)
+            addContentChunks(chunk, opGroup);
+        setContent(index, value);
+        return index;
+    }
+
+    private synchronized void addContentChunks(int upTo, OpOrder.Group opGroup)
+    {
+        assert !released;
+        int count = contentChunks.length;
+        if (upTo < count)
+            return;
+
+        AtomicReferenceArray<?>[] chunks = Arrays.copyOf(contentChunks, upTo + 1);
+        for (int i = count; i <= upTo; ++i)
+        {
+            contentAllocator.allocate(CONTENT_CHUNK_HEAP_SIZE, opGroup);
+            chunks[i] = new AtomicReferenceArray<V>(CONTENT_CHUNK_SIZE);
+        }
+        contentChunks = chunks;
+    }
+}
@@ -114,4 +114,12 @@ public interface IPartitioner
     {
         return Optional.empty();
     }
+
+    /**
+     * @return true if the tokens of this partitioner support {@link Token#asComparableBytes()}.
+     */
+    default boolean hasByteComparableTokens()
+    {
+        return false;
+    }
 }
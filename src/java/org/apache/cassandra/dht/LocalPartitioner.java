@@ -28,6 +28,7 @@ import org.apache.cassandra.db.CachedHashDecoratedKey;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 import org.apache.cassandra.utils.memory.HeapAllocator;
 
 public class LocalPartitioner implements IPartitioner
@@ -129,6 +130,11 @@ public class LocalPartitioner implements IPartitioner
         return comparator;
     }
 
+    public boolean hasByteComparableTokens()
+    {
+        return comparator.supportsComparableBytes();
+    }
+
     public class LocalToken extends ComparableObjectToken<ByteBuffer>
     {
         static final long serialVersionUID = 8437543776403014875L;
@@ -156,6 +162,13 @@ public class LocalPartitioner implements IPartitioner
             return comparator.compare(token, ((LocalToken) o).token);
         }
 
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            // encoded as a component, which is prefix-free for the empty minimum token too
+            return comparator.asComparableComponent(token);
+        }
+
         @Override
         public int hashCode()
         {
@@ -32,6 +32,7 @@ import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.MurmurHash;
 import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 import com.google.common.primitives.Longs;
 
@@ -171,6 +172,12 @@ public class Murmur3Partitioner implements IPartitioner
             return Long.compare(token, ((LongToken) o).token);
         }
 
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.of(token);
+        }
+
         @Override
         public IPartitioner getPartitioner()
         {
@@ -252,6 +259,11 @@ public class Murmur3Partitioner implements IPartitioner
         return false;
     }
 
+    public boolean hasByteComparableTokens()
+    {
+        return true;
+    }
+
     public Map<Token, Float> describeOwnership(List<Token> sortedTokens)
     {
         Map<Token, Float> ownerships = new HashMap<Token, Float>();
@@ -35,6 +35,7 @@ import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 public class OrderPreservingPartitioner implements IPartitioner
 {
@@ -173,6 +174,11 @@ public class OrderPreservingPartitioner implements IPartitioner
         return true;
     }
 
+    public boolean hasByteComparableTokens()
+    {
+        return true;
+    }
+
     public static class StringToken extends ComparableObjectToken<String>
     {
         static final long serialVersionUID = 5464084395277974963L;
@@ -193,6 +199,12 @@ public class OrderPreservingPartitioner implements IPartitioner
         {
             return EMPTY_SIZE + ObjectSizes.sizeOf(token);
         }
+
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.of(token);
+        }
     }
 
     public StringToken getToken(ByteBuffer key)
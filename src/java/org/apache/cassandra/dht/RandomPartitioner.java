@@ -36,6 +36,7 @@ import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.GuidGenerator;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
 /**
  * This class generates a BigIntegerToken using MD5 hash.
@@ -201,6 +202,11 @@ public class RandomPartitioner implements IPartitioner
         return false;
     }
 
+    public boolean hasByteComparableTokens()
+    {
+        return true;
+    }
+
     public static class BigIntegerToken extends ComparableObjectToken<BigInteger>
     {
         static final long serialVersionUID = -5833589141319293006L;
@@ -234,6 +240,21 @@ public class RandomPartitioner implements IPartitioner
             return new BigIntegerToken(token.add(BigInteger.ONE));
         }
 
+        /**
+         * Writes the two's complement bytes of the value preceded by a sign byte and their length; the length is
+         * inverted for negative values, as longer means smaller for them.
+         */
+        @Override
+        public ByteSource asComparableBytes()
+        {
+            byte[] bytes = token.toByteArray();
+            assert bytes.length <= 0xFF;
+            boolean negative = token.signum() < 0;
+            return ByteSource.of(ByteSource.oneByte(negative ? 0x00 : 0x80),
+                                 ByteSource.oneByte(negative ? 0xFF - bytes.length : bytes.length),
+                                 ByteSource.fixedLength(bytes));
+        }
+
         public double size(Token next)
         {
             BigIntegerToken n = (BigIntegerToken) next;
@@ -81,6 +81,16 @@ public abstract class Splitter
         return boundaries;
     }
 
+    /**
+     * @return the share of the whole ring between the given tokens, between 0 and 1
+     */
+    public double ringShare(Token left, Token right)
+    {
+        BigInteger ring = valueForToken(partitioner.getMaximumToken()).subtract(valueForToken(partitioner.getMinimumToken()));
+        BigInteger width = valueForToken(token(right)).subtract(valueForToken(left));
+        return Math.max(0, Math.min(1, width.doubleValue() / ring.doubleValue()));
+    }
+
     private List<Token> splitOwnedRangesNoPartialRanges(List<Range<Token>> localRanges, BigInteger perPart, int parts)
     {
         List<Token> boundaries = new ArrayList<>(parts);
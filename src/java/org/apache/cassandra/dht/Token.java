@@ -27,8 +27,10 @@ import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
 
-public abstract class Token implements RingPosition<Token>, Serializable
+public abstract class Token implements RingPosition<Token>, ByteComparable, Serializable
 {
     private static final long serialVersionUID = 1L;
 
@@ -85,6 +87,17 @@ public abstract class Token implements RingPosition<Token>, Serializable
      */
     abstract public Token increaseSlightly();
 
+    /**
+     * Returns a byte-comparable representation of this token, i.e. one whose unsigned lexicographic order is the
+     * order of the tokens. The representation is prefix-free, so that keys can be appended to it.
+     * Only supported when {@link IPartitioner#hasByteComparableTokens()} is true.
+     */
+    public ByteSource asComparableBytes()
+    {
+        throw new UnsupportedOperationException(String.format("Token type %s does not support byte-comparable representations.",
+                                                              getClass().getSimpleName()));
+    }
+
     public Token getToken()
     {
         return this;
@@ -193,6 +206,12 @@ public abstract class Token implements RingPosition<Token>, Serializable
             return isMinimumBound ? PartitionPosition.Kind.MIN_BOUND : PartitionPosition.Kind.MAX_BOUND;
         }
 
+        public ByteSource asComparableBytes()
+        {
+            return ByteSource.of(getToken().asComparableBytes(),
+                                 ByteSource.oneByte(isMinimumBound ? PartitionPosition.MIN_BOUND_BYTE : PartitionPosition.MAX_BOUND_BYTE));
+        }
+
         @Override
         public boolean equals(Object obj)
         {
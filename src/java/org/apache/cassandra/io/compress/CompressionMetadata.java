@@ -28,6 +28,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -39,6 +40,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.primitives.Longs;
 
+import com.github.luben.zstd.Zstd;
 import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.FSReadError;
@@ -62,6 +64,12 @@ import org.apache.cassandra.utils.concurrent.Ref;
  */
 public class CompressionMetadata
 {
+    /**
+     * The key under which the id of the dictionary used to compress the sstable, stored in its COMPRESSION_DICTIONARY
+     * component, is recorded with the options of the compressor.
+     */
+    public static final String DICTIONARY_ID = "dictionary_id";
+
     // dataLength can represent either the true length of the file
     // or some shorter value, in the case we want to impose a shorter limit on readers
     // (when early opening, we want to ensure readers cannot read past fully written sections)
@@ -107,10 +115,13 @@ public class CompressionMetadata
                 String value = stream.readUTF();
                 options.put(key, value);
             }
+            // not a compressor option, so that versions which can't load dictionaries refuse to open the sstable
+            String dictionaryId = options.remove(DICTIONARY_ID);
             int chunkLength = stream.readInt();
             try
             {
-                parameters = new CompressionParams(compressorName, chunkLength, options);
+                CompressionParams params = new CompressionParams(compressorName, chunkLength, options);
+                parameters = dictionaryId == null ? params : params.withDictionary(readDictionary(indexFilePath, dictionaryId));
             }
             catch (ConfigurationException e)
             {
@@ -133,6 +144,20 @@ public class CompressionMetadata
         this.chunkOffsetsSize = chunkOffsets.size();
     }
 
+    private static byte[] readDictionary(String indexFilePath, String dictionaryId) throws IOException
+    {
+        File file = new File(dictionaryPath(indexFilePath));
+        byte[] dictionary = Files.readAllBytes(file.toPath());
+        if (!dictionaryId.equals(Long.toString(Zstd.getDictIdFromDict(dictionary))))
+            throw new CorruptSSTableException(new IOException("Compression dictionary does not match the compression info"), file);
+        return dictionary;
+    }
+
+    private static String dictionaryPath(String indexFilePath)
+    {
+        return Descriptor.fromFilename(indexFilePath).filenameFor(Component.COMPRESSION_DICTIONARY);
+    }
+
     private CompressionMetadata(String filePath, CompressionParams parameters, SafeMemory offsets, long offsetsSize, long dataLength, long compressedLength, ChecksumType checksumType)
     {
         this.indexFilePath = filePath;
@@ -344,9 +369,14 @@ public class CompressionMetadata
         {
             try
             {
+                Map<String, String> options = new HashMap<>(parameters.getOtherOptions());
+                byte[] dictionary = parameters.dictionary();
+                if (dictionary != null)
+                    options.put(DICTIONARY_ID, Long.toString(Zstd.getDictIdFromDict(dictionary)));
+
                 out.writeUTF(parameters.getSstableCompressor().getClass().getSimpleName());
-                out.writeInt(parameters.getOtherOptions().size());
-                for (Map.Entry<String, String> entry : parameters.getOtherOptions().entrySet())
+                out.writeInt(options.size());
+                for (Map.Entry<String, String> entry : options.entrySet())
                 {
                     out.writeUTF(entry.getKey());
                     out.writeUTF(entry.getValue());
@@ -385,6 +415,20 @@ public class CompressionMetadata
                 tmp.free();
             }
 
+            byte[] dictionary = parameters.dictionary();
+            if (dictionary != null)
+            {
+                try (FileOutputStream fos = new FileOutputStream(dictionaryPath(filePath)))
+                {
+                    fos.write(dictionary);
+                    fos.getFD().sync();
+                }
+                catch (IOException e)
+                {
+                    throw Throwables.propagate(e);
+                }
+            }
+
             // flush the data to disk
             try (FileOutputStream fos = new FileOutputStream(filePath);
                  DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos)))
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * Zstandard compression, which offers better ratios than LZ4 at similar decompression speeds.
+ * <p>
+ * Each compressed block is a complete Zstandard frame, which records the uncompressed length itself. Instances
+ * created with {@link #withDictionary} compress and uncompress blocks with a dictionary trained on similar data
+ * (see {@link #trainDictionary}), which considerably improves the compression of small blocks; such blocks can only
+ * be uncompressed with the same dictionary. When the {@code dictionary_size_in_kb} option is set, compactions train
+ * such dictionaries for the sstables of the table (see {@link org.apache.cassandra.db.compaction.CompressionDictionaryTrainer}).
+ */
+public class ZstdCompressor implements ICompressor
+{
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    public static final String COMPRESSION_LEVEL = "compression_level";
+    public static final String DICTIONARY_SIZE_IN_KB = "dictionary_size_in_kb";
+    private static final int MAX_DICTIONARY_SIZE_IN_KB = 1024;
+
+    private static final ConcurrentHashMap<Pair<Integer, Integer>, ZstdCompressor> instances = new ConcurrentHashMap<>();
+
+    public static ZstdCompressor create(Map<String, String> args) throws ConfigurationException
+    {
+        int level = validateCompressionLevel(args.get(COMPRESSION_LEVEL));
+        int dictionarySize = validateDictionarySize(args.get(DICTIONARY_SIZE_IN_KB));
+        return instances.computeIfAbsent(Pair.create(level, dictionarySize), p -> new ZstdCompressor(p.left, p.right, null));
+    }
+
+    @VisibleForTesting
+    final int compressionLevel;
+    private final int dictionarySize;
+    private final byte[] dictionary;
+    private final ZstdDictCompress compressDictionary;
+    private final ZstdDictDecompress decompressDictionary;
+
+    private ZstdCompressor(int compressionLevel, int dictionarySize, byte[] dictionary)
+    {
+        this.compressionLevel = compressionLevel;
+        this.dictionarySize = dictionarySize;
+        this.dictionary = dictionary;
+        this.compressDictionary = dictionary == null ? null : new ZstdDictCompress(dictionary, compressionLevel);
+        this.decompressDictionary = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+    }
+
+    /**
+     * Returns a compressor with the same compression level as this one, using the provided dictionary.
+     */
+    public ZstdCompressor withDictionary(byte[] dictionary)
+    {
+        return new ZstdCompressor(compressionLevel, dictionarySize, dictionary);
+    }
+
+    /**
+     * The maximum size in bytes of the dictionaries to train for the sstables using this compressor, or 0 if they
+     * should not use dictionaries.
+     */
+    public int dictionarySize()
+    {
+        return dictionarySize;
+    }
+
+    /**
+     * The dictionary used by this compressor, or {@code null}.
+     */
+    public byte[] dictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     * Trains a dictionary of at most {@code maxSize} bytes on the provided samples.
+     *
+     * @throws IOException if the samples are not sufficient to train a dictionary
+     */
+    public static byte[] trainDictionary(List<byte[]> samples, int maxSize) throws IOException
+    {
+        long totalSize = 0;
+        for (byte[] sample : samples)
+            totalSize += sample.length;
+
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(totalSize, Integer.MAX_VALUE), maxSize);
+        for (byte[] sample : samples)
+            trainer.addSample(sample);
+        try
+        {
+            return trainer.trainSamples();
+        }
+        catch (RuntimeException e)
+        {
+            throw new IOException("Could not train a compression dictionary: " + e.getMessage(), e);
+        }
+    }
+
+    public int initialCompressedBufferLength(int chunkLength)
+    {
+        return (int) Zstd.compressBound(chunkLength);
+    }
+
+    public int uncompress(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset) throws IOException
+    {
+        long size = decompressDictionary == null
+                    ? Zstd.decompressByteArray(output, outputOffset, output.length - outputOffset, input, inputOffset, inputLength)
+                    : Zstd.decompressFastDict(output, outputOffset, input, inputOffset, inputLength, decompressDictionary);
+        return checkSize(size);
+    }
+
+    public void compress(ByteBuffer input, ByteBuffer output) throws IOException
+    {
+        long size;
+        if (input.isDirect() && output.isDirect())
+        {
+            size = compressDictionary == null
+                   ? Zstd.compressDirectByteBuffer(output, output.position(), output.remaining(), input, input.position(), input.remaining(), compressionLevel)
+                   : Zstd.compressDirectByteBufferFastDict(output, output.position(), output.remaining(), input, input.position(), input.remaining(), compressDictionary);
+        }
+        else
+        {
+            // the arrays of heap buffers, or copies when the buffers are of different types
+            byte[] in = input.hasArray() ? input.array() : toArray(input);
+            int inOffset = input.hasArray() ? input.arrayOffset() + input.position() : 0;
+            byte[] out = output.hasArray() ? output.array() : new byte[output.remaining()];
+            int outOffset = output.hasArray() ? output.arrayOffset() + output.position() : 0;
+            int outLength = output.hasArray() ? output.remaining() : out.length;
+            size = compressDictionary == null
+                   ? Zstd.compressByteArray(out, outOffset, outLength, in, inOffset, input.remaining(), compressionLevel)
+                   : Zstd.compressFastDict(out, outOffset, in, inOffset, input.remaining(), compressDictionary);
+            checkSize(size);
+            if (!output.hasArray())
+                output.duplicate().put(out, 0, (int) size);
+        }
+        output.position(output.position() + checkSize(size));
+        input.position(input.limit());
+    }
+
+    public void uncompress(ByteBuffer input, ByteBuffer output) throws IOException
+    {
+        long size;
+        if (input.isDirect() && output.isDirect())
+        {
+            size = decompressDictionary == null
+                   ? Zstd.decompressDirectByteBuffer(output, output.position(), output.remaining(), input, input.position(), input.remaining())
+                   : Zstd.decompressDirectByteBufferFastDict(output, output.position(), output.remaining(), input, input.position(), input.remaining(), decompressDictionary);
+        }
+        else
+        {
+            byte[] in = input.hasArray() ? input.array() : toArray(input);
+            int inOffset = input.hasArray() ? input.arrayOffset() + input.position() : 0;
+            byte[] out = output.hasArray() ? output.array() : new byte[output.remaining()];
+            int outOffset = output.hasArray() ? output.arrayOffset() + output.position() : 0;
+            size = decompressDictionary == null
+                   ? Zstd.decompressByteArray(out, outOffset, out.length - outOffset, in, inOffset, input.remaining())
+                   : Zstd.decompressFastDict(out, outOffset, in, inOffset, input.remaining(), decompressDictionary);
+            checkSize(size);
+            if (!output.hasArray())
+                output.duplicate().put(out, 0, (int) size);
+        }
+        output.position(output.position() + checkSize(size));
+        input.position(input.limit());
+    }
+
+    private static byte[] toArray(ByteBuffer buffer)
+    {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    private static int checkSize(long size) throws IOException
+    {
+        if (Zstd.isError(size))
+            throw new IOException("Zstd error: " + Zstd.getErrorName(size));
+        return (int) size;
+    }
+
+    public Set<String> supportedOptions()
+    {
+        return new HashSet<>(Arrays.asList(COMPRESSION_LEVEL, DICTIONARY_SIZE_IN_KB));
+    }
+
+    public static int validateDictionarySize(String dictionarySize) throws ConfigurationException
+    {
+        if (dictionarySize == null)
+            return 0;
+
+        ConfigurationException ex = new ConfigurationException("Invalid value [" + dictionarySize + "] for parameter '"
+                                                               + DICTIONARY_SIZE_IN_KB + "'. Value must be between 0 and "
+                                                               + MAX_DICTIONARY_SIZE_IN_KB + ".");
+        int size;
+        try
+        {
+            size = Integer.parseInt(dictionarySize);
+        }
+        catch (NumberFormatException e)
+        {
+            throw ex;
+        }
+
+        if (size < 0 || size > MAX_DICTIONARY_SIZE_IN_KB)
+            throw ex;
+
+        return size * 1024;
+    }
+
+    public static int validateCompressionLevel(String compressionLevel) throws ConfigurationException
+    {
+        if (compressionLevel == null)
+            return DEFAULT_COMPRESSION_LEVEL;
+
+        ConfigurationException ex = new ConfigurationException("Invalid value [" + compressionLevel + "] for parameter '"
+                                                               + COMPRESSION_LEVEL + "'. Value must be between "
+                                                               + Zstd.minCompressionLevel() + " and " + Zstd.maxCompressionLevel() + ".");
+        int level;
+        try
+        {
+            level = Integer.parseInt(compressionLevel);
+        }
+        catch (NumberFormatException e)
+        {
+            throw ex;
+        }
+
+        if (level < Zstd.minCompressionLevel() || level > Zstd.maxCompressionLevel())
+            throw ex;
+
+        return level;
+    }
+
+    public BufferType preferredBufferType()
+    {
+        return BufferType.OFF_HEAP;
+    }
+
+    public boolean supports(BufferType bufferType)
+    {
+        return true;
+    }
+}
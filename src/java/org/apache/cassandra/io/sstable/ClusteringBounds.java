@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.FastByteOperations;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.Ref;
+import org.apache.cassandra.utils.concurrent.SharedCloseable;
+
+/**
+ * The clustering bounds of each partition of an sstable (see {@link ClusteringBoundsBuilder}), that tell reads of
+ * a part of a partition whether the sstable can have anything to contribute to them, where the table-wide bounds of
+ * the sstable metadata cannot: a time series sstable often has recent rows for some partitions and old rows for
+ * others.
+ * <p>
+ * The file holds a record per partition, in partition order, made of the token of the partition (the sstables of
+ * the Murmur3Partitioner being ordered by it) and of the first {@link #BOUND_LENGTH} bytes of the byte-comparable
+ * representations of the first and last clusterings of the partition, padded with zeros. That truncation preserves
+ * the order (though not its strictness), so a slice whose truncated bounds do not intersect those of the partition
+ * does not intersect the partition. The records are followed by their count.
+ * <p>
+ * The tokens are uniformly distributed, so a partition is searched by interpolation (alternated with bisection, to
+ * bound the number of steps), and a token missing from the file also tells that the partition is not in the sstable.
+ */
+public class ClusteringBounds implements SharedCloseable
+{
+    static final int BOUND_LENGTH = 16;
+    static final int RECORD_SIZE = 8 + 2 * BOUND_LENGTH;
+
+    // the bounds of a partition with a partition deletion, which intersect any slice
+    static final byte[] MIN_BOUND = new byte[BOUND_LENGTH];
+    static final byte[] MAX_BOUND = new byte[BOUND_LENGTH];
+    static
+    {
+        Arrays.fill(MAX_BOUND, (byte) 0xFF);
+    }
+
+    private final FileHandle fh;
+    private final ClusteringComparator comparator;
+    private final long partitionCount;
+    private final long minToken;
+    private final long maxToken;
+
+    private ClusteringBounds(FileHandle fh, ClusteringComparator comparator, long partitionCount, long minToken, long maxToken)
+    {
+        this.fh = fh;
+        this.comparator = comparator;
+        this.partitionCount = partitionCount;
+        this.minToken = minToken;
+        this.maxToken = maxToken;
+    }
+
+    @SuppressWarnings("resource")
+    public static ClusteringBounds load(Descriptor descriptor, ClusteringComparator comparator) throws IOException
+    {
+        try (FileHandle.Builder builder = new FileHandle.Builder(descriptor.filenameFor(Component.CLUSTERING_BOUNDS))
+                                          .mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap)
+                                          .withChunkCache(ChunkCache.instance))
+        {
+            FileHandle fh = builder.complete();
+            try (RandomAccessReader in = fh.createReader())
+            {
+                in.seek(fh.dataLength() - 8);
+                long partitionCount = in.readLong();
+                if (partitionCount == 0)
+                    return new ClusteringBounds(fh, comparator, 0, Long.MAX_VALUE, Long.MIN_VALUE);
+                return new ClusteringBounds(fh, comparator, partitionCount, tokenAt(in, 0), tokenAt(in, partitionCount - 1));
+            }
+            catch (Throwable t)
+            {
+                fh.close();
+                throw t;
+            }
+        }
+    }
+
+    /**
+     * Returns the first {@link #BOUND_LENGTH} bytes of the given value, padded with zeros.
+     */
+    static byte[] truncate(ByteComparable value)
+    {
+        byte[] bytes = new byte[BOUND_LENGTH];
+        ByteSource source = value.asComparableBytes();
+        for (int i = 0, b; i < BOUND_LENGTH && (b = source.next()) != ByteSource.END_OF_STREAM; i++)
+            bytes[i] = (byte) b;
+        return bytes;
+    }
+
+    private static long tokenAt(RandomAccessReader in, long record) throws IOException
+    {
+        in.seek(record * RECORD_SIZE);
+        return in.readLong();
+    }
+
+    /**
+     * Returns whether the sstable may have data of the given partition within the given slices, that is whether
+     * it has the partition and the clustering bounds of the partition intersect one of the slices. Static rows
+     * are not considered, and partitions with a partition deletion intersect every slice.
+     */
+    public boolean mayIntersect(DecoratedKey key, Slices slices)
+    {
+        long token = (Long) key.getToken().getTokenValue();
+        if (token < minToken || token > maxToken)
+            return false;
+
+        try (RandomAccessReader in = fh.createReader())
+        {
+            long record = search(in, token);
+            if (tokenAt(in, record) != token)
+                return false;
+
+            byte[][] sliceBounds = new byte[slices.size() * 2][];
+            for (int i = 0; i < slices.size(); i++)
+            {
+                Slice slice = slices.get(i);
+                sliceBounds[2 * i] = truncate(comparator.asByteComparable(slice.start()));
+                sliceBounds[2 * i + 1] = truncate(comparator.asByteComparable(slice.end()));
+            }
+
+            // keys sharing a token have a record each, the partition can be any of them
+            byte[] first = new byte[BOUND_LENGTH];
+            byte[] last = new byte[BOUND_LENGTH];
+            do
+            {
+                in.readFully(first);
+                in.readFully(last);
+                for (int i = 0; i < sliceBounds.length; i += 2)
+                {
+                    if (compare(sliceBounds[i], last) <= 0 && compare(first, sliceBounds[i + 1]) <= 0)
+                        return true;
+                }
+            }
+            while (++record < partitionCount && tokenAt(in, record) == token);
+            return false;
+        }
+        catch (IOException e)
+        {
+            throw new CorruptSSTableException(e, fh.path());
+        }
+    }
+
+    /**
+     * Returns the first record whose token is not before the given one, which must be within the tokens of the file.
+     */
+    private long search(RandomAccessReader in, long token) throws IOException
+    {
+        long low = 0;
+        long high = partitionCount - 1;
+        // lowToken is only exact initially, after that it is the token of the record before low, good enough to guess
+        long lowToken = minToken;
+        long highToken = maxToken;
+        boolean interpolate = true;
+        while (low < high)
+        {
+            long mid;
+            if (interpolate && highToken > lowToken)
+            {
+                double fraction = ((double) token - lowToken) / ((double) highToken - lowToken);
+                mid = Math.max(low, Math.min(high - 1, low + (long) ((high - low) * fraction)));
+            }
+            else
+            {
+                mid = (low + high) >>> 1;
+            }
+            interpolate = !interpolate;
+
+            long midToken = tokenAt(in, mid);
+            if (midToken < token)
+            {
+                low = mid + 1;
+                lowToken = midToken;
+            }
+            else
+            {
+                high = mid;
+                highToken = midToken;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(byte[] left, byte[] right)
+    {
+        return FastByteOperations.compareUnsigned(left, 0, BOUND_LENGTH, right, 0, BOUND_LENGTH);
+    }
+
+    public ClusteringBounds sharedCopy()
+    {
+        return new ClusteringBounds(fh.sharedCopy(), comparator, partitionCount, minToken, maxToken);
+    }
+
+    public void close()
+    {
+        fh.close();
+    }
+
+    public Throwable close(Throwable accumulate)
+    {
+        return fh.close(accumulate);
+    }
+
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        fh.addTo(identities);
+    }
+}
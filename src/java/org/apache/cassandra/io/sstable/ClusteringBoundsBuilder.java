@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.ClusteringPrefix;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.DataPosition;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.io.util.SequentialWriterOption;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * Writes the {@link ClusteringBounds} of the partitions of an sstable, added in order.
+ */
+public class ClusteringBoundsBuilder extends Transactional.AbstractTransactional implements Transactional
+{
+    private final SequentialWriter writer;
+    private final ClusteringComparator comparator;
+    private long partitionCount;
+
+    private DataPosition mark;
+    private long markedPartitionCount;
+
+    public ClusteringBoundsBuilder(Descriptor descriptor, SequentialWriterOption writerOption, ClusteringComparator comparator)
+    {
+        this.writer = new SequentialWriter(new File(descriptor.filenameFor(Component.CLUSTERING_BOUNDS)), writerOption);
+        this.comparator = comparator;
+    }
+
+    /**
+     * Adds the next partition of the sstable.
+     *
+     * @param key the key of the partition, whose token must be a long
+     * @param partitionDeletion the partition deletion, with which the partition intersects any slice
+     * @param first the clustering of the first row or range tombstone marker of the partition, or null if it has none
+     * @param last the clustering of the last row or range tombstone marker of the partition, or null if it has none
+     */
+    public void addPartition(DecoratedKey key, DeletionTime partitionDeletion, ClusteringPrefix first, ClusteringPrefix last)
+    {
+        try
+        {
+            writer.writeLong((Long) key.getToken().getTokenValue());
+            if (!partitionDeletion.isLive())
+            {
+                writer.write(ClusteringBounds.MIN_BOUND);
+                writer.write(ClusteringBounds.MAX_BOUND);
+            }
+            else if (first == null)
+            {
+                // no rows (but maybe a static one): empty bounds, that do not intersect anything
+                writer.write(ClusteringBounds.MAX_BOUND);
+                writer.write(ClusteringBounds.MIN_BOUND);
+            }
+            else
+            {
+                writer.write(ClusteringBounds.truncate(comparator.asByteComparable(first)));
+                writer.write(ClusteringBounds.truncate(comparator.asByteComparable(last)));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+        partitionCount++;
+    }
+
+    public void mark()
+    {
+        mark = writer.mark();
+        markedPartitionCount = partitionCount;
+    }
+
+    public void resetAndTruncate()
+    {
+        writer.resetAndTruncate(mark);
+        partitionCount = markedPartitionCount;
+    }
+
+    protected void doPrepare()
+    {
+        try
+        {
+            writer.writeLong(partitionCount);
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+        writer.prepareToCommit();
+    }
+
+    protected Throwable doCommit(Throwable accumulate)
+    {
+        return writer.commit(accumulate);
+    }
+
+    protected Throwable doAbort(Throwable accumulate)
+    {
+        return writer.abort(accumulate);
+    }
+}
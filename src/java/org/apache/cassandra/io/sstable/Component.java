@@ -48,6 +48,8 @@ public class Component
         FILTER("Filter.db"),
         // file to hold information about uncompressed data length, chunk offsets etc.
         COMPRESSION_INFO("CompressionInfo.db"),
+        // dictionary used to compress the chunks of the data file, referenced by the compression info
+        COMPRESSION_DICTIONARY("CompressionDictionary.db"),
         // statistical metadata about the content of the sstable
         STATS("Statistics.db"),
         // holds adler32 checksum of the data file
@@ -56,6 +58,12 @@ public class Component
         CRC("CRC.db"),
         // holds SSTable Index Summary (sampling of Index component)
         SUMMARY("Summary.db"),
+        // trie of the row keys with pointers to their entries in the Index component
+        PARTITION_INDEX("PartitionIndex.db"),
+        // tries of the first clusterings of the index blocks of wide partitions
+        ROW_INDEX("RowIndex.db"),
+        // first and last clusterings of each partition
+        CLUSTERING_BOUNDS("ClusteringBounds.db"),
         // table of contents, stores the list of all components for the sstable
         TOC("TOC.txt"),
         // built-in secondary index (may be multiple per sstable)
@@ -92,6 +100,7 @@ public class Component
     public final static Component PRIMARY_INDEX = new Component(Type.PRIMARY_INDEX);
     public final static Component FILTER = new Component(Type.FILTER);
     public final static Component COMPRESSION_INFO = new Component(Type.COMPRESSION_INFO);
+    public final static Component COMPRESSION_DICTIONARY = new Component(Type.COMPRESSION_DICTIONARY);
     public final static Component STATS = new Component(Type.STATS);
     private static final String digestCrc32 = "Digest.crc32";
     private static final String digestAdler32 = "Digest.adler32";
@@ -101,6 +110,9 @@ public class Component
     public final static Component DIGEST_SHA1 = new Component(Type.DIGEST, digestSha1);
     public final static Component CRC = new Component(Type.CRC);
     public final static Component SUMMARY = new Component(Type.SUMMARY);
+    public final static Component PARTITION_INDEX = new Component(Type.PARTITION_INDEX);
+    public final static Component ROW_INDEX = new Component(Type.ROW_INDEX);
+    public final static Component CLUSTERING_BOUNDS = new Component(Type.CLUSTERING_BOUNDS);
     public final static Component TOC = new Component(Type.TOC);
 
     public static Component digestFor(ChecksumType checksumType)
@@ -163,6 +175,7 @@ public class Component
             case PRIMARY_INDEX:     component = Component.PRIMARY_INDEX;                break;
             case FILTER:            component = Component.FILTER;                       break;
             case COMPRESSION_INFO:  component = Component.COMPRESSION_INFO;             break;
+            case COMPRESSION_DICTIONARY: component = Component.COMPRESSION_DICTIONARY;  break;
             case STATS:             component = Component.STATS;                        break;
             case DIGEST:            switch (path.right)
                                     {
@@ -174,6 +187,9 @@ public class Component
                                     break;
             case CRC:               component = Component.CRC;                          break;
             case SUMMARY:           component = Component.SUMMARY;                      break;
+            case PARTITION_INDEX:   component = Component.PARTITION_INDEX;              break;
+            case ROW_INDEX:         component = Component.ROW_INDEX;                    break;
+            case CLUSTERING_BOUNDS: component = Component.CLUSTERING_BOUNDS;            break;
             case TOC:               component = Component.TOC;                          break;
             case SECONDARY_INDEX:   component = new Component(Type.SECONDARY_INDEX, path.right); break;
             case CUSTOM:            component = new Component(Type.CUSTOM, path.right); break;
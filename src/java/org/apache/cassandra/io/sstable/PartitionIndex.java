@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.concurrent.Ref;
+import org.apache.cassandra.utils.concurrent.SharedCloseable;
+
+/**
+ * An on-disk trie of the partition keys of an sstable (see {@link PartitionIndexBuilder}), mapping each key to the
+ * position of its entry in the primary index. Unlike the {@link IndexSummary}, it is read from the file (memory
+ * mapped by default) and points at the entry of the searched key rather than at a sample before it.
+ * <p>
+ * The trie is described in {@link TrieIndex}; its root position is written in the last 8 bytes of the file, or -1
+ * if there are no keys.
+ */
+public class PartitionIndex implements SharedCloseable
+{
+    private final FileHandle fh;
+    private final long root;
+
+    private PartitionIndex(FileHandle fh, long root)
+    {
+        this.fh = fh;
+        this.root = root;
+    }
+
+    @SuppressWarnings("resource")
+    public static PartitionIndex load(Descriptor descriptor) throws IOException
+    {
+        try (FileHandle.Builder builder = new FileHandle.Builder(descriptor.filenameFor(Component.PARTITION_INDEX))
+                                          .mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap)
+                                          .withChunkCache(ChunkCache.instance))
+        {
+            FileHandle fh = builder.complete();
+            try (RandomAccessReader in = fh.createReader())
+            {
+                in.seek(fh.dataLength() - 8);
+                return new PartitionIndex(fh, in.readLong());
+            }
+            catch (Throwable t)
+            {
+                fh.close();
+                throw t;
+            }
+        }
+    }
+
+    /**
+     * Returns the position in the primary index from which to scan for the given key: that of the greatest key
+     * before it, or that of the only key that can be equal to it, or that follows it if it is not present.
+     * Every key before that position is before the given one.
+     *
+     * @return the position, or -1 if all keys are after the given one
+     */
+    public long floor(PartitionPosition key)
+    {
+        try (RandomAccessReader in = fh.createReader())
+        {
+            return TrieIndex.floor(in, root, key.asComparableBytes());
+        }
+        catch (IOException e)
+        {
+            throw new CorruptSSTableException(e, fh.path());
+        }
+    }
+
+    public PartitionIndex sharedCopy()
+    {
+        return new PartitionIndex(fh.sharedCopy(), root);
+    }
+
+    public void close()
+    {
+        fh.close();
+    }
+
+    public Throwable close(Throwable accumulate)
+    {
+        return fh.close(accumulate);
+    }
+
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        fh.addTo(identities);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.io.util.SequentialWriterOption;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * Writes the trie of a {@link PartitionIndex} from the keys of an sstable, added in order with the positions of
+ * their entries in the primary index.
+ */
+public class PartitionIndexBuilder extends Transactional.AbstractTransactional implements Transactional
+{
+    private final SequentialWriter writer;
+    private final TrieIndexBuilder trie;
+
+    public PartitionIndexBuilder(Descriptor descriptor, SequentialWriterOption writerOption)
+    {
+        writer = new SequentialWriter(new File(descriptor.filenameFor(Component.PARTITION_INDEX)), writerOption);
+        trie = new TrieIndexBuilder(writer);
+    }
+
+    /**
+     * Adds a key, which must be greater than all the keys added before it.
+     *
+     * @param key the key to add
+     * @param indexPosition the position of the key's entry in the primary index
+     */
+    public void addKey(DecoratedKey key, long indexPosition)
+    {
+        trie.add(ByteSource.readBytes(key.asComparableBytes()), indexPosition);
+    }
+
+    protected void doPrepare()
+    {
+        long rootPosition = trie.complete();
+        try
+        {
+            writer.writeLong(rootPosition);
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+        writer.prepareToCommit();
+    }
+
+    protected Throwable doCommit(Throwable accumulate)
+    {
+        return writer.commit(accumulate);
+    }
+
+    protected Throwable doAbort(Throwable accumulate)
+    {
+        return writer.abort(accumulate);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.concurrent.Ref;
+import org.apache.cassandra.utils.concurrent.SharedCloseable;
+
+/**
+ * On-disk tries of the first clusterings of the index blocks of the wide partitions of an sstable (see
+ * {@link RowIndexBuilder}), mapping them to the index of their block, so that the block holding a clustering can be
+ * found without binary searching and deserializing the {@link IndexInfo} of the
+ * partition's index entry.
+ * <p>
+ * The tries (described in {@link TrieIndex}) are followed by a directory of the partitions that have one, made of
+ * the position of the partition in the data file and the position of the root of its trie, sorted by partition
+ * position, and by the number of entries in the directory.
+ */
+public class RowIndex implements SharedCloseable
+{
+    private static final int DIRECTORY_ENTRY_SIZE = 16;
+
+    private final FileHandle fh;
+    private final long directoryPosition;
+    private final long partitionCount;
+
+    private RowIndex(FileHandle fh, long directoryPosition, long partitionCount)
+    {
+        this.fh = fh;
+        this.directoryPosition = directoryPosition;
+        this.partitionCount = partitionCount;
+    }
+
+    @SuppressWarnings("resource")
+    public static RowIndex load(Descriptor descriptor) throws IOException
+    {
+        try (FileHandle.Builder builder = new FileHandle.Builder(descriptor.filenameFor(Component.ROW_INDEX))
+                                          .mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap)
+                                          .withChunkCache(ChunkCache.instance))
+        {
+            FileHandle fh = builder.complete();
+            try (RandomAccessReader in = fh.createReader())
+            {
+                in.seek(fh.dataLength() - 8);
+                long partitionCount = in.readLong();
+                return new RowIndex(fh, fh.dataLength() - 8 - partitionCount * DIRECTORY_ENTRY_SIZE, partitionCount);
+            }
+            catch (Throwable t)
+            {
+                fh.close();
+                throw t;
+            }
+        }
+    }
+
+    /**
+     * Opens the index of the partition at the given position in the data file.
+     *
+     * @return the index of the partition, to be closed by the caller, or null if the partition does not have one
+     */
+    @SuppressWarnings("resource")
+    public Searcher open(long partitionPosition)
+    {
+        if (partitionCount == 0)
+            return null;
+
+        RandomAccessReader in = fh.createReader();
+        try
+        {
+            long low = 0;
+            long high = partitionCount - 1;
+            while (low <= high)
+            {
+                long mid = (low + high) >>> 1;
+                in.seek(directoryPosition + mid * DIRECTORY_ENTRY_SIZE);
+                long position = in.readLong();
+                if (position < partitionPosition)
+                    low = mid + 1;
+                else if (position > partitionPosition)
+                    high = mid - 1;
+                else
+                    return new Searcher(in, in.readLong());
+            }
+            in.close();
+            return null;
+        }
+        catch (IOException e)
+        {
+            in.close();
+            throw new CorruptSSTableException(e, fh.path());
+        }
+    }
+
+    public RowIndex sharedCopy()
+    {
+        return new RowIndex(fh.sharedCopy(), directoryPosition, partitionCount);
+    }
+
+    public void close()
+    {
+        fh.close();
+    }
+
+    public Throwable close(Throwable accumulate)
+    {
+        return fh.close(accumulate);
+    }
+
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        fh.addTo(identities);
+    }
+
+    /**
+     * The index of the blocks of a partition.
+     */
+    public static class Searcher implements AutoCloseable
+    {
+        private final RandomAccessReader in;
+        private final long root;
+
+        private Searcher(RandomAccessReader in, long root)
+        {
+            this.in = in;
+            this.root = root;
+        }
+
+        /**
+         * Returns the index of the block whose first clustering is the greatest one before the given clustering, or
+         * of the only block whose first clustering can be equal to it (or follow it, if it is not the first
+         * clustering of a block). All the blocks before that one start before the given clustering.
+         *
+         * @return the index of the block, or -1 if all the blocks start after the given clustering
+         */
+        public int floor(ByteComparable clustering)
+        {
+            try
+            {
+                return (int) TrieIndex.floor(in, root, clustering.asComparableBytes());
+            }
+            catch (IOException e)
+            {
+                throw new CorruptSSTableException(e, in.getPath());
+            }
+        }
+
+        public void close()
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.ClusteringPrefix;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.DataPosition;
+import org.apache.cassandra.io.util.SequentialWriter;
+import org.apache.cassandra.io.util.SequentialWriterOption;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * Writes the tries of a {@link RowIndex} from the first clusterings of the index blocks of the partitions of an
+ * sstable, followed by the directory of the partitions that have one.
+ */
+public class RowIndexBuilder extends Transactional.AbstractTransactional implements Transactional
+{
+    private final SequentialWriter writer;
+    private final ClusteringComparator comparator;
+    private final TrieIndexBuilder trie;
+
+    // pairs of partition position in the data file and root of its trie, in order
+    private long[] directory = new long[32];
+    private int directorySize;
+
+    private DataPosition mark;
+    private int markedDirectorySize;
+
+    public RowIndexBuilder(Descriptor descriptor, SequentialWriterOption writerOption, ClusteringComparator comparator)
+    {
+        this.writer = new SequentialWriter(new File(descriptor.filenameFor(Component.ROW_INDEX)), writerOption);
+        this.comparator = comparator;
+        this.trie = new TrieIndexBuilder(writer);
+    }
+
+    /**
+     * Adds the next index block of the partition being written.
+     */
+    public void addBlock(ClusteringPrefix firstName, int blockIndex)
+    {
+        trie.add(ByteSource.readBytes(comparator.asByteComparable(firstName).asComparableBytes()), blockIndex);
+    }
+
+    /**
+     * Completes the index of a partition, which is only kept if it has more than one block (as only those have
+     * their blocks listed in their index entry).
+     *
+     * @param partitionPosition the position of the partition in the data file
+     * @param blockCount the number of blocks added for the partition
+     */
+    public void finishPartition(long partitionPosition, int blockCount)
+    {
+        if (blockCount <= 1)
+        {
+            trie.reset();
+            return;
+        }
+
+        long root = trie.complete();
+        if (directorySize == directory.length)
+            directory = Arrays.copyOf(directory, directorySize * 2);
+        directory[directorySize++] = partitionPosition;
+        directory[directorySize++] = root;
+    }
+
+    public void mark()
+    {
+        mark = writer.mark();
+        markedDirectorySize = directorySize;
+    }
+
+    public void resetAndTruncate()
+    {
+        writer.resetAndTruncate(mark);
+        directorySize = markedDirectorySize;
+        trie.reset();
+    }
+
+    protected void doPrepare()
+    {
+        try
+        {
+            for (int i = 0; i < directorySize; i++)
+                writer.writeLong(directory[i]);
+            writer.writeLong(directorySize / 2);
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+        writer.prepareToCommit();
+    }
+
+    protected Throwable doCommit(Throwable accumulate)
+    {
+        return writer.commit(accumulate);
+    }
+
+    protected Throwable doAbort(Throwable accumulate)
+    {
+        return writer.abort(accumulate);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+
+/**
+ * Searches the on-disk tries written by {@link TrieIndexBuilder}, which map keys truncated to the shortest prefix
+ * that tells them apart from their neighbours to long payloads.
+ * <p>
+ * Nodes are either leaves, holding the payload as an unsigned vint, or inner nodes:
+ * <pre>
+ *     [INNER | (pointer size - 1)] [child count - 1] [transition bytes...] [distances back to the children...]
+ * </pre>
+ */
+public final class TrieIndex
+{
+    static final int LEAF = 0x00;
+    static final int INNER = 0x10;
+
+    private TrieIndex()
+    {
+    }
+
+    /**
+     * Returns the payload of the greatest key whose indexed prefix is not greater than the given key: that of the
+     * greatest key before it, or that of the only key that can be equal to it (or that follows it, if it is not
+     * present). All the keys before that one are before the given key.
+     *
+     * @return the payload, or -1 if all keys are after the given one
+     */
+    public static long floor(RandomAccessReader in, long root, ByteSource key) throws IOException
+    {
+        if (root < 0)
+            return -1;
+
+        long node = root;
+        // the greatest subtree found so far that is entirely before the key
+        long lesser = -1;
+        while (true)
+        {
+            in.seek(node);
+            int type = in.readUnsignedByte();
+            if (type == LEAF)
+                return in.readUnsignedVInt();
+
+            int b = key.next();
+            if (b == ByteSource.END_OF_STREAM)
+                break; // all the keys of the subtree extend the searched one
+
+            int count = in.readUnsignedByte() + 1;
+            int index = -1;
+            boolean exact = false;
+            for (int i = 0; i < count; i++)
+            {
+                int transition = in.readUnsignedByte();
+                if (transition > b)
+                    break;
+                index = i;
+                exact = transition == b;
+            }
+
+            if (index >= 0 && !exact)
+            {
+                lesser = child(in, node, type, count, index);
+                break;
+            }
+            if (index < 0)
+                break;
+            if (index > 0)
+                lesser = child(in, node, type, count, index - 1);
+            node = child(in, node, type, count, index);
+        }
+        return lesser < 0 ? -1 : last(in, lesser);
+    }
+
+    // the payload of the greatest key of the given subtree
+    private static long last(RandomAccessReader in, long node) throws IOException
+    {
+        while (true)
+        {
+            in.seek(node);
+            int type = in.readUnsignedByte();
+            if (type == LEAF)
+                return in.readUnsignedVInt();
+            int count = in.readUnsignedByte() + 1;
+            node = child(in, node, type, count, count - 1);
+        }
+    }
+
+    private static long child(RandomAccessReader in, long node, int type, int count, int index) throws IOException
+    {
+        int pointerBytes = (type & 0x0F) + 1;
+        in.seek(node + 2 + count + (long) index * pointerBytes);
+        long distance = 0;
+        for (int i = 0; i < pointerBytes; i++)
+            distance = (distance << 8) | in.readUnsignedByte();
+        return node - distance;
+    }
+
+    static int bytesFor(long distance)
+    {
+        int bytes = 1;
+        while (bytes < 8 && (distance >>> (8 * bytes)) != 0)
+            bytes++;
+        return bytes;
+    }
+}
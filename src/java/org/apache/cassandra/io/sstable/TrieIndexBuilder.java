@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.SequentialWriter;
+
+/**
+ * Writes a trie mapping keys, added in order, to long payloads, in the format read by {@link TrieIndex}.
+ * <p>
+ * Keys must be prefix-free (as byte-comparable representations are) and are only indexed up to the first byte that
+ * distinguishes them from their neighbours, so that the trie has about one leaf and one transition per key whatever
+ * the length of the keys. Nodes are written as soon as they are complete, children before their parents, so only
+ * the nodes on the path of the last key are kept in memory.
+ * <p>
+ * A builder can be reused for several tries written to the same file, see {@link #complete()}.
+ */
+class TrieIndexBuilder
+{
+    private final SequentialWriter writer;
+
+    // the nodes on the path of the last indexed prefix, by depth; the root is only closed by complete()
+    private final List<Node> open = new ArrayList<>();
+    private byte[] lastPrefix = new byte[0];
+
+    // the last added key is only indexed once the next one, or the end of the keys, is known
+    private byte[] pendingKey;
+    private long pendingPayload;
+    private int pendingCommonPrefix;
+
+    TrieIndexBuilder(SequentialWriter writer)
+    {
+        this.writer = writer;
+        open.add(new Node(-1));
+    }
+
+    /**
+     * Adds a key, which must be greater than all the keys added since the last call to {@link #complete()}.
+     */
+    void add(byte[] key, long payload)
+    {
+        assert payload >= 0;
+        if (pendingKey != null)
+        {
+            int common = commonPrefixLength(pendingKey, pendingKey.length, key, key.length);
+            addPrefix(pendingKey, Math.max(pendingCommonPrefix, common) + 1, pendingPayload);
+            pendingCommonPrefix = common;
+        }
+        pendingKey = key;
+        pendingPayload = payload;
+    }
+
+    /**
+     * Writes the rest of the trie and resets the builder for the next one.
+     *
+     * @return the position of the root of the trie, or -1 if no key was added
+     */
+    long complete()
+    {
+        if (pendingKey != null)
+            addPrefix(pendingKey, pendingCommonPrefix + 1, pendingPayload);
+        for (int depth = open.size() - 1; depth > 0; depth--)
+            close(depth);
+
+        Node root = open.get(0);
+        long rootPosition = root.childCount == 0 ? -1 : write(root);
+        reset();
+        return rootPosition;
+    }
+
+    /**
+     * Discards the keys added since the last call to {@link #complete()}, leaving whatever was written in the file.
+     */
+    void reset()
+    {
+        open.clear();
+        open.add(new Node(-1));
+        lastPrefix = new byte[0];
+        pendingKey = null;
+        pendingCommonPrefix = 0;
+    }
+
+    private void addPrefix(byte[] key, int length, long payload)
+    {
+        // keys are prefix-free, so both prefixes extend past their common part
+        int common = commonPrefixLength(lastPrefix, lastPrefix.length, key, length);
+        for (int depth = open.size() - 1; depth > common; depth--)
+            close(depth);
+        for (int depth = common + 1; depth <= length; depth++)
+            open.add(new Node(key[depth - 1] & 0xFF));
+        open.get(length).payload = payload;
+        lastPrefix = Arrays.copyOf(key, length);
+    }
+
+    private void close(int depth)
+    {
+        Node node = open.remove(depth);
+        open.get(depth - 1).addChild(node.transition, write(node));
+    }
+
+    private long write(Node node)
+    {
+        long position = writer.position();
+        try
+        {
+            if (node.childCount == 0)
+            {
+                assert node.payload >= 0;
+                writer.writeByte(TrieIndex.LEAF);
+                writer.writeUnsignedVInt(node.payload);
+                return position;
+            }
+
+            assert node.payload < 0 : "Only leaves have a payload";
+            // children are written in order, so the first one is the furthest away
+            int pointerBytes = TrieIndex.bytesFor(position - node.childPositions[0]);
+            writer.writeByte(TrieIndex.INNER | (pointerBytes - 1));
+            writer.writeByte(node.childCount - 1);
+            for (int i = 0; i < node.childCount; i++)
+                writer.writeByte(node.transitions[i]);
+            for (int i = 0; i < node.childCount; i++)
+            {
+                long distance = position - node.childPositions[i];
+                for (int shift = 8 * (pointerBytes - 1); shift >= 0; shift -= 8)
+                    writer.writeByte((int) (distance >>> shift));
+            }
+            return position;
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, writer.getPath());
+        }
+    }
+
+    private static int commonPrefixLength(byte[] left, int leftLength, byte[] right, int rightLength)
+    {
+        int length = Math.min(leftLength, rightLength);
+        for (int i = 0; i < length; i++)
+            if (left[i] != right[i])
+                return i;
+        return length;
+    }
+
+    private static class Node
+    {
+        final int transition;
+        long payload = -1;
+        int childCount;
+        int[] transitions = new int[4];
+        long[] childPositions = new long[4];
+
+        Node(int transition)
+        {
+            this.transition = transition;
+        }
+
+        void addChild(int transition, long position)
+        {
+            if (childCount == transitions.length)
+            {
+                transitions = Arrays.copyOf(transitions, childCount * 2);
+                childPositions = Arrays.copyOf(childPositions, childCount * 2);
+            }
+            transitions[childCount] = transition;
+            childPositions[childCount++] = position;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.cache.InstrumentingCache;
 import org.apache.cassandra.cache.KeyCacheKey;
 import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
+import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutor;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
 import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.config.CFMetaData;
@@ -154,6 +155,30 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
     }
     private static final RateLimiter meterSyncThrottle = RateLimiter.create(100.0);
 
+    // the prefetches queued per prefetch thread, beyond which they are dropped as the reads have likely moved on
+    private static final int PREFETCHES_QUEUED_PER_THREAD = 32;
+    private static final DebuggableThreadPoolExecutor prefetchExecutor = initPrefetchExecutor();
+    private static DebuggableThreadPoolExecutor initPrefetchExecutor()
+    {
+        if (DatabaseDescriptor.isClientOrToolInitialized())
+            return null;
+
+        // threads are only started once prefetches are submitted, and time out when idle
+        int threads = Math.max(1, DatabaseDescriptor.getConcurrentSSTablePrefetches());
+        DebuggableThreadPoolExecutor executor = new JMXEnabledThreadPoolExecutor(threads,
+                                                                                 60,
+                                                                                 TimeUnit.SECONDS,
+                                                                                 new LinkedBlockingQueue<>(threads * PREFETCHES_QUEUED_PER_THREAD),
+                                                                                 new NamedThreadFactory("SSTablePrefetcher"),
+                                                                                 "internal");
+        // prefetches are best effort: drop them when the queue is full rather than blocking the read
+        executor.setRejectedExecutionHandler((task, ignored) -> {
+            if (task instanceof Prefetch)
+                ((Prefetch) task).ref.release();
+        });
+        return executor;
+    }
+
     public static final Comparator<SSTableReader> maxTimestampDescending = (o1, o2) -> Long.compare(o2.getMaxTimestamp(), o1.getMaxTimestamp());
     public static final Comparator<SSTableReader> maxTimestampAscending = (o1, o2) -> Long.compare(o1.getMaxTimestamp(), o2.getMaxTimestamp());
 
@@ -203,6 +228,12 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
     protected FileHandle ifile;
     protected FileHandle dfile;
     protected IndexSummary indexSummary;
+    // the trie of the partition keys, used instead of the summary to find keys if the sstable has one
+    protected PartitionIndex partitionIndex;
+    // the tries of the index blocks of wide partitions, used instead of their index entries if the sstable has them
+    protected RowIndex rowIndex;
+    // the clustering bounds of the partitions, used to skip the sstable for the slices they don't intersect
+    protected ClusteringBounds clusteringBounds;
     protected IFilter bf;
 
     protected final RowIndexEntry.IndexSerializer rowIndexEntrySerializer;
@@ -621,6 +652,28 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                                       StatsMetadata sstableMetadata,
                                       OpenReason openReason,
                                       SerializationHeader header)
+    {
+        return internalOpen(desc, components, metadata, ifile, dfile, isummary, null, null, null, bf, maxDataAge, sstableMetadata, openReason, header);
+    }
+
+    /**
+     * Open a RowIndexedReader which already has its state initialized (by SSTableWriter), including its partition
+     * and row indexes and clustering bounds if it has them.
+     */
+    public static SSTableReader internalOpen(Descriptor desc,
+                                      Set<Component> components,
+                                      CFMetaData metadata,
+                                      FileHandle ifile,
+                                      FileHandle dfile,
+                                      IndexSummary isummary,
+                                      PartitionIndex partitionIndex,
+                                      RowIndex rowIndex,
+                                      ClusteringBounds clusteringBounds,
+                                      IFilter bf,
+                                      long maxDataAge,
+                                      StatsMetadata sstableMetadata,
+                                      OpenReason openReason,
+                                      SerializationHeader header)
     {
         assert desc != null && ifile != null && dfile != null && isummary != null && bf != null && sstableMetadata != null;
 
@@ -630,6 +683,9 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         reader.ifile = ifile;
         reader.dfile = dfile;
         reader.indexSummary = isummary;
+        reader.partitionIndex = partitionIndex;
+        reader.rowIndex = rowIndex;
+        reader.clusteringBounds = clusteringBounds;
         reader.setup(true);
 
         return reader;
@@ -790,6 +846,13 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                 ifile = ibuilder.bufferSize(indexBufferSize).complete();
             }
 
+            if (components.contains(Component.PARTITION_INDEX))
+                partitionIndex = PartitionIndex.load(descriptor);
+            if (components.contains(Component.ROW_INDEX))
+                rowIndex = RowIndex.load(descriptor);
+            if (components.contains(Component.CLUSTERING_BOUNDS))
+                clusteringBounds = ClusteringBounds.load(descriptor, metadata.comparator);
+
             dfile = dbuilder.bufferSize(dataBufferSize).complete();
 
             if (buildSummary)
@@ -820,6 +883,24 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                 indexSummary = null;
             }
 
+            if (partitionIndex != null)
+            {
+                partitionIndex.close();
+                partitionIndex = null;
+            }
+
+            if (rowIndex != null)
+            {
+                rowIndex.close();
+                rowIndex = null;
+            }
+
+            if (clusteringBounds != null)
+            {
+                clusteringBounds.close();
+                clusteringBounds = null;
+            }
+
             throw t;
         }
     }
@@ -846,7 +927,8 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                     : estimateRowsFromIndex(primaryIndex); // statistics is supposed to be optional
 
             if (recreateBloomFilter)
-                bf = FilterFactory.getFilter(estimatedKeys, metadata.params.bloomFilterFpChance, true, descriptor.version.hasOldBfHashOrder());
+                bf = FilterFactory.getFilter(estimatedKeys, metadata.params.bloomFilterFpChance, true, descriptor.version.hasOldBfHashOrder(),
+                                             DatabaseDescriptor.getBloomFilterType() == Config.BloomFilterType.blocked);
 
             try (IndexSummaryBuilder summaryBuilder = summaryLoaded ? null : new IndexSummaryBuilder(estimatedKeys, metadata.params.minIndexInterval, samplingLevel))
             {
@@ -1071,6 +1153,9 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                                                  ifile != null ? ifile.sharedCopy() : null,
                                                  dfile.sharedCopy(),
                                                  newSummary,
+                                                 partitionIndex != null ? partitionIndex.sharedCopy() : null,
+                                                 rowIndex != null ? rowIndex.sharedCopy() : null,
+                                                 clusteringBounds != null ? clusteringBounds.sharedCopy() : null,
                                                  bf.sharedCopy(),
                                                  maxDataAge,
                                                  sstableMetadata,
@@ -1265,6 +1350,9 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         if (openReason == OpenReason.MOVED_START && key.compareTo(first) < 0)
             key = first;
 
+        if (partitionIndex != null)
+            return Math.max(partitionIndex.floor(key), 0);
+
         return getIndexScanPositionFromBinarySearchResult(indexSummary.binarySearch(key), indexSummary);
     }
 
@@ -1780,7 +1868,21 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
      * @param ranges the range of keys to cover
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public abstract ISSTableScanner getScanner(Collection<Range<Token>> ranges, RateLimiter limiter);
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, RateLimiter limiter)
+    {
+        return getScanner(ranges, limiter, false);
+    }
+
+    /**
+     * Direct I/O SSTableScanner over a defined collection of ranges of tokens, or the entirety of the sstable if
+     * they are null.
+     *
+     * @param ranges the range of keys to cover
+     * @param dropBehind whether to read the data file directly and drop it from the page cache as it is read,
+     * see {@link FileHandle#createDropBehindReader(RateLimiter)}
+     * @return A Scanner for seeking over the rows of the SSTable.
+     */
+    public abstract ISSTableScanner getScanner(Collection<Range<Token>> ranges, RateLimiter limiter, boolean dropBehind);
 
     /**
      * Direct I/O SSTableScanner over an iterator of bounds.
@@ -2029,6 +2131,11 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return dfile.createReader(limiter);
     }
 
+    public RandomAccessReader openDropBehindDataReader(RateLimiter limiter)
+    {
+        return dfile.createDropBehindReader(limiter);
+    }
+
     public RandomAccessReader openDataReader()
     {
         return dfile.createReader();
@@ -2056,6 +2163,77 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return ifile;
     }
 
+    /**
+     * @return the tries of the index blocks of the wide partitions of this sstable, or null if it does not have them
+     */
+    public RowIndex getRowIndex()
+    {
+        return rowIndex;
+    }
+
+    /**
+     * Returns whether this sstable may have data of the given partition within the given slices, static rows aside,
+     * according to the clustering bounds of its partitions. Always true if the sstable does not have them.
+     */
+    public boolean mayIntersect(DecoratedKey key, Slices slices)
+    {
+        if (clusteringBounds == null)
+            return true;
+        // the bloom filter is cheaper than the bounds lookup
+        return bf.isPresent(key) && clusteringBounds.mayIntersect(key, slices);
+    }
+
+    public static boolean isPrefetchEnabled()
+    {
+        return prefetchExecutor != null && DatabaseDescriptor.getConcurrentSSTablePrefetches() > 0;
+    }
+
+    /**
+     * Looks up the given partition and starts reading its first chunk in the background, so that the reads of the
+     * sstables involved in a query wait for their disk accesses concurrently rather than one after the other.
+     * The lookup does not update the key cache nor the bloom filter stats, as the read that follows does.
+     */
+    public void prefetchAsync(DecoratedKey key)
+    {
+        Ref<SSTableReader> ref = tryRef();
+        if (ref == null)
+            return;
+
+        // without executor locals, so that the task isn't wrapped and the rejection handler can release its ref
+        prefetchExecutor.execute(new Prefetch(key, ref), null);
+    }
+
+    private final class Prefetch implements Runnable
+    {
+        private final DecoratedKey key;
+        private final Ref<SSTableReader> ref;
+
+        private Prefetch(DecoratedKey key, Ref<SSTableReader> ref)
+        {
+            this.key = key;
+            this.ref = ref;
+        }
+
+        public void run()
+        {
+            try
+            {
+                RowIndexEntry entry = getPosition(key, Operator.EQ, false);
+                if (entry != null)
+                    dfile.prefetch(entry.position);
+            }
+            catch (RuntimeException e)
+            {
+                // the read the prefetch is ahead of reports the failure
+                logger.debug("Failed to prefetch partition {} of {}", key, SSTableReader.this, e);
+            }
+            finally
+            {
+                ref.release();
+            }
+        }
+    }
+
     /**
      * @param component component to get timestamp.
      * @return last modified time for given component. 0 if given component does not exist or IO error occurs.
@@ -2133,6 +2311,12 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         ifile.addTo(identities);
         bf.addTo(identities);
         indexSummary.addTo(identities);
+        if (partitionIndex != null)
+            partitionIndex.addTo(identities);
+        if (rowIndex != null)
+            rowIndex.addTo(identities);
+        if (clusteringBounds != null)
+            clusteringBounds.addTo(identities);
 
     }
 
@@ -2151,6 +2335,9 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         private final CFMetaData metadata;
         private IFilter bf;
         private IndexSummary summary;
+        private PartitionIndex partitionIndex;
+        private RowIndex rowIndex;
+        private ClusteringBounds clusteringBounds;
 
         private FileHandle dfile;
         private FileHandle ifile;
@@ -2169,6 +2356,9 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
             this.setup = true;
             this.bf = reader.bf;
             this.summary = reader.indexSummary;
+            this.partitionIndex = reader.partitionIndex;
+            this.rowIndex = reader.rowIndex;
+            this.clusteringBounds = reader.clusteringBounds;
             this.dfile = reader.dfile;
             this.ifile = reader.ifile;
             // get a new reference to the shared descriptor-type tidy
@@ -2220,6 +2410,12 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
                         bf.close();
                     if (summary != null)
                         summary.close();
+                    if (partitionIndex != null)
+                        partitionIndex.close();
+                    if (rowIndex != null)
+                        rowIndex.close();
+                    if (clusteringBounds != null)
+                        clusteringBounds.close();
                     if (runOnClose != null)
                         runOnClose.run();
                     if (dfile != null)
@@ -2374,7 +2570,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
     public static void shutdownBlocking(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
     {
 
-        ExecutorUtils.shutdownNowAndWait(timeout, unit, syncExecutor);
+        ExecutorUtils.shutdownNowAndWait(timeout, unit, syncExecutor, prefetchExecutor);
         resetTidying();
     }
 }
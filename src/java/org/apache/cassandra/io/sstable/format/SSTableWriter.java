@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 
 import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
 import org.apache.cassandra.db.RowIndexEntry;
@@ -32,6 +33,7 @@ import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.db.lifecycle.LifecycleNewTracker;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.Murmur3Partitioner;
 import org.apache.cassandra.index.Index;
 import org.apache.cassandra.io.FSWriteError;
 import org.apache.cassandra.io.sstable.Component;
@@ -172,6 +174,22 @@ public abstract class SSTableWriter extends SSTable implements Transactional
             // but the components are unmodifiable after construction
             components.add(Component.CRC);
         }
+
+        if (DatabaseDescriptor.getSSTablePartitionIndexType() == Config.SSTablePartitionIndexType.trie)
+        {
+            if (metadata.partitioner.hasByteComparableTokens())
+                components.add(Component.PARTITION_INDEX);
+            // without clustering columns, partitions have a single row and hence a single index block
+            if (metadata.comparator.size() > 0 && metadata.comparator.supportsByteComparable())
+                components.add(Component.ROW_INDEX);
+        }
+
+        // the bounds are found by the token of the partitions, which must hence be longs
+        if (DatabaseDescriptor.getSSTablePartitionClusteringBounds()
+            && metadata.partitioner instanceof Murmur3Partitioner
+            && metadata.comparator.size() > 0
+            && metadata.comparator.supportsByteComparable())
+            components.add(Component.CLUSTERING_BOUNDS);
         return components;
     }
 
@@ -111,12 +111,12 @@ public class BigTableReader extends SSTableReader
      * @param ranges the range of keys to cover
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, RateLimiter limiter)
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, RateLimiter limiter, boolean dropBehind)
     {
         if (ranges != null)
-            return BigTableScanner.getScanner(this, ranges, limiter);
+            return BigTableScanner.getScanner(this, ranges, limiter, dropBehind);
         else
-            return getScanner(limiter);
+            return BigTableScanner.getScanner(this, limiter, dropBehind);
     }
 
 
@@ -187,11 +187,21 @@ public class BigTableReader extends SSTableReader
             return null;
         }
 
-        int binarySearchResult = indexSummary.binarySearch(key);
-        long sampledPosition = getIndexScanPositionFromBinarySearchResult(binarySearchResult, indexSummary);
-        int sampledIndex = getIndexSummaryIndexFromBinarySearchResult(binarySearchResult);
-
-        int effectiveInterval = indexSummary.getEffectiveIndexIntervalAfterIndex(sampledIndex);
+        long sampledPosition;
+        int effectiveInterval;
+        if (partitionIndex != null)
+        {
+            // the partition index points at the only entry that can match the key, everything before being smaller
+            sampledPosition = Math.max(partitionIndex.floor(key), 0);
+            effectiveInterval = 1;
+        }
+        else
+        {
+            int binarySearchResult = indexSummary.binarySearch(key);
+            sampledPosition = getIndexScanPositionFromBinarySearchResult(binarySearchResult, indexSummary);
+            int sampledIndex = getIndexSummaryIndexFromBinarySearchResult(binarySearchResult);
+            effectiveInterval = indexSummary.getEffectiveIndexIntervalAfterIndex(sampledIndex);
+        }
 
         if (ifile == null)
             return null;
@@ -71,10 +71,16 @@ public class BigTableScanner implements ISSTableScanner
 
     // Full scan of the sstables
     public static ISSTableScanner getScanner(SSTableReader sstable, RateLimiter limiter)
+    {
+        return getScanner(sstable, limiter, false);
+    }
+
+    public static ISSTableScanner getScanner(SSTableReader sstable, RateLimiter limiter, boolean dropBehind)
     {
         return new BigTableScanner(sstable,
                                    ColumnFilter.all(sstable.metadata),
                                    limiter,
+                                   dropBehind,
                                    Iterators.singletonIterator(fullRange(sstable)));
     }
 
@@ -89,6 +95,11 @@ public class BigTableScanner implements ISSTableScanner
     }
 
     public static ISSTableScanner getScanner(SSTableReader sstable, Collection<Range<Token>> tokenRanges, RateLimiter limiter)
+    {
+        return getScanner(sstable, tokenRanges, limiter, false);
+    }
+
+    public static ISSTableScanner getScanner(SSTableReader sstable, Collection<Range<Token>> tokenRanges, RateLimiter limiter, boolean dropBehind)
     {
         // We want to avoid allocating a SSTableScanner if the range don't overlap the sstable (#5249)
         List<Pair<Long, Long>> positions = sstable.getPositionsForRanges(tokenRanges);
@@ -98,20 +109,22 @@ public class BigTableScanner implements ISSTableScanner
         return new BigTableScanner(sstable,
                                    ColumnFilter.all(sstable.metadata),
                                    limiter,
+                                   dropBehind,
                                    makeBounds(sstable, tokenRanges).iterator());
     }
 
     public static ISSTableScanner getScanner(SSTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
-        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, rangeIterator);
+        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata), null, false, rangeIterator);
     }
 
     private BigTableScanner(SSTableReader sstable,
                             ColumnFilter columns,
                             RateLimiter limiter,
+                            boolean dropBehind,
                             Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
-        this(sstable, columns, null, limiter, false, rangeIterator, SSTableReadsListener.NOOP_LISTENER);
+        this(sstable, columns, null, limiter, dropBehind, false, rangeIterator, SSTableReadsListener.NOOP_LISTENER);
     }
 
     private BigTableScanner(SSTableReader sstable,
@@ -121,10 +134,25 @@ public class BigTableScanner implements ISSTableScanner
                             boolean isForThrift,
                             Iterator<AbstractBounds<PartitionPosition>> rangeIterator,
                             SSTableReadsListener listener)
+    {
+        this(sstable, columns, dataRange, limiter, false, isForThrift, rangeIterator, listener);
+    }
+
+    private BigTableScanner(SSTableReader sstable,
+                            ColumnFilter columns,
+                            DataRange dataRange,
+                            RateLimiter limiter,
+                            boolean dropBehind,
+                            boolean isForThrift,
+                            Iterator<AbstractBounds<PartitionPosition>> rangeIterator,
+                            SSTableReadsListener listener)
     {
         assert sstable != null;
 
-        this.dfile = limiter == null ? sstable.openDataReader() : sstable.openDataReader(limiter);
+        if (dropBehind)
+            this.dfile = sstable.openDropBehindDataReader(limiter);
+        else
+            this.dfile = limiter == null ? sstable.openDataReader() : sstable.openDataReader(limiter);
         this.ifile = sstable.openIndexReader();
         this.sstable = sstable;
         this.columns = columns;
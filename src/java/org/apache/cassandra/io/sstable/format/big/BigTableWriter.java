@@ -33,9 +33,11 @@ import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.Schema;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.transform.Transformation;
+import org.apache.cassandra.io.FSReadError;
 import org.apache.cassandra.io.FSWriteError;
 import org.apache.cassandra.io.compress.CompressedSequentialWriter;
 import org.apache.cassandra.io.sstable.*;
@@ -47,6 +49,7 @@ import org.apache.cassandra.io.sstable.metadata.MetadataComponent;
 import org.apache.cassandra.io.sstable.metadata.MetadataType;
 import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
 import org.apache.cassandra.io.util.*;
+import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.utils.*;
 import org.apache.cassandra.utils.concurrent.Transactional;
 
@@ -80,13 +83,23 @@ public class BigTableWriter extends SSTableWriter
         super(descriptor, keyCount, repairedAt, metadata, metadataCollector, header, observers);
         lifecycleNewTracker.trackNew(this); // must track before any files are created
 
+        // the other components are small in comparison, and read more often
+        SequentialWriterOption dataWriterOption = SequentialWriterOption.newBuilder()
+                                                  .trickleFsync(writerOption.trickleFsync())
+                                                  .trickleFsyncByteInterval(writerOption.trickleFsyncByteInterval())
+                                                  .dropBehind(DatabaseDescriptor.getDropBehind(lifecycleNewTracker.opType()))
+                                                  .build();
+
         if (compression)
         {
+            CompressionParams compressionParams = compressionParams(metadata);
+            if (compressionParams.dictionary() != null)
+                components.add(Component.COMPRESSION_DICTIONARY);
             dataFile = new CompressedSequentialWriter(new File(getFilename()),
                                              descriptor.filenameFor(Component.COMPRESSION_INFO),
                                              new File(descriptor.filenameFor(descriptor.digestComponent)),
-                                             writerOption,
-                                             metadata.params.compression,
+                                             dataWriterOption,
+                                             compressionParams,
                                              metadataCollector);
         }
         else
@@ -94,14 +107,28 @@ public class BigTableWriter extends SSTableWriter
             dataFile = new ChecksummedSequentialWriter(new File(getFilename()),
                     new File(descriptor.filenameFor(Component.CRC)),
                     new File(descriptor.filenameFor(descriptor.digestComponent)),
-                    writerOption);
+                    dataWriterOption);
         }
         dbuilder = new FileHandle.Builder(descriptor.filenameFor(Component.DATA)).compressed(compression)
                                               .mmapped(DatabaseDescriptor.getDiskAccessMode() == Config.DiskAccessMode.mmap);
         chunkCache.ifPresent(dbuilder::withChunkCache);
         iwriter = new IndexWriter(keyCount);
 
-        columnIndexWriter = new ColumnIndex(this.header, dataFile, descriptor.version, this.observers, getRowIndexEntrySerializer().indexInfoSerializer());
+        columnIndexWriter = new ColumnIndex(this.header, dataFile, descriptor.version, this.observers, getRowIndexEntrySerializer().indexInfoSerializer(), iwriter.rowIndex);
+    }
+
+    /**
+     * The compression parameters of the table, with the dictionary last trained by its compactions if it uses one.
+     */
+    private static CompressionParams compressionParams(CFMetaData metadata)
+    {
+        CompressionParams params = metadata.params.compression;
+        if (!params.usesDictionary())
+            return params;
+
+        ColumnFamilyStore cfs = Schema.instance.getColumnFamilyStoreInstance(metadata.cfId);
+        byte[] dictionary = cfs == null ? null : cfs.getCompressionDictionary();
+        return dictionary == null ? params : params.withDictionary(dictionary);
     }
 
     public void mark()
@@ -168,9 +195,14 @@ public class BigTableWriter extends SSTableWriter
         //Reuse the writer for each row
         columnIndexWriter.reset();
 
-        try (UnfilteredRowIterator collecting = Transformation.apply(iterator, new StatsCollector(metadataCollector)))
+        StatsCollector stats = new StatsCollector(metadataCollector);
+        try (UnfilteredRowIterator collecting = Transformation.apply(iterator, stats))
         {
             columnIndexWriter.buildRowIndex(collecting);
+            if (iwriter.rowIndex != null)
+                iwriter.rowIndex.finishPartition(startPosition, columnIndexWriter.columnIndexCount);
+            if (iwriter.clusteringBounds != null)
+                iwriter.clusteringBounds.addPartition(key, collecting.partitionLevelDeletion(), stats.firstClustering, stats.lastClustering);
 
             // afterAppend() writes the partition key before the first RowIndexEntry - so we have to add it's
             // serialized size to the index-writer position
@@ -216,6 +248,9 @@ public class BigTableWriter extends SSTableWriter
     {
         private final MetadataCollector collector;
         private int cellCount;
+        // of the rows and range tombstone markers, null if there are none
+        private ClusteringPrefix firstClustering;
+        private ClusteringPrefix lastClustering;
 
         StatsCollector(MetadataCollector collector)
         {
@@ -234,6 +269,7 @@ public class BigTableWriter extends SSTableWriter
         public Row applyToRow(Row row)
         {
             collector.updateClusteringValues(row.clustering());
+            updateClusteringBounds(row.clustering());
             cellCount += Rows.collectStats(row, collector);
             return row;
         }
@@ -242,6 +278,7 @@ public class BigTableWriter extends SSTableWriter
         public RangeTombstoneMarker applyToMarker(RangeTombstoneMarker marker)
         {
             collector.updateClusteringValues(marker.clustering());
+            updateClusteringBounds(marker.clustering());
             if (marker.isBoundary())
             {
                 RangeTombstoneBoundaryMarker bm = (RangeTombstoneBoundaryMarker)marker;
@@ -255,6 +292,13 @@ public class BigTableWriter extends SSTableWriter
             return marker;
         }
 
+        private void updateClusteringBounds(ClusteringPrefix clustering)
+        {
+            if (firstClustering == null)
+                firstClustering = clustering;
+            lastClustering = clustering;
+        }
+
         @Override
         public void onPartitionClose()
         {
@@ -335,12 +379,20 @@ public class BigTableWriter extends SSTableWriter
             dbuilder.withCompressionMetadata(((CompressedSequentialWriter) dataFile).open(0));
         FileHandle dfile = dbuilder.bufferSize(dataBufferSize).complete();
         invalidateCacheAtBoundary(dfile);
+        // the partition and row indexes are only complete once the writer is prepared
+        boolean prepared = openReason == SSTableReader.OpenReason.NORMAL;
+        PartitionIndex partitionIndex = iwriter.partitionIndex != null && prepared ? loadPartitionIndex() : null;
+        RowIndex rowIndex = iwriter.rowIndex != null && prepared ? loadRowIndex(partitionIndex) : null;
+        ClusteringBounds clusteringBounds = iwriter.clusteringBounds != null && prepared ? loadClusteringBounds(partitionIndex, rowIndex) : null;
         SSTableReader sstable = SSTableReader.internalOpen(descriptor,
                                                            components,
                                                            this.metadata,
                                                            ifile,
                                                            dfile,
                                                            indexSummary,
+                                                           partitionIndex,
+                                                           rowIndex,
+                                                           clusteringBounds,
                                                            iwriter.bf.sharedCopy(),
                                                            maxDataAge,
                                                            stats,
@@ -351,6 +403,48 @@ public class BigTableWriter extends SSTableWriter
         return sstable;
     }
 
+    private PartitionIndex loadPartitionIndex()
+    {
+        try
+        {
+            return PartitionIndex.load(descriptor);
+        }
+        catch (IOException e)
+        {
+            throw new FSReadError(e, descriptor.filenameFor(Component.PARTITION_INDEX));
+        }
+    }
+
+    private RowIndex loadRowIndex(PartitionIndex partitionIndex)
+    {
+        try
+        {
+            return RowIndex.load(descriptor);
+        }
+        catch (IOException e)
+        {
+            if (partitionIndex != null)
+                partitionIndex.close();
+            throw new FSReadError(e, descriptor.filenameFor(Component.ROW_INDEX));
+        }
+    }
+
+    private ClusteringBounds loadClusteringBounds(PartitionIndex partitionIndex, RowIndex rowIndex)
+    {
+        try
+        {
+            return ClusteringBounds.load(descriptor, metadata.comparator);
+        }
+        catch (IOException e)
+        {
+            if (partitionIndex != null)
+                partitionIndex.close();
+            if (rowIndex != null)
+                rowIndex.close();
+            throw new FSReadError(e, descriptor.filenameFor(Component.CLUSTERING_BOUNDS));
+        }
+    }
+
     protected SSTableWriter.TransactionalProxy txnProxy()
     {
         return new TransactionalProxy();
@@ -434,6 +528,12 @@ public class BigTableWriter extends SSTableWriter
         public final FileHandle.Builder builder;
         public final IndexSummaryBuilder summary;
         public final IFilter bf;
+        // null unless the sstable has a partition index component
+        public final PartitionIndexBuilder partitionIndex;
+        // null unless the sstable has a row index component
+        public final RowIndexBuilder rowIndex;
+        // null unless the sstable has a clustering bounds component
+        public final ClusteringBoundsBuilder clusteringBounds;
         private DataPosition mark;
 
         IndexWriter(long keyCount)
@@ -442,7 +542,11 @@ public class BigTableWriter extends SSTableWriter
             builder = new FileHandle.Builder(descriptor.filenameFor(Component.PRIMARY_INDEX)).mmapped(DatabaseDescriptor.getIndexAccessMode() == Config.DiskAccessMode.mmap);
             chunkCache.ifPresent(builder::withChunkCache);
             summary = new IndexSummaryBuilder(keyCount, metadata.params.minIndexInterval, Downsampling.BASE_SAMPLING_LEVEL);
-            bf = FilterFactory.getFilter(keyCount, metadata.params.bloomFilterFpChance, true, descriptor.version.hasOldBfHashOrder());
+            bf = FilterFactory.getFilter(keyCount, metadata.params.bloomFilterFpChance, true, descriptor.version.hasOldBfHashOrder(),
+                                         DatabaseDescriptor.getBloomFilterType() == Config.BloomFilterType.blocked);
+            partitionIndex = components.contains(Component.PARTITION_INDEX) ? new PartitionIndexBuilder(descriptor, writerOption) : null;
+            rowIndex = components.contains(Component.ROW_INDEX) ? new RowIndexBuilder(descriptor, writerOption, metadata.comparator) : null;
+            clusteringBounds = components.contains(Component.CLUSTERING_BOUNDS) ? new ClusteringBoundsBuilder(descriptor, writerOption, metadata.comparator) : null;
             // register listeners to be alerted when the data files are flushed
             indexFile.setPostFlushListener(() -> summary.markIndexSynced(indexFile.getLastFlushOffset()));
             dataFile.setPostFlushListener(() -> summary.markDataSynced(dataFile.getLastFlushOffset()));
@@ -473,6 +577,8 @@ public class BigTableWriter extends SSTableWriter
                 logger.trace("wrote index entry: {} at {}", indexEntry, indexStart);
 
             summary.maybeAddEntry(key, indexStart, indexEnd, dataEnd);
+            if (partitionIndex != null)
+                partitionIndex.addKey(key, indexStart);
         }
 
         /**
@@ -501,6 +607,10 @@ public class BigTableWriter extends SSTableWriter
         public void mark()
         {
             mark = indexFile.mark();
+            if (rowIndex != null)
+                rowIndex.mark();
+            if (clusteringBounds != null)
+                clusteringBounds.mark();
         }
 
         public void resetAndTruncate()
@@ -509,6 +619,10 @@ public class BigTableWriter extends SSTableWriter
             // we can't reset dbuilder either, but that is the last thing called in afterappend so
             // we assume that if that worked then we won't be trying to reset.
             indexFile.resetAndTruncate(mark);
+            if (rowIndex != null)
+                rowIndex.resetAndTruncate();
+            if (clusteringBounds != null)
+                clusteringBounds.resetAndTruncate();
         }
 
         protected void doPrepare()
@@ -526,15 +640,34 @@ public class BigTableWriter extends SSTableWriter
             {
                 SSTableReader.saveSummary(descriptor, first, last, indexSummary);
             }
+
+            if (partitionIndex != null)
+                partitionIndex.prepareToCommit();
+            if (rowIndex != null)
+                rowIndex.prepareToCommit();
+            if (clusteringBounds != null)
+                clusteringBounds.prepareToCommit();
         }
 
         protected Throwable doCommit(Throwable accumulate)
         {
+            if (partitionIndex != null)
+                accumulate = partitionIndex.commit(accumulate);
+            if (rowIndex != null)
+                accumulate = rowIndex.commit(accumulate);
+            if (clusteringBounds != null)
+                accumulate = clusteringBounds.commit(accumulate);
             return indexFile.commit(accumulate);
         }
 
         protected Throwable doAbort(Throwable accumulate)
         {
+            if (partitionIndex != null)
+                accumulate = partitionIndex.abort(accumulate);
+            if (rowIndex != null)
+                accumulate = rowIndex.abort(accumulate);
+            if (clusteringBounds != null)
+                accumulate = clusteringBounds.abort(accumulate);
             return indexFile.abort(accumulate);
         }
 
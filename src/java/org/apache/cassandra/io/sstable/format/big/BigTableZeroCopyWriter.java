@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format.big;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.lifecycle.LifecycleNewTracker;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.MetadataType;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.utils.concurrent.Transactional;
+
+/**
+ * Writes the components of a streamed sstable as they were sent, without deserializing its content.
+ *
+ * Each component must be written in full with {@link #writeComponent}. The level and repairedAt time recorded in
+ * the stats metadata are then rewritten if they differ from the ones requested, the table of contents is written
+ * and, if asked to, the sstable opened, which rebuilds its summary as it isn't streamed.
+ */
+public class BigTableZeroCopyWriter extends SSTable implements SSTableMultiWriter
+{
+    private static final Logger logger = LoggerFactory.getLogger(BigTableZeroCopyWriter.class);
+
+    private static final long MAX_TRANSFER_SIZE = 1 << 20;
+
+    private final long repairedAt;
+    private final int sstableLevel;
+    private final LifecycleNewTracker lifecycleNewTracker;
+    private final TransactionalProxy txnProxy = new TransactionalProxy();
+
+    private final Set<Component> written = Sets.newHashSet();
+    private long bytesWritten;
+    private boolean openResult;
+    private SSTableReader finalReader;
+
+    public BigTableZeroCopyWriter(Descriptor descriptor,
+                                  CFMetaData metadata,
+                                  Set<Component> components,
+                                  long repairedAt,
+                                  int sstableLevel,
+                                  LifecycleNewTracker lifecycleNewTracker)
+    {
+        super(descriptor, components, metadata, DatabaseDescriptor.getDiskOptimizationStrategy());
+        this.repairedAt = repairedAt;
+        this.sstableLevel = sstableLevel;
+        this.lifecycleNewTracker = lifecycleNewTracker;
+        lifecycleNewTracker.trackNew(this);
+    }
+
+    /**
+     * Writes the next {@code size} bytes of the given channel to the file of the given component, and syncs it.
+     */
+    public void writeComponent(Component component, ReadableByteChannel in, long size) throws IOException
+    {
+        assert components.contains(component) && !written.contains(component) : component;
+
+        File file = new File(descriptor.filenameFor(component));
+        logger.trace("Writing {} bytes to {}", size, file);
+        try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            written.add(component);
+            long position = 0;
+            while (position < size)
+            {
+                long transferred = out.transferFrom(in, position, Math.min(MAX_TRANSFER_SIZE, size - position));
+                // transferFrom only stops short of the requested count at the end of the stream
+                if (transferred == 0)
+                    throw new EOFException(String.format("Stream ended after %d of the %d bytes of %s", position, size, file));
+                position += transferred;
+                bytesWritten += transferred;
+            }
+            out.force(true);
+        }
+    }
+
+    public boolean append(UnfilteredRowIterator partition)
+    {
+        throw new UnsupportedOperationException("Operation not supported by BigTableZeroCopyWriter");
+    }
+
+    public Collection<SSTableReader> finish(long repairedAt, long maxDataAge, boolean openResult)
+    {
+        throw new UnsupportedOperationException("Operation not supported by BigTableZeroCopyWriter");
+    }
+
+    public Collection<SSTableReader> finish(boolean openResult)
+    {
+        setOpenResult(openResult);
+        txnProxy.finish();
+        return finished();
+    }
+
+    public Collection<SSTableReader> finished()
+    {
+        return finalReader == null ? Collections.emptyList() : Collections.singleton(finalReader);
+    }
+
+    public SSTableMultiWriter setOpenResult(boolean openResult)
+    {
+        this.openResult = openResult;
+        return this;
+    }
+
+    public String getFilename()
+    {
+        return descriptor.filenameFor(Component.DATA);
+    }
+
+    public long getFilePointer()
+    {
+        return bytesWritten;
+    }
+
+    public UUID getCfId()
+    {
+        return metadata.cfId;
+    }
+
+    public Throwable commit(Throwable accumulate)
+    {
+        return txnProxy.commit(accumulate);
+    }
+
+    public Throwable abort(Throwable accumulate)
+    {
+        return txnProxy.abort(accumulate);
+    }
+
+    public void prepareToCommit()
+    {
+        txnProxy.prepareToCommit();
+    }
+
+    public void close()
+    {
+        txnProxy.close();
+    }
+
+    private class TransactionalProxy extends Transactional.AbstractTransactional
+    {
+        protected void doPrepare()
+        {
+            if (!written.equals(components))
+                throw new IllegalStateException(String.format("Components %s of %s were not received", Sets.difference(components, written), descriptor));
+
+            try
+            {
+                StatsMetadata stats = (StatsMetadata) descriptor.getMetadataSerializer().deserialize(descriptor, MetadataType.STATS);
+                if (stats.sstableLevel != sstableLevel)
+                    descriptor.getMetadataSerializer().mutateLevel(descriptor, sstableLevel);
+                if (stats.repairedAt != repairedAt)
+                    descriptor.getMetadataSerializer().mutateRepairedAt(descriptor, repairedAt);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, descriptor.filenameFor(Component.STATS));
+            }
+
+            // the summary is created when opening the sstable
+            SSTable.appendTOC(descriptor, Sets.union(components, Sets.newHashSet(Component.SUMMARY, Component.TOC)));
+
+            if (openResult)
+            {
+                try
+                {
+                    finalReader = SSTableReader.open(descriptor, SSTable.componentsFor(descriptor), metadata);
+                }
+                catch (IOException e)
+                {
+                    throw new FSWriteError(e, descriptor.filenameFor(Component.DATA));
+                }
+            }
+        }
+
+        protected Throwable doCommit(Throwable accumulate)
+        {
+            return accumulate;
+        }
+
+        protected Throwable doAbort(Throwable accumulate)
+        {
+            if (finalReader != null)
+            {
+                finalReader.selfRef().release();
+                finalReader = null;
+            }
+            lifecycleNewTracker.untrackNew(BigTableZeroCopyWriter.this);
+            for (Component component : Sets.union(components, Sets.newHashSet(Component.SUMMARY, Component.TOC)))
+                accumulate = FileUtils.deleteWithConfirm(descriptor.filenameFor(component), false, accumulate);
+            return accumulate;
+        }
+    }
+}
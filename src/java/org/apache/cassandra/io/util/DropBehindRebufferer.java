@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.util;
+
+import org.apache.cassandra.io.compress.CompressionMetadata;
+import org.apache.cassandra.utils.NativeLibrary;
+
+/**
+ * Rebufferer wrapper that drops the parts of the file that were read from the page cache, once a large enough
+ * contiguous range of it has been read and when the reader is closed. Meant for readers going through the whole
+ * file with reads of the channel, which then leave little of it in the page cache. The kernel does not drop the
+ * pages that are memory mapped, so the ones in use by mmapped readers stay cached.
+ *
+ * Instantiated once per RandomAccessReader, thread-unsafe.
+ */
+public class DropBehindRebufferer implements Rebufferer
+{
+    // how much of the file is read between two drops
+    static final long DROP_INTERVAL = 8 << 20;
+
+    private final Rebufferer wrapped;
+    private final CompressionMetadata compressionMetadata;
+
+    // the contiguous range of the file, on disk, that was read since the last drop
+    private long start = -1;
+    private long end = -1;
+
+    public DropBehindRebufferer(Rebufferer wrapped, CompressionMetadata compressionMetadata)
+    {
+        this.wrapped = wrapped;
+        this.compressionMetadata = compressionMetadata;
+    }
+
+    @Override
+    public BufferHolder rebuffer(long position)
+    {
+        BufferHolder holder = wrapped.rebuffer(position);
+
+        long chunkStart;
+        long chunkEnd;
+        if (compressionMetadata != null)
+        {
+            CompressionMetadata.Chunk chunk = compressionMetadata.chunkFor(holder.offset());
+            chunkStart = chunk.offset;
+            // the chunk is followed by its checksum
+            chunkEnd = chunk.offset + chunk.length + 4;
+        }
+        else
+        {
+            chunkStart = holder.offset();
+            chunkEnd = chunkStart + holder.buffer().limit();
+        }
+
+        if (chunkStart < start || chunkStart > end)
+        {
+            // not contiguous with what was read so far: only drop what was actually read
+            drop(end);
+            start = chunkStart;
+        }
+        else if (chunkStart - start >= DROP_INTERVAL)
+        {
+            drop(chunkStart);
+            start = chunkStart;
+        }
+        end = Math.max(end, chunkEnd);
+
+        return holder;
+    }
+
+    private void drop(long upTo)
+    {
+        if (start < 0 || upTo <= start)
+            return;
+
+        NativeLibrary.trySkipCache(channel().getFileDescriptor(), start, upTo - start, channel().filePath());
+    }
+
+    @Override
+    public ChannelProxy channel()
+    {
+        return wrapped.channel();
+    }
+
+    @Override
+    public long fileLength()
+    {
+        return wrapped.fileLength();
+    }
+
+    @Override
+    public double getCrcCheckChance()
+    {
+        return wrapped.getCrcCheckChance();
+    }
+
+    @Override
+    public void close()
+    {
+        wrapped.close();
+    }
+
+    @Override
+    public void closeReader()
+    {
+        drop(end);
+        start = end = -1;
+        wrapped.closeReader();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DropBehindRebufferer:" + wrapped.toString();
+    }
+}
@@ -144,6 +144,28 @@ public class FileHandle extends SharedCloseableImpl
         return new RandomAccessReader(instantiateRebufferer(limiter));
     }
 
+    /**
+     * Create {@link RandomAccessReader} that reads the file with reads of its channel, rather than through the chunk
+     * cache or its memory mapping, and drops what it read from the page cache as it goes (see
+     * {@link DropBehindRebufferer}). Meant for background operations reading whole files, so that they do not evict
+     * the data of foreground reads from the caches.
+     *
+     * @param limiter RateLimiter to use for rate limiting read, or null
+     * @return RandomAccessReader for the file
+     */
+    @SuppressWarnings("resource") // the reader releases the rebufferer and the chunk reader has nothing to release
+    public RandomAccessReader createDropBehindReader(RateLimiter limiter)
+    {
+        ChunkReader source = compressionMetadata.isPresent()
+                             ? new CompressedChunkReader.Standard(channel, compressionMetadata.get())
+                             : new SimpleChunkReader(channel, onDiskLength, BufferType.OFF_HEAP, DiskOptimizationStrategy.MAX_BUFFER_SIZE);
+        Rebufferer rebufferer = new DropBehindRebufferer(source.instantiateRebufferer(), compressionMetadata.orElse(null));
+
+        if (limiter != null)
+            rebufferer = new LimitingRebufferer(rebufferer, limiter, DiskOptimizationStrategy.MAX_BUFFER_SIZE);
+        return new RandomAccessReader(rebufferer);
+    }
+
     public FileDataInput createReader(long position)
     {
         RandomAccessReader reader = createReader();
@@ -167,6 +189,30 @@ public class FileHandle extends SharedCloseableImpl
         NativeLibrary.trySkipCache(channel.getFileDescriptor(), 0, position, path());
     }
 
+    /**
+     * Start reading the chunk of the file holding the given (uncompressed) position ahead of its reads. If the file
+     * goes through the chunk cache, the chunk is loaded into it before returning; otherwise the kernel is asked to
+     * read it into the page cache in the background.
+     */
+    public void prefetch(long position)
+    {
+        if (ChunkCache.instance != null && ChunkCache.instance.prefetchPosition(this, position))
+            return;
+
+        if (compressionMetadata.isPresent())
+        {
+            CompressionMetadata.Chunk chunk = compressionMetadata.get().chunkFor(position);
+            // the chunk is followed by its checksum
+            NativeLibrary.tryWillNeed(channel.getFileDescriptor(), chunk.offset, chunk.length + 4, path());
+        }
+        else
+        {
+            int length = (int) Math.min(DiskOptimizationStrategy.MAX_BUFFER_SIZE, onDiskLength - position);
+            if (length > 0)
+                NativeLibrary.tryWillNeed(channel.getFileDescriptor(), position, length, path());
+        }
+    }
+
     private Rebufferer instantiateRebufferer(RateLimiter limiter)
     {
         Rebufferer rebufferer = rebuffererFactory.instantiateRebufferer();
@@ -352,6 +352,17 @@ public class Memory implements AutoCloseable
         unsafe.copyMemory(memory.peer + srcOffset, peer + trgOffset, size);
     }
 
+    /**
+     * @return the smallest offset into this memory whose address is a multiple of the given alignment, which must
+     * be a power of two
+     */
+    public long alignedOffset(int alignment)
+    {
+        assert peer != 0 : "Memory was freed";
+        assert Integer.bitCount(alignment) == 1 : alignment;
+        return -peer & (alignment - 1);
+    }
+
     public Memory copy(long newSize)
     {
         Memory copy = Memory.allocate(newSize);
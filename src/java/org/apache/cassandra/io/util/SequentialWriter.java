@@ -24,6 +24,7 @@ import java.nio.file.StandardOpenOption;
 
 import org.apache.cassandra.io.FSReadError;
 import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.utils.NativeLibrary;
 import org.apache.cassandra.utils.SyncUtil;
 import org.apache.cassandra.utils.concurrent.Transactional;
 
@@ -47,6 +48,8 @@ public class SequentialWriter extends BufferedDataOutputStreamPlus implements Tr
     // latency spikes
     private final SequentialWriterOption option;
     private int bytesSinceTrickleFsync = 0;
+    // on-disk position up to which the written data was dropped from the page cache, if the option asks to
+    private long droppedBehindOffset = 0;
 
     protected long lastFlushOffset;
 
@@ -200,10 +203,34 @@ public class SequentialWriter extends BufferedDataOutputStreamPlus implements Tr
             }
         }
 
+        if (option.dropBehind())
+            maybeDropBehind();
+
         // Remember that we wrote, so we don't write it again on next flush().
         resetBuffer();
     }
 
+    private void maybeDropBehind()
+    {
+        try
+        {
+            long onDiskPosition = fchannel.position();
+            // a truncation may have moved the file position back
+            droppedBehindOffset = Math.min(droppedBehindOffset, onDiskPosition);
+            if (onDiskPosition - droppedBehindOffset < option.trickleFsyncByteInterval())
+                return;
+
+            // only the pages that were written back can be dropped
+            syncDataOnlyInternal();
+            NativeLibrary.trySkipCache(NativeLibrary.getfd(fchannel), droppedBehindOffset, onDiskPosition - droppedBehindOffset, filePath);
+            droppedBehindOffset = onDiskPosition;
+        }
+        catch (IOException e)
+        {
+            throw new FSWriteError(e, getPath());
+        }
+    }
+
     public void setPostFlushListener(Runnable runPostFlush)
     {
         assert this.runPostFlush == null;
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.locator;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.metrics.DynamicSnitchMetrics;
+import org.apache.cassandra.utils.FBUtilities;
+
+/**
+ * A dynamic snitch that scores hosts on every response rather than periodically (see dynamic_snitch_type).
+ * <p>
+ * The latency of a host is a "peak" moving average: a response slower than the average replaces it, so that a
+ * degraded host (e.g. in a GC pause) is avoided from its first slow response, while faster responses are averaged
+ * in with a weight growing with the time since the previous one. Without responses, the average decays towards
+ * zero so that an avoided host is eventually tried again. The score of a host is that latency multiplied by the
+ * number of requests in flight to it, so that load also moves away from a host that stops responding.
+ * <p>
+ * Replicas are ordered by repeatedly choosing between the first remaining one in the order of the subsnitch and
+ * another remaining one picked at random ("power of two choices"), the former winning unless its score is worse
+ * than the latter's by more than the badness threshold. Coordinators thus keep reading from the preferred replicas
+ * while they are healthy, but spread their reads over the other replicas instead of moving them all to the same
+ * one when a replica degrades.
+ */
+public class AdaptiveEndpointSnitch extends DynamicEndpointSnitch
+{
+    private static final long DECAY_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("cassandra.dynamic_snitch_latency_decay_ms", 5000));
+
+    private final ConcurrentHashMap<InetAddress, HostState> hosts = new ConcurrentHashMap<>();
+
+    public AdaptiveEndpointSnitch(IEndpointSnitch snitch)
+    {
+        this(snitch, null);
+    }
+
+    public AdaptiveEndpointSnitch(IEndpointSnitch snitch, String instance)
+    {
+        super(snitch, instance);
+    }
+
+    @Override
+    public void close()
+    {
+        super.close();
+        for (HostState host : hosts.values())
+            host.releaseMetrics();
+    }
+
+    @Override
+    public void sortByProximity(final InetAddress address, List<InetAddress> addresses)
+    {
+        assert address.equals(FBUtilities.getBroadcastAddress()); // we only know about ourself
+        if (addresses.size() < 2)
+            return;
+
+        subsnitch.sortByProximity(address, addresses);
+        long now = System.nanoTime();
+        double[] scores = new double[addresses.size()];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = score(addresses.get(i), now);
+
+        double threshold = 1.0 + getBadnessThreshold();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < scores.length - 1; i++)
+        {
+            int other = i + 1 + random.nextInt(scores.length - i - 1);
+            if (scores[i] > scores[other] * threshold)
+            {
+                // move the winner to position i, keeping the order of the others
+                InetAddress winner = addresses.get(other);
+                double winnerScore = scores[other];
+                for (int j = other; j > i; j--)
+                {
+                    addresses.set(j, addresses.get(j - 1));
+                    scores[j] = scores[j - 1];
+                }
+                addresses.set(i, winner);
+                scores[i] = winnerScore;
+            }
+        }
+    }
+
+    private double score(InetAddress endpoint, long now)
+    {
+        HostState host = hosts.get(endpoint);
+        return host == null ? 0 : host.score(now);
+    }
+
+    private HostState host(InetAddress endpoint)
+    {
+        HostState host = hosts.get(endpoint);
+        if (host == null)
+        {
+            HostState newHost = new HostState();
+            host = hosts.putIfAbsent(endpoint, newHost);
+            if (host == null)
+            {
+                host = newHost;
+                if (DatabaseDescriptor.isDaemonInitialized())
+                    host.registerMetrics(endpoint);
+            }
+        }
+        return host;
+    }
+
+    @Override
+    public void receiveTiming(InetAddress host, long latency) // this is cheap
+    {
+        host(host).update(latency, System.nanoTime());
+    }
+
+    @Override
+    public void requestSent(InetAddress host)
+    {
+        host(host).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void requestCompleted(InetAddress host)
+    {
+        // requests sent before we were registered are not counted
+        host(host).inFlight.getAndUpdate(count -> Math.max(count - 1, 0));
+    }
+
+    @Override
+    protected void updateScores()
+    {
+        // scores are updated on every response
+    }
+
+    @Override
+    protected void reset()
+    {
+        // latencies decay by themselves
+    }
+
+    @Override
+    public Map<InetAddress, Double> getScores()
+    {
+        long now = System.nanoTime();
+        Map<InetAddress, Double> scores = new HashMap<>(hosts.size());
+        for (Map.Entry<InetAddress, HostState> entry : hosts.entrySet())
+            scores.put(entry.getKey(), entry.getValue().score(now));
+        return scores;
+    }
+
+    @Override
+    public List<Double> dumpTimings(String hostname) throws UnknownHostException
+    {
+        HostState host = hosts.get(InetAddress.getByName(hostname));
+        return host == null ? Collections.emptyList() : Collections.singletonList(host.latency(System.nanoTime()));
+    }
+
+    @VisibleForTesting
+    int inFlight(InetAddress endpoint)
+    {
+        HostState host = hosts.get(endpoint);
+        return host == null ? 0 : host.inFlight.get();
+    }
+
+    private static class HostState
+    {
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        // in milliseconds, as reported by the messaging service
+        private double latency;
+        private long lastUpdateNanos;
+
+        private DynamicSnitchMetrics metrics;
+
+        synchronized void update(long sample, long now)
+        {
+            if (sample >= latency)
+            {
+                latency = sample;
+            }
+            else
+            {
+                double weight = Math.exp(-(double) (now - lastUpdateNanos) / DECAY_NANOS);
+                latency = latency * weight + sample * (1 - weight);
+            }
+            lastUpdateNanos = now;
+        }
+
+        synchronized double latency(long now)
+        {
+            return latency * Math.exp(-(double) Math.max(now - lastUpdateNanos, 0) / DECAY_NANOS);
+        }
+
+        double score(long now)
+        {
+            // hosts whose latency is below the millisecond resolution still differ by their requests in flight
+            return (latency(now) + 1) * (inFlight.get() + 1);
+        }
+
+        void registerMetrics(InetAddress endpoint)
+        {
+            metrics = new DynamicSnitchMetrics(endpoint,
+                                               () -> score(System.nanoTime()),
+                                               () -> latency(System.nanoTime()),
+                                               inFlight::get);
+        }
+
+        void releaseMetrics()
+        {
+            if (metrics != null)
+                metrics.release();
+        }
+    }
+}
@@ -87,7 +87,7 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
         {
             public void run()
             {
-                updateScores();
+                update();
             }
         };
         reset = new Runnable()
@@ -282,7 +282,7 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
         sample.update(latency);
     }
 
-    private void updateScores() // this is expensive
+    private void update()
     {
         if (!StorageService.instance.isGossipActive())
             return;
@@ -295,6 +295,11 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
             }
 
         }
+        updateScores();
+    }
+
+    protected void updateScores() // this is expensive
+    {
         double maxLatency = 1;
 
         Map<InetAddress, Snapshot> snapshots = new HashMap<>(samples.size());
@@ -326,7 +331,7 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
         scores = newScores;
     }
 
-    private void reset()
+    protected void reset()
     {
        samples.clear();
     }
@@ -372,7 +377,7 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
         Gossiper.instance.addLocalApplicationState(ApplicationState.SEVERITY, StorageService.instance.valueFactory.severity(severity));
     }
 
-    private double getSeverity(InetAddress endpoint)
+    protected double getSeverity(InetAddress endpoint)
     {
         EndpointState state = Gossiper.instance.getEndpointStateForEndpoint(endpoint);
         if (state == null)
@@ -412,6 +417,7 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements ILa
     // Return the max score for the endpoint in the provided list, or -1.0 if no node have a score.
     private double maxScore(List<InetAddress> endpoints)
     {
+        Map<InetAddress, Double> scores = getScores();
         double maxScore = -1.0;
         for (InetAddress endpoint : endpoints)
         {
@@ -22,4 +22,19 @@ import java.net.InetAddress;
 public interface ILatencySubscriber
 {
     public void receiveTiming(InetAddress address, long latency);
+
+    /**
+     * Called when a request whose latency is reported to subscribers is sent to the given host.
+     */
+    default void requestSent(InetAddress address)
+    {
+    }
+
+    /**
+     * Called when a request passed to {@link #requestSent} is answered or times out, after its latency is reported
+     * if it is.
+     */
+    default void requestCompleted(InetAddress address)
+    {
+    }
 }
@@ -33,6 +33,8 @@ public class CacheMetrics
     public final Gauge<Long> capacity;
     /** Total number of cache hits */
     public final Meter hits;
+    /** Total number of cache misses */
+    public final Meter misses;
     /** Total number of cache requests */
     public final Meter requests;
     /** all time cache hit rate */
@@ -66,6 +68,7 @@ public class CacheMetrics
             }
         });
         hits = Metrics.meter(factory.createMetricName("Hits"));
+        misses = Metrics.meter(factory.createMetricName("Misses"));
         requests = Metrics.meter(factory.createMetricName("Requests"));
         hitRate = Metrics.register(factory.createMetricName("HitRate"), new RatioGauge()
         {
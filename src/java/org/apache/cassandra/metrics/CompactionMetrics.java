@@ -47,6 +47,8 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
     public final Gauge<Integer> pendingTasks;
     /** Estimated number of compactions remaining to perform, group by keyspace and then table name */
     public final Gauge<Map<String, Map<String, Integer>>> pendingTasksByTableName;
+    /** Write amplification estimated by the compaction strategies that can, group by keyspace and then table name */
+    public final Gauge<Map<String, Map<String, Double>>> estimatedWriteAmplificationByTableName;
 
     /** Number of completed compactions since server [re]start */
     public final Gauge<Long> completedTasks;
@@ -125,6 +127,26 @@ public class CompactionMetrics implements CompactionManager.CompactionExecutorSt
             }
         });
 
+        estimatedWriteAmplificationByTableName = Metrics.register(factory.createMetricName("EstimatedWriteAmplificationByTableName"),
+            new Gauge<Map<String, Map<String, Double>>>()
+        {
+            @Override
+            public Map<String, Map<String, Double>> getValue()
+            {
+                Map<String, Map<String, Double>> resultMap = new HashMap<>();
+                for (String keyspaceName : Schema.instance.getKeyspaces())
+                {
+                    for (ColumnFamilyStore cfs : Keyspace.open(keyspaceName).getColumnFamilyStores())
+                    {
+                        double writeAmplification = cfs.getCompactionStrategyManager().getEstimatedWriteAmplification();
+                        if (!Double.isNaN(writeAmplification))
+                            resultMap.computeIfAbsent(keyspaceName, k -> new HashMap<>()).put(cfs.getTableName(), writeAmplification);
+                    }
+                }
+                return resultMap;
+            }
+        });
+
         completedTasks = Metrics.register(factory.createMetricName("CompletedTasks"), new Gauge<Long>()
         {
             public Long getValue()
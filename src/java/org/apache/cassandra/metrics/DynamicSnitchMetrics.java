@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.metrics;
+
+import java.net.InetAddress;
+
+import com.codahale.metrics.Gauge;
+
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+
+/**
+ * Metrics for a host scored by the {@link org.apache.cassandra.locator.AdaptiveEndpointSnitch}.
+ */
+public class DynamicSnitchMetrics
+{
+    public static final String TYPE_NAME = "DynamicSnitch";
+
+    /** Score of the host, the lower the better */
+    public final Gauge<Double> score;
+    /** Moving average of the latency of the host, in milliseconds */
+    public final Gauge<Double> latency;
+    /** Number of requests in flight to the host */
+    public final Gauge<Integer> pendingRequests;
+
+    private final MetricNameFactory factory;
+
+    /**
+     * Create metrics for the given host.
+     *
+     * @param ip IP address to use for metrics label
+     * @param score the score of the host
+     * @param latency the moving average of the latency of the host
+     * @param pendingRequests the number of requests in flight to the host
+     */
+    public DynamicSnitchMetrics(InetAddress ip, Gauge<Double> score, Gauge<Double> latency, Gauge<Integer> pendingRequests)
+    {
+        // ipv6 addresses will contain colons, which are invalid in a JMX ObjectName
+        factory = new DefaultNameFactory(TYPE_NAME, ip.getHostAddress().replace(':', '.'));
+
+        this.score = Metrics.register(factory.createMetricName("Score"), score);
+        this.latency = Metrics.register(factory.createMetricName("Latency"), latency);
+        this.pendingRequests = Metrics.register(factory.createMetricName("PendingRequests"), pendingRequests);
+    }
+
+    public void release()
+    {
+        Metrics.remove(factory.createMetricName("Score"));
+        Metrics.remove(factory.createMetricName("Latency"));
+        Metrics.remove(factory.createMetricName("PendingRequests"));
+    }
+}
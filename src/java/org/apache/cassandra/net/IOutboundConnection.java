@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+/**
+ * A connection to a peer, queuing the messages to send to it.
+ *
+ * @see OutboundTcpConnectionPool
+ */
+public interface IOutboundConnection
+{
+    /**
+     * Starts the connection. The actual connection is only established when the first message is sent.
+     */
+    void start();
+
+    void enqueue(MessageOut<?> message, int id);
+
+    /**
+     * Closes the current connection, dropping any queued message.
+     *
+     * @param destroy whether the connection is closed for good, or should reconnect for the next message
+     */
+    void closeSocket(boolean destroy);
+
+    /**
+     * Closes the current connection once the messages queued so far have been sent.
+     */
+    void softCloseSocket();
+
+    int getTargetVersion();
+
+    int getPendingMessages();
+
+    long getCompletedMesssages();
+
+    long getDroppedMessages();
+}
@@ -23,13 +23,17 @@ import java.util.EnumSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ShardedTask;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
 import org.apache.cassandra.db.filter.TombstoneOverwhelmingException;
+import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.exceptions.RequestFailureReason;
 import org.apache.cassandra.gms.Gossiper;
 import org.apache.cassandra.index.IndexNotAvailableException;
 import org.apache.cassandra.io.util.DataOutputBuffer;
 
-public class MessageDeliveryTask implements Runnable
+public class MessageDeliveryTask implements Runnable, ShardedTask
 {
     private static final Logger logger = LoggerFactory.getLogger(MessageDeliveryTask.class);
 
@@ -43,6 +47,15 @@ public class MessageDeliveryTask implements Runnable
         this.id = id;
     }
 
+    public Token shardToken()
+    {
+        if (message.payload instanceof IMutation)
+            return ((IMutation) message.payload).key().getToken();
+        if (message.payload instanceof SinglePartitionReadCommand)
+            return ((SinglePartitionReadCommand) message.payload).partitionKey().getToken();
+        return null;
+    }
+
     public void run()
     {
         MessagingService.Verb verb = message.verb;
@@ -522,6 +522,7 @@ public final class MessagingService implements MessagingServiceMBean
                 final CallbackInfo expiredCallbackInfo = pair.right.value;
 
                 maybeAddLatency(expiredCallbackInfo.callback, expiredCallbackInfo.target, pair.right.timeout);
+                maybeCompleteRequest(expiredCallbackInfo.callback, expiredCallbackInfo.target);
 
                 ConnectionMetrics.totalTimeouts.mark();
                 getConnectionPool(expiredCallbackInfo.target).incrementTimeout();
@@ -650,6 +651,27 @@ public final class MessagingService implements MessagingServiceMBean
             subscriber.receiveTiming(address, latency);
     }
 
+    /**
+     * Track the requests in flight for the dynamic snitch
+     */
+    private void maybeSendRequest(IAsyncCallback cb, InetAddress address)
+    {
+        if (cb.isLatencyForSnitch())
+        {
+            for (ILatencySubscriber subscriber : subscribers)
+                subscriber.requestSent(address);
+        }
+    }
+
+    public void maybeCompleteRequest(IAsyncCallback cb, InetAddress address)
+    {
+        if (cb.isLatencyForSnitch())
+        {
+            for (ILatencySubscriber subscriber : subscribers)
+                subscriber.requestCompleted(address);
+        }
+    }
+
     /**
      * called from gossiper when it notices a node is not responding.
      */
@@ -797,7 +819,7 @@ public final class MessagingService implements MessagingServiceMBean
     }
 
 
-    public OutboundTcpConnection getConnection(InetAddress to, MessageOut msg)
+    public IOutboundConnection getConnection(InetAddress to, MessageOut msg)
     {
         return getConnectionPool(to).getConnection(msg);
     }
@@ -833,6 +855,7 @@ public final class MessagingService implements MessagingServiceMBean
         int messageId = nextId();
         CallbackInfo previous = callbacks.put(messageId, new CallbackInfo(to, cb, callbackDeserializers.get(message.verb), failureCallback), timeout);
         assert previous == null : String.format("Callback already exists for id %d! (%s)", messageId, previous);
+        maybeSendRequest(cb, to);
         return messageId;
     }
 
@@ -857,6 +880,7 @@ public final class MessagingService implements MessagingServiceMBean
                                                                     allowHints),
                                                                     timeout);
         assert previous == null : String.format("Callback already exists for id %d! (%s)", messageId, previous);
+        maybeSendRequest(cb, to);
         return messageId;
     }
 
@@ -950,7 +974,7 @@ public final class MessagingService implements MessagingServiceMBean
                 return;
 
         // get pooled connection (really, connection queue)
-        OutboundTcpConnection connection = getConnection(to, message);
+        IOutboundConnection connection = getConnection(to, message);
 
         // write it
         connection.enqueue(message, id);
@@ -1010,6 +1034,7 @@ public final class MessagingService implements MessagingServiceMBean
                 }
             }
             connectionManagers.values().forEach(OutboundTcpConnectionPool::close);
+            NettyOutboundTcpConnection.shutdownEventLoops();
         }
         catch (IOException e)
         {
@@ -0,0 +1,690 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Checksum;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.PromiseCombiner;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+
+import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.util.BufferedDataOutputStreamPlus;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.io.util.WrappedDataOutputStreamPlus;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.net.OutboundTcpConnection.QueuedMessage;
+import org.apache.cassandra.net.OutboundTcpConnection.RetriedQueuedMessage;
+import org.apache.cassandra.security.SSLFactory;
+import org.apache.cassandra.service.NativeTransportService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+import org.apache.cassandra.utils.NanoTimeToCurrentTimeMillis;
+
+/**
+ * An outbound connection sharing a pool of Netty event loops with the connections to the other peers, instead of
+ * having a dedicated thread like {@link OutboundTcpConnection}. It speaks the same protocol, so that the peer handles
+ * it with a regular {@link IncomingTcpConnection}.
+ *
+ * Messages are queued by the sending threads, and written by the event loop of the connection in batches: whatever
+ * is queued when the event loop gets to it (up to {@link OutboundTcpConnection#MAX_COALESCED_MESSAGES} messages or
+ * {@link #BATCH_SIZE} bytes) is serialized into pooled direct buffers of up to {@link #BATCH_SIZE} bytes, written as
+ * they fill up and flushed at once. While the socket cannot take more, messages are left in the queue until it drains.
+ *
+ * All the connection state is confined to the event loop of the connection, only the queue and the counters being
+ * shared with the sending threads.
+ */
+public class NettyOutboundTcpConnection implements IOutboundConnection
+{
+    private static final Logger logger = LoggerFactory.getLogger(NettyOutboundTcpConnection.class);
+
+    private static final String PREFIX = Config.PROPERTY_PREFIX;
+
+    private static final boolean INTRADC_TCP_NODELAY = Boolean.parseBoolean(System.getProperty(PREFIX + "otc_intradc_tcp_nodelay", "true"));
+
+    /*
+     * Number of bytes above which we stop adding messages to a batch
+     */
+    @VisibleForTesting
+    static final int BATCH_SIZE = Integer.getInteger(PREFIX + "otc_buffer_size", 1024 * 64);
+
+    private static final int EVENT_LOOP_THREADS = Integer.getInteger(PREFIX + "otc_netty_event_loop_threads", FBUtilities.getAvailableProcessors());
+
+    private static final QueuedMessage CLOSE_SENTINEL = new QueuedMessage(new MessageOut<>(MessagingService.Verb.INTERNAL_RESPONSE), -1, 0);
+
+    private static final boolean useEpoll = NativeTransportService.useEpoll();
+    private static final Class<? extends Channel> channelClass = useEpoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    // shared by all the connections, started with the first one and stopped with the messaging service
+    private static EventLoopGroup eventLoopGroup;
+
+    private final OutboundTcpConnectionPool poolReference;
+    private final String name;
+    private final EventLoop eventLoop;
+
+    private final Queue<QueuedMessage> backlog = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    // queued or being written
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int targetVersion;
+    private volatile boolean isStopped = false;
+
+    // only accessed from the event loop
+    private Channel channel;
+    private boolean connected; // when the handshake is done
+    private long connectionAttemptStart = -1;
+    private BatchOutputStream batchOut;
+    private DataOutputStreamPlus out; // the batch stream, or the compressing stream writing to it
+
+    public NettyOutboundTcpConnection(OutboundTcpConnectionPool pool, String name)
+    {
+        this.poolReference = pool;
+        this.name = name;
+        this.eventLoop = nextEventLoop();
+        // see OutboundTcpConnection
+        this.targetVersion = MessagingService.instance().getVersion(pool.endPoint());
+    }
+
+    private static synchronized EventLoop nextEventLoop()
+    {
+        if (eventLoopGroup == null)
+        {
+            NamedThreadFactory threadFactory = new NamedThreadFactory("MessagingService-Outgoing");
+            eventLoopGroup = useEpoll
+                             ? new EpollEventLoopGroup(EVENT_LOOP_THREADS, threadFactory)
+                             : new NioEventLoopGroup(EVENT_LOOP_THREADS, threadFactory);
+        }
+        return eventLoopGroup.next();
+    }
+
+    /**
+     * Stops the event loops once they have run the tasks already submitted, e.g. the closing of the connections.
+     * The connections created afterwards start new ones.
+     */
+    static synchronized void shutdownEventLoops()
+    {
+        if (eventLoopGroup != null)
+        {
+            eventLoopGroup.shutdownGracefully();
+            eventLoopGroup = null;
+        }
+    }
+
+    public void start()
+    {
+        // nothing to do until the first message is enqueued
+    }
+
+    public void enqueue(MessageOut<?> message, int id)
+    {
+        if (isStopped)
+        {
+            dropped.incrementAndGet();
+            return;
+        }
+        enqueue(new QueuedMessage(message, id, System.nanoTime()));
+    }
+
+    private void enqueue(QueuedMessage message)
+    {
+        pending.incrementAndGet();
+        backlog.add(message);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain()
+    {
+        if (drainScheduled.compareAndSet(false, true))
+            eventLoop.execute(this::drain);
+    }
+
+    public void closeSocket(boolean destroy)
+    {
+        logger.debug("Enqueuing socket close for {}", poolReference.endPoint());
+        isStopped = destroy;
+        clearBacklog(false);
+        eventLoop.execute(this::disconnect);
+    }
+
+    public void softCloseSocket()
+    {
+        enqueue(CLOSE_SENTINEL);
+    }
+
+    public int getTargetVersion()
+    {
+        return targetVersion;
+    }
+
+    public int getPendingMessages()
+    {
+        return pending.get();
+    }
+
+    public long getCompletedMesssages()
+    {
+        return completed.get();
+    }
+
+    public long getDroppedMessages()
+    {
+        return dropped.get();
+    }
+
+    private void clearBacklog(boolean countAsDropped)
+    {
+        QueuedMessage qm;
+        while ((qm = backlog.poll()) != null)
+        {
+            pending.decrementAndGet();
+            if (countAsDropped && qm != CLOSE_SENTINEL)
+                dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the queued messages, connecting first if needed.
+     */
+    private void drain()
+    {
+        drainScheduled.set(false);
+        if (isStopped || backlog.isEmpty())
+            return;
+
+        if (!connected)
+        {
+            if (channel == null)
+                connect();
+            // we get back here once connected
+            return;
+        }
+
+        while (connected && channel.isWritable() && !backlog.isEmpty())
+            writeBatch();
+    }
+
+    private void writeBatch()
+    {
+        List<QueuedMessage> batch = new ArrayList<>();
+        long size = 0;
+        boolean close = false;
+        long now = System.nanoTime();
+        while (batch.size() < OutboundTcpConnection.MAX_COALESCED_MESSAGES && size < BATCH_SIZE)
+        {
+            QueuedMessage qm = backlog.poll();
+            if (qm == null)
+                break;
+
+            if (qm == CLOSE_SENTINEL)
+            {
+                pending.decrementAndGet();
+                close = true;
+                break;
+            }
+
+            if (qm.isTimedOut(now))
+            {
+                pending.decrementAndGet();
+                dropped.incrementAndGet();
+                continue;
+            }
+
+            batch.add(qm);
+            size += serializedSize(qm, targetVersion);
+        }
+
+        if (!batch.isEmpty())
+        {
+            try
+            {
+                serialize(batch).addListener(future -> onBatchWritten(batch, future.isSuccess() ? null : future.cause()));
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                onBatchWritten(batch, t);
+                return;
+            }
+        }
+
+        if (close)
+        {
+            // the close goes through the pipeline after the writes, so they are sent first
+            disconnect();
+            scheduleDrain();
+        }
+    }
+
+    private static long serializedSize(QueuedMessage qm, int version)
+    {
+        long size = TypeSizes.sizeof(MessagingService.PROTOCOL_MAGIC);
+        size += version < MessagingService.VERSION_20 ? TypeSizes.sizeof(String.valueOf(qm.id)) : TypeSizes.sizeof(qm.id);
+        size += TypeSizes.sizeof((int) qm.timestampNanos);
+        return size + qm.message.serializedSize(version);
+    }
+
+    /**
+     * Serializes the batch to the channel in parts of up to {@link #BATCH_SIZE} bytes, then flushes them.
+     *
+     * @return the future of the writes of all the parts of the batch
+     */
+    private ChannelFuture serialize(List<QueuedMessage> batch) throws IOException
+    {
+        batchOut.startBatch();
+        for (QueuedMessage qm : batch)
+            write(out, qm);
+        out.flush();
+        ChannelPromise promise = channel.newPromise();
+        batchOut.finishBatch(promise);
+        channel.flush();
+        return promise;
+    }
+
+    private void write(DataOutputStreamPlus out, QueuedMessage qm) throws IOException
+    {
+        OutboundTcpConnection.traceSend(qm.message, poolReference.endPoint());
+        long timestampMillis = NanoTimeToCurrentTimeMillis.convert(qm.timestampNanos);
+        OutboundTcpConnection.writeInternal(out, qm.message, qm.id, timestampMillis, targetVersion);
+    }
+
+    private void onBatchWritten(List<QueuedMessage> batch, Throwable failure)
+    {
+        pending.addAndGet(-batch.size());
+        if (failure == null)
+        {
+            completed.addAndGet(batch.size());
+            return;
+        }
+
+        if (failure instanceof IOException || failure.getCause() instanceof IOException)
+        {
+            logger.debug("Error writing to {}", poolReference.endPoint(), failure);
+            // retry the messages once after reconnecting, as OutboundTcpConnection does
+            for (QueuedMessage qm : batch)
+            {
+                if (qm.shouldRetry())
+                    enqueue(new RetriedQueuedMessage(qm));
+                else
+                    dropped.incrementAndGet();
+            }
+        }
+        else
+        {
+            // Non IO exceptions are likely a programming error so let's not silence them
+            logger.error("error writing to {}", poolReference.endPoint(), failure);
+            dropped.addAndGet(batch.size());
+        }
+        disconnect();
+        scheduleDrain();
+    }
+
+    private void connect()
+    {
+        if (connectionAttemptStart < 0)
+            connectionAttemptStart = System.nanoTime();
+
+        InetAddress endpoint = poolReference.endPoint();
+        logger.debug("Attempting to connect to {}", endpoint);
+        targetVersion = MessagingService.instance().getVersion(endpoint);
+        boolean encrypted = OutboundTcpConnectionPool.isEncryptedChannel(endpoint);
+        int port = encrypted ? DatabaseDescriptor.getSSLStoragePort() : DatabaseDescriptor.getStoragePort();
+
+        Bootstrap bootstrap = new Bootstrap().group(eventLoop)
+                                             .channel(channelClass)
+                                             .option(ChannelOption.SO_KEEPALIVE, true)
+                                             .option(ChannelOption.TCP_NODELAY, OutboundTcpConnection.isLocalDC(endpoint) ? INTRADC_TCP_NODELAY : DatabaseDescriptor.getInterDCTcpNoDelay())
+                                             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) DatabaseDescriptor.getRpcTimeout());
+        if (DatabaseDescriptor.getInternodeSendBufferSize() > 0)
+            bootstrap.option(ChannelOption.SO_SNDBUF, DatabaseDescriptor.getInternodeSendBufferSize());
+
+        bootstrap.handler(new ChannelInitializer<SocketChannel>()
+        {
+            protected void initChannel(SocketChannel channel) throws Exception
+            {
+                if (encrypted)
+                    channel.pipeline().addFirst("ssl", new SslHandler(SSLFactory.getClientEngine(DatabaseDescriptor.getServerEncryptionOptions(), endpoint, port)));
+                channel.pipeline().addLast("handler", new Handler());
+            }
+        });
+
+        ChannelFuture future = bootstrap.connect(new InetSocketAddress(endpoint, port));
+        channel = future.channel();
+        future.addListener(f -> {
+            if (f.isSuccess())
+                onConnected(future.channel());
+            else
+                onConnectionFailure(future.channel(), f.cause());
+        });
+    }
+
+    private void onConnected(Channel channel)
+    {
+        if (channel != this.channel)
+            return;
+
+        ByteBuf header = channel.alloc().buffer(8);
+        try (ByteBufOutputStream out = new ByteBufOutputStream(header))
+        {
+            out.writeInt(MessagingService.PROTOCOL_MAGIC);
+            OutboundTcpConnection.writeHeader(out, targetVersion, OutboundTcpConnection.shouldCompressConnection(poolReference.endPoint()));
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e); // cannot happen writing to memory
+        }
+        channel.writeAndFlush(header);
+
+        logger.info("Handshaking version with {}", poolReference.endPoint());
+        eventLoop.schedule(() -> {
+            if (channel == this.channel && !connected)
+                onConnectionFailure(channel, new IOException("Cannot handshake version with " + poolReference.endPoint()));
+        }, OutboundTcpConnection.WAIT_FOR_VERSION_MAX_TIME, TimeUnit.MILLISECONDS);
+    }
+
+    private void onHandshake(Channel channel, int maxTargetVersion)
+    {
+        if (channel != this.channel || connected)
+            return;
+
+        InetAddress endpoint = poolReference.endPoint();
+        MessagingService.instance().setVersion(endpoint, maxTargetVersion);
+        if (targetVersion > maxTargetVersion)
+        {
+            logger.trace("Target max version is {}; will reconnect with that version", maxTargetVersion);
+            try
+            {
+                if (DatabaseDescriptor.getSeeds().contains(endpoint))
+                    logger.warn("Seed gossip version is {}; will not connect with that version", maxTargetVersion);
+            }
+            catch (Throwable e)
+            {
+                // see OutboundTcpConnection
+                JVMStabilityInspector.inspectThrowable(e);
+                logger.warn("Configuration error prevented outbound connection: {}", e.getLocalizedMessage());
+            }
+            disconnect();
+            clearBacklog(true);
+            connectionAttemptStart = -1;
+            return;
+        }
+
+        if (targetVersion < maxTargetVersion && targetVersion < MessagingService.current_version)
+        {
+            logger.trace("Detected higher max version {} (using {}); will reconnect when queued messages are done",
+                         maxTargetVersion, targetVersion);
+            softCloseSocket();
+        }
+
+        ByteBuf buffer = channel.alloc().buffer();
+        try (ByteBufOutputStream out = new ByteBufOutputStream(buffer))
+        {
+            out.writeInt(MessagingService.current_version);
+            CompactEndpointSerializationHelper.serialize(FBUtilities.getBroadcastAddress(), out);
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e); // cannot happen writing to memory
+        }
+        channel.writeAndFlush(buffer);
+
+        batchOut = new BatchOutputStream(channel);
+        out = batchOut;
+        if (OutboundTcpConnection.shouldCompressConnection(endpoint))
+        {
+            logger.trace("Upgrading OutputStream to {} to be compressed", endpoint);
+            Checksum checksum = XXHashFactory.fastestInstance().newStreamingHash32(OutboundTcpConnection.LZ4_HASH_SEED).asChecksum();
+            out = new WrappedDataOutputStreamPlus(new LZ4BlockOutputStream(batchOut,
+                                                                           1 << 14,  // 16k block size
+                                                                           LZ4Factory.fastestInstance().fastCompressor(),
+                                                                           checksum,
+                                                                           true)); // no async flushing
+        }
+
+        connected = true;
+        connectionAttemptStart = -1;
+        logger.debug("Done connecting to {}", endpoint);
+        drain();
+    }
+
+    private void onConnectionFailure(Channel channel, Throwable cause)
+    {
+        if (channel != this.channel)
+            return;
+
+        logger.debug("Unable to connect to {}", poolReference.endPoint(), cause);
+        disconnect();
+        if (isStopped)
+            return;
+
+        long elapsed = System.nanoTime() - connectionAttemptStart;
+        if (elapsed < TimeUnit.MILLISECONDS.toNanos(DatabaseDescriptor.getRpcTimeout()))
+        {
+            eventLoop.schedule(this::scheduleDrain, OutboundTcpConnection.OPEN_RETRY_DELAY, TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            // Not connected! Clear out the queue, else gossip messages back up.
+            clearBacklog(true);
+            connectionAttemptStart = -1;
+        }
+    }
+
+    private void onDisconnected(Channel channel)
+    {
+        if (channel != this.channel)
+            return;
+
+        if (!connected)
+        {
+            onConnectionFailure(channel, new IOException("Connection to " + poolReference.endPoint() + " closed during handshake"));
+            return;
+        }
+
+        logger.debug("Connection to {} closed", poolReference.endPoint());
+        disconnect();
+        scheduleDrain();
+    }
+
+    private void disconnect()
+    {
+        if (channel != null)
+        {
+            channel.close();
+            logger.debug("Socket to {} closed", poolReference.endPoint());
+            channel = null;
+        }
+        connected = false;
+        if (batchOut != null)
+            batchOut.release();
+        batchOut = null;
+        out = null;
+    }
+
+    public String toString()
+    {
+        return "MessagingService-Outgoing-" + poolReference.endPoint() + "-" + name;
+    }
+
+    /**
+     * Reads the version the peer replies to our header with, discarding anything else it may send.
+     */
+    private class Handler extends ChannelInboundHandlerAdapter
+    {
+        private ByteBuf versionBytes;
+
+        public void handlerAdded(ChannelHandlerContext ctx)
+        {
+            versionBytes = ctx.alloc().buffer(4);
+        }
+
+        public void handlerRemoved(ChannelHandlerContext ctx)
+        {
+            versionBytes.release();
+        }
+
+        public void channelRead(ChannelHandlerContext ctx, Object msg)
+        {
+            ByteBuf in = (ByteBuf) msg;
+            try
+            {
+                if (versionBytes.isWritable())
+                {
+                    versionBytes.writeBytes(in, Math.min(in.readableBytes(), versionBytes.writableBytes()));
+                    if (!versionBytes.isWritable())
+                        onHandshake(ctx.channel(), versionBytes.getInt(0));
+                }
+            }
+            finally
+            {
+                in.release();
+            }
+        }
+
+        public void channelWritabilityChanged(ChannelHandlerContext ctx)
+        {
+            if (ctx.channel().isWritable())
+                scheduleDrain();
+        }
+
+        public void channelInactive(ChannelHandlerContext ctx)
+        {
+            onDisconnected(ctx.channel());
+        }
+
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
+        {
+            if (cause instanceof IOException || cause.getCause() instanceof IOException)
+                logger.debug("Error on connection to {}", poolReference.endPoint(), cause);
+            else
+                logger.error("Error on connection to {}", poolReference.endPoint(), cause);
+            ctx.close();
+        }
+    }
+
+    /**
+     * The stream the messages of a batch are serialized to, directly or through the compressing stream, into pooled
+     * direct buffers of up to {@link #BATCH_SIZE} bytes. Each buffer is written to the channel once full or flushed,
+     * so that a batch with large messages is sent in parts rather than in a single buffer as large as all of them.
+     */
+    private static class BatchOutputStream extends BufferedDataOutputStreamPlus
+    {
+        private final Channel channel;
+        private PromiseCombiner writes;
+        private ByteBuf current;
+
+        private BatchOutputStream(Channel channel)
+        {
+            // a buffer is only allocated once something is written
+            super(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+            this.channel = channel;
+            // so that large direct buffers are copied into ours rather than written to the channel
+            this.strictFlushing = true;
+        }
+
+        void startBatch()
+        {
+            writes = new PromiseCombiner();
+        }
+
+        void finishBatch(ChannelPromise promise)
+        {
+            writes.finish(promise);
+            writes = null;
+        }
+
+        @Override
+        protected void doFlush(int count)
+        {
+            if (current != null)
+            {
+                if (buffer.position() > 0)
+                {
+                    ChannelPromise written = channel.newPromise();
+                    channel.write(current.writerIndex(buffer.position()), written);
+                    writes.add(written);
+                }
+                else
+                    current.release();
+                current = null;
+                buffer = ByteBufferUtil.EMPTY_BYTE_BUFFER;
+            }
+
+            if (count > 0)
+            {
+                current = channel.alloc().directBuffer(BATCH_SIZE, BATCH_SIZE);
+                buffer = current.nioBuffer(0, BATCH_SIZE);
+            }
+        }
+
+        /**
+         * Releases the buffer of a batch that failed to be serialized, whose written parts are failed by the
+         * closing of the channel as they were not flushed.
+         */
+        void release()
+        {
+            if (current != null)
+                current.release();
+            current = null;
+            buffer = ByteBufferUtil.EMPTY_BYTE_BUFFER;
+        }
+
+        @Override
+        public void close()
+        {
+            release();
+        }
+    }
+}
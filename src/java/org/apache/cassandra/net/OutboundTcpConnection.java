@@ -48,6 +48,7 @@ import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.xxhash.XXHashFactory;
 
 import org.apache.cassandra.concurrent.NamedThreadFactory;
+import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
 import org.apache.cassandra.io.util.BufferedDataOutputStreamPlus;
 import org.apache.cassandra.io.util.WrappedDataOutputStreamPlus;
@@ -67,7 +68,7 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.Uninterruptibles;
 
-public class OutboundTcpConnection extends FastThreadLocalThread
+public class OutboundTcpConnection extends FastThreadLocalThread implements IOutboundConnection
 {
     private static final Logger logger = LoggerFactory.getLogger(OutboundTcpConnection.class);
 
@@ -128,7 +129,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
     private static final MessageOut<?> CLOSE_SENTINEL = new MessageOut(MessagingService.Verb.INTERNAL_RESPONSE);
     private volatile boolean isStopped = false;
 
-    private static final int OPEN_RETRY_DELAY = 100; // ms between retries
+    static final int OPEN_RETRY_DELAY = 100; // ms between retries
     public static final int WAIT_FOR_VERSION_MAX_TIME = 5000;
     private static final int NO_VERSION = Integer.MIN_VALUE;
 
@@ -167,7 +168,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         targetVersion = MessagingService.instance().getVersion(pool.endPoint());
     }
 
-    private static boolean isLocalDC(InetAddress targetHost)
+    static boolean isLocalDC(InetAddress targetHost)
     {
         String remoteDC = DatabaseDescriptor.getEndpointSnitch().getDatacenter(targetHost);
         String localDC = DatabaseDescriptor.getEndpointSnitch().getDatacenter(FBUtilities.getBroadcastAddress());
@@ -200,7 +201,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         return backlog.stream().anyMatch(entry -> entry.isTimedOut(nowNanos));
     }
 
-    void closeSocket(boolean destroyThread)
+    public void closeSocket(boolean destroyThread)
     {
         logger.debug("Enqueuing socket close for {}", poolReference.endPoint());
         isStopped = destroyThread; // Exit loop to stop the thread
@@ -211,7 +212,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         enqueue(CLOSE_SENTINEL, -1);
     }
 
-    void softCloseSocket()
+    public void softCloseSocket()
     {
         enqueue(CLOSE_SENTINEL, -1);
     }
@@ -303,39 +304,25 @@ public class OutboundTcpConnection extends FastThreadLocalThread
     }
 
     private boolean shouldCompressConnection()
+    {
+        return shouldCompressConnection(poolReference.endPoint());
+    }
+
+    static boolean shouldCompressConnection(InetAddress endpoint)
     {
         // assumes version >= 1.2
         return DatabaseDescriptor.internodeCompression() == Config.InternodeCompression.all
-               || (DatabaseDescriptor.internodeCompression() == Config.InternodeCompression.dc && !isLocalDC(poolReference.endPoint()));
+               || (DatabaseDescriptor.internodeCompression() == Config.InternodeCompression.dc && !isLocalDC(endpoint));
     }
 
     private void writeConnected(QueuedMessage qm, boolean flush)
     {
         try
         {
-            byte[] sessionBytes = qm.message.parameters.get(Tracing.TRACE_HEADER);
-            if (sessionBytes != null)
-            {
-                UUID sessionId = UUIDGen.getUUID(ByteBuffer.wrap(sessionBytes));
-                TraceState state = Tracing.instance.get(sessionId);
-                String message = String.format("Sending %s message to %s", qm.message.verb, poolReference.endPoint());
-                // session may have already finished; see CASSANDRA-5668
-                if (state == null)
-                {
-                    byte[] traceTypeBytes = qm.message.parameters.get(Tracing.TRACE_TYPE);
-                    Tracing.TraceType traceType = traceTypeBytes == null ? Tracing.TraceType.QUERY : Tracing.TraceType.deserialize(traceTypeBytes[0]);
-                    Tracing.instance.trace(ByteBuffer.wrap(sessionBytes), message, traceType.getTTL());
-                }
-                else
-                {
-                    state.trace(message);
-                    if (qm.message.verb == MessagingService.Verb.REQUEST_RESPONSE)
-                        Tracing.instance.doneWithNonLocalSession(state);
-                }
-            }
+            traceSend(qm.message, poolReference.endPoint());
 
             long timestampMillis = NanoTimeToCurrentTimeMillis.convert(qm.timestampNanos);
-            writeInternal(qm.message, qm.id, timestampMillis);
+            writeInternal(out, qm.message, qm.id, timestampMillis, targetVersion);
 
             completed++;
             if (flush)
@@ -371,7 +358,31 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         }
     }
 
-    private void writeInternal(MessageOut<?> message, int id, long timestamp) throws IOException
+    static void traceSend(MessageOut<?> message, InetAddress endpoint)
+    {
+        byte[] sessionBytes = message.parameters.get(Tracing.TRACE_HEADER);
+        if (sessionBytes != null)
+        {
+            UUID sessionId = UUIDGen.getUUID(ByteBuffer.wrap(sessionBytes));
+            TraceState state = Tracing.instance.get(sessionId);
+            String traceMessage = String.format("Sending %s message to %s", message.verb, endpoint);
+            // session may have already finished; see CASSANDRA-5668
+            if (state == null)
+            {
+                byte[] traceTypeBytes = message.parameters.get(Tracing.TRACE_TYPE);
+                Tracing.TraceType traceType = traceTypeBytes == null ? Tracing.TraceType.QUERY : Tracing.TraceType.deserialize(traceTypeBytes[0]);
+                Tracing.instance.trace(ByteBuffer.wrap(sessionBytes), traceMessage, traceType.getTTL());
+            }
+            else
+            {
+                state.trace(traceMessage);
+                if (message.verb == MessagingService.Verb.REQUEST_RESPONSE)
+                    Tracing.instance.doneWithNonLocalSession(state);
+            }
+        }
+    }
+
+    static void writeInternal(DataOutputPlus out, MessageOut<?> message, int id, long timestamp, int targetVersion) throws IOException
     {
         out.writeInt(MessagingService.PROTOCOL_MAGIC);
 
@@ -386,7 +397,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         message.serialize(out, targetVersion);
     }
 
-    private static void writeHeader(DataOutput out, int version, boolean compressionEnabled) throws IOException
+    static void writeHeader(DataOutput out, int version, boolean compressionEnabled) throws IOException
     {
         // 2 bits: unused.  used to be "serializer type," which was always Binary
         // 1 bit: compression
@@ -638,7 +649,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
     }
 
     /** messages that have not been retried yet */
-    private static class QueuedMessage implements Coalescable
+    static class QueuedMessage implements Coalescable
     {
         final MessageOut<?> message;
         final int id;
@@ -672,7 +683,7 @@ public class OutboundTcpConnection extends FastThreadLocalThread
         }
     }
 
-    private static class RetriedQueuedMessage extends QueuedMessage
+    static class RetriedQueuedMessage extends QueuedMessage
     {
         RetriedQueuedMessage(QueuedMessage msg)
         {
@@ -42,9 +42,9 @@ public class OutboundTcpConnectionPool
     // pointer for the real Address.
     private final InetAddress id;
     private final CountDownLatch started;
-    public final OutboundTcpConnection smallMessages;
-    public final OutboundTcpConnection largeMessages;
-    public final OutboundTcpConnection gossipMessages;
+    public final IOutboundConnection smallMessages;
+    public final IOutboundConnection largeMessages;
+    public final IOutboundConnection gossipMessages;
 
     // pointer to the reset Address.
     private InetAddress resetEndpoint;
@@ -59,18 +59,25 @@ public class OutboundTcpConnectionPool
         resetEndpoint = SystemKeyspace.getPreferredIP(remoteEp);
         started = new CountDownLatch(1);
 
-        smallMessages = new OutboundTcpConnection(this, "Small");
-        largeMessages = new OutboundTcpConnection(this, "Large");
-        gossipMessages = new OutboundTcpConnection(this, "Gossip");
+        smallMessages = newConnection("Small");
+        largeMessages = newConnection("Large");
+        gossipMessages = newConnection("Gossip");
 
         this.backPressureState = backPressureState;
     }
 
+    private IOutboundConnection newConnection(String name)
+    {
+        return DatabaseDescriptor.isOtcNettyEnabled()
+               ? new NettyOutboundTcpConnection(this, name)
+               : new OutboundTcpConnection(this, name);
+    }
+
     /**
      * returns the appropriate connection based on message type.
      * returns null if a connection could not be established.
      */
-    OutboundTcpConnection getConnection(MessageOut msg)
+    IOutboundConnection getConnection(MessageOut msg)
     {
         if (Stage.GOSSIP == msg.getStage())
             return gossipMessages;
@@ -86,13 +93,13 @@ public class OutboundTcpConnectionPool
 
     void reset()
     {
-        for (OutboundTcpConnection conn : new OutboundTcpConnection[] { smallMessages, largeMessages, gossipMessages })
+        for (IOutboundConnection conn : new IOutboundConnection[] { smallMessages, largeMessages, gossipMessages })
             conn.closeSocket(false);
     }
 
     public void resetToNewerVersion(int version)
     {
-        for (OutboundTcpConnection conn : new OutboundTcpConnection[] { smallMessages, largeMessages, gossipMessages })
+        for (IOutboundConnection conn : new IOutboundConnection[] { smallMessages, largeMessages, gossipMessages })
         {
             if (version > conn.getTargetVersion())
                 conn.softCloseSocket();
@@ -108,7 +115,7 @@ public class OutboundTcpConnectionPool
     {
         SystemKeyspace.updatePreferredIP(id, remoteEP);
         resetEndpoint = remoteEP;
-        for (OutboundTcpConnection conn : new OutboundTcpConnection[] { smallMessages, largeMessages, gossipMessages })
+        for (IOutboundConnection conn : new IOutboundConnection[] { smallMessages, largeMessages, gossipMessages })
             conn.softCloseSocket();
 
         // release previous metrics and create new one with reset address
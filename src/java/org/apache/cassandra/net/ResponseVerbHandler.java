@@ -52,6 +52,7 @@ public class ResponseVerbHandler implements IVerbHandler
             MessagingService.instance().maybeAddLatency(cb, message.from, latency);
             cb.response(message);
         }
+        MessagingService.instance().maybeCompleteRequest(cb, message.from);
 
         if (callbackInfo.callback.supportsBackPressure())
         {
@@ -22,6 +22,7 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -29,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
@@ -61,7 +63,7 @@ public class Validator implements Runnable
     private final boolean evenTreeDistribution;
 
     // null when all rows with the min token have been consumed
-    private long validated;
+    private final AtomicLong validated = new AtomicLong();
     private MerkleTrees trees;
     // current range being updated
     private MerkleTree.TreeRange range;
@@ -80,7 +82,6 @@ public class Validator implements Runnable
         this.desc = desc;
         this.initiator = initiator;
         this.gcBefore = gcBefore;
-        validated = 0;
         range = null;
         ranges = null;
         this.evenTreeDistribution = evenTreeDistribution;
@@ -164,6 +165,44 @@ public class Validator implements Runnable
         }
     }
 
+    /**
+     * Splits the ranges of the prepared trees in at most {@code count} groups of contiguous subtrees, whose
+     * partitions can be hashed by different threads with {@link #addUnordered}.
+     */
+    public List<List<Range<Token>>> subranges(int count)
+    {
+        assert ranges != null : "Validator was not prepared()";
+
+        int depth = 0;
+        while (((long) trees.ranges().size() << depth) < count)
+            depth++;
+        List<Range<Token>> subtrees = trees.subtreeRanges(depth);
+
+        int groups = Math.min(count, subtrees.size());
+        List<List<Range<Token>>> subranges = new ArrayList<>(groups);
+        for (int i = 0; i < groups; i++)
+            subranges.add(new ArrayList<>(subtrees.subList(i * subtrees.size() / groups, (i + 1) * subtrees.size() / groups)));
+        return subranges;
+    }
+
+    /**
+     * Hashes the given partition into the leaf of the trees that contains it.
+     *
+     * Unlike {@link #add}, partitions do not have to be added in token order, and partitions of different groups
+     * returned by {@link #subranges} can be added concurrently since they never share a leaf.
+     *
+     * @param partition Partition to add hash
+     */
+    public void addUnordered(UnfilteredRowIterator partition)
+    {
+        Token token = partition.partitionKey().getToken();
+        assert Range.isInRanges(token, desc.ranges) : token + " is not contained in " + desc.ranges;
+
+        RowHash rowHash = rowHash(partition);
+        if (rowHash != null)
+            trees.get(token).addHash(rowHash);
+    }
+
     public boolean findCorrectRange(Token t)
     {
         while (!range.contains(t) && ranges.hasNext())
@@ -215,7 +254,7 @@ public class Validator implements Runnable
 
     private MerkleTree.RowHash rowHash(UnfilteredRowIterator partition)
     {
-        validated++;
+        validated.incrementAndGet();
         // MerkleTree uses XOR internally, so we want lots of output bits here
         CountingDigest digest = new CountingDigest(FBUtilities.newMessageDigest("SHA-256"));
         UnfilteredRowIterators.digest(null, partition, digest, MessagingService.current_version);
@@ -231,6 +270,8 @@ public class Validator implements Runnable
     public void complete()
     {
         completeTree();
+        if (DatabaseDescriptor.useOffheapMerkleTrees())
+            trees.tryMoveOffHeap();
 
         StageManager.getStage(Stage.ANTI_ENTROPY).execute(this);
 
@@ -20,6 +20,7 @@ package org.apache.cassandra.repair.messages;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
@@ -91,6 +92,8 @@ public class ValidationComplete extends RepairMessage
             if (success)
             {
                 MerkleTrees trees = MerkleTrees.serializer.deserialize(in, version);
+                if (DatabaseDescriptor.useOffheapMerkleTrees())
+                    trees.tryMoveOffHeap();
                 return new ValidationComplete(desc, trees);
             }
 
@@ -182,6 +182,32 @@ public final class CompressionParams
         return otherOptions;
     }
 
+    /**
+     * Checks if the sstables written with these parameters should be compressed with a dictionary trained by
+     * compaction.
+     */
+    public boolean usesDictionary()
+    {
+        return sstableCompressor instanceof ZstdCompressor && ((ZstdCompressor) sstableCompressor).dictionarySize() > 0;
+    }
+
+    /**
+     * Returns these parameters with a compressor using the provided dictionary.
+     */
+    public CompressionParams withDictionary(byte[] dictionary)
+    {
+        assert sstableCompressor instanceof ZstdCompressor;
+        return new CompressionParams(((ZstdCompressor) sstableCompressor).withDictionary(dictionary), chunkLength, otherOptions);
+    }
+
+    /**
+     * Returns the dictionary used by the compressor, or {@code null}.
+     */
+    public byte[] dictionary()
+    {
+        return sstableCompressor instanceof ZstdCompressor ? ((ZstdCompressor) sstableCompressor).dictionary() : null;
+    }
+
     public int chunkLength()
     {
         return chunkLength == null ? DEFAULT_CHUNK_LENGTH : chunkLength;
@@ -31,6 +31,7 @@ import java.util.List;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLSocket;
@@ -125,31 +126,36 @@ public final class SSLFactory
         }
     }
 
+    /** Create an engine for the client side of a connection to the given peer, e.g. to use with Netty */
+    public static SSLEngine getClientEngine(EncryptionOptions options, InetAddress address, int port) throws IOException
+    {
+        SSLContext ctx = createSSLContext(options, true);
+        SSLEngine engine = ctx.createSSLEngine(address.getHostAddress(), port);
+        engine.setUseClientMode(true);
+        engine.setSSLParameters(prepareParameters(engine.getSSLParameters(), engine.getSupportedCipherSuites(), options));
+        return engine;
+    }
+
     /** Sets relevant socket options specified in encryption settings */
     private static void prepareSocket(SSLServerSocket serverSocket, EncryptionOptions options)
     {
-        String[] suites = filterCipherSuites(serverSocket.getSupportedCipherSuites(), options.cipher_suites);
-        if(options.require_endpoint_verification)
-        {
-            SSLParameters sslParameters = serverSocket.getSSLParameters();
-            sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
-            serverSocket.setSSLParameters(sslParameters);
-        }
-        serverSocket.setEnabledCipherSuites(suites);
+        serverSocket.setSSLParameters(prepareParameters(serverSocket.getSSLParameters(), serverSocket.getSupportedCipherSuites(), options));
         serverSocket.setNeedClientAuth(options.require_client_auth);
     }
 
     /** Sets relevant socket options specified in encryption settings */
     private static void prepareSocket(SSLSocket socket, EncryptionOptions options)
     {
-        String[] suites = filterCipherSuites(socket.getSupportedCipherSuites(), options.cipher_suites);
+        socket.setSSLParameters(prepareParameters(socket.getSSLParameters(), socket.getSupportedCipherSuites(), options));
+    }
+
+    /** Sets the cipher suites and the endpoint verification specified in encryption settings on the given parameters */
+    private static SSLParameters prepareParameters(SSLParameters sslParameters, String[] supportedCipherSuites, EncryptionOptions options)
+    {
+        sslParameters.setCipherSuites(filterCipherSuites(supportedCipherSuites, options.cipher_suites));
         if(options.require_endpoint_verification)
-        {
-            SSLParameters sslParameters = socket.getSSLParameters();
             sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
-            socket.setSSLParameters(sslParameters);
-        }
-        socket.setEnabledCipherSuites(suites);
+        return sslParameters;
     }
 
     @SuppressWarnings("resource")
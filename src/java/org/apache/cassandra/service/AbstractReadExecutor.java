@@ -26,6 +26,7 @@ import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.config.ReadRepairDecision;
@@ -62,6 +63,7 @@ public abstract class AbstractReadExecutor
     protected final List<InetAddress> targetReplicas;
     protected final ReadCallback handler;
     protected final TraceState traceState;
+    protected final long queryStartNanoTime;
 
     AbstractReadExecutor(Keyspace keyspace, ReadCommand command, ConsistencyLevel consistencyLevel, List<InetAddress> targetReplicas, long queryStartNanoTime)
     {
@@ -69,6 +71,7 @@ public abstract class AbstractReadExecutor
         this.targetReplicas = targetReplicas;
         this.handler = new ReadCallback(new DigestResolver(keyspace, command, consistencyLevel, targetReplicas.size()), consistencyLevel, command, targetReplicas, queryStartNanoTime);
         this.traceState = Tracing.instance.get();
+        this.queryStartNanoTime = queryStartNanoTime;
 
         // Set the digest version (if we request some digests). This is the smallest version amongst all our target replicas since new nodes
         // knows how to produce older digest but the reverse is not true.
@@ -124,6 +127,15 @@ public abstract class AbstractReadExecutor
      */
     public abstract void maybeTryAdditionalReplicas();
 
+    /**
+     * Same as {@link #maybeTryAdditionalReplicas()}, but never blocks: any wait for the original requests
+     * is done by a scheduled task instead.
+     */
+    public void maybeTryAdditionalReplicasAsync()
+    {
+        maybeTryAdditionalReplicas();
+    }
+
     /**
      * Get the replicas involved in the [finished] request.
      *
@@ -299,6 +311,18 @@ public abstract class AbstractReadExecutor
             }
         }
 
+        @Override
+        public void maybeTryAdditionalReplicasAsync()
+        {
+            // no latency information, or we're overloaded
+            if (cfs.sampleLatencyNanos > TimeUnit.MILLISECONDS.toNanos(command.getTimeout()))
+                return;
+
+            // by the time this runs, the await in maybeTryAdditionalReplicas() won't block anymore
+            long delay = cfs.sampleLatencyNanos - (System.nanoTime() - queryStartNanoTime);
+            ScheduledExecutors.scheduledFastTasks.schedule(this::maybeTryAdditionalReplicas, delay, TimeUnit.NANOSECONDS);
+        }
+
         public Collection<InetAddress> getContactedReplicas()
         {
             return speculated
@@ -110,6 +110,15 @@ public abstract class AbstractWriteResponseHandler<T> implements IAsyncCallbackW
         }
     }
 
+    /**
+     * Runs the provided listener once the write has succeeded, failed or timed out, that is once {@link #get()}
+     * would return without blocking.
+     */
+    public void addCompletionListener(Runnable listener)
+    {
+        condition.whenSignaled(listener, currentTimeout(), TimeUnit.NANOSECONDS);
+    }
+
     public final long currentTimeout()
     {
         long requestTimeout = writeType == WriteType.COUNTER
@@ -99,12 +99,7 @@ public class CacheService implements CacheServiceMBean
     {
         logger.info("Initializing key cache with capacity of {} MBs.", DatabaseDescriptor.getKeyCacheSizeInMB());
 
-        long keyCacheInMemoryCapacity = DatabaseDescriptor.getKeyCacheSizeInMB() * 1024 * 1024;
-
-        // as values are constant size we can use singleton weigher
-        // where 48 = 40 bytes (average size of the key) + 8 bytes (size of value)
-        ICache<KeyCacheKey, RowIndexEntry> kc;
-        kc = ConcurrentLinkedHashCache.create(keyCacheInMemoryCapacity);
+        ICache<KeyCacheKey, RowIndexEntry> kc = CacheService.<KeyCacheKey, RowIndexEntry>createProvider(DatabaseDescriptor.getKeyCacheClassName(), "key").create();
         AutoSavingCache<KeyCacheKey, RowIndexEntry> keyCache = new AutoSavingCache<>(kc, CacheType.KEY_CACHE, new KeyCacheSerializer());
 
         int keyCacheKeysToSave = DatabaseDescriptor.getKeyCacheKeysToSave();
@@ -121,19 +116,9 @@ public class CacheService implements CacheServiceMBean
     {
         logger.info("Initializing row cache with capacity of {} MBs", DatabaseDescriptor.getRowCacheSizeInMB());
 
-        CacheProvider<RowCacheKey, IRowCacheEntry> cacheProvider;
         String cacheProviderClassName = DatabaseDescriptor.getRowCacheSizeInMB() > 0
                                         ? DatabaseDescriptor.getRowCacheClassName() : "org.apache.cassandra.cache.NopCacheProvider";
-        try
-        {
-            Class<CacheProvider<RowCacheKey, IRowCacheEntry>> cacheProviderClass =
-                (Class<CacheProvider<RowCacheKey, IRowCacheEntry>>) Class.forName(cacheProviderClassName);
-            cacheProvider = cacheProviderClass.newInstance();
-        }
-        catch (Exception e)
-        {
-            throw new RuntimeException("Cannot find configured row cache provider class " + DatabaseDescriptor.getRowCacheClassName());
-        }
+        CacheProvider<RowCacheKey, IRowCacheEntry> cacheProvider = createProvider(cacheProviderClassName, "row");
 
         // cache object
         ICache<RowCacheKey, IRowCacheEntry> rc = cacheProvider.create();
@@ -146,6 +131,20 @@ public class CacheService implements CacheServiceMBean
         return rowCache;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <K, V> CacheProvider<K, V> createProvider(String cacheProviderClassName, String cacheName)
+    {
+        try
+        {
+            Class<CacheProvider<K, V>> cacheProviderClass = (Class<CacheProvider<K, V>>) Class.forName(cacheProviderClassName);
+            return cacheProviderClass.newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Cannot find configured " + cacheName + " cache provider class " + cacheProviderClassName);
+        }
+    }
+
     private AutoSavingCache<CounterCacheKey, ClockAndCount> initCounterCache()
     {
         logger.info("Initializing counter cache with capacity of {} MBs", DatabaseDescriptor.getCounterCacheSizeInMB());
@@ -153,7 +152,7 @@ public class CacheService implements CacheServiceMBean
         long capacity = DatabaseDescriptor.getCounterCacheSizeInMB() * 1024 * 1024;
 
         AutoSavingCache<CounterCacheKey, ClockAndCount> cache =
-            new AutoSavingCache<>(ConcurrentLinkedHashCache.<CounterCacheKey, ClockAndCount>create(capacity),
+            new AutoSavingCache<>(CaffeineCache.<CounterCacheKey, ClockAndCount>create(capacity),
                                   CacheType.COUNTER_CACHE,
                                   new CounterCacheSerializer());
 
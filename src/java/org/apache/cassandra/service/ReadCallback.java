@@ -114,6 +114,16 @@ public class ReadCallback implements IAsyncCallbackWithFailure<ReadResponse>
         }
     }
 
+    /**
+     * Runs the provided listener once enough responses have been received, or once the read has failed or timed out,
+     * that is once {@link #awaitResults()} would return without blocking.
+     */
+    public void addCompletionListener(Runnable listener)
+    {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(command.getTimeout()) - (System.nanoTime() - queryStartNanoTime);
+        condition.whenSignaled(listener, timeout, TimeUnit.NANOSECONDS);
+    }
+
     public void awaitResults() throws ReadFailureException, ReadTimeoutException
     {
         boolean signaled = await(command.getTimeout(), TimeUnit.MILLISECONDS);
@@ -29,6 +29,9 @@ import com.google.common.base.Predicate;
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.*;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.apache.commons.lang3.StringUtils;
@@ -40,6 +43,7 @@ import org.apache.cassandra.batchlog.Batch;
 import org.apache.cassandra.batchlog.BatchlogManager;
 import org.apache.cassandra.batchlog.LegacyBatchlogMigrator;
 import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.concurrent.ShardedTask;
 import org.apache.cassandra.concurrent.StageManager;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.DatabaseDescriptor;
@@ -636,46 +640,116 @@ public class StorageProxy implements StorageProxyMBean
             }
             else
             {
-                if (ex instanceof WriteFailureException)
-                {
-                    writeMetrics.failures.mark();
-                    writeMetricsMap.get(consistency_level).failures.mark();
-                    WriteFailureException fe = (WriteFailureException)ex;
-                    Tracing.trace("Write failure; received {} of {} required replies, failed {} requests",
-                                  fe.received, fe.blockFor, fe.failureReasonByEndpoint.size());
-                }
-                else
-                {
-                    writeMetrics.timeouts.mark();
-                    writeMetricsMap.get(consistency_level).timeouts.mark();
-                    WriteTimeoutException te = (WriteTimeoutException)ex;
-                    Tracing.trace("Write timeout; received {} of {} required replies", te.received, te.blockFor);
-                }
+                markWriteFailure(ex, consistency_level);
                 throw ex;
             }
         }
         catch (UnavailableException e)
         {
-            writeMetrics.unavailables.mark();
-            writeMetricsMap.get(consistency_level).unavailables.mark();
-            Tracing.trace("Unavailable");
+            markWriteUnavailable(consistency_level, "Unavailable");
             throw e;
         }
         catch (OverloadedException e)
         {
-            writeMetrics.unavailables.mark();
-            writeMetricsMap.get(consistency_level).unavailables.mark();
-            Tracing.trace("Overloaded");
+            markWriteUnavailable(consistency_level, "Overloaded");
             throw e;
         }
         finally
         {
-            long latency = System.nanoTime() - startTime;
-            writeMetrics.addNano(latency);
-            writeMetricsMap.get(consistency_level).addNano(latency);
+            recordWriteLatency(consistency_level, startTime);
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #mutate(Collection, ConsistencyLevel, long)} for a single, non-counter
+     * mutation: returns a future that is completed by a task run on {@code executor} once the write has been
+     * acknowledged by enough replicas, has failed or has timed out.
+     */
+    public static ListenableFuture<Void> mutateAsync(Mutation mutation, ConsistencyLevel consistencyLevel, long queryStartNanoTime, Executor executor)
+    throws UnavailableException, OverloadedException
+    {
+        Tracing.trace("Determining replicas for mutation");
+        final String localDataCenter = DatabaseDescriptor.getEndpointSnitch().getDatacenter(FBUtilities.getBroadcastAddress());
+
+        long startTime = System.nanoTime();
+        AbstractWriteResponseHandler<IMutation> responseHandler;
+        try
+        {
+            responseHandler = performWrite(mutation, consistencyLevel, localDataCenter, standardWritePerformer, null, WriteType.SIMPLE, queryStartNanoTime);
+        }
+        catch (UnavailableException | OverloadedException e)
+        {
+            markWriteUnavailable(consistencyLevel, e instanceof UnavailableException ? "Unavailable" : "Overloaded");
+            recordWriteLatency(consistencyLevel, startTime);
+            throw e;
+        }
+
+        SettableFuture<Void> result = SettableFuture.create();
+        Runnable finish = () -> {
+            try
+            {
+                responseHandler.get();
+                result.set(null);
+            }
+            catch (WriteTimeoutException | WriteFailureException ex)
+            {
+                if (consistencyLevel == ConsistencyLevel.ANY)
+                {
+                    hintMutations(Collections.singleton(mutation));
+                    result.set(null);
+                }
+                else
+                {
+                    markWriteFailure(ex, consistencyLevel);
+                    result.setException(ex);
+                }
+            }
+            catch (Throwable t)
+            {
+                result.setException(t);
+            }
+            finally
+            {
+                recordWriteLatency(consistencyLevel, startTime);
+            }
+        };
+        responseHandler.addCompletionListener(() -> executor.execute(finish));
+        return result;
+    }
+
+    private static void markWriteFailure(RequestExecutionException ex, ConsistencyLevel consistencyLevel)
+    {
+        if (ex instanceof WriteFailureException)
+        {
+            writeMetrics.failures.mark();
+            writeMetricsMap.get(consistencyLevel).failures.mark();
+            WriteFailureException fe = (WriteFailureException)ex;
+            Tracing.trace("Write failure; received {} of {} required replies, failed {} requests",
+                          fe.received, fe.blockFor, fe.failureReasonByEndpoint.size());
+        }
+        else
+        {
+            writeMetrics.timeouts.mark();
+            writeMetricsMap.get(consistencyLevel).timeouts.mark();
+            WriteTimeoutException te = (WriteTimeoutException)ex;
+            Tracing.trace("Write timeout; received {} of {} required replies", te.received, te.blockFor);
         }
     }
 
+    private static void markWriteUnavailable(ConsistencyLevel consistencyLevel, String reason)
+    {
+        writeMetrics.unavailables.mark();
+        writeMetricsMap.get(consistencyLevel).unavailables.mark();
+        Tracing.trace(reason);
+    }
+
+    private static void recordWriteLatency(ConsistencyLevel consistencyLevel, long startTime)
+    {
+        long latency = System.nanoTime() - startTime;
+        writeMetrics.addNano(latency);
+        writeMetricsMap.get(consistencyLevel).addNano(latency);
+    }
+
     /**
      * Hint all the mutations (except counters, which can't be safely retried).  This means
      * we'll re-hint any successful ones; doesn't seem worth it to track individual success
@@ -852,6 +926,36 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
+    /**
+     * Asynchronous version of {@link #mutateWithTriggers(Collection, ConsistencyLevel, boolean, long)}. Only the
+     * writes of a single, non-counter mutation that neither fires triggers nor updates views are actually done
+     * asynchronously: the others block the calling thread and return a completed future.
+     */
+    @SuppressWarnings("unchecked")
+    public static ListenableFuture<Void> mutateWithTriggersAsync(Collection<? extends IMutation> mutations,
+                                                                 ConsistencyLevel consistencyLevel,
+                                                                 long queryStartNanoTime,
+                                                                 Executor executor)
+    throws WriteTimeoutException, WriteFailureException, UnavailableException, OverloadedException, InvalidRequestException
+    {
+        Collection<Mutation> augmented = TriggerExecutor.instance.execute(mutations);
+
+        boolean updatesView = Keyspace.open(mutations.iterator().next().getKeyspaceName())
+                              .viewManager
+                              .updatesAffectView(mutations, true);
+
+        if (augmented != null)
+            mutateAtomically(augmented, consistencyLevel, updatesView, queryStartNanoTime);
+        else if (updatesView)
+            mutateAtomically((Collection<Mutation>) mutations, consistencyLevel, true, queryStartNanoTime);
+        else if (mutations.size() > 1 || mutations.iterator().next() instanceof CounterMutation)
+            mutate(mutations, consistencyLevel, queryStartNanoTime);
+        else
+            return mutateAsync((Mutation) mutations.iterator().next(), consistencyLevel, queryStartNanoTime, executor);
+
+        return Futures.immediateFuture(null);
+    }
+
     /**
      * See mutate. Adds additional steps before and after writing a batch.
      * Before writing the batch (but after doing availability check against the FD for the row replicas):
@@ -1661,6 +1765,69 @@ public class StorageProxy implements StorageProxyMBean
         return result;
     }
 
+    /**
+     * Asynchronous version of {@link #read(SinglePartitionReadCommand.Group, ConsistencyLevel, long)}: sends the
+     * requests to the replicas and returns a future that is completed by a task run on {@code executor} once all
+     * of them have answered, failed or timed out, so that no thread is blocked waiting on the replicas. The full
+     * data reads needed on digest mismatch are still done by that task in a blocking way.
+     */
+    public static ListenableFuture<PartitionIterator> readAsync(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long queryStartNanoTime, Executor executor)
+    throws UnavailableException, IsBootstrappingException
+    {
+        assert !consistencyLevel.isSerialConsistency();
+        if (StorageService.instance.isBootstrapMode() && !systemKeyspaceQuery(group.commands))
+        {
+            readMetrics.unavailables.mark();
+            readMetricsMap.get(consistencyLevel).unavailables.mark();
+            throw new IsBootstrappingException();
+        }
+
+        long start = System.nanoTime();
+        SinglePartitionReadLifecycle[] reads;
+        try
+        {
+            reads = startReads(group.commands, consistencyLevel, queryStartNanoTime);
+        }
+        catch (UnavailableException e)
+        {
+            markReadFailure(e, consistencyLevel);
+            recordReadLatency(group, consistencyLevel, start);
+            throw e;
+        }
+
+        SettableFuture<PartitionIterator> result = SettableFuture.create();
+        Runnable finish = () -> {
+            try
+            {
+                result.set(limitGroup(group, finishReads(reads)));
+            }
+            catch (UnavailableException | ReadTimeoutException | ReadFailureException e)
+            {
+                markReadFailure(e, consistencyLevel);
+                result.setException(e);
+            }
+            catch (Throwable t)
+            {
+                result.setException(t);
+            }
+            finally
+            {
+                recordReadLatency(group, consistencyLevel, start);
+            }
+        };
+
+        AtomicInteger pending = new AtomicInteger(reads.length);
+        for (SinglePartitionReadLifecycle read : reads)
+        {
+            read.maybeTryAdditionalReplicasAsync();
+            read.addCompletionListener(() -> {
+                if (pending.decrementAndGet() == 0)
+                    executor.execute(finish);
+            });
+        }
+        return result;
+    }
+
     @SuppressWarnings("resource")
     private static PartitionIterator readRegular(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
     throws UnavailableException, ReadFailureException, ReadTimeoutException
@@ -1668,45 +1835,60 @@ public class StorageProxy implements StorageProxyMBean
         long start = System.nanoTime();
         try
         {
-            PartitionIterator result = fetchRows(group.commands, consistencyLevel, queryStartNanoTime);
-            // Note that the only difference between the command in a group must be the partition key on which
-            // they applied.
-            boolean enforceStrictLiveness = group.commands.get(0).metadata().enforceStrictLiveness();
-            // If we have more than one command, then despite each read command honoring the limit, the total result
-            // might not honor it and so we should enforce it
-            if (group.commands.size() > 1)
-                result = group.limits().filter(result, group.nowInSec(), group.selectsFullPartition(), enforceStrictLiveness);
-            return result;
+            return limitGroup(group, fetchRows(group.commands, consistencyLevel, queryStartNanoTime));
         }
-        catch (UnavailableException e)
+        catch (UnavailableException | ReadTimeoutException | ReadFailureException e)
+        {
+            markReadFailure(e, consistencyLevel);
+            throw e;
+        }
+        finally
+        {
+            recordReadLatency(group, consistencyLevel, start);
+        }
+    }
+
+    private static PartitionIterator limitGroup(SinglePartitionReadCommand.Group group, PartitionIterator result)
+    {
+        // Note that the only difference between the command in a group must be the partition key on which
+        // they applied.
+        boolean enforceStrictLiveness = group.commands.get(0).metadata().enforceStrictLiveness();
+        // If we have more than one command, then despite each read command honoring the limit, the total result
+        // might not honor it and so we should enforce it
+        if (group.commands.size() > 1)
+            result = group.limits().filter(result, group.nowInSec(), group.selectsFullPartition(), enforceStrictLiveness);
+        return result;
+    }
+
+    private static void markReadFailure(RequestExecutionException e, ConsistencyLevel consistencyLevel)
+    {
+        if (e instanceof UnavailableException)
         {
             readMetrics.unavailables.mark();
             readMetricsMap.get(consistencyLevel).unavailables.mark();
-            throw e;
         }
-        catch (ReadTimeoutException e)
+        else if (e instanceof ReadTimeoutException)
         {
             readMetrics.timeouts.mark();
             readMetricsMap.get(consistencyLevel).timeouts.mark();
-            throw e;
         }
-        catch (ReadFailureException e)
+        else if (e instanceof ReadFailureException)
         {
             readMetrics.failures.mark();
             readMetricsMap.get(consistencyLevel).failures.mark();
-            throw e;
-        }
-        finally
-        {
-            long latency = System.nanoTime() - start;
-            readMetrics.addNano(latency);
-            readMetricsMap.get(consistencyLevel).addNano(latency);
-            // TODO avoid giving every command the same latency number.  Can fix this in CASSADRA-5329
-            for (ReadCommand command : group.commands)
-                Keyspace.openAndGetStore(command.metadata()).metric.coordinatorReadLatency.update(latency, TimeUnit.NANOSECONDS);
         }
     }
 
+    private static void recordReadLatency(SinglePartitionReadCommand.Group group, ConsistencyLevel consistencyLevel, long start)
+    {
+        long latency = System.nanoTime() - start;
+        readMetrics.addNano(latency);
+        readMetricsMap.get(consistencyLevel).addNano(latency);
+        // TODO avoid giving every command the same latency number.  Can fix this in CASSADRA-5329
+        for (ReadCommand command : group.commands)
+            Keyspace.openAndGetStore(command.metadata()).metric.coordinatorReadLatency.update(latency, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * This function executes local and remote reads, and blocks for the results:
      *
@@ -1720,6 +1902,17 @@ public class StorageProxy implements StorageProxyMBean
      */
     private static PartitionIterator fetchRows(List<SinglePartitionReadCommand> commands, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
     throws UnavailableException, ReadFailureException, ReadTimeoutException
+    {
+        SinglePartitionReadLifecycle[] reads = startReads(commands, consistencyLevel, queryStartNanoTime);
+
+        for (SinglePartitionReadLifecycle read : reads)
+            read.maybeTryAdditionalReplicas();
+
+        return finishReads(reads);
+    }
+
+    private static SinglePartitionReadLifecycle[] startReads(List<SinglePartitionReadCommand> commands, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
+    throws UnavailableException
     {
         int cmdCount = commands.size();
 
@@ -1730,8 +1923,13 @@ public class StorageProxy implements StorageProxyMBean
         for (int i = 0; i < cmdCount; i++)
             reads[i].doInitialQueries();
 
-        for (int i = 0; i < cmdCount; i++)
-            reads[i].maybeTryAdditionalReplicas();
+        return reads;
+    }
+
+    private static PartitionIterator finishReads(SinglePartitionReadLifecycle[] reads)
+    throws ReadFailureException, ReadTimeoutException
+    {
+        int cmdCount = reads.length;
 
         for (int i = 0; i < cmdCount; i++)
             reads[i].awaitResultsAndRetryOnDigestMismatch();
@@ -1783,6 +1981,16 @@ public class StorageProxy implements StorageProxyMBean
             executor.maybeTryAdditionalReplicas();
         }
 
+        void maybeTryAdditionalReplicasAsync()
+        {
+            executor.maybeTryAdditionalReplicasAsync();
+        }
+
+        void addCompletionListener(Runnable listener)
+        {
+            executor.handler.addCompletionListener(listener);
+        }
+
         void awaitResultsAndRetryOnDigestMismatch() throws ReadFailureException, ReadTimeoutException
         {
             try
@@ -1850,7 +2058,7 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
-    static class LocalReadRunnable extends DroppableRunnable
+    static class LocalReadRunnable extends DroppableRunnable implements ShardedTask
     {
         private final ReadCommand command;
         private final ReadCallback handler;
@@ -1863,6 +2071,13 @@ public class StorageProxy implements StorageProxyMBean
             this.handler = handler;
         }
 
+        public Token shardToken()
+        {
+            return command instanceof SinglePartitionReadCommand
+                   ? ((SinglePartitionReadCommand) command).partitionKey().getToken()
+                   : null;
+        }
+
         protected void runMayThrow()
         {
             try
@@ -2596,7 +2811,7 @@ public class StorageProxy implements StorageProxyMBean
      * Like DroppableRunnable, but if it aborts, it will rerun (on the mutation stage) after
      * marking itself as a hint in progress so that the hint backpressure mechanism can function.
      */
-    private static abstract class LocalMutationRunnable implements Runnable
+    private static abstract class LocalMutationRunnable implements Runnable, ShardedTask
     {
         private final long constructionTime = System.currentTimeMillis();
 
@@ -2612,6 +2827,11 @@ public class StorageProxy implements StorageProxyMBean
             this.mutationOpt = Optional.empty();
         }
 
+        public Token shardToken()
+        {
+            return mutationOpt.map(mutation -> mutation.key().getToken()).orElse(null);
+        }
+
         public final void run()
         {
             final MessagingService.Verb verb = verb();
@@ -17,6 +17,12 @@
  */
 package org.apache.cassandra.service.pager;
 
+import java.util.concurrent.Executor;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
@@ -24,6 +30,7 @@ import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.filter.DataLimits;
 import org.apache.cassandra.db.transform.Transformation;
 import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.StorageProxy;
 import org.apache.cassandra.transport.ProtocolVersion;
 
 abstract class AbstractQueryPager implements QueryPager
@@ -69,6 +76,22 @@ abstract class AbstractQueryPager implements QueryPager
         return Transformation.apply(nextPageReadCommand(pageSize).execute(consistency, clientState, queryStartNanoTime), pager);
     }
 
+    /**
+     * Asynchronous variant of {@link #fetchPage} for the pagers whose pages are read by a single partition command,
+     * see {@link StorageProxy#readAsync}.
+     */
+    protected ListenableFuture<PartitionIterator> fetchPageAsync(int pageSize, ConsistencyLevel consistency, long queryStartNanoTime, Executor executor)
+    {
+        if (isExhausted())
+            return Futures.immediateFuture(EmptyIterators.partition());
+
+        pageSize = Math.min(pageSize, remaining);
+        RowPager pager = new RowPager(limits.forPaging(pageSize), command.nowInSec());
+        SinglePartitionReadCommand.Group page = SinglePartitionReadCommand.Group.one((SinglePartitionReadCommand) nextPageReadCommand(pageSize));
+        return Futures.transform(StorageProxy.readAsync(page, consistency, queryStartNanoTime, executor),
+                                 (Function<PartitionIterator, PartitionIterator>) result -> Transformation.apply(result, pager));
+    }
+
     public PartitionIterator fetchPageInternal(int pageSize, ReadExecutionController executionController)
     {
         if (isExhausted())
@@ -18,10 +18,14 @@
 package org.apache.cassandra.service.pager;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.filter.*;
+import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.transport.ProtocolVersion;
 
 /**
@@ -69,6 +73,12 @@ public class SinglePartitionPager extends AbstractQueryPager
                                         remainingInPartition());
     }
 
+    @Override
+    public ListenableFuture<PartitionIterator> fetchPageAsync(int pageSize, ConsistencyLevel consistency, long queryStartNanoTime, Executor executor)
+    {
+        return super.fetchPageAsync(pageSize, consistency, queryStartNanoTime, executor);
+    }
+
     public ByteBuffer key()
     {
         return command.partitionKey().getKey();
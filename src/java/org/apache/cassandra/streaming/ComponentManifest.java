@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+
+/**
+ * The components of an sstable streamed in its entirety, in the order they are sent, with their sizes.
+ */
+public final class ComponentManifest implements Iterable<Component>
+{
+    /**
+     * The components sent when streaming an entire sstable. The summary is rebuilt by the receiver, as it may be
+     * rewritten in place by index summary redistribution while being sent, and the TOC is written by the receiver.
+     */
+    private static final List<Component> STREAMED_COMPONENTS = Arrays.asList(Component.DATA,
+                                                                             Component.PRIMARY_INDEX,
+                                                                             Component.PARTITION_INDEX,
+                                                                             Component.ROW_INDEX,
+                                                                             Component.CLUSTERING_BOUNDS,
+                                                                             Component.STATS,
+                                                                             Component.COMPRESSION_INFO,
+                                                                             Component.COMPRESSION_DICTIONARY,
+                                                                             Component.FILTER,
+                                                                             Component.DIGEST_CRC32,
+                                                                             Component.DIGEST_ADLER32,
+                                                                             Component.DIGEST_SHA1,
+                                                                             Component.CRC);
+
+    public static final IVersionedSerializer<ComponentManifest> serializer = new Serializer();
+
+    private final LinkedHashMap<Component, Long> components;
+
+    public ComponentManifest(LinkedHashMap<Component, Long> components)
+    {
+        this.components = components;
+    }
+
+    /**
+     * @return the components of the given sstable to send when streaming it entirely, in the order they are sent
+     */
+    static List<Component> streamedComponents(SSTableReader sstable)
+    {
+        Set<Component> existing = SSTable.componentsFor(sstable.descriptor);
+        List<Component> components = new ArrayList<>();
+        for (Component component : STREAMED_COMPONENTS)
+        {
+            if (existing.contains(component))
+                components.add(component);
+        }
+        return components;
+    }
+
+    public long sizeOf(Component component)
+    {
+        Long size = components.get(component);
+        if (size == null)
+            throw new IllegalArgumentException("Component " + component + " is not present in the manifest");
+        return size;
+    }
+
+    public long totalSize()
+    {
+        long size = 0;
+        for (long componentSize : components.values())
+            size += componentSize;
+        return size;
+    }
+
+    public Set<Component> components()
+    {
+        return Collections.unmodifiableSet(components.keySet());
+    }
+
+    public Iterator<Component> iterator()
+    {
+        return components().iterator();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return components.equals(((ComponentManifest) o).components);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return components.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ComponentManifest(" + components + ')';
+    }
+
+    private static class Serializer implements IVersionedSerializer<ComponentManifest>
+    {
+        public void serialize(ComponentManifest manifest, DataOutputPlus out, int version) throws IOException
+        {
+            out.writeInt(manifest.components.size());
+            for (Map.Entry<Component, Long> entry : manifest.components.entrySet())
+            {
+                out.writeUTF(entry.getKey().type.name());
+                out.writeUTF(entry.getKey().name);
+                out.writeLong(entry.getValue());
+            }
+        }
+
+        public ComponentManifest deserialize(DataInputPlus in, int version) throws IOException
+        {
+            int size = in.readInt();
+            LinkedHashMap<Component, Long> components = new LinkedHashMap<>(size);
+            for (int i = 0; i < size; i++)
+            {
+                Component component = new Component(Component.Type.valueOf(in.readUTF()), in.readUTF());
+                // the names are used to create the files, so only accept the ones we know of
+                if (!STREAMED_COMPONENTS.contains(component))
+                    throw new IOException("Unexpected component " + component + " in entire sstable stream");
+                components.put(component, in.readLong());
+            }
+            return new ComponentManifest(components);
+        }
+
+        public long serializedSize(ComponentManifest manifest, int version)
+        {
+            long size = TypeSizes.sizeof(manifest.components.size());
+            for (Map.Entry<Component, Long> entry : manifest.components.entrySet())
+            {
+                size += TypeSizes.sizeof(entry.getKey().type.name());
+                size += TypeSizes.sizeof(entry.getKey().name);
+                size += TypeSizes.sizeof(entry.getValue());
+            }
+            return size;
+        }
+    }
+}
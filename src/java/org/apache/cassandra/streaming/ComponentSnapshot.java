@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.utils.UUIDGen;
+
+/**
+ * Hard links to the components of an sstable streamed in its entirety, taken when the stream message is created.
+ *
+ * The stats metadata of a live sstable can be rewritten before the message is sent, e.g. by anticompaction or a
+ * level reset. That is done by renaming a new file over it, so the links keep pointing to the contents whose sizes
+ * are announced in the manifest. The links are in the temporary directory of the sstable directory, which is
+ * cleared on startup if they are left behind.
+ */
+public final class ComponentSnapshot
+{
+    private final File directory;
+    private final ComponentManifest manifest;
+    private boolean released;
+
+    private ComponentSnapshot(File directory, ComponentManifest manifest)
+    {
+        this.directory = directory;
+        this.manifest = manifest;
+    }
+
+    public static ComponentSnapshot create(SSTableReader sstable)
+    {
+        File directory = new File(new File(sstable.descriptor.directory, Directories.TMP_SUBDIR), "stream-" + UUIDGen.getTimeUUID());
+        FileUtils.createDirectory(directory);
+        try
+        {
+            LinkedHashMap<Component, Long> components = new LinkedHashMap<>();
+            for (Component component : ComponentManifest.streamedComponents(sstable))
+            {
+                File file = new File(sstable.descriptor.filenameFor(component));
+                File link = new File(directory, file.getName());
+                FileUtils.createHardLink(file, link);
+                components.put(component, link.length());
+            }
+            return new ComponentSnapshot(directory, new ComponentManifest(components));
+        }
+        catch (Throwable t)
+        {
+            FileUtils.deleteRecursive(directory);
+            throw t;
+        }
+    }
+
+    public ComponentManifest manifest()
+    {
+        return manifest;
+    }
+
+    public File fileFor(SSTableReader sstable, Component component)
+    {
+        return new File(directory, new File(sstable.descriptor.filenameFor(component)).getName());
+    }
+
+    /**
+     * Removes the links, once the components have been sent or won't be.
+     */
+    public synchronized void release()
+    {
+        if (released)
+            return;
+        released = true;
+        FileUtils.deleteRecursive(directory);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+import com.google.common.base.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.lifecycle.LifecycleNewTracker;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.sstable.format.big.BigTableZeroCopyWriter;
+import org.apache.cassandra.streaming.messages.FileMessageHeader;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * Receives the components of a SSTable sent by {@link EntireSSTableStreamWriter} and installs them as a new SSTable.
+ */
+public class EntireSSTableStreamReader extends StreamReader
+{
+    private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamReader.class);
+
+    private final ComponentManifest manifest;
+
+    public EntireSSTableStreamReader(FileMessageHeader header, StreamSession session)
+    {
+        super(header, session);
+        this.manifest = header.componentManifest;
+    }
+
+    /**
+     * @param channel where this reads data from
+     * @return SSTable transferred
+     * @throws IOException if reading the remote sstable fails. Will throw an RTE if local write fails.
+     */
+    @Override
+    @SuppressWarnings("resource") // the writer is returned, or aborted on failure
+    public SSTableMultiWriter read(ReadableByteChannel channel) throws IOException
+    {
+        long totalSize = totalSize();
+
+        Pair<String, String> kscf = Schema.instance.getCF(cfId);
+        ColumnFamilyStore cfs = null;
+        if (kscf != null)
+            cfs = Keyspace.open(kscf.left).getColumnFamilyStore(kscf.right);
+
+        if (kscf == null || cfs == null)
+        {
+            // schema was dropped during streaming
+            throw new IOException("CF " + cfId + " was dropped during streaming");
+        }
+
+        if (!inputVersion.equals(format.info.getLatestVersion()))
+            throw new IOException(String.format("Cannot receive entire sstable of version %s, only %s is supported", inputVersion, format.info.getLatestVersion()));
+
+        logger.debug("[Stream #{}] Start receiving entire sstable #{} from {}, repairedAt = {}, size = {}, ks = '{}', table = '{}'.",
+                     session.planId(), fileSeqNum, session.peer, repairedAt, totalSize, cfs.keyspace.getName(),
+                     cfs.getColumnFamilyName());
+
+        BigTableZeroCopyWriter writer = null;
+        try
+        {
+            writer = createWriter(cfs, totalSize);
+            long bytesRead = 0;
+            for (Component component : manifest)
+            {
+                long size = manifest.sizeOf(component);
+                writer.writeComponent(component, channel, size);
+                bytesRead += size;
+                session.progress(writer.descriptor.filenameFor(component), ProgressInfo.Direction.IN, bytesRead, totalSize);
+            }
+            logger.debug("[Stream #{}] Finished receiving entire sstable #{} from {} readBytes = {}, totalSize = {}",
+                         session.planId(), fileSeqNum, session.peer, FBUtilities.prettyPrintMemory(bytesRead), FBUtilities.prettyPrintMemory(totalSize));
+            return writer;
+        }
+        catch (Throwable e)
+        {
+            logger.warn("[Stream {}] Error while receiving entire sstable #{} on ks='{}' and table='{}'.",
+                        session.planId(), fileSeqNum, cfs.keyspace.getName(), cfs.getTableName(), e);
+            if (writer != null)
+                e = writer.abort(e);
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private BigTableZeroCopyWriter createWriter(ColumnFamilyStore cfs, long totalSize) throws IOException
+    {
+        Directories.DataDirectory localDir = cfs.getDirectories().getWriteableLocation(totalSize);
+        if (localDir == null)
+            throw new IOException(String.format("Insufficient disk space to store %s", FBUtilities.prettyPrintMemory(totalSize)));
+
+        Descriptor desc = Descriptor.fromFilename(cfs.getSSTablePath(cfs.getDirectories().getLocationForDisk(localDir), format));
+        LifecycleNewTracker lifecycleNewTracker = session.getReceivingTask(cfId).createLifecycleNewTracker();
+        BigTableZeroCopyWriter writer = new BigTableZeroCopyWriter(desc, cfs.metadata, manifest.components(), repairedAt, sstableLevel, lifecycleNewTracker);
+        StreamHook.instance.reportIncomingFile(cfs, writer, session, fileSeqNum);
+        return writer;
+    }
+
+    @Override
+    protected long totalSize()
+    {
+        return manifest.totalSize();
+    }
+}
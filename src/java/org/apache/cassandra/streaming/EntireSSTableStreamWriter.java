@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.streaming;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.ChannelProxy;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.streaming.StreamManager.StreamRateLimiter;
+import org.apache.cassandra.utils.FBUtilities;
+
+/**
+ * Writes all the components of a SSTable to the given channel as they are on disk, using zero-copy transfers when
+ * the channel supports them.
+ */
+public class EntireSSTableStreamWriter
+{
+    private static final Logger logger = LoggerFactory.getLogger(EntireSSTableStreamWriter.class);
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final SSTableReader sstable;
+    private final ComponentSnapshot snapshot;
+    private final ComponentManifest manifest;
+    private final StreamSession session;
+    private final StreamRateLimiter limiter;
+
+    public EntireSSTableStreamWriter(SSTableReader sstable, ComponentSnapshot snapshot, StreamSession session)
+    {
+        this.sstable = sstable;
+        this.snapshot = snapshot;
+        this.manifest = snapshot.manifest();
+        this.session = session;
+        this.limiter = StreamManager.getRateLimiter(session.peer);
+    }
+
+    /**
+     * Stream the components in the manifest, in its order, each sent from its snapshot with the size recorded in the
+     * manifest.
+     *
+     * @param out where this writes data to
+     * @throws IOException on any I/O error
+     */
+    public void write(DataOutputStreamPlus out) throws IOException
+    {
+        long totalSize = manifest.totalSize();
+        logger.debug("[Stream #{}] Start streaming entire sstable {} to {}, repairedAt = {}, totalSize = {}", session.planId(),
+                     sstable.getFilename(), session.peer, sstable.getSSTableMetadata().repairedAt, totalSize);
+
+        long progress = 0L;
+        for (Component component : manifest)
+        {
+            long length = manifest.sizeOf(component);
+            try (ChannelProxy channel = new ChannelProxy(snapshot.fileFor(sstable, component)))
+            {
+                if (channel.size() < length)
+                    throw new IOException(String.format("Component %s of %s is shorter than the %d bytes announced",
+                                                        component, sstable.getFilename(), length));
+
+                long bytesTransferred = 0;
+                while (bytesTransferred < length)
+                {
+                    final long position = bytesTransferred;
+                    final int toTransfer = (int) Math.min(CHUNK_SIZE, length - bytesTransferred);
+                    limiter.acquire(toTransfer);
+                    long lastWrite = out.applyToChannel((wbc) -> channel.transferTo(position, toTransfer, wbc));
+                    bytesTransferred += lastWrite;
+                    progress += lastWrite;
+                    session.progress(sstable.descriptor.filenameFor(component), ProgressInfo.Direction.OUT, progress, totalSize);
+                }
+            }
+        }
+        logger.debug("[Stream #{}] Finished streaming entire sstable {} to {}, bytesTransferred = {}, totalSize = {}",
+                     session.planId(), sstable.getFilename(), session.peer, FBUtilities.prettyPrintMemory(progress), FBUtilities.prettyPrintMemory(totalSize));
+    }
+}
@@ -521,6 +521,7 @@ public class StreamSession implements IEndpointStateChangeSubscriber
                 break;
 
             case FILE:
+            case ENTIRE_SSTABLE:
                 receive((IncomingFileMessage) message);
                 break;
 
@@ -30,6 +30,7 @@ import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.io.sstable.format.Version;
 import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.streaming.ComponentManifest;
 import org.apache.cassandra.streaming.compress.CompressionInfo;
 import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.UUIDSerializer;
@@ -60,6 +61,10 @@ public class FileMessageHeader
     public final long repairedAt;
     public final int sstableLevel;
     public final SerializationHeader.Component header;
+    /**
+     * The components sent when streaming the entire sstable, null when streaming sections of its data.
+     */
+    public final ComponentManifest componentManifest;
 
     /* cached size value */
     private transient final long size;
@@ -73,7 +78,8 @@ public class FileMessageHeader
                              CompressionInfo compressionInfo,
                              long repairedAt,
                              int sstableLevel,
-                             SerializationHeader.Component header)
+                             SerializationHeader.Component header,
+                             ComponentManifest componentManifest)
     {
         this.cfId = cfId;
         this.sequenceNumber = sequenceNumber;
@@ -86,6 +92,7 @@ public class FileMessageHeader
         this.repairedAt = repairedAt;
         this.sstableLevel = sstableLevel;
         this.header = header;
+        this.componentManifest = componentManifest;
         this.size = calculateSize();
     }
 
@@ -98,7 +105,8 @@ public class FileMessageHeader
                              CompressionMetadata compressionMetadata,
                              long repairedAt,
                              int sstableLevel,
-                             SerializationHeader.Component header)
+                             SerializationHeader.Component header,
+                             ComponentManifest componentManifest)
     {
         this.cfId = cfId;
         this.sequenceNumber = sequenceNumber;
@@ -111,6 +119,7 @@ public class FileMessageHeader
         this.repairedAt = repairedAt;
         this.sstableLevel = sstableLevel;
         this.header = header;
+        this.componentManifest = componentManifest;
         this.size = calculateSize();
     }
 
@@ -130,7 +139,11 @@ public class FileMessageHeader
     private long calculateSize()
     {
         long transferSize = 0;
-        if (compressionInfo != null)
+        if (componentManifest != null)
+        {
+            transferSize = componentManifest.totalSize();
+        }
+        else if (compressionInfo != null)
         {
             // calculate total length of transferring chunks
             for (CompressionMetadata.Chunk chunk : compressionInfo.chunks)
@@ -161,6 +174,8 @@ public class FileMessageHeader
         sb.append(", compressed?: ").append(isCompressed());
         sb.append(", repairedAt: ").append(repairedAt);
         sb.append(", level: ").append(sstableLevel);
+        if (componentManifest != null)
+            sb.append(", entire sstable: ").append(componentManifest);
         sb.append(')');
         return sb.toString();
     }
@@ -214,10 +229,19 @@ public class FileMessageHeader
 
             if (version >= StreamMessage.VERSION_30 && header.version.storeRows())
                 SerializationHeader.serializer.serialize(header.version, header.header, out);
+
+            // only sent with entire sstable messages, whose receivers know to expect it
+            if (header.componentManifest != null)
+                ComponentManifest.serializer.serialize(header.componentManifest, out, version);
             return compressionInfo;
         }
 
         public FileMessageHeader deserialize(DataInputPlus in, int version) throws IOException
+        {
+            return deserialize(in, version, false);
+        }
+
+        public FileMessageHeader deserialize(DataInputPlus in, int version, boolean entireSSTable) throws IOException
         {
             UUID cfId = UUIDSerializer.serializer.deserialize(in, MessagingService.current_version);
             int sequenceNumber = in.readInt();
@@ -238,8 +262,9 @@ public class FileMessageHeader
             SerializationHeader.Component header = version >= StreamMessage.VERSION_30 && sstableVersion.storeRows()
                                                  ? SerializationHeader.serializer.deserialize(sstableVersion, in)
                                                  : null;
+            ComponentManifest componentManifest = entireSSTable ? ComponentManifest.serializer.deserialize(in, version) : null;
 
-            return new FileMessageHeader(cfId, sequenceNumber, sstableVersion, format, estimatedKeys, sections, compressionInfo, repairedAt, sstableLevel, header);
+            return new FileMessageHeader(cfId, sequenceNumber, sstableVersion, format, estimatedKeys, sections, compressionInfo, repairedAt, sstableLevel, header, componentManifest);
         }
 
         public long serializedSize(FileMessageHeader header, int version)
@@ -265,6 +290,9 @@ public class FileMessageHeader
             if (version >= StreamMessage.VERSION_30)
                 size += SerializationHeader.serializer.serializedSize(header.version, header.header);
 
+            if (header.componentManifest != null)
+                size += ComponentManifest.serializer.serializedSize(header.componentManifest, version);
+
             return size;
         }
     }
@@ -27,6 +27,7 @@ import org.apache.cassandra.io.util.DataInputPlus;
 import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
 
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.streaming.EntireSSTableStreamReader;
 import org.apache.cassandra.streaming.StreamReader;
 import org.apache.cassandra.streaming.StreamSession;
 import org.apache.cassandra.streaming.compress.CompressedStreamReader;
@@ -35,7 +36,8 @@ import org.apache.cassandra.utils.JVMStabilityInspector;
 import static org.apache.cassandra.utils.Throwables.extractIOExceptionCause;
 
 /**
- * IncomingFileMessage is used to receive the part(or whole) of a SSTable data file.
+ * IncomingFileMessage is used to receive the part(or whole) of a SSTable data file, or all the components of a
+ * SSTable streamed entirely.
  */
 public class IncomingFileMessage extends StreamMessage
 {
@@ -66,12 +68,43 @@ public class IncomingFileMessage extends StreamMessage
         }
     };
 
+    public static Serializer<IncomingFileMessage> entireSSTableSerializer = new Serializer<IncomingFileMessage>()
+    {
+        @SuppressWarnings("resource")
+        public IncomingFileMessage deserialize(ReadableByteChannel in, int version, StreamSession session) throws IOException
+        {
+            DataInputPlus input = new DataInputStreamPlus(Channels.newInputStream(in));
+            FileMessageHeader header = FileMessageHeader.serializer.deserialize(input, version, true);
+            StreamReader reader = new EntireSSTableStreamReader(header, session);
+
+            try
+            {
+                return new IncomingFileMessage(reader.read(in), header, Type.ENTIRE_SSTABLE);
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                throw t;
+            }
+        }
+
+        public void serialize(IncomingFileMessage message, DataOutputStreamPlus out, int version, StreamSession session)
+        {
+            throw new UnsupportedOperationException("Not allowed to call serialize on an incoming file");
+        }
+    };
+
     public FileMessageHeader header;
     public SSTableMultiWriter sstable;
 
     public IncomingFileMessage(SSTableMultiWriter sstable, FileMessageHeader header)
     {
-        super(Type.FILE);
+        this(sstable, header, Type.FILE);
+    }
+
+    private IncomingFileMessage(SSTableMultiWriter sstable, FileMessageHeader header, Type type)
+    {
+        super(type);
         this.header = header;
         this.sstable = sstable;
     }
@@ -22,9 +22,14 @@ import java.nio.channels.ReadableByteChannel;
 import java.util.List;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.view.View;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.streaming.ComponentSnapshot;
+import org.apache.cassandra.streaming.EntireSSTableStreamWriter;
 import org.apache.cassandra.streaming.StreamSession;
 import org.apache.cassandra.streaming.StreamWriter;
 import org.apache.cassandra.streaming.compress.CompressedStreamWriter;
@@ -33,7 +38,8 @@ import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.concurrent.Ref;
 
 /**
- * OutgoingFileMessage is used to transfer the part(or whole) of a SSTable data file.
+ * OutgoingFileMessage is used to transfer the part(or whole) of a SSTable data file, or all the components of a
+ * SSTable entirely contained in the transferred ranges if stream_entire_sstables is enabled.
  */
 public class OutgoingFileMessage extends StreamMessage
 {
@@ -61,27 +67,63 @@ public class OutgoingFileMessage extends StreamMessage
 
     public final FileMessageHeader header;
     private final Ref<SSTableReader> ref;
+    // the components sent when streaming the sstable entirely, linked when the message is created
+    private final ComponentSnapshot snapshot;
     private final String filename;
     private boolean completed = false;
     private boolean transferring = false;
 
     public OutgoingFileMessage(Ref<SSTableReader> ref, int sequenceNumber, long estimatedKeys, List<Pair<Long, Long>> sections, long repairedAt, boolean keepSSTableLevel)
     {
-        super(Type.FILE);
+        super(shouldStreamEntireSSTable(ref.get(), sections) ? Type.ENTIRE_SSTABLE : Type.FILE);
         this.ref = ref;
 
         SSTableReader sstable = ref.get();
         filename = sstable.getFilename();
+        boolean entireSSTable = type == Type.ENTIRE_SSTABLE;
+        snapshot = entireSSTable ? ComponentSnapshot.create(sstable) : null;
         this.header = new FileMessageHeader(sstable.metadata.cfId,
                                             sequenceNumber,
                                             sstable.descriptor.version,
                                             sstable.descriptor.formatType,
                                             estimatedKeys,
                                             sections,
-                                            sstable.compression ? sstable.getCompressionMetadata() : null,
+                                            sendCompressed(sstable, entireSSTable) ? sstable.getCompressionMetadata() : null,
                                             repairedAt,
                                             keepSSTableLevel ? sstable.getSSTableLevel() : 0,
-                                            sstable.header == null ? null : sstable.header.toComponent());
+                                            sstable.header == null ? null : sstable.header.toComponent(),
+                                            entireSSTable ? snapshot.manifest() : null);
+    }
+
+    /**
+     * Whether the chunks of the sstable can be sent compressed. The stream header doesn't carry compression
+     * dictionaries, so the sections of sstables compressed with one are sent uncompressed.
+     */
+    private static boolean sendCompressed(SSTableReader sstable, boolean entireSSTable)
+    {
+        return sstable.compression && !entireSSTable && sstable.getCompressionMetadata().parameters.dictionary() == null;
+    }
+
+    /**
+     * Whether the sstable can be sent as is: all its data must be transferred, it must be in the current format
+     * so that the receiver can install it under a new name, and the receiver must not have to put it through the
+     * write path anyway, which it does for tables with views or CDC.
+     */
+    @VisibleForTesting
+    public static boolean shouldStreamEntireSSTable(SSTableReader sstable, List<Pair<Long, Long>> sections)
+    {
+        if (!DatabaseDescriptor.streamEntireSSTables())
+            return false;
+
+        if (!sstable.descriptor.version.isLatestVersion()
+            || sstable.getSSTableMetadata().hasLegacyCounterShards
+            || sstable.metadata.params.cdc
+            || !Iterables.isEmpty(View.findAll(sstable.metadata.ksName, sstable.metadata.cfName)))
+            return false;
+
+        return sections.size() == 1
+               && sections.get(0).left == 0
+               && sections.get(0).right == sstable.uncompressedLength();
     }
 
     public synchronized void serialize(DataOutputStreamPlus out, int version, StreamSession session) throws IOException
@@ -94,6 +136,12 @@ public class OutgoingFileMessage extends StreamMessage
         CompressionInfo compressionInfo = FileMessageHeader.serializer.serialize(header, out, version);
 
         final SSTableReader reader = ref.get();
+        if (header.componentManifest != null)
+        {
+            new EntireSSTableStreamWriter(reader, snapshot, session).write(out);
+            return;
+        }
+
         StreamWriter writer = compressionInfo == null ?
                                       new StreamWriter(reader, header.sections, session) :
                                       new CompressedStreamWriter(reader, header.sections,
@@ -108,7 +156,7 @@ public class OutgoingFileMessage extends StreamMessage
         //session was aborted mid-transfer, now it's safe to release
         if (completed)
         {
-            ref.release();
+            release();
         }
     }
 
@@ -129,11 +177,18 @@ public class OutgoingFileMessage extends StreamMessage
             //release only if not transferring
             if (!transferring)
             {
-                ref.release();
+                release();
             }
         }
     }
 
+    private void release()
+    {
+        ref.release();
+        if (snapshot != null)
+            snapshot.release();
+    }
+
     @Override
     public String toString()
     {
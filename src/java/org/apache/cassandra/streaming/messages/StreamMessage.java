@@ -98,7 +98,9 @@ public abstract class StreamMessage
         RETRY(4, 4, RetryMessage.serializer),
         COMPLETE(5, 1, CompleteMessage.serializer),
         SESSION_FAILED(6, 5, SessionFailedMessage.serializer),
-        KEEP_ALIVE(7, 5, KeepAliveMessage.serializer);
+        KEEP_ALIVE(7, 5, KeepAliveMessage.serializer),
+        // only sent when stream_entire_sstables is enabled, as older nodes fail the session on unknown types
+        ENTIRE_SSTABLE(8, 0, IncomingFileMessage.entireSSTableSerializer, OutgoingFileMessage.serializer);
 
         public static Type get(byte type)
         {
@@ -114,6 +114,11 @@ public class Client extends SimpleClient
                    options.put(StartupMessage.COMPRESSION, "snappy");
                    connection.setCompressor(FrameCompressor.SnappyCompressor.instance);
                }
+               else if (next.toLowerCase().equals("zstd"))
+               {
+                   options.put(StartupMessage.COMPRESSION, "zstd");
+                   connection.setCompressor(FrameCompressor.ZstdCompressor.instance);
+               }
             }
             return new StartupMessage(options);
         }
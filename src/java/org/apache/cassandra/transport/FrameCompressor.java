@@ -23,6 +23,7 @@ import io.netty.buffer.ByteBuf;
 import org.xerial.snappy.Snappy;
 import org.xerial.snappy.SnappyError;
 
+import com.github.luben.zstd.Zstd;
 import net.jpountz.lz4.LZ4Factory;
 
 import org.apache.cassandra.utils.JVMStabilityInspector;
@@ -208,4 +209,96 @@ public interface FrameCompressor
             }
         }
     }
+
+    /*
+     * Zstandard frames record the uncompressed size, so unlike LZ4 no length is prepended.
+     */
+    public static class ZstdCompressor implements FrameCompressor
+    {
+        public static final ZstdCompressor instance;
+        static
+        {
+            ZstdCompressor i;
+            try
+            {
+                i = new ZstdCompressor();
+            }
+            catch (Exception e)
+            {
+                JVMStabilityInspector.inspectThrowable(e);
+                i = null;
+            }
+            catch (NoClassDefFoundError | UnsatisfiedLinkError e)
+            {
+                i = null;
+            }
+            instance = i;
+        }
+
+        private ZstdCompressor()
+        {
+            // loads the native library, throwing if it isn't available for this platform
+            Zstd.maxCompressionLevel();
+        }
+
+        public Frame compress(Frame frame) throws IOException
+        {
+            byte[] input = CBUtil.readRawBytes(frame.body);
+            ByteBuf output = CBUtil.allocator.heapBuffer((int) Zstd.compressBound(input.length));
+
+            try
+            {
+                long written = Zstd.compressByteArray(output.array(), output.arrayOffset(), output.capacity(),
+                                                      input, 0, input.length,
+                                                      org.apache.cassandra.io.compress.ZstdCompressor.DEFAULT_COMPRESSION_LEVEL);
+                if (Zstd.isError(written))
+                    throw new IOException("Zstd error: " + Zstd.getErrorName(written));
+                output.writerIndex((int) written);
+            }
+            catch (final Throwable e)
+            {
+                output.release();
+                throw e;
+            }
+            finally
+            {
+                //release the old frame
+                frame.release();
+            }
+
+            return frame.with(output);
+        }
+
+        public Frame decompress(Frame frame) throws IOException
+        {
+            byte[] input = CBUtil.readRawBytes(frame.body);
+
+            long uncompressedLength = Zstd.decompressedSize(input);
+            if (uncompressedLength < 0 || uncompressedLength > Integer.MAX_VALUE || (uncompressedLength == 0 && input.length == 0))
+                throw new ProtocolException("Provided frame does not appear to be Zstd compressed");
+
+            ByteBuf output = CBUtil.allocator.heapBuffer((int) uncompressedLength);
+
+            try
+            {
+                long read = Zstd.decompressByteArray(output.array(), output.arrayOffset(), (int) uncompressedLength,
+                                                     input, 0, input.length);
+                if (Zstd.isError(read))
+                    throw new IOException("Zstd error: " + Zstd.getErrorName(read));
+                output.writerIndex((int) read);
+            }
+            catch (final Throwable e)
+            {
+                output.release();
+                throw e;
+            }
+            finally
+            {
+                //release the old frame
+                frame.release();
+            }
+
+            return frame.with(output);
+        }
+    }
 }
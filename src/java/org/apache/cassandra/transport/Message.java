@@ -29,6 +29,8 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -39,9 +41,14 @@ import io.netty.handler.codec.MessageToMessageEncoder;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ExecutorLocals;
 import org.apache.cassandra.concurrent.LocalAwareExecutorService;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.exceptions.OverloadedException;
@@ -219,6 +226,16 @@ public abstract class Message
 
         public abstract Response execute(QueryState queryState, long queryStartNanoTime);
 
+        /**
+         * Asynchronous variant of {@link #execute}: requests supporting it don't block the calling thread while
+         * waiting on the replicas, and return a future completed by a task run on the provided executor instead.
+         * By default, the request is executed synchronously.
+         */
+        public ListenableFuture<Response> executeAsync(QueryState queryState, long queryStartNanoTime, Executor executor)
+        {
+            return Futures.immediateFuture(execute(queryState, queryStartNanoTime));
+        }
+
         public void setTracingRequested()
         {
             this.tracingRequested = true;
@@ -669,21 +686,50 @@ public abstract class Message
          */
         void processRequest(ChannelHandlerContext ctx, Request request)
         {
-            final Response response;
-            final ServerConnection connection;
+            final ListenableFuture<Response> response;
             long queryStartNanoTime = System.nanoTime();
 
             try
             {
                 assert request.connection() instanceof ServerConnection;
-                connection = (ServerConnection)request.connection();
+                ServerConnection connection = (ServerConnection)request.connection();
                 if (connection.getVersion().isGreaterOrEqualTo(ProtocolVersion.V4))
                     ClientWarn.instance.captureWarnings();
 
                 QueryState qstate = connection.validateNewMessage(request.type, connection.getVersion(), request.getStreamId());
 
                 logger.trace("Received: {}, v={}", request, connection.getVersion());
-                response = request.execute(qstate, queryStartNanoTime);
+                if (DatabaseDescriptor.useNativeTransportAsyncDispatch())
+                {
+                    // the request is completed by another task, which must see the client warnings of this one
+                    ExecutorLocals locals = ExecutorLocals.create();
+                    response = request.executeAsync(qstate, queryStartNanoTime, task -> requestExecutor.execute(task, locals));
+                }
+                else
+                {
+                    response = Futures.immediateFuture(request.execute(qstate, queryStartNanoTime));
+                }
+            }
+            catch (Throwable t)
+            {
+                ClientWarn.instance.resetWarnings();
+                respondWithError(ctx, request, t);
+                return;
+            }
+
+            response.addListener(() -> respond(ctx, request, response), MoreExecutors.directExecutor());
+            // if not done yet, the response will be completed by another task, which restores the client warnings itself
+            ClientWarn.instance.resetWarnings();
+        }
+
+        private void respond(ChannelHandlerContext ctx, Request request, ListenableFuture<Response> future)
+        {
+            final Response response;
+            final ServerConnection connection = (ServerConnection)request.connection();
+
+            try
+            {
+                response = Uninterruptibles.getUninterruptibly(future);
                 response.setStreamId(request.getStreamId());
                 response.setWarnings(ClientWarn.instance.getWarnings());
                 response.attach(connection);
@@ -691,9 +737,7 @@ public abstract class Message
             }
             catch (Throwable t)
             {
-                JVMStabilityInspector.inspectThrowable(t);
-                UnexpectedChannelExceptionHandler handler = new UnexpectedChannelExceptionHandler(ctx.channel(), true);
-                flush(new FlushItem(ctx, ErrorMessage.fromException(t, handler).setStreamId(request.getStreamId()), request.getSourceFrame(), this));
+                respondWithError(ctx, request, t instanceof ExecutionException ? t.getCause() : t);
                 return;
             }
             finally
@@ -705,6 +749,13 @@ public abstract class Message
             flush(new FlushItem(ctx, response, request.getSourceFrame(), this));
         }
 
+        private void respondWithError(ChannelHandlerContext ctx, Request request, Throwable t)
+        {
+            JVMStabilityInspector.inspectThrowable(t);
+            UnexpectedChannelExceptionHandler handler = new UnexpectedChannelExceptionHandler(ctx.channel(), true);
+            flush(new FlushItem(ctx, ErrorMessage.fromException(t, handler).setStreamId(request.getStreamId()), request.getSourceFrame(), this));
+        }
+
         @Override
         public void channelInactive(ChannelHandlerContext ctx)
         {
@@ -18,8 +18,12 @@
 package org.apache.cassandra.transport.messages;
 
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.buffer.ByteBuf;
 
 import org.apache.cassandra.cql3.CQLStatement;
@@ -88,6 +92,21 @@ public class ExecuteMessage extends Message.Request
     }
 
     public Message.Response execute(QueryState state, long queryStartNanoTime)
+    {
+        return Futures.getUnchecked(execute(state, queryStartNanoTime, null));
+    }
+
+    @Override
+    public ListenableFuture<Message.Response> executeAsync(QueryState state, long queryStartNanoTime, Executor executor)
+    {
+        return execute(state, queryStartNanoTime, executor);
+    }
+
+    /**
+     * Executes the statement asynchronously if an executor is provided, unless it is traced: tracing sessions are
+     * bound to the executing thread.
+     */
+    private ListenableFuture<Message.Response> execute(QueryState state, long queryStartNanoTime, Executor executor)
     {
         try
         {
@@ -143,19 +162,24 @@ public class ExecuteMessage extends Message.Request
             // Some custom QueryHandlers are interested by the bound names. We provide them this information
             // by wrapping the QueryOptions.
             QueryOptions queryOptions = QueryOptions.addColumnSpecifications(options, prepared.boundNames);
-            Message.Response response = handler.processPrepared(statement, state, queryOptions, getCustomPayload(), queryStartNanoTime);
-            if (options.skipMetadata() && response instanceof ResultMessage.Rows)
-                ((ResultMessage.Rows)response).result.metadata.setSkipMetadata();
+            ListenableFuture<ResultMessage> result = executor == null || Tracing.isTracing()
+                                                   ? Futures.immediateFuture(handler.processPrepared(statement, state, queryOptions, getCustomPayload(), queryStartNanoTime))
+                                                   : handler.processPreparedAsync(statement, state, queryOptions, getCustomPayload(), queryStartNanoTime, executor);
+
+            UUID responseTracingId = tracingId;
+            return Futures.withFallback(Futures.transform(result, (Function<ResultMessage, Message.Response>) response -> {
+                if (options.skipMetadata() && response instanceof ResultMessage.Rows)
+                    ((ResultMessage.Rows)response).result.metadata.setSkipMetadata();
 
-            if (tracingId != null)
-                response.setTracingId(tracingId);
+                if (responseTracingId != null)
+                    response.setTracingId(responseTracingId);
 
-            return response;
+                return response;
+            }), t -> Futures.immediateFuture(errorResponse(t)));
         }
         catch (Exception e)
         {
-            JVMStabilityInspector.inspectThrowable(e);
-            return ErrorMessage.fromException(e);
+            return Futures.immediateFuture(errorResponse(e));
         }
         finally
         {
@@ -163,6 +187,12 @@ public class ExecuteMessage extends Message.Request
         }
     }
 
+    private static Message.Response errorResponse(Throwable e)
+    {
+        JVMStabilityInspector.inspectThrowable(e);
+        return ErrorMessage.fromException(e);
+    }
+
     @Override
     public String toString()
     {
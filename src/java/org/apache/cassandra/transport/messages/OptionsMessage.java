@@ -67,6 +67,8 @@ public class OptionsMessage extends Message.Request
             compressions.add("snappy");
         // LZ4 is always available since worst case scenario it default to a pure JAVA implem.
         compressions.add("lz4");
+        if (FrameCompressor.ZstdCompressor.instance != null)
+            compressions.add("zstd");
 
         Map<String, List<String>> supported = new HashMap<String, List<String>>();
         supported.put(StartupMessage.CQL_VERSION, cqlVersions);
@@ -18,10 +18,15 @@
 package org.apache.cassandra.transport.messages;
 
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import io.netty.buffer.ByteBuf;
+import org.apache.cassandra.cql3.QueryHandler;
 import org.apache.cassandra.cql3.QueryOptions;
 import org.apache.cassandra.exceptions.RequestExecutionException;
 import org.apache.cassandra.exceptions.RequestValidationException;
@@ -84,6 +89,21 @@ public class QueryMessage extends Message.Request
     }
 
     public Message.Response execute(QueryState state, long queryStartNanoTime)
+    {
+        return Futures.getUnchecked(execute(state, queryStartNanoTime, null));
+    }
+
+    @Override
+    public ListenableFuture<Message.Response> executeAsync(QueryState state, long queryStartNanoTime, Executor executor)
+    {
+        return execute(state, queryStartNanoTime, executor);
+    }
+
+    /**
+     * Executes the query asynchronously if an executor is provided, unless it is traced: tracing sessions are bound
+     * to the executing thread.
+     */
+    private ListenableFuture<Message.Response> execute(QueryState state, long queryStartNanoTime, Executor executor)
     {
         try
         {
@@ -113,21 +133,25 @@ public class QueryMessage extends Message.Request
                 Tracing.instance.begin("Execute CQL3 query", state.getClientAddress(), builder.build());
             }
 
-            Message.Response response = ClientState.getCQLQueryHandler().process(query, state, options, getCustomPayload(), queryStartNanoTime);
-            if (options.skipMetadata() && response instanceof ResultMessage.Rows)
-                ((ResultMessage.Rows)response).result.metadata.setSkipMetadata();
+            QueryHandler handler = ClientState.getCQLQueryHandler();
+            ListenableFuture<ResultMessage> result = executor == null || Tracing.isTracing()
+                                                   ? Futures.immediateFuture(handler.process(query, state, options, getCustomPayload(), queryStartNanoTime))
+                                                   : handler.processAsync(query, state, options, getCustomPayload(), queryStartNanoTime, executor);
+
+            UUID responseTracingId = tracingId;
+            return Futures.withFallback(Futures.transform(result, (Function<ResultMessage, Message.Response>) response -> {
+                if (options.skipMetadata() && response instanceof ResultMessage.Rows)
+                    ((ResultMessage.Rows)response).result.metadata.setSkipMetadata();
 
-            if (tracingId != null)
-                response.setTracingId(tracingId);
+                if (responseTracingId != null)
+                    response.setTracingId(responseTracingId);
 
-            return response;
+                return response;
+            }), t -> Futures.immediateFuture(errorResponse(t)));
         }
         catch (Exception e)
         {
-            JVMStabilityInspector.inspectThrowable(e);
-            if (!((e instanceof RequestValidationException) || (e instanceof RequestExecutionException)))
-                logger.error("Unexpected error during query", e);
-            return ErrorMessage.fromException(e);
+            return Futures.immediateFuture(errorResponse(e));
         }
         finally
         {
@@ -135,6 +159,14 @@ public class QueryMessage extends Message.Request
         }
     }
 
+    private static Message.Response errorResponse(Throwable e)
+    {
+        JVMStabilityInspector.inspectThrowable(e);
+        if (!((e instanceof RequestValidationException) || (e instanceof RequestExecutionException)))
+            logger.error("Unexpected error during query", e);
+        return ErrorMessage.fromException(e);
+    }
+
     @Override
     public String toString()
     {
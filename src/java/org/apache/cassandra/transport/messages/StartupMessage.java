@@ -94,6 +94,12 @@ public class StartupMessage extends Message.Request
             {
                 connection.setCompressor(FrameCompressor.LZ4Compressor.instance);
             }
+            else if (compression.equals("zstd"))
+            {
+                if (FrameCompressor.ZstdCompressor.instance == null)
+                    throw new ProtocolException("This instance does not support Zstd compression");
+                connection.setCompressor(FrameCompressor.ZstdCompressor.instance);
+            }
             else
             {
                 throw new ProtocolException(String.format("Unknown compression algorithm: %s", compression));
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import net.nicoulaj.compilecommand.annotations.Inline;
+import org.apache.cassandra.io.util.Memory;
+import org.apache.cassandra.utils.concurrent.Ref;
+import org.apache.cassandra.utils.concurrent.WrappedSharedCloseable;
+
+/**
+ * A split block bloom filter: the filter is an array of cache line sized blocks, each key picks one block and sets
+ * one bit in each of the eight 64-bit words of that block. A lookup thus touches a single cache line instead of one
+ * per hash function, and tests its eight words without branching, which lets the JIT unroll the probe.
+ * <p>
+ * For the same false positive chance this needs somewhat more bits per key than {@link BloomFilter}, since the
+ * number of keys landing in each block varies; see {@link #falsePositiveProbability(double)}.
+ */
+public class BlockedBloomFilter extends WrappedSharedCloseable implements IFilter
+{
+    static final int BLOCK_BYTES = 64;
+    static final int BLOCK_BITS = BLOCK_BYTES * 8;
+    private static final int WORDS = BLOCK_BYTES / 8;
+
+    /**
+     * The highest number of bits per key we size filters with; lower false positive chances are better served by
+     * {@link BloomFilter}.
+     */
+    static final double MAX_BITS_PER_ELEMENT = 64;
+
+    // odd multipliers deriving the bit set in each word from the same 32 bits of hash
+    private static final int[] SALTS = { 0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+                                         0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31 };
+
+    private final static FastThreadLocal<long[]> reusableHash = new FastThreadLocal<long[]>()
+    {
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    // allocated with one extra block so that the blocks can start at a cache line boundary
+    private final Memory memory;
+    private final long firstBlock;
+    public final int blockCount;
+
+    BlockedBloomFilter(int blockCount)
+    {
+        this(allocate(blockCount), blockCount);
+        clear();
+    }
+
+    BlockedBloomFilter(Memory memory, int blockCount)
+    {
+        super(memory);
+        this.memory = memory;
+        this.firstBlock = memory.alignedOffset(BLOCK_BYTES);
+        this.blockCount = blockCount;
+    }
+
+    private BlockedBloomFilter(BlockedBloomFilter copy)
+    {
+        super(copy);
+        this.memory = copy.memory;
+        this.firstBlock = copy.firstBlock;
+        this.blockCount = copy.blockCount;
+    }
+
+    static Memory allocate(int blockCount)
+    {
+        if (blockCount > Integer.MAX_VALUE / WORDS)
+            throw new UnsupportedOperationException("Bloom filter size is > 16GB, reduce the bloom_filter_fp_chance");
+        try
+        {
+            return Memory.allocate((blockCount + 1L) * BLOCK_BYTES);
+        }
+        catch (OutOfMemoryError e)
+        {
+            throw new RuntimeException("Out of native memory occured, You can avoid it by increasing the system ram space or by increasing bloom_filter_fp_chance.");
+        }
+    }
+
+    /**
+     * @return the number of blocks of a filter holding the given number of elements with the given false positive
+     * chance, or -1 if that chance needs more than {@link #MAX_BITS_PER_ELEMENT} bits per element
+     */
+    static long blockCount(long numElements, double maxFalsePosProbability)
+    {
+        if (falsePositiveProbability(MAX_BITS_PER_ELEMENT) > maxFalsePosProbability)
+            return -1;
+
+        // binary search the fewest bits per element giving the requested chance, which falls as the bits grow
+        double min = 1, max = MAX_BITS_PER_ELEMENT;
+        while (max - min > 0.01)
+        {
+            double mid = (min + max) / 2;
+            if (falsePositiveProbability(mid) > maxFalsePosProbability)
+                min = mid;
+            else
+                max = mid;
+        }
+        return Math.max(1, (long) Math.ceil(numElements * max / BLOCK_BITS));
+    }
+
+    /**
+     * The false positive probability of a filter sized with the given number of bits per element. The number of
+     * elements in a block is Poisson distributed, and a block holding m of them reports a false positive when the
+     * bits probed in all of its words are set, each of them being set by an element with probability 1/64.
+     */
+    @VisibleForTesting
+    static double falsePositiveProbability(double bitsPerElement)
+    {
+        double elementsPerBlock = BLOCK_BITS / bitsPerElement;
+        double probability = Math.exp(-elementsPerBlock); // of a block holding m elements, starting at m = 0
+        double result = 0;
+        for (int m = 1; m < elementsPerBlock * 3 + 50; m++)
+        {
+            probability *= elementsPerBlock / m;
+            result += probability * Math.pow(1 - Math.pow(1 - 1d / 64, m), WORDS);
+        }
+        return result;
+    }
+
+    public long serializedSize()
+    {
+        return BloomFilterSerializer.serializedSize(this);
+    }
+
+    @Inline
+    private static long mask(int hash, int word)
+    {
+        return 1L << ((hash * SALTS[word]) >>> 26);
+    }
+
+    /**
+     * Maps the upper half of the second hash to a block with a multiplication rather than a (slower) modulo.
+     * The first hash is the token for the Murmur3Partitioner, whose upper bits are shared by the keys of a node,
+     * so only its lower half picks bits within the block.
+     */
+    @Inline
+    private long block(long[] hash)
+    {
+        return firstBlock + (((hash[1] >>> 32) * blockCount) >>> 32) * BLOCK_BYTES;
+    }
+
+    public void add(FilterKey key)
+    {
+        long[] hash = reusableHash.get();
+        key.filterHash(hash);
+        long block = block(hash);
+        int h = (int) hash[0];
+        for (int i = 0; i < WORDS; i++)
+        {
+            long offset = block + i * 8L;
+            memory.setLong(offset, memory.getLong(offset) | mask(h, i));
+        }
+    }
+
+    public final boolean isPresent(FilterKey key)
+    {
+        long[] hash = reusableHash.get();
+        key.filterHash(hash);
+        long block = block(hash);
+        int h = (int) hash[0];
+        // no early exit, the block is in a single cache line
+        long missing = 0;
+        for (int i = 0; i < WORDS; i++)
+            missing |= mask(h, i) & ~memory.getLong(block + i * 8L);
+        return missing == 0;
+    }
+
+    /** Returns the 64-bit word at the given index of the blocks. */
+    long getWord(long index)
+    {
+        return memory.getLong(firstBlock + index * 8);
+    }
+
+    void setWord(long index, long word)
+    {
+        memory.setLong(firstBlock + index * 8, word);
+    }
+
+    public void clear()
+    {
+        memory.setMemory(0, memory.size(), (byte) 0);
+    }
+
+    public IFilter sharedCopy()
+    {
+        return new BlockedBloomFilter(this);
+    }
+
+    @Override
+    public long offHeapSize()
+    {
+        return memory.size();
+    }
+
+    public String toString()
+    {
+        return "BlockedBloomFilter[blockCount=" + blockCount + ']';
+    }
+
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        super.addTo(identities);
+        identities.add(memory);
+    }
+}
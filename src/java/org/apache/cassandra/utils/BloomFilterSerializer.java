@@ -22,12 +22,19 @@ import java.io.IOException;
 
 import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.io.util.Memory;
 import org.apache.cassandra.utils.obs.IBitSet;
 import org.apache.cassandra.utils.obs.OffHeapBitSet;
 import org.apache.cassandra.utils.obs.OpenBitSet;
 
 final class BloomFilterSerializer
 {
+    /**
+     * Written in place of the hash count, which is always positive, ahead of a {@link BlockedBloomFilter}
+     * (followed by its block count and the words of its blocks).
+     */
+    static final int BLOCKED_VERSION = -1;
+
     private BloomFilterSerializer()
     {
     }
@@ -38,20 +45,53 @@ final class BloomFilterSerializer
         bf.bitset.serialize(out);
     }
 
-    public static BloomFilter deserialize(DataInput in, boolean oldBfHashOrder) throws IOException
+    public static void serialize(BlockedBloomFilter bf, DataOutputPlus out) throws IOException
+    {
+        out.writeInt(BLOCKED_VERSION);
+        out.writeInt(bf.blockCount);
+        for (long i = 0, words = bf.blockCount * (BlockedBloomFilter.BLOCK_BYTES / 8L); i < words; i++)
+            out.writeLong(bf.getWord(i));
+    }
+
+    public static IFilter deserialize(DataInput in, boolean oldBfHashOrder) throws IOException
     {
         return deserialize(in, false, oldBfHashOrder);
     }
 
+    /**
+     * Deserializes either kind of filter; blocked filters are always kept off heap.
+     */
     @SuppressWarnings("resource")
-    public static BloomFilter deserialize(DataInput in, boolean offheap, boolean oldBfHashOrder) throws IOException
+    public static IFilter deserialize(DataInput in, boolean offheap, boolean oldBfHashOrder) throws IOException
     {
         int hashes = in.readInt();
+        if (hashes == BLOCKED_VERSION)
+            return deserializeBlocked(in);
+
         IBitSet bs = offheap ? OffHeapBitSet.deserialize(in) : OpenBitSet.deserialize(in);
 
         return new BloomFilter(hashes, bs, oldBfHashOrder);
     }
 
+    @SuppressWarnings("resource")
+    private static BlockedBloomFilter deserializeBlocked(DataInput in) throws IOException
+    {
+        int blockCount = in.readInt();
+        Memory memory = BlockedBloomFilter.allocate(blockCount);
+        BlockedBloomFilter bf = new BlockedBloomFilter(memory, blockCount);
+        try
+        {
+            for (long i = 0, words = blockCount * (BlockedBloomFilter.BLOCK_BYTES / 8L); i < words; i++)
+                bf.setWord(i, in.readLong());
+        }
+        catch (Throwable t)
+        {
+            bf.close();
+            throw t;
+        }
+        return bf;
+    }
+
     /**
      * Calculates a serialized size of the given Bloom Filter
      * @param bf Bloom filter to calculate serialized size
@@ -65,4 +105,9 @@ final class BloomFilterSerializer
         size += bf.bitset.serializedSize();
         return size;
     }
+
+    public static long serializedSize(BlockedBloomFilter bf)
+    {
+        return TypeSizes.sizeof(BLOCKED_VERSION) + TypeSizes.sizeof(bf.blockCount) + (long) bf.blockCount * BlockedBloomFilter.BLOCK_BYTES;
+    }
 }
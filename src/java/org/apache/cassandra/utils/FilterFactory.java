@@ -37,7 +37,10 @@ public class FilterFactory
 
     public static void serialize(IFilter bf, DataOutputPlus output) throws IOException
     {
-        BloomFilterSerializer.serialize((BloomFilter) bf, output);
+        if (bf instanceof BlockedBloomFilter)
+            BloomFilterSerializer.serialize((BlockedBloomFilter) bf, output);
+        else
+            BloomFilterSerializer.serialize((BloomFilter) bf, output);
     }
 
     public static IFilter deserialize(DataInput input, boolean offheap, boolean oldBfHashOrder) throws IOException
@@ -69,10 +72,32 @@ public class FilterFactory
      *         filter.
      */
     public static IFilter getFilter(long numElements, double maxFalsePosProbability, boolean offheap, boolean oldBfHashOrder)
+    {
+        return getFilter(numElements, maxFalsePosProbability, offheap, oldBfHashOrder, false);
+    }
+
+    /**
+     * @param blocked whether to return a {@link BlockedBloomFilter}, which is always off heap. It is not used with
+     *                the old hash order, nor for chances it cannot reach with a sensible number of bits per element;
+     *                a classic filter is returned in these cases.
+     * @return The smallest BloomFilter that can provide the given false
+     *         positive probability rate for the given number of elements.
+     */
+    @SuppressWarnings("resource")
+    public static IFilter getFilter(long numElements, double maxFalsePosProbability, boolean offheap, boolean oldBfHashOrder, boolean blocked)
     {
         assert maxFalsePosProbability <= 1.0 : "Invalid probability";
         if (maxFalsePosProbability == 1.0)
             return new AlwaysPresentFilter();
+        if (blocked && !oldBfHashOrder)
+        {
+            long blockCount = BlockedBloomFilter.blockCount(numElements, maxFalsePosProbability);
+            if (blockCount > Integer.MAX_VALUE)
+                throw new UnsupportedOperationException("Bloom filter size is > 16GB, reduce the bloom_filter_fp_chance");
+            if (blockCount > 0)
+                return new BlockedBloomFilter((int) blockCount);
+            logger.debug("Cannot provide a blocked BloomFilter with a false positive chance of {}, using a classic one", maxFalsePosProbability);
+        }
         int bucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
         BloomCalculations.BloomSpecification spec = BloomCalculations.computeBloomSpec(bucketsPerElement, maxFalsePosProbability);
         return createFilter(spec.K, numElements, spec.bucketsPerElement, offheap, oldBfHashOrder);
@@ -20,6 +20,7 @@ package org.apache.cassandra.utils;
 import java.io.DataInput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -59,6 +60,9 @@ import org.apache.cassandra.net.MessagingService;
  *
  * If two MerkleTrees have the same hashdepth, they represent a perfect tree
  * of the same depth, and can always be compared, regardless of size or splits.
+ *
+ * Once a tree has been fully hashed it can be moved off heap with tryMoveOffHeap(),
+ * after which it is read-only and its nodes live in a flat buffer (see OffHeapNodes).
  */
 public class MerkleTree implements Serializable
 {
@@ -83,6 +87,8 @@ public class MerkleTree implements Serializable
     private long maxsize;
     private long size;
     private Hashable root;
+    // non-null once the tree has been moved off heap, in which case root is null
+    private OffHeapNodes offHeapNodes;
 
     public static class MerkleTreeSerializer implements IVersionedSerializer<MerkleTree>
     {
@@ -95,7 +101,7 @@ public class MerkleTree implements Serializable
             // full range
             Token.serializer.serialize(mt.fullRange.left, out, version);
             Token.serializer.serialize(mt.fullRange.right, out, version);
-            Hashable.serializer.serialize(mt.root, out, version);
+            Hashable.serializer.serialize(mt.root(), out, version);
         }
 
         public MerkleTree deserialize(DataInputPlus in, int version) throws IOException
@@ -135,7 +141,7 @@ public class MerkleTree implements Serializable
             size += Token.serializer.serializedSize(mt.fullRange.left, version);
             size += Token.serializer.serializedSize(mt.fullRange.right, version);
 
-            size += Hashable.serializer.serializedSize(mt.root, version);
+            size += Hashable.serializer.serializedSize(mt.root(), version);
             return size;
         }
     }
@@ -174,6 +180,7 @@ public class MerkleTree implements Serializable
      */
     public void init()
     {
+        checkOnHeap();
         // determine the depth to which we can safely split the tree
         byte sizedepth = (byte)(Math.log10(maxsize) / Math.log10(2));
         byte depth = (byte)Math.min(sizedepth, hashdepth);
@@ -199,7 +206,43 @@ public class MerkleTree implements Serializable
 
     Hashable root()
     {
-        return root;
+        return offHeapNodes == null ? root : offHeapNodes.root(fullRange);
+    }
+
+    private void checkOnHeap()
+    {
+        if (offHeapNodes != null)
+            throw new UnsupportedOperationException("MerkleTree has been moved off heap and is read-only");
+    }
+
+    /**
+     * Moves the nodes of this tree to a flat off-heap buffer, releasing the on-heap
+     * ones. The tree becomes read-only: it can still be hashed, compared and
+     * serialized, but not split, invalidated or have rows added to it.
+     *
+     * This is a no-op returning false if the tree cannot be represented off heap,
+     * which is the case if its inner nodes are not all at the midpoint of their range.
+     *
+     * @return True if the tree is off heap.
+     */
+    public boolean tryMoveOffHeap()
+    {
+        if (offHeapNodes != null)
+            return true;
+
+        // make sure the hashes of the inner nodes are computed while the tree is still mutable
+        root.calc();
+        offHeapNodes = OffHeapNodes.tryCreate(partitioner, fullRange, root);
+        if (offHeapNodes == null)
+            return false;
+
+        root = null;
+        return true;
+    }
+
+    public boolean isOffHeap()
+    {
+        return offHeapNodes != null;
     }
 
     public IPartitioner partitioner()
@@ -368,7 +411,7 @@ public class MerkleTree implements Serializable
      */
     public TreeRange get(Token t)
     {
-        return getHelper(root, fullRange.left, fullRange.right, (byte)0, t);
+        return getHelper(root(), fullRange.left, fullRange.right, (byte)0, t);
     }
 
     TreeRange getHelper(Hashable hashable, Token pleft, Token pright, byte depth, Token t)
@@ -386,12 +429,12 @@ public class MerkleTree implements Serializable
             depth = inc(depth);
             if (Range.contains(pleft, node.token, t))
             { // left child contains token
-                hashable = node.lchild;
+                hashable = node.lchild();
                 pright = node.token;
             }
             else
             { // else: right child contains token
-                hashable = node.rchild;
+                hashable = node.rchild();
                 pleft = node.token;
             }
         }
@@ -403,6 +446,7 @@ public class MerkleTree implements Serializable
      */
     public void invalidate(Token t)
     {
+        checkOnHeap();
         invalidateHelper(root, fullRange.left, t);
     }
 
@@ -447,7 +491,7 @@ public class MerkleTree implements Serializable
     {
         try
         {
-            return findHelper(root, new Range<Token>(fullRange.left, fullRange.right), range);
+            return findHelper(root(), new Range<Token>(fullRange.left, fullRange.right), range);
         }
         catch (StopRecursion e)
         {
@@ -483,12 +527,12 @@ public class MerkleTree implements Serializable
 
             if (leftRange.contains(find))
             { // left child contains/matches the range
-                current = node.lchild;
+                current = node.lchild();
                 activeRange = leftRange;
             }
             else if (rightRange.contains(find))
             { // right child contains/matches the range
-                current = node.rchild;
+                current = node.rchild();
                 activeRange = rightRange;
             }
             else
@@ -507,6 +551,7 @@ public class MerkleTree implements Serializable
      */
     public boolean split(Token t)
     {
+        checkOnHeap();
         if (!(size < maxsize))
             return false;
 
@@ -553,6 +598,30 @@ public class MerkleTree implements Serializable
         return node;
     }
 
+    /**
+     * Returns the ranges covered by the subtrees rooted at the given depth, and by the
+     * leaves above that depth, in the order of the tree. No leaf is in two of these ranges.
+     */
+    public List<Range<Token>> subtreeRanges(int depth)
+    {
+        List<Range<Token>> ranges = new ArrayList<>();
+        subtreeRangesHelper(root(), fullRange.left, fullRange.right, 0, depth, ranges);
+        return ranges;
+    }
+
+    private static void subtreeRangesHelper(Hashable hashable, Token pleft, Token pright, int depth, int max, List<Range<Token>> ranges)
+    {
+        if (depth == max || hashable instanceof Leaf)
+        {
+            ranges.add(new Range<>(pleft, pright));
+            return;
+        }
+
+        Inner node = (Inner) hashable;
+        subtreeRangesHelper(node.lchild(), pleft, node.token, depth + 1, max, ranges);
+        subtreeRangesHelper(node.rchild(), node.token, pright, depth + 1, max, ranges);
+    }
+
     /**
      * Returns a lazy iterator of invalid TreeRanges that need to be filled
      * in order to make the given Range valid.
@@ -597,7 +666,7 @@ public class MerkleTree implements Serializable
     {
         StringBuilder buff = new StringBuilder();
         buff.append("#<MerkleTree root=");
-        root.toString(buff, 8);
+        root().toString(buff, 8);
         buff.append(">");
         return buff.toString();
     }
@@ -742,7 +811,7 @@ public class MerkleTree implements Serializable
         TreeRangeIterator(MerkleTree tree)
         {
             tovisit = new ArrayDeque<TreeRange>();
-            tovisit.add(new TreeRange(tree, tree.fullRange.left, tree.fullRange.right, (byte)0, tree.root));
+            tovisit.add(new TreeRange(tree, tree.fullRange.left, tree.fullRange.right, (byte)0, tree.root()));
             this.tree = tree;
         }
 
@@ -767,8 +836,8 @@ public class MerkleTree implements Serializable
                 }
 
                 Inner node = (Inner)active.hashable;
-                TreeRange left = new TreeRange(tree, active.left, node.token, inc(active.depth), node.lchild);
-                TreeRange right = new TreeRange(tree, node.token, active.right, inc(active.depth), node.rchild);
+                TreeRange left = new TreeRange(tree, active.left, node.token, inc(active.depth), node.lchild());
+                TreeRange right = new TreeRange(tree, node.token, active.right, inc(active.depth), node.rchild());
 
                 if (right.isWrapAround())
                 {
@@ -842,8 +911,8 @@ public class MerkleTree implements Serializable
             if (hash == null)
             {
                 // hash and size haven't been calculated; calc children then compute
-                Hashable lnode = lchild.calc();
-                Hashable rnode = rchild.calc();
+                Hashable lnode = lchild().calc();
+                Hashable rnode = rchild().calc();
                 // cache the computed value
                 hash(lnode.hash, rnode.hash);
                 sizeOfRange = lnode.sizeOfRange + rnode.sizeOfRange;
@@ -857,7 +926,7 @@ public class MerkleTree implements Serializable
          */
         public void toString(StringBuilder buff, int maxdepth)
         {
-            buff.append("#<").append(getClass().getSimpleName());
+            buff.append("#<Inner");
             buff.append(" ").append(token);
             buff.append(" hash=").append(Hashable.toString(hash()));
             buff.append(" children=[");
@@ -867,15 +936,17 @@ public class MerkleTree implements Serializable
             }
             else
             {
-                if (lchild == null)
+                Hashable lnode = lchild();
+                Hashable rnode = rchild();
+                if (lnode == null)
                     buff.append("null");
                 else
-                    lchild.toString(buff, maxdepth-1);
+                    lnode.toString(buff, maxdepth-1);
                 buff.append(" ");
-                if (rchild == null)
+                if (rnode == null)
                     buff.append("null");
                 else
-                    rchild.toString(buff, maxdepth-1);
+                    rnode.toString(buff, maxdepth-1);
             }
             buff.append("]>");
         }
@@ -903,8 +974,8 @@ public class MerkleTree implements Serializable
                     }
                 }
                 Token.serializer.serialize(inner.token, out, version);
-                Hashable.serializer.serialize(inner.lchild, out, version);
-                Hashable.serializer.serialize(inner.rchild, out, version);
+                Hashable.serializer.serialize(inner.lchild(), out, version);
+                Hashable.serializer.serialize(inner.rchild(), out, version);
             }
 
             public Inner deserialize(DataInput in, IPartitioner p, int version) throws IOException
@@ -933,8 +1004,8 @@ public class MerkleTree implements Serializable
                 }
 
                 size += Token.serializer.serializedSize(inner.token, version)
-                + Hashable.serializer.serializedSize(inner.lchild, version)
-                + Hashable.serializer.serializedSize(inner.rchild, version);
+                + Hashable.serializer.serializedSize(inner.lchild(), version)
+                + Hashable.serializer.serializedSize(inner.rchild(), version);
                 return size;
             }
         }
@@ -1021,6 +1092,214 @@ public class MerkleTree implements Serializable
         }
     }
 
+    /**
+     * The nodes of a read-only MerkleTree, stored as fixed size records in a direct buffer.
+     *
+     * Nodes are laid out in pre-order, so the left child of the inner node at index i is
+     * at index i + 1 and only the index of its right child needs to be recorded. Inner
+     * node tokens are not stored: they are always the midpoint of the node's range and
+     * are recomputed while descending the tree. Nodes are read back as lightweight,
+     * read-only Inner and Leaf views.
+     */
+    static final class OffHeapNodes
+    {
+        // record layout: ident, hash length (-1 for a null hash), index of the right child
+        // (inner nodes only), size of range, rows in range, hash padded to hashSize bytes
+        private static final int HASH_LENGTH_OFFSET = 1;
+        private static final int RCHILD_OFFSET = 2;
+        private static final int SIZE_OFFSET = 6;
+        private static final int ROWS_OFFSET = 14;
+        private static final int HASH_OFFSET = 22;
+
+        private final IPartitioner partitioner;
+        private final ByteBuffer buffer;
+        private final int recordSize;
+
+        private OffHeapNodes(IPartitioner partitioner, int nodes, int hashSize)
+        {
+            this.partitioner = partitioner;
+            this.recordSize = HASH_OFFSET + hashSize;
+            this.buffer = ByteBuffer.allocateDirect(nodes * recordSize);
+        }
+
+        /**
+         * @return The off heap copy of the given tree, or null if it cannot be represented off heap.
+         */
+        static OffHeapNodes tryCreate(IPartitioner partitioner, Range<Token> fullRange, Hashable root)
+        {
+            Measure measure = new Measure(partitioner);
+            if (!measure.add(root, fullRange.left, fullRange.right) || measure.hashSize > Byte.MAX_VALUE)
+                return null;
+
+            OffHeapNodes nodes = new OffHeapNodes(partitioner, measure.nodes, measure.hashSize);
+            int written = nodes.write(root, 0);
+            assert written == measure.nodes : written + " != " + measure.nodes;
+            return nodes;
+        }
+
+        /**
+         * Writes the given node and its subtree from the given index.
+         * @return The index following the subtree.
+         */
+        private int write(Hashable node, int index)
+        {
+            int offset = index * recordSize;
+            byte[] hash = node.hash();
+            buffer.put(offset, node instanceof Inner ? Inner.IDENT : Leaf.IDENT);
+            buffer.put(offset + HASH_LENGTH_OFFSET, hash == null ? -1 : (byte) hash.length);
+            buffer.putLong(offset + SIZE_OFFSET, node.sizeOfRange);
+            buffer.putLong(offset + ROWS_OFFSET, node.rowsInRange);
+            if (hash != null)
+            {
+                ByteBuffer dst = buffer.duplicate();
+                dst.position(offset + HASH_OFFSET);
+                dst.put(hash);
+            }
+
+            if (!(node instanceof Inner))
+                return index + 1;
+
+            Inner inner = (Inner) node;
+            int rchild = write(inner.lchild(), index + 1);
+            buffer.putInt(offset + RCHILD_OFFSET, rchild);
+            return write(inner.rchild(), rchild);
+        }
+
+        Hashable root(Range<Token> fullRange)
+        {
+            return node(0, fullRange.left, fullRange.right);
+        }
+
+        private Hashable node(int index, Token left, Token right)
+        {
+            int offset = index * recordSize;
+            byte[] hash = null;
+            int hashLength = buffer.get(offset + HASH_LENGTH_OFFSET);
+            if (hashLength >= 0)
+            {
+                hash = new byte[hashLength];
+                ByteBuffer src = buffer.duplicate();
+                src.position(offset + HASH_OFFSET);
+                src.get(hash);
+            }
+            long sizeOfRange = buffer.getLong(offset + SIZE_OFFSET);
+            long rowsInRange = buffer.getLong(offset + ROWS_OFFSET);
+
+            if (buffer.get(offset) == Leaf.IDENT)
+                return new OffHeapLeaf(hash, sizeOfRange, rowsInRange);
+
+            Token token = partitioner.midpoint(left, right);
+            return new OffHeapInner(this, index, left, right, token, hash, sizeOfRange, rowsInRange);
+        }
+
+        private int rchild(int index)
+        {
+            return buffer.getInt(index * recordSize + RCHILD_OFFSET);
+        }
+
+        /**
+         * Counts the nodes of a tree and the size of its largest hash, checking that
+         * the token of every inner node is the midpoint of its range.
+         */
+        private static class Measure
+        {
+            private final IPartitioner partitioner;
+            private int nodes;
+            private int hashSize;
+
+            Measure(IPartitioner partitioner)
+            {
+                this.partitioner = partitioner;
+            }
+
+            boolean add(Hashable node, Token left, Token right)
+            {
+                nodes++;
+                if (node.hash() != null)
+                    hashSize = Math.max(hashSize, node.hash().length);
+
+                if (!(node instanceof Inner))
+                    return true;
+
+                Inner inner = (Inner) node;
+                return inner.token.equals(partitioner.midpoint(left, right))
+                       && add(inner.lchild(), left, inner.token)
+                       && add(inner.rchild(), inner.token, right);
+            }
+        }
+    }
+
+    /**
+     * A read-only view of an inner node of an off heap MerkleTree.
+     */
+    static final class OffHeapInner extends Inner
+    {
+        private final OffHeapNodes nodes;
+        private final int index;
+        private final Token left;
+        private final Token right;
+
+        OffHeapInner(OffHeapNodes nodes, int index, Token left, Token right, Token token, byte[] hash, long sizeOfRange, long rowsInRange)
+        {
+            super(token, null, null);
+            this.nodes = nodes;
+            this.index = index;
+            this.left = left;
+            this.right = right;
+            this.hash = hash;
+            this.sizeOfRange = sizeOfRange;
+            this.rowsInRange = rowsInRange;
+        }
+
+        public Hashable lchild()
+        {
+            return nodes.node(index + 1, left, token);
+        }
+
+        public Hashable rchild()
+        {
+            return nodes.node(nodes.rchild(index), token, right);
+        }
+
+        public void lchild(Hashable child)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public void rchild(Hashable child)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        void hash(byte[] hash)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A read-only view of a leaf of an off heap MerkleTree.
+     */
+    static final class OffHeapLeaf extends Leaf
+    {
+        OffHeapLeaf(byte[] hash, long sizeOfRange, long rowsInRange)
+        {
+            super(hash);
+            this.sizeOfRange = sizeOfRange;
+            this.rowsInRange = rowsInRange;
+        }
+
+        void hash(byte[] hash)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        void addHash(byte[] righthash, long sizeOfRow)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Hash value representing a row, to be used to pass hashes to the MerkleTree.
      * The byte[] hash value should contain a digest of the key and value of the row
@@ -152,6 +152,34 @@ public class MerkleTrees implements Iterable<Map.Entry<Range<Token>, MerkleTree>
         merkleTrees.get(range).init();
     }
 
+    /**
+     * Get the ranges of the subtrees of all MerkleTree's at the given depth.
+     *
+     * @see MerkleTree#subtreeRanges(int)
+     */
+    public List<Range<Token>> subtreeRanges(int depth)
+    {
+        List<Range<Token>> ranges = new ArrayList<>();
+        for (MerkleTree tree : merkleTrees.values())
+        {
+            ranges.addAll(tree.subtreeRanges(depth));
+        }
+        return ranges;
+    }
+
+    /**
+     * Move all MerkleTree's off heap, making them read-only.
+     *
+     * @see MerkleTree#tryMoveOffHeap()
+     */
+    public void tryMoveOffHeap()
+    {
+        for (MerkleTree tree : merkleTrees.values())
+        {
+            tree.tryMoveOffHeap();
+        }
+    }
+
     /**
      * Split the MerkleTree responsible for the given token.
      *
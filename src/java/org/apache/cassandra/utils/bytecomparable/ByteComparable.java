@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.bytecomparable;
+
+/**
+ * An object that can be translated to a sequence of bytes whose unsigned lexicographic order is the same as the
+ * order of the object, so that two such objects can be compared byte by byte without knowledge of their type.
+ *
+ * The representations are not meant to be persisted or to be decoded back to the original object.
+ */
+public interface ByteComparable
+{
+    ByteSource asComparableBytes();
+
+    static ByteComparable fixedLength(byte[] bytes)
+    {
+        return () -> ByteSource.fixedLength(bytes);
+    }
+
+    static int compare(ByteComparable left, ByteComparable right)
+    {
+        return compare(left.asComparableBytes(), right.asComparableBytes());
+    }
+
+    static int compare(ByteSource left, ByteSource right)
+    {
+        while (true)
+        {
+            int l = left.next();
+            int r = right.next();
+            if (l != r || l == ByteSource.END_OF_STREAM)
+                return Integer.compare(l, r);
+        }
+    }
+
+    static String toString(ByteComparable value)
+    {
+        StringBuilder builder = new StringBuilder();
+        ByteSource source = value.asComparableBytes();
+        int b;
+        while ((b = source.next()) != ByteSource.END_OF_STREAM)
+            builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.bytecomparable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A stream of bytes, returned as unsigned values in the range 0-255, whose lexicographic order is the order of the
+ * object it was produced from (see {@link ByteComparable}).
+ *
+ * The sources built here are all prefix-free: no encoded value is a prefix of another encoded value of the same
+ * kind, which makes it possible to concatenate them to encode multi-component keys.
+ */
+public interface ByteSource
+{
+    /** Returned by {@link #next()} once all the bytes of the source have been consumed. */
+    int END_OF_STREAM = -1;
+
+    /** Byte used to escape 0x00 in variable-length values, and as the first byte of their terminator. */
+    int ESCAPE = 0x00;
+    /** Byte following {@link #ESCAPE} when it stands for a 0x00 in the encoded value. */
+    int ESCAPED_0 = 0xFF;
+    /** Byte following {@link #ESCAPE} at the end of a variable-length value. */
+    int TERMINATOR = 0x00;
+
+    /** Precedes a null component of a multi-component value; sorts before any non-null component. */
+    int NEXT_COMPONENT_NULL = 0x3E;
+    /** Precedes an empty component of a multi-component value, which sorts before any non-empty one. */
+    int NEXT_COMPONENT_EMPTY = 0x3F;
+    /** Precedes every non-null, non-empty component of a multi-component value. */
+    int NEXT_COMPONENT = 0x40;
+    /** Precedes an empty component of a reversed type, which sorts after any non-empty one. */
+    int NEXT_COMPONENT_EMPTY_REVERSED = 0x41;
+
+    /** Terminates a multi-component value that sorts before any value extending it. */
+    int LT_NEXT_COMPONENT = 0x20;
+    /** Terminates a multi-component value that is neither before nor after the values extending it. */
+    int TERMINATOR_COMPONENTS = 0x38;
+    /** Terminates a multi-component value that sorts after any value extending it. */
+    int GT_NEXT_COMPONENT = 0x60;
+
+    ByteSource EMPTY = () -> END_OF_STREAM;
+
+    /**
+     * @return the next byte of the stream as an unsigned value, or {@link #END_OF_STREAM} if there are no more bytes.
+     */
+    int next();
+
+    /**
+     * A single byte.
+     */
+    static ByteSource oneByte(int value)
+    {
+        assert value >= 0 && value <= 0xFF : "Invalid byte " + value;
+        return new ByteSource()
+        {
+            boolean consumed;
+
+            public int next()
+            {
+                if (consumed)
+                    return END_OF_STREAM;
+                consumed = true;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * A signed 64-bit value, as 8 bytes with the sign bit flipped so that negative values sort first.
+     */
+    static ByteSource of(long value)
+    {
+        return new ByteSource()
+        {
+            int pos = 0;
+
+            public int next()
+            {
+                if (pos >= 8)
+                    return END_OF_STREAM;
+                int shift = 56 - 8 * pos++;
+                return (int) (((value ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+            }
+        };
+    }
+
+    /**
+     * The {@code length} low-order bytes of the given value, most significant first and as they are, i.e. ordered as
+     * unsigned values. Callers flip the sign bit of signed values.
+     */
+    static ByteSource fixedLength(long value, int length)
+    {
+        assert length > 0 && length <= 8 : "Invalid length " + length;
+        return new ByteSource()
+        {
+            int pos = 0;
+
+            public int next()
+            {
+                if (pos >= length)
+                    return END_OF_STREAM;
+                int shift = 8 * (length - 1 - pos++);
+                return (int) ((value >>> shift) & 0xFF);
+            }
+        };
+    }
+
+    /**
+     * The bytes in {@code [position, limit)} of the given buffer, as they are. The result is only prefix-free if all
+     * values of the encoded kind have the same length.
+     */
+    static ByteSource fixedLength(ByteBuffer buffer)
+    {
+        return new ByteSource()
+        {
+            int pos = buffer.position();
+
+            public int next()
+            {
+                return pos < buffer.limit() ? buffer.get(pos++) & 0xFF : END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * The given bytes, as they are. The result is only prefix-free if all values of the encoded kind have the same
+     * length.
+     */
+    static ByteSource fixedLength(byte[] bytes)
+    {
+        return new ByteSource()
+        {
+            int pos = 0;
+
+            public int next()
+            {
+                return pos < bytes.length ? bytes[pos++] & 0xFF : END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * A variable-length value whose order is the unsigned lexicographic order of its bytes. Every 0x00 is encoded as
+     * {@code ESCAPE ESCAPED_0} and the value is followed by {@code ESCAPE TERMINATOR}, which sorts before any
+     * continuation and makes the encoding prefix-free.
+     */
+    static ByteSource of(ByteBuffer buffer)
+    {
+        return new Escaped()
+        {
+            int pos = buffer.position();
+
+            int nextUnescaped()
+            {
+                return pos < buffer.limit() ? buffer.get(pos++) & 0xFF : END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * A variable-length value whose order is the unsigned lexicographic order of its bytes, escaped as in
+     * {@link #of(ByteBuffer)}.
+     */
+    static ByteSource of(byte[] bytes)
+    {
+        return new Escaped()
+        {
+            int pos = 0;
+
+            int nextUnescaped()
+            {
+                return pos < bytes.length ? bytes[pos++] & 0xFF : END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * A string ordered as by {@link String#compareTo}, i.e. by its UTF-16 code units, each written as two big-endian
+     * bytes and escaped as in {@link #of(ByteBuffer)}.
+     */
+    static ByteSource of(String value)
+    {
+        return new Escaped()
+        {
+            int pos = 0;
+
+            int nextUnescaped()
+            {
+                if (pos >= 2 * value.length())
+                    return END_OF_STREAM;
+                char c = value.charAt(pos >> 1);
+                return (pos++ & 1) == 0 ? c >>> 8 : c & 0xFF;
+            }
+        };
+    }
+
+    /**
+     * The concatenation of the given sources. For the result to be comparable, all sources but the last must be
+     * prefix-free.
+     */
+    static ByteSource of(ByteSource... sources)
+    {
+        return new ByteSource()
+        {
+            int index = 0;
+
+            public int next()
+            {
+                while (index < sources.length)
+                {
+                    int b = sources[index].next();
+                    if (b != END_OF_STREAM)
+                        return b;
+                    ++index;
+                }
+                return END_OF_STREAM;
+            }
+        };
+    }
+
+    /**
+     * The given source with all its bytes inverted, which reverses the order of prefix-free sources.
+     */
+    static ByteSource invert(ByteSource source)
+    {
+        return () -> {
+            int b = source.next();
+            return b == END_OF_STREAM ? END_OF_STREAM : b ^ 0xFF;
+        };
+    }
+
+    /**
+     * Consumes the given source and returns its bytes.
+     */
+    static byte[] readBytes(ByteSource source)
+    {
+        byte[] bytes = new byte[16];
+        int length = 0;
+        int b;
+        while ((b = source.next()) != END_OF_STREAM)
+        {
+            if (length == bytes.length)
+                bytes = Arrays.copyOf(bytes, length * 2);
+            bytes[length++] = (byte) b;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Base for the escaped variable-length encodings: subclasses provide the raw bytes of the value.
+     */
+    abstract class Escaped implements ByteSource
+    {
+        private static final int ESCAPE_PENDING = -2;
+        private static final int DONE = -3;
+
+        // byte to return after an ESCAPE, ESCAPE_PENDING if none, DONE once the terminator has been returned
+        private int pending = ESCAPE_PENDING;
+
+        abstract int nextUnescaped();
+
+        public int next()
+        {
+            if (pending >= 0)
+            {
+                int b = pending;
+                pending = b == TERMINATOR ? DONE : ESCAPE_PENDING;
+                return b;
+            }
+            if (pending == DONE)
+                return END_OF_STREAM;
+
+            int b = nextUnescaped();
+            if (b == END_OF_STREAM)
+            {
+                pending = TERMINATOR;
+                return ESCAPE;
+            }
+            if (b == ESCAPE)
+                pending = ESCAPED_0;
+            return b;
+        }
+    }
+}
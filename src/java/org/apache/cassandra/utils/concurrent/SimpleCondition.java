@@ -18,18 +18,27 @@
 package org.apache.cassandra.utils.concurrent;
 
 import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Condition;
 
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+
 // fulfils the Condition interface without spurious wakeup problems
 // (or lost notify problems either: that is, even if you call await()
 // _after_ signal(), it will work as desired.)
 public class SimpleCondition implements Condition
 {
     private static final AtomicReferenceFieldUpdater<SimpleCondition, WaitQueue> waitingUpdater = AtomicReferenceFieldUpdater.newUpdater(SimpleCondition.class, WaitQueue.class, "waiting");
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final AtomicReferenceFieldUpdater<SimpleCondition, Queue<Listener>> listenersUpdater = (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(SimpleCondition.class, Queue.class, "listeners");
 
     private volatile WaitQueue waiting;
+    private volatile Queue<Listener> listeners;
     private volatile boolean signaled = false;
 
     public void await() throws InterruptedException
@@ -78,6 +87,34 @@ public class SimpleCondition implements Condition
         signaled = true;
         if (waiting != null)
             waiting.signalAll();
+        if (listeners != null)
+        {
+            Listener listener;
+            while ((listener = listeners.poll()) != null)
+                listener.run();
+        }
+    }
+
+    /**
+     * Runs the provided task exactly once, as soon as the condition is signaled or the timeout elapses, whichever
+     * comes first: this is the non-blocking equivalent of {@link #await(long, TimeUnit)}. The task is run by the
+     * signaling thread (or the calling one if already signaled), or by a scheduled task on timeout, so it should
+     * not block.
+     */
+    @SuppressWarnings("unchecked")
+    public void whenSignaled(Runnable task, long time, TimeUnit unit)
+    {
+        Listener listener = new Listener(task);
+        if (listeners == null)
+            listenersUpdater.compareAndSet(this, null, new ConcurrentLinkedQueue<Listener>());
+        listeners.add(listener);
+        // we may have raced with signalAll() draining the listeners
+        if (isSignaled())
+        {
+            listener.run();
+            return;
+        }
+        listener.timeout = ScheduledExecutors.scheduledFastTasks.schedule(listener, time, unit);
     }
 
     public void awaitUninterruptibly()
@@ -94,4 +131,27 @@ public class SimpleCondition implements Condition
     {
         throw new UnsupportedOperationException();
     }
+
+    private static class Listener implements Runnable
+    {
+        private final Runnable task;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        private Listener(Runnable task)
+        {
+            this.task = task;
+        }
+
+        public void run()
+        {
+            if (!done.compareAndSet(false, true))
+                return;
+
+            ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null)
+                timeout.cancel(false);
+            task.run();
+        }
+    }
 }
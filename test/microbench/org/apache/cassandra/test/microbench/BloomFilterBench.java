@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.db.CachedHashDecoratedKey;
+import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FilterFactory;
+import org.apache.cassandra.utils.IFilter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares lookups in classic and blocked bloom filters that are larger than the CPU caches, with keys whose hashes
+ * are cached so that hashing does not dominate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class BloomFilterBench
+{
+    private static final int PROBES = 1 << 16;
+
+    @Param({ "classic", "blocked" })
+    String type;
+
+    @Param({ "0.01", "0.1" })
+    double fpChance;
+
+    @Param({ "10000000" })
+    int elements;
+
+    private IFilter filter;
+    private IFilter.FilterKey[] present;
+    private IFilter.FilterKey[] absent;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        filter = FilterFactory.getFilter(elements, fpChance, true, false, type.equals("blocked"));
+        Random random = new Random(42);
+        present = new IFilter.FilterKey[PROBES];
+        for (int i = 0; i < elements; i++)
+        {
+            IFilter.FilterKey key = key(random.nextLong());
+            filter.add(key);
+            if (i < PROBES)
+                present[i] = key;
+        }
+        absent = new IFilter.FilterKey[PROBES];
+        for (int i = 0; i < PROBES; i++)
+            absent[i] = key(random.nextLong());
+    }
+
+    private static IFilter.FilterKey key(long value)
+    {
+        CachedHashDecoratedKey key = new CachedHashDecoratedKey(new LongToken(value), ByteBufferUtil.bytes(value));
+        key.filterHash(new long[2]); // caches the hash
+        return key;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        filter.close();
+    }
+
+    @Benchmark
+    public boolean lookupPresent()
+    {
+        return filter.isPresent(present[index++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean lookupAbsent()
+    {
+        return filter.isPresent(absent[index++ & (PROBES - 1)]);
+    }
+}
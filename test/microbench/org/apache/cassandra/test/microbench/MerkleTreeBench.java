@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.MerkleTree;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares on heap and off heap merkle trees when comparing, hashing and serializing fully validated trees, as
+ * done by the repair coordinator once it has received the trees of all replicas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class MerkleTreeBench
+{
+    @Param({ "false", "true" })
+    boolean offHeap;
+
+    @Param({ "15", "18" })
+    int depth;
+
+    // the fraction of leaves that differ between the two trees
+    @Param({ "0.001" })
+    double mismatches;
+
+    private MerkleTree left;
+    private MerkleTree right;
+    private Range<Token> subRange;
+    private DataOutputBuffer out;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        IPartitioner partitioner = Murmur3Partitioner.instance;
+        Range<Token> fullRange = new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken());
+        left = new MerkleTree(partitioner, fullRange, MerkleTree.RECOMMENDED_DEPTH, 1L << depth);
+        right = new MerkleTree(partitioner, fullRange, MerkleTree.RECOMMENDED_DEPTH, 1L << depth);
+        left.init();
+        right.init();
+
+        Random random = new Random(42);
+        MerkleTree.TreeRangeIterator rightRanges = right.invalids();
+        for (MerkleTree.TreeRange range : left.invalids())
+        {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            range.addHash(new MerkleTree.RowHash(range.right, hash, 100));
+            if (random.nextDouble() < mismatches)
+            {
+                hash = new byte[32];
+                random.nextBytes(hash);
+            }
+            rightRanges.next().addHash(new MerkleTree.RowHash(range.right, hash, 100));
+        }
+
+        // an inner node a few levels below the root
+        Token token = partitioner.midpoint(fullRange.left, fullRange.right);
+        for (int i = 0; i < 4; i++)
+            token = partitioner.midpoint(fullRange.left, token);
+        subRange = new Range<>(fullRange.left, token);
+
+        if (offHeap)
+        {
+            left.tryMoveOffHeap();
+            right.tryMoveOffHeap();
+        }
+        out = new DataOutputBuffer();
+    }
+
+    @Benchmark
+    public List<MerkleTree.TreeRange> difference()
+    {
+        return MerkleTree.difference(left, right);
+    }
+
+    @Benchmark
+    public byte[] hashRange()
+    {
+        return left.hash(subRange);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException
+    {
+        out.clear();
+        MerkleTree.serializer.serialize(left, out, MessagingService.current_version);
+        return out.getLength();
+    }
+}
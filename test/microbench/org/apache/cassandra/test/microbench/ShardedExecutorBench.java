@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.test.microbench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.concurrent.LocalAwareExecutorService;
+import org.apache.cassandra.concurrent.ShardedExecutor;
+import org.apache.cassandra.concurrent.ShardedTask;
+import org.apache.cassandra.concurrent.SharedExecutorPool;
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.FBUtilities;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the latency of small keyed read and write tasks on the shared pool (SEP) and on the thread-per-core
+ * {@link ShardedExecutor}, where all the tasks of a partition run on the same thread.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512M")
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardedExecutorBench
+{
+    static
+    {
+        DatabaseDescriptor.clientInitialization(false);
+        // Partitioner is not set in client mode.
+        if (DatabaseDescriptor.getPartitioner() == null)
+            DatabaseDescriptor.setPartitionerUnsafe(Murmur3Partitioner.instance);
+    }
+
+    @Param({"sep", "sharded"})
+    private String executorType = "sep";
+
+    @Param({"1000", "100000"})
+    private int partitionCount = 1000;
+
+    // percentage of tasks updating their partition, the others reading it
+    @Param({"10", "50"})
+    private int writePercent = 10;
+
+    private LocalAwareExecutorService executor;
+    private Partition[] partitions;
+
+    private static class Partition
+    {
+        final Token token;
+        final long[] cells = new long[64];
+
+        Partition(Token token)
+        {
+            this.token = token;
+        }
+    }
+
+    private static class Task implements Runnable, ShardedTask
+    {
+        final Partition partition;
+        final boolean write;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        Task(Partition partition, boolean write)
+        {
+            this.partition = partition;
+            this.write = write;
+        }
+
+        public Token shardToken()
+        {
+            return partition.token;
+        }
+
+        public void run()
+        {
+            long sum = 0;
+            // uncontended when sharded, as a partition is only ever accessed by its shard thread
+            synchronized (partition)
+            {
+                for (int i = 0; i < partition.cells.length; i++)
+                {
+                    if (write)
+                        partition.cells[i]++;
+                    sum += partition.cells[i];
+                }
+            }
+            result.complete(sum);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        executor = executorType.equals("sep")
+                   ? SharedExecutorPool.SHARED.newExecutor(FBUtilities.getAvailableProcessors(), Integer.MAX_VALUE, "request", "BenchStage")
+                   : ShardedExecutor.create(Stage.READ);
+
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++)
+            partitions[i] = new Partition(Murmur3Partitioner.instance.getToken(ByteBuffer.wrap(Integer.toString(i).getBytes())));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws InterruptedException
+    {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public long request() throws Exception
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Task task = new Task(partitions[random.nextInt(partitionCount)], random.nextInt(100) < writePercent);
+        executor.execute(task);
+        return task.result.get();
+    }
+}
@@ -36,7 +36,7 @@ import org.apache.cassandra.concurrent.NamedThreadFactory;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.utils.Pair;
 
-import com.googlecode.concurrentlinkedhashmap.Weighers;
+import com.github.benmanes.caffeine.cache.Weigher;
 
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.db.*;
@@ -147,12 +147,57 @@ public class CacheProviderTest
     @Test
     public void testSerializingCache() throws InterruptedException
     {
-        ICache<MeasureableString, IRowCacheEntry> cache = SerializingCache.create(CAPACITY, Weighers.<RefCountedMemory>singleton(), new SerializingCacheProvider.RowCacheSerializer());
+        ICache<MeasureableString, IRowCacheEntry> cache = SerializingCache.create(CAPACITY, Weigher.<MeasureableString, RefCountedMemory>singletonWeigher(), new SerializingCacheProvider.RowCacheSerializer());
         CachedBTreePartition partition = createPartition();
         simpleCase(partition, cache);
         concurrentCase(partition, cache);
     }
 
+    @Test
+    public void testCaffeineCache() throws InterruptedException
+    {
+        ICache<MeasureableString, IRowCacheEntry> cache = CaffeineCache.create(CAPACITY, Weigher.<MeasureableString, IRowCacheEntry>singletonWeigher());
+        CachedBTreePartition partition = createPartition();
+        simpleCase(partition, cache);
+        concurrentCase(partition, cache);
+    }
+
+    @Test
+    public void testCaffeineCacheScanResistance()
+    {
+        ICache<MeasureableString, IRowCacheEntry> cache = CaffeineCache.create(CAPACITY * 25, Weigher.<MeasureableString, IRowCacheEntry>singletonWeigher());
+        CachedBTreePartition partition = createPartition();
+
+        List<MeasureableString> hot = new ArrayList<>();
+        for (int i = 0; i < CAPACITY * 10; i++)
+        {
+            hot.add(new MeasureableString("hot" + i));
+            cache.put(hot.get(i), partition);
+        }
+
+        // a scan of keys read only once, interleaved with reads of the hot keys: as more than the capacity of the
+        // cache is read between two reads of the same hot key, an LRU cache would have evicted all of them
+        for (int i = 0; i < CAPACITY * 2500; i++)
+        {
+            MeasureableString key = new MeasureableString("scan" + i);
+            if (cache.get(key) == null)
+                cache.put(key, partition);
+            if (i % 2 == 0)
+            {
+                MeasureableString hotKey = hot.get((i / 2) % hot.size());
+                if (cache.get(hotKey) == null)
+                    cache.put(hotKey, partition);
+            }
+        }
+
+        int hits = 0;
+        for (MeasureableString key : hot)
+            if (cache.containsKey(key))
+                hits++;
+        assertTrue("only " + hits + " of the hot keys survived the scan", hits > hot.size() / 2);
+        assertEquals(CAPACITY * 25, cache.weightedSize());
+    }
+
     @Test
     public void testKeys()
     {
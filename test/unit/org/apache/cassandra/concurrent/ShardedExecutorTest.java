@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner.LongToken;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedExecutorTest
+{
+    private static final int SHARDS = 4;
+
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    private static class Task implements Runnable, ShardedTask
+    {
+        final Token token;
+        final Runnable body;
+
+        Task(Token token, Runnable body)
+        {
+            this.token = token;
+            this.body = body;
+        }
+
+        public Token shardToken()
+        {
+            return token;
+        }
+
+        public void run()
+        {
+            body.run();
+        }
+    }
+
+    @Test
+    public void testTokensAreSplitInContiguousRanges()
+    {
+        ShardedExecutor.Shards shards = new ShardedExecutor.Shards("TestShards", SHARDS, Murmur3Partitioner.instance);
+        List<ShardedExecutor.Shard> seen = new ArrayList<>();
+        long step = Long.MAX_VALUE / 64;
+        for (long t = Long.MIN_VALUE + 1; t < Long.MAX_VALUE - step; t += step)
+        {
+            ShardedExecutor.Shard shard = shards.shardFor(new LongToken(t));
+            if (seen.isEmpty() || seen.get(seen.size() - 1) != shard)
+                seen.add(shard);
+        }
+        ShardedExecutor.Shard last = shards.shardFor(new LongToken(Long.MAX_VALUE));
+        if (seen.get(seen.size() - 1) != last)
+            seen.add(last);
+
+        // going around the ring visits every shard once
+        assertEquals(SHARDS, seen.size());
+        assertEquals(SHARDS, seen.stream().distinct().count());
+    }
+
+    @Test
+    public void testTasksRunOnTheShardOwningTheirToken() throws Throwable
+    {
+        ShardedExecutor.Shards shards = new ShardedExecutor.Shards("TestShards", SHARDS, ByteOrderedPartitioner.instance);
+        ShardedExecutor executor = new ShardedExecutor(shards, "ShardedExecutorTest", "TestStage1");
+        ConcurrentMap<Token, Thread> threads = new ConcurrentHashMap<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        int tasks = 10000;
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++)
+        {
+            Token token = ByteOrderedPartitioner.instance.getToken(ByteBufferUtil.bytes(i % 100));
+            executor.execute(new Task(token, () -> {
+                Thread previous = threads.putIfAbsent(token, Thread.currentThread());
+                if ((previous != null && previous != Thread.currentThread()) || Thread.currentThread() != shards.shardFor(token).thread)
+                    failed.set(true);
+                done.countDown();
+            }));
+        }
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertFalse(failed.get());
+        assertTrue(threads.values().stream().distinct().count() > 1);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(tasks, executor.getCompletedTasks());
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    @Test
+    public void testTasksOfAShardRunInOrder() throws Throwable
+    {
+        ShardedExecutor.Shards shards = new ShardedExecutor.Shards("TestShards", SHARDS, Murmur3Partitioner.instance);
+        ShardedExecutor executor = new ShardedExecutor(shards, "ShardedExecutorTest", "TestStage2");
+        Token token = new LongToken(42);
+        List<Integer> order = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++)
+        {
+            int value = i;
+            executor.execute(new Task(token, () -> order.add(value)));
+        }
+        executor.execute(new Task(token, done::countDown));
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, (int) order.get(i));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testMaybeExecuteImmediatelyRunsInlineOnOwningShard() throws Throwable
+    {
+        ShardedExecutor.Shards shards = new ShardedExecutor.Shards("TestShards", SHARDS, Murmur3Partitioner.instance);
+        ShardedExecutor reads = new ShardedExecutor(shards, "ShardedExecutorTest", "TestStage3");
+        ShardedExecutor writes = new ShardedExecutor(shards, "ShardedExecutorTest", "TestStage4");
+        Token token = new LongToken(-42);
+        Thread owner = shards.shardFor(token).thread;
+        AtomicBoolean inline = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        reads.execute(new Task(token, () -> {
+            // another executor sharing the shards runs the task right away, on the current thread
+            writes.maybeExecuteImmediately(new Task(token, () -> inline.set(Thread.currentThread() == owner)));
+            done.countDown();
+        }));
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+        assertTrue(inline.get());
+        assertEquals(1, writes.getCompletedTasks());
+
+        // from any other thread, the task is queued on the owning shard
+        CountDownLatch queued = new CountDownLatch(1);
+        Thread[] ranOn = new Thread[1];
+        writes.maybeExecuteImmediately(new Task(token, () -> { ranOn[0] = Thread.currentThread(); queued.countDown(); }));
+        assertTrue(queued.await(1, TimeUnit.MINUTES));
+        assertSame(owner, ranOn[0]);
+        reads.shutdown();
+        writes.shutdown();
+    }
+}
@@ -70,6 +70,10 @@ public class DatabaseDescriptorRefTest
     "org.apache.cassandra.config.Config$DiskOptimizationStrategy",
     "org.apache.cassandra.config.Config$InternodeCompression",
     "org.apache.cassandra.config.Config$MemtableAllocationType",
+    "org.apache.cassandra.config.Config$MemtablePartitionMapType",
+    "org.apache.cassandra.config.Config$DynamicSnitchType",
+    "org.apache.cassandra.config.Config$SSTablePartitionIndexType",
+    "org.apache.cassandra.config.Config$BloomFilterType",
     "org.apache.cassandra.config.Config$UserFunctionTimeoutPolicy",
     "org.apache.cassandra.config.RequestSchedulerOptions",
     "org.apache.cassandra.config.ParameterizedClass",
@@ -82,6 +86,7 @@ public class DatabaseDescriptorRefTest
     "org.apache.cassandra.config.YamlConfigurationLoader$PropertiesChecker$1",
     "org.apache.cassandra.config.YamlConfigurationLoader$CustomConstructor",
     "org.apache.cassandra.config.TransparentDataEncryptionOptions",
+    "org.apache.cassandra.db.compaction.OperationType",
     "org.apache.cassandra.dht.IPartitioner",
     "org.apache.cassandra.distributed.impl.InstanceClassLoader",
     "org.apache.cassandra.distributed.impl.InstanceConfig",
@@ -30,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +39,7 @@ import org.apache.cassandra.concurrent.NamedThreadFactory;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.ParameterizedClass;
+import org.apache.cassandra.db.partitions.FilteredPartition;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.exceptions.ConfigurationException;
@@ -222,6 +224,51 @@ public class RecoveryManagerTest
         Assert.assertTrue(Util.sameContent(upd2, Util.getOnlyPartitionUnfiltered(Util.cmd(keyspace2.getColumnFamilyStore(CF_STANDARD3), dk).build()).unfilteredIterator()));
     }
 
+    @Test
+    public void testRecoverMultipleSegmentsConcurrently() throws IOException
+    {
+        int originalReaders = CommitLogReplayer.REPLAY_READERS;
+        long originalMaxOutstanding = CommitLogReplayer.MAX_OUTSTANDING_REPLAY_BYTES;
+        CommitLogReplayer.REPLAY_READERS = 3;
+        CommitLogReplayer.MAX_OUTSTANDING_REPLAY_BYTES = 1 << 16;
+        try
+        {
+            CommitLog.instance.resetUnsafe(true);
+            ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+            // enough to span several segments, but not to trigger a flush; the second round overwrites the first one in later segments
+            for (int round = 0; round < 2; round++)
+            {
+                for (int i = 0; i < 800; i++)
+                {
+                    // incompressible values, so that compression does not spare segments
+                    new RowUpdateBuilder(cfs.metadata, round, "key" + (i % 100))
+                        .clustering("cc" + i)
+                        .add("val", round + RandomStringUtils.randomAlphanumeric(10000))
+                        .build()
+                        .apply();
+                }
+            }
+            Assert.assertTrue(CommitLog.instance.getActiveSegmentNames().size() > 2);
+
+            cfs.clearUnsafe();
+            Assert.assertTrue(CommitLog.instance.resetUnsafe(false) >= 1600);
+
+            assertEquals(100, Util.getAll(Util.cmd(cfs).build()).size());
+            ColumnDefinition valCol = cfs.metadata.getColumnDefinition(ByteBufferUtil.bytes("val"));
+            for (FilteredPartition partition : Util.getAll(Util.cmd(cfs).build()))
+            {
+                assertEquals(8, partition.rowCount());
+                for (Row row : partition)
+                    Assert.assertTrue(ByteBufferUtil.string(row.getCell(valCol).value()).startsWith("1"));
+            }
+        }
+        finally
+        {
+            CommitLogReplayer.REPLAY_READERS = originalReaders;
+            CommitLogReplayer.MAX_OUTSTANDING_REPLAY_BYTES = originalMaxOutstanding;
+        }
+    }
+
     @Test
     public void testRecoverCounter() throws IOException
     {
@@ -20,9 +20,13 @@ package org.apache.cassandra.db;
 
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 import com.google.common.collect.Lists;
@@ -33,13 +37,17 @@ import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.Util;
 import org.apache.cassandra.cache.RowCacheKey;
 import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
 import org.apache.cassandra.db.marshal.AsciiType;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.db.compaction.CompactionManager;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.marshal.IntegerType;
+import org.apache.cassandra.db.partitions.CachedBTreePartition;
 import org.apache.cassandra.db.partitions.CachedPartition;
+import org.apache.cassandra.db.partitions.FilteredPartition;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.dht.Bounds;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.exceptions.ConfigurationException;
@@ -51,6 +59,7 @@ import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
 
 import static org.junit.Assert.*;
 
@@ -473,6 +482,117 @@ public class RowCacheTest
         cachedStore.truncateBlocking();
     }
 
+    @Test
+    public void testRowCacheMergeUpdates() throws CharacterCodingException
+    {
+        CompactionManager.instance.disableAutoCompaction();
+        DatabaseDescriptor.setRowCacheMergeUpdates(true);
+        try
+        {
+            Keyspace keyspace = Keyspace.open(KEYSPACE_CACHED);
+            ColumnFamilyStore cachedStore  = keyspace.getColumnFamilyStore(CF_CACHEDINT);
+            CacheService.instance.invalidateRowCache();
+            CacheService.instance.setRowCacheCapacityInMB(1);
+
+            ByteBuffer key = ByteBufferUtil.bytes("mergekey");
+            DecoratedKey dk = cachedStore.decorateKey(key);
+            RowCacheKey rck = new RowCacheKey(cachedStore.metadata.ksAndCFName, dk);
+            // rows 1000 to 1199, only the first 100 of them are cached
+            for (int i = 1000; i < 1200; i++)
+                writeRow(cachedStore, key, i);
+
+            Util.getAll(Util.cmd(cachedStore, dk).withLimit(10).build());
+            assertCachedRows(rck, range(1000, 1100));
+
+            // the writes to the cached head are merged, and the cached head is trimmed
+            long startRowCacheHits = cachedStore.metric.rowCacheHit.getCount();
+            writeRow(cachedStore, key, 100);
+            writeRow(cachedStore, key, 1050);
+            List<Integer> expected = new ArrayList<>();
+            expected.add(100);
+            expected.addAll(range(1000, 1099));
+            assertCachedRows(rck, expected);
+            assertEquals(Arrays.asList(100, 1000, 1001), readRows(cachedStore, dk, 3));
+            assertEquals(startRowCacheHits + 1, cachedStore.metric.rowCacheHit.getCount());
+
+            // the writes after the cached head are ignored, but not lost
+            writeRow(cachedStore, key, 1500);
+            assertCachedRows(rck, expected);
+            assertEquals(202, readRows(cachedStore, dk, 1000).size());
+            assertTrue(readRows(cachedStore, dk, 1000).contains(1500));
+
+            // a deletion leaving less than rows_per_partition rows in the cached head invalidates it
+            RowUpdateBuilder.deleteRow(cachedStore.metadata, System.currentTimeMillis(), key, String.valueOf(1010)).applyUnsafe();
+            assertNull(CacheService.instance.rowCache.getInternal(rck));
+            assertEquals(Arrays.asList(100, 1000, 1001), readRows(cachedStore, dk, 3));
+            expected = new ArrayList<>();
+            expected.add(100);
+            expected.addAll(range(1000, 1010));
+            expected.addAll(range(1011, 1100));
+            assertCachedRows(rck, expected);
+
+            // a partition deletion can be merged into a whole cached partition
+            CacheService.instance.invalidateRowCache();
+            cachedStore.truncateBlocking();
+            for (int i = 1000; i < 1010; i++)
+                writeRow(cachedStore, key, i);
+            assertEquals(10, readRows(cachedStore, dk, 10).size());
+            assertCachedRows(rck, range(1000, 1010));
+            long deletionTimestamp = System.currentTimeMillis() + 1000;
+            new Mutation(PartitionUpdate.fullPartitionDelete(cachedStore.metadata, dk, deletionTimestamp, FBUtilities.nowInSeconds())).applyUnsafe();
+            assertCachedRows(rck, Collections.emptyList());
+            writeRow(cachedStore, key, 1005, deletionTimestamp + 1);
+            assertCachedRows(rck, Arrays.asList(1005));
+            assertEquals(Arrays.asList(1005), readRows(cachedStore, dk, 10));
+        }
+        finally
+        {
+            DatabaseDescriptor.setRowCacheMergeUpdates(false);
+            Keyspace.open(KEYSPACE_CACHED).getColumnFamilyStore(CF_CACHEDINT).truncateBlocking();
+        }
+    }
+
+    private static void writeRow(ColumnFamilyStore cfs, ByteBuffer key, int i)
+    {
+        writeRow(cfs, key, i, System.currentTimeMillis());
+    }
+
+    private static void writeRow(ColumnFamilyStore cfs, ByteBuffer key, int i, long timestamp)
+    {
+        new RowUpdateBuilder(cfs.metadata, timestamp, key).clustering(String.valueOf(i))
+                                                         .add("val", ByteBufferUtil.bytes("val" + i))
+                                                         .build()
+                                                         .applyUnsafe();
+    }
+
+    private static List<Integer> range(int from, int to)
+    {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            range.add(i);
+        return range;
+    }
+
+    private static List<Integer> readRows(ColumnFamilyStore cfs, DecoratedKey dk, int limit) throws CharacterCodingException
+    {
+        List<Integer> rows = new ArrayList<>();
+        for (FilteredPartition partition : Util.getAll(Util.cmd(cfs, dk).withLimit(limit).build()))
+            for (Row row : partition)
+                rows.add(Integer.valueOf(ByteBufferUtil.string(row.clustering().get(0), StandardCharsets.US_ASCII)));
+        return rows;
+    }
+
+    private static void assertCachedRows(RowCacheKey rck, List<Integer> expected) throws CharacterCodingException
+    {
+        CachedBTreePartition cached = (CachedBTreePartition) CacheService.instance.rowCache.getInternal(rck);
+        assertNotNull(cached);
+        List<Integer> actual = new ArrayList<>();
+        for (Row row : cached)
+            if (row.hasLiveData(FBUtilities.nowInSeconds(), false))
+                actual.add(Integer.valueOf(ByteBufferUtil.string(row.clustering().get(0), StandardCharsets.US_ASCII)));
+        assertEquals(expected, actual);
+    }
+
     @Test
     public void testSSTablesPerReadHistogramWhenRowCache()
     {
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.UntypedResultSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrieMemtableTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUpTrieMemtables()
+    {
+        DatabaseDescriptor.setMemtablePartitionMapType(Config.MemtablePartitionMapType.trie);
+    }
+
+    @AfterClass
+    public static void tearDownTrieMemtables()
+    {
+        DatabaseDescriptor.setMemtablePartitionMapType(Config.MemtablePartitionMapType.skiplist);
+    }
+
+    @Test
+    public void testReadsBeforeAndAfterFlush() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k text, c int, v int, PRIMARY KEY (k, c))");
+
+        for (int i = 0; i < 500; i++)
+            for (int j = 0; j < 3; j++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", "key" + i, j, i + j);
+        // overwrites go to the existing partitions
+        for (int i = 0; i < 500; i += 2)
+            execute("UPDATE %s SET v = ? WHERE k = ? AND c = ?", -i, "key" + i, 0);
+
+        List<Object[]> inMemtable = checkAndCollect();
+        flush();
+        assertEquals(inMemtable.size(), checkAndCollect().size());
+        assertRowsIgnoringOrder(execute("SELECT k, c, v FROM %s"), inMemtable.toArray(new Object[0][]));
+    }
+
+    @Test
+    public void testSecondaryIndex() throws Throwable
+    {
+        // the index table is partitioned by the indexed values, whose type has byte-comparable representations
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int)");
+        createIndex("CREATE INDEX ON %s (v)");
+
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", i, i % 10 - 5);
+        for (int v = -5; v < 5; v++)
+            assertEquals(10, execute("SELECT k FROM %s WHERE v = ?", v).size());
+        flush();
+        for (int v = -5; v < 5; v++)
+            assertEquals(10, execute("SELECT k FROM %s WHERE v = ?", v).size());
+    }
+
+    private List<Object[]> checkAndCollect() throws Throwable
+    {
+        UntypedResultSet all = execute("SELECT k, c, v FROM %s");
+        assertEquals(1500, all.size());
+
+        List<Object[]> rows = new ArrayList<>();
+        // partition keys, in the order of the partitioner
+        List<String> keys = new ArrayList<>();
+        for (UntypedResultSet.Row row : all)
+        {
+            int c = row.getInt("c");
+            String k = row.getString("k");
+            if (keys.isEmpty() || !keys.get(keys.size() - 1).equals(k))
+                keys.add(k);
+            int i = Integer.parseInt(k.substring(3));
+            assertEquals(c == 0 && i % 2 == 0 ? -i : i + c, row.getInt("v"));
+            rows.add(row(k, c, row.getInt("v")));
+
+            assertRows(execute("SELECT v FROM %s WHERE k = ? AND c = ?", k, c), row(row.getInt("v")));
+        }
+        assertEquals(500, keys.size());
+
+        // token range queries, with both inclusive and exclusive bounds
+        for (int i = 0; i < keys.size(); i += 50)
+        {
+            int j = Math.min(i + 30, keys.size() - 1);
+            int expected = 3 * (j - i);
+            assertEquals(expected, execute("SELECT * FROM %s WHERE token(k) > token(?) AND token(k) <= token(?)", keys.get(i), keys.get(j)).size());
+            assertEquals(expected, execute("SELECT * FROM %s WHERE token(k) >= token(?) AND token(k) < token(?)", keys.get(i), keys.get(j)).size());
+        }
+        return rows;
+    }
+}
@@ -48,7 +48,8 @@ public class CommitLogTestReplayer extends CommitLogReplayer
 
     public void examineCommitLog() throws IOException
     {
-        replayFiles(new File(DatabaseDescriptor.getCommitLogLocation()).listFiles());
+        // read sequentially, as the processor is called by the reader rather than the handler
+        commitLogReader.readAllFiles(this, new File(DatabaseDescriptor.getCommitLogLocation()).listFiles());
     }
 
     private class CommitLogTestReader extends CommitLogReader
@@ -17,15 +17,25 @@
  */
 package org.apache.cassandra.db.compaction;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.CQLTester;
 import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -85,6 +95,52 @@ public class CompactionsCQLTest extends CQLTester
     }
 
 
+    @Test
+    public void testParallelSubrangeCompaction() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+        for (int i = 0; i < 3; i++)
+        {
+            for (int k = 0; k < 1000; k++)
+            {
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, i + 1, k + i);
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, 0, -i);
+            }
+            flush();
+        }
+        for (int k = 0; k < 1000; k += 10)
+            execute("DELETE FROM %s WHERE k = ?", k);
+        flush();
+
+        DatabaseDescriptor.setParallelCompactionSubranges(4);
+        DatabaseDescriptor.setParallelCompactionMinSizeInMB(0);
+        try
+        {
+            LifecycleTransaction txn = cfs.getTracker().tryModify(cfs.getLiveSSTables(), OperationType.COMPACTION);
+            CompactionTask task = new CompactionTask(cfs, txn, FBUtilities.nowInSeconds());
+            assertEquals(4, task.getParallelSubranges(txn.originals()).size());
+            task.execute(null);
+        }
+        finally
+        {
+            DatabaseDescriptor.setParallelCompactionSubranges(1);
+            DatabaseDescriptor.setParallelCompactionMinSizeInMB(10240);
+        }
+
+        // each sub-range is written to its own sstables, which don't overlap
+        List<SSTableReader> sstables = new ArrayList<>(cfs.getLiveSSTables());
+        assertTrue(sstables.size() > 1);
+        sstables.sort((a, b) -> a.first.compareTo(b.first));
+        for (int i = 1; i < sstables.size(); i++)
+            assertTrue(sstables.get(i - 1).last.compareTo(sstables.get(i).first) < 0);
+
+        assertEquals(900 * 4, execute("SELECT * FROM %s").size());
+        assertRows(execute("SELECT c, v FROM %s WHERE k = ?", 1), row(0, -2), row(1, 1), row(2, 2), row(3, 3));
+        assertEmpty(execute("SELECT * FROM %s WHERE k = ?", 990));
+    }
+
     @Test
     public void testTriggerNoMinorCompactionSTCSDisabled() throws Throwable
     {
@@ -238,6 +294,61 @@ public class CompactionsCQLTest extends CQLTester
         return found;
     }
 
+    @Test
+    public void testDropBehind() throws Throwable
+    {
+        DatabaseDescriptor.setDropBehindOperationTypes(EnumSet.of(OperationType.FLUSH, OperationType.COMPACTION, OperationType.VALIDATION));
+        try
+        {
+            for (String compression : new String[]{ "{'enabled':false}", "{'class':'LZ4Compressor', 'chunk_length_in_kb':4}" })
+            {
+                createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c)) WITH compression = " + compression);
+                ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+                cfs.disableAutoCompaction();
+                for (int s = 0; s < 3; s++)
+                {
+                    for (int k = 0; k < 50; k++)
+                        for (int c = 0; c < 20; c++)
+                            execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, c, "value" + s + '-' + k + '-' + c);
+                    flush();
+                }
+
+                try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(cfs.getLiveSSTables(), OperationType.VALIDATION))
+                {
+                    int partitions = 0;
+                    for (ISSTableScanner scanner : scanners.scanners)
+                    {
+                        while (scanner.hasNext())
+                        {
+                            try (UnfilteredRowIterator partition = scanner.next())
+                            {
+                                int rows = 0;
+                                while (partition.hasNext())
+                                {
+                                    partition.next();
+                                    rows++;
+                                }
+                                assertEquals(20, rows);
+                            }
+                            partitions++;
+                        }
+                    }
+                    assertEquals(3 * 50, partitions);
+                }
+
+                cfs.forceMajorCompaction();
+                assertEquals(1, cfs.getLiveSSTables().size());
+                assertEquals(50 * 20, execute("SELECT * FROM %s").size());
+                for (int k = 0; k < 50; k += 7)
+                    assertRows(execute("SELECT v FROM %s WHERE k = ? AND c = ?", k, 3), row("value2-" + k + "-3"));
+            }
+        }
+        finally
+        {
+            DatabaseDescriptor.setDropBehindOperationTypes(EnumSet.noneOf(OperationType.class));
+        }
+    }
+
     private void waitForMinor(String keyspace, String cf, long maxWaitTime, boolean shouldFind) throws Throwable
     {
         long startTime = System.currentTimeMillis();
@@ -23,6 +23,9 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -32,6 +35,7 @@ import org.apache.cassandra.OrderedJUnit4ClassRunner;
 import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.Util;
 import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.ColumnIdentifier;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.columniterator.SSTableIterator;
@@ -140,6 +144,67 @@ public class CompactionsTest
         assertMaxTimestamp(store, timestamp);
     }
 
+    @Test
+    public void testPrioritizeReclaimableCompactions() throws Exception
+    {
+        Map<String, String> compactionOptions = new HashMap<>();
+        compactionOptions.put("tombstone_compaction_interval", "1");
+
+        Keyspace keyspace = Keyspace.open(KEYSPACE1);
+        ColumnFamilyStore store = keyspace.getColumnFamilyStore(CF_STANDARD1);
+        store.clearUnsafe();
+
+        MigrationManager.announceColumnFamilyUpdate(store.metadata.params(TableParams.builder(store.metadata.params).gcGraceSeconds(1).compaction(CompactionParams.scts(compactionOptions)).build()), true);
+        store.reload();
+        store.disableAutoCompaction();
+
+        // two sstables with expiring data over overlapping token ranges, the first one with older data
+        populate(KEYSPACE1, CF_STANDARD1, 0, 9, 3); //ttl=3s
+        store.forceBlockingFlush();
+        SSTableReader older = Iterables.getOnlyElement(store.getLiveSSTables());
+        TimeUnit.MILLISECONDS.sleep(10);
+        populate(KEYSPACE1, CF_STANDARD1, 10, 19, 3); //ttl=3s
+        store.forceBlockingFlush();
+        SSTableReader newer = Iterables.getOnlyElement(Sets.difference(store.getLiveSSTables(), Collections.singleton(older)));
+
+        // wait enough for the data to expire and be purgeable
+        TimeUnit.SECONDS.sleep(5);
+
+        // the tombstones of the newer sstable shadow the data of the older one that it overlaps, but not the other way around
+        int gcBefore = store.gcBefore(FBUtilities.nowInSeconds());
+        AbstractCompactionStrategy strategy = store.getCompactionStrategyManager().getCompactionStrategyFor(older);
+        assertTrue(strategy.getReclaimableBytes(older, gcBefore) > 0);
+        assertEquals(0, strategy.getReclaimableBytes(newer, gcBefore));
+        assertEquals(Collections.singleton(older), CompactionController.getShadowedOverlaps(newer, Collections.singleton(older)));
+        assertTrue(CompactionController.getShadowedOverlaps(older, Collections.singleton(newer)).isEmpty());
+
+        // while the size tiered strategy doesn't compact either of them, as they overlap; the strategies are
+        // enabled without submitting a background compaction, which could take the task checked below
+        store.getCompactionStrategyManager().enable();
+        assertNull(store.getCompactionStrategyManager().getNextBackgroundTask(gcBefore));
+
+        DatabaseDescriptor.setPrioritizeReclaimableCompactions(true);
+        try
+        {
+            AbstractCompactionTask task = store.getCompactionStrategyManager().getNextBackgroundTask(gcBefore);
+            assertNotNull(task);
+            assertEquals(OperationType.TOMBSTONE_COMPACTION, task.compactionType);
+            assertEquals(Collections.singleton(older), task.transaction.originals());
+            long originalSize = older.uncompressedLength();
+            task.execute(null);
+
+            assertEquals(2, store.getLiveSSTables().size());
+            assertTrue(store.getLiveSSTables().contains(newer));
+            SSTableReader compacted = Iterables.getOnlyElement(Sets.difference(store.getLiveSSTables(), Collections.singleton(newer)));
+            assertTrue("should be less than " + originalSize + ", but was " + compacted.uncompressedLength(), compacted.uncompressedLength() < originalSize);
+        }
+        finally
+        {
+            DatabaseDescriptor.setPrioritizeReclaimableCompactions(false);
+            store.disableAutoCompaction();
+        }
+    }
+
     public static long populate(String ks, String cf, int startRowKey, int endRowKey, int ttl)
     {
         long timestamp = System.currentTimeMillis();
@@ -480,4 +480,69 @@ public class LeveledCompactionStrategyTest
             lastMaxTimeStamp = sstable.getMaxTimestamp();
         }
     }
+
+    @Test
+    public void testConcurrentDisjointL0Compactions() throws Exception
+    {
+        byte [] b = new byte[100 * 1024];
+        new Random().nextBytes(b);
+        ByteBuffer value = ByteBuffer.wrap(b);
+        cfs.disableAutoCompaction();
+        LeveledCompactionStrategy strategy = (LeveledCompactionStrategy) cfs.getCompactionStrategyManager().getStrategies().get(1).get(0);
+
+        // a pair of overlapping L0 sstables worth more than an sstable is promoted to L1, and another pair flushed
+        // over a disjoint token span while the first one is compacting can be promoted concurrently
+        writeOverlappingPair(cfs, "a", value);
+        AbstractCompactionTask first = strategy.getNextBackgroundTask(FBUtilities.nowInSeconds());
+        writeOverlappingPair(cfs, "b", value);
+        AbstractCompactionTask second = strategy.getNextBackgroundTask(FBUtilities.nowInSeconds());
+        assertTrue(first instanceof LeveledCompactionTask && second instanceof LeveledCompactionTask);
+        assertEquals(2, first.transaction.originals().size());
+        assertEquals(2, second.transaction.originals().size());
+        assertEquals(1, ((LeveledCompactionTask) first).getLevel());
+        assertEquals(1, ((LeveledCompactionTask) second).getLevel());
+        assertTrue(Collections.disjoint(keyPrefixes(first.transaction.originals()), keyPrefixes(second.transaction.originals())));
+        assertEquals(2, strategy.manifest.reservedCount());
+
+        // but not a pair overlapping the span of a running compaction
+        writeOverlappingPair(cfs, "a", value);
+        Assert.assertNull(strategy.getNextBackgroundTask(FBUtilities.nowInSeconds()));
+
+        first.execute(null);
+        second.execute(null);
+        assertEquals(0, strategy.manifest.reservedCount());
+
+        List<SSTableReader> l1 = new ArrayList<>(strategy.manifest.getLevel(1));
+        Collections.sort(l1, SSTableReader.sstableComparator);
+        for (int i = 1; i < l1.size(); i++)
+            assertTrue(l1.get(i - 1).last.compareTo(l1.get(i).first) < 0);
+        assertEquals(2, strategy.manifest.getLevel(0).size());
+        assertEquals(16, Util.getAll(Util.cmd(cfs).build()).size());
+    }
+
+    private static void writeOverlappingPair(ColumnFamilyStore cfs, String prefix, ByteBuffer value)
+    {
+        for (int flush = 0; flush < 2; flush++)
+        {
+            for (int r = flush; r < 8; r += 2)
+            {
+                UpdateBuilder update = UpdateBuilder.create(cfs.metadata, prefix + r);
+                for (int c = 0; c < 2; c++)
+                    update.newRow("column" + c).add("val", value);
+                update.applyUnsafe();
+            }
+            cfs.forceBlockingFlush();
+        }
+    }
+
+    private static List<Character> keyPrefixes(Collection<SSTableReader> sstables)
+    {
+        List<Character> prefixes = new ArrayList<>();
+        for (SSTableReader sstable : sstables)
+        {
+            prefixes.add((char) sstable.first.getKey().get(0));
+            prefixes.add((char) sstable.last.getKey().get(0));
+        }
+        return prefixes;
+    }
 }
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.UpdateBuilder;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.CompactionParams;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UnifiedCompactionStrategyTest
+{
+    private static final String KEYSPACE1 = "UnifiedCompactionStrategyTest";
+    private static final String CF_TIERED = "Tiered";
+    private static final String CF_LEVELED = "Leveled";
+    private static final String CF_SHARDED = "Sharded";
+
+    @BeforeClass
+    public static void defineSchema() throws ConfigurationException
+    {
+        DatabaseDescriptor.daemonInitialization();
+        StorageService.instance.setPartitionerUnsafe(Murmur3Partitioner.instance);
+        SchemaLoader.prepareServer();
+
+        SchemaLoader.createKeyspace(KEYSPACE1,
+                                    KeyspaceParams.simple(1),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_TIERED)
+                                                .compaction(ucs(2, 1)),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_LEVELED)
+                                                .compaction(ucs(-8, 1)),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_SHARDED)
+                                                .compaction(ucs(2, 4)));
+    }
+
+    private static CompactionParams ucs(int scalingParameter, int baseShardCount)
+    {
+        Map<String, String> options = new HashMap<>();
+        options.put(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, Integer.toString(scalingParameter));
+        options.put(UnifiedCompactionStrategyOptions.BASE_SHARD_COUNT_KEY, Integer.toString(baseShardCount));
+        options.put(UnifiedCompactionStrategyOptions.MIN_SSTABLE_SIZE_KEY, "1");
+        options.put(UnifiedCompactionStrategyOptions.TARGET_SSTABLE_SIZE_KEY, "1");
+        return CompactionParams.create(UnifiedCompactionStrategy.class, options);
+    }
+
+    @Test
+    public void testScalingParameter()
+    {
+        UnifiedCompactionStrategyOptions leveled = options(-8);
+        assertEquals(10, leveled.fanout);
+        assertEquals(2, leveled.threshold);
+        UnifiedCompactionStrategyOptions middle = options(0);
+        assertEquals(2, middle.fanout);
+        assertEquals(2, middle.threshold);
+        UnifiedCompactionStrategyOptions tiered = options(2);
+        assertEquals(4, tiered.fanout);
+        assertEquals(4, tiered.threshold);
+    }
+
+    private static UnifiedCompactionStrategyOptions options(int scalingParameter)
+    {
+        return new UnifiedCompactionStrategyOptions(Collections.singletonMap(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY,
+                                                                             Integer.toString(scalingParameter)));
+    }
+
+    @Test
+    public void testValidateOptions()
+    {
+        assertInvalid(UnifiedCompactionStrategyOptions.SCALING_PARAMETER_KEY, "L10");
+        assertInvalid(UnifiedCompactionStrategyOptions.BASE_SHARD_COUNT_KEY, "0");
+        assertInvalid(UnifiedCompactionStrategyOptions.MIN_SSTABLE_SIZE_KEY, "2048");
+    }
+
+    private static void assertInvalid(String key, String value)
+    {
+        try
+        {
+            UnifiedCompactionStrategy.validateOptions(Collections.singletonMap(key, value));
+            fail("Expected " + key + '=' + value + " to be rejected");
+        }
+        catch (ConfigurationException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLevels()
+    {
+        UnifiedCompactionStrategy strategy = getStrategy(Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_LEVELED));
+        long mb = 1024L * 1024L;
+        assertEquals(0, strategy.getLevel(mb / 2));
+        assertEquals(0, strategy.getLevel(9 * mb));
+        assertEquals(1, strategy.getLevel(10 * mb));
+        assertEquals(1, strategy.getLevel(99 * mb));
+        assertEquals(2, strategy.getLevel(100 * mb));
+    }
+
+    @Test
+    public void testShardBoundaries()
+    {
+        List<Token> boundaries = UnifiedCompactionStrategy.getShardBoundaries(Murmur3Partitioner.instance, 4);
+        assertEquals(4, boundaries.size());
+        assertEquals(Murmur3Partitioner.instance.getMaximumToken(), boundaries.get(3));
+        Token minimum = Murmur3Partitioner.instance.getMinimumToken();
+        assertEquals(1.0, Murmur3Partitioner.instance.splitter().get().ringShare(minimum, minimum), 0.001);
+        assertEquals(0.25, Murmur3Partitioner.instance.splitter().get().ringShare(minimum, boundaries.get(0)), 0.001);
+        assertEquals(0.25, Murmur3Partitioner.instance.splitter().get().ringShare(boundaries.get(1), boundaries.get(2)), 0.001);
+    }
+
+    @Test
+    public void testTieredCompaction()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_TIERED);
+        cfs.disableAutoCompaction();
+        UnifiedCompactionStrategy strategy = getStrategy(cfs);
+
+        // overlapping sstables of the same level are only compacted once there are 4 of them
+        for (int i = 0; i < 3; i++)
+            flush(cfs, "key", 10, i);
+        assertNull(strategy.getNextBackgroundTask(FBUtilities.nowInSeconds()));
+        flush(cfs, "key", 10, 3);
+        assertCompacts(cfs, strategy, 4);
+
+        // but not if they don't overlap
+        cfs.truncateBlocking();
+        for (int i = 0; i < 4; i++)
+            flush(cfs, "single" + i, 1, i);
+        assertNull(strategy.getNextBackgroundTask(FBUtilities.nowInSeconds()));
+        cfs.truncateBlocking();
+    }
+
+    @Test
+    public void testLeveledCompaction()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_LEVELED);
+        cfs.disableAutoCompaction();
+        UnifiedCompactionStrategy strategy = getStrategy(cfs);
+
+        // overlapping sstables of the same level are compacted as soon as there are 2 of them
+        flush(cfs, "key", 10, 0);
+        assertNull(strategy.getNextBackgroundTask(FBUtilities.nowInSeconds()));
+        flush(cfs, "key", 10, 1);
+        assertCompacts(cfs, strategy, 2);
+
+        CompactionStrategyManager manager = cfs.getCompactionStrategyManager();
+        // a single leveled level is rewritten fanout / 2 times on average
+        assertEquals(5.0, manager.getEstimatedWriteAmplification(), 0.001);
+        cfs.truncateBlocking();
+    }
+
+    @Test
+    public void testShardedOutput()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_SHARDED);
+        cfs.disableAutoCompaction();
+        UnifiedCompactionStrategy strategy = getStrategy(cfs);
+
+        for (int i = 0; i < 4; i++)
+            flush(cfs, "key", 100, i);
+        AbstractCompactionTask task = strategy.getNextBackgroundTask(FBUtilities.nowInSeconds());
+        assertNotNull(task);
+        task.execute(null);
+
+        // the keys are spread over the whole ring, so each of the 4 base shards has its own sstable
+        List<Token> boundaries = UnifiedCompactionStrategy.getShardBoundaries(Murmur3Partitioner.instance, 4);
+        List<SSTableReader> sstables = new ArrayList<>(cfs.getLiveSSTables());
+        assertEquals(4, sstables.size());
+        for (SSTableReader sstable : sstables)
+            assertEquals(shard(boundaries, sstable.first.getToken()), shard(boundaries, sstable.last.getToken()));
+        cfs.truncateBlocking();
+    }
+
+    @Test
+    public void testNarrowBucketKeyEstimate()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_SHARDED);
+        cfs.disableAutoCompaction();
+        UnifiedCompactionStrategy strategy = getStrategy(cfs);
+
+        // keys of the first of the 4 shards only
+        List<Token> boundaries = UnifiedCompactionStrategy.getShardBoundaries(Murmur3Partitioner.instance, 4);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < 100; i++)
+        {
+            String key = "narrow" + i;
+            if (shard(boundaries, cfs.getPartitioner().getToken(ByteBufferUtil.bytes(key))) == 0)
+                keys.add(key);
+        }
+        for (int i = 0; i < 4; i++)
+            flush(cfs, keys, i);
+        long inputFilterSize = cfs.getLiveSSTables().iterator().next().getBloomFilterSerializedSize();
+
+        AbstractCompactionTask task = strategy.getNextBackgroundTask(FBUtilities.nowInSeconds());
+        assertNotNull(task);
+        task.execute(null);
+
+        // the output holds the same keys as each input, so its filter must not be sized for a quarter of them
+        assertEquals(1, cfs.getLiveSSTables().size());
+        long outputFilterSize = cfs.getLiveSSTables().iterator().next().getBloomFilterSerializedSize();
+        assertTrue(outputFilterSize + " < " + inputFilterSize, outputFilterSize * 2 > inputFilterSize);
+        cfs.truncateBlocking();
+    }
+
+    private static int shard(List<Token> boundaries, Token token)
+    {
+        int pos = Collections.binarySearch(boundaries, token);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private static void assertCompacts(ColumnFamilyStore cfs, UnifiedCompactionStrategy strategy, int inputs)
+    {
+        AbstractCompactionTask task = strategy.getNextBackgroundTask(FBUtilities.nowInSeconds());
+        assertNotNull(task);
+        assertTrue(task instanceof UnifiedCompactionTask);
+        assertEquals(inputs, task.transaction.originals().size());
+        task.execute(null);
+        assertEquals(1, cfs.getLiveSSTables().size());
+        assertNull(strategy.getNextBackgroundTask(FBUtilities.nowInSeconds()));
+    }
+
+    private static UnifiedCompactionStrategy getStrategy(ColumnFamilyStore cfs)
+    {
+        return (UnifiedCompactionStrategy) cfs.getCompactionStrategyManager().getStrategies().get(1).get(0);
+    }
+
+    private static void flush(ColumnFamilyStore cfs, String prefix, int keys, int seed)
+    {
+        List<String> names = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++)
+            names.add(prefix + i);
+        flush(cfs, names, seed);
+    }
+
+    private static void flush(ColumnFamilyStore cfs, List<String> keys, int seed)
+    {
+        byte[] value = new byte[1024];
+        new Random(seed).nextBytes(value);
+        for (String key : keys)
+        {
+            UpdateBuilder.create(cfs.metadata, key)
+                         .newRow("column" + seed)
+                         .add("val", ByteBuffer.wrap(value))
+                         .applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+    }
+}
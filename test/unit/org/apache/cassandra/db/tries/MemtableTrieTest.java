@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.tries;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
+import org.apache.cassandra.utils.memory.NativePool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MemtableTrieTest
+{
+    private static final OpOrder order = new OpOrder();
+
+    private static class Value
+    {
+        final byte[] key;
+
+        Value(byte[] key)
+        {
+            this.key = key;
+        }
+
+        ByteComparable comparableKey()
+        {
+            return () -> ByteSource.of(key);
+        }
+    }
+
+    private static final Comparator<Value> comparator = (a, b) -> FBUtilities.compareUnsigned(a.key, b.key);
+
+    private static MemtableTrie<Value> newTrie(boolean offHeap)
+    {
+        MemtableAllocator allocator = new NativePool(Long.MAX_VALUE, Long.MAX_VALUE, 1f, null).newAllocator();
+        return new MemtableTrie<>(Value::comparableKey, allocator, offHeap);
+    }
+
+    private static byte[] encode(byte[] key)
+    {
+        return ByteSource.readBytes(ByteSource.of(key));
+    }
+
+    private static List<Value> randomValues(Random random, int count)
+    {
+        List<Value> values = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            // small alphabet and lengths so that keys share prefixes, include zero bytes and are prefixes of each other
+            byte[] key = new byte[random.nextInt(8)];
+            for (int j = 0; j < key.length; j++)
+                key[j] = (byte) (random.nextInt(4) * 0x55);
+            values.add(new Value(key));
+        }
+        return values;
+    }
+
+    @Test
+    public void testPutAndGet()
+    {
+        testPutAndGet(false);
+        testPutAndGet(true);
+    }
+
+    private void testPutAndGet(boolean offHeap)
+    {
+        Random random = new Random(1);
+        MemtableTrie<Value> trie = newTrie(offHeap);
+        TreeMap<Value, Value> expected = new TreeMap<>(comparator);
+        try (OpOrder.Group group = order.start())
+        {
+            for (Value value : randomValues(random, 10000))
+            {
+                Value existing = expected.putIfAbsent(value, value);
+                assertSame(existing, trie.putIfAbsent(encode(value.key), value, group));
+            }
+        }
+
+        assertEquals(expected.size(), trie.size());
+        for (Value value : expected.keySet())
+            assertSame(value, trie.get(encode(value.key)));
+        assertNull(trie.get(encode(new byte[]{ 1, 2, 3 })));
+        assertEquals(new ArrayList<>(expected.keySet()), Lists.newArrayList(trie.values()));
+        trie.release();
+    }
+
+    @Test
+    public void testIterationFromBound()
+    {
+        Random random = new Random(2);
+        MemtableTrie<Value> trie = newTrie(true);
+        TreeSet<Value> expected = new TreeSet<>(comparator);
+        try (OpOrder.Group group = order.start())
+        {
+            for (Value value : randomValues(random, 2000))
+                if (expected.add(value))
+                    trie.putIfAbsent(encode(value.key), value, group);
+        }
+
+        for (Value bound : randomValues(random, 500))
+        {
+            List<Value> tail = Lists.newArrayList(trie.iterator(encode(bound.key)));
+            assertEquals(new ArrayList<>(expected.tailSet(bound, true)), tail);
+        }
+        trie.release();
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception
+    {
+        final MemtableTrie<Value> trie = newTrie(true);
+        final List<Value> values = randomValues(new Random(3), 200000);
+        final int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            final List<Value> shuffled = new ArrayList<>(values);
+            Collections.shuffle(shuffled, new Random(t));
+            futures.add(executor.submit(() -> {
+                try (OpOrder.Group group = order.start())
+                {
+                    for (Value value : shuffled)
+                    {
+                        Value existing = trie.putIfAbsent(encode(value.key), value, group);
+                        // all threads must agree on the value of a key
+                        Value found = trie.get(encode(value.key));
+                        assertSame(existing == null ? value : existing, found);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        TreeSet<Value> expected = new TreeSet<>(comparator);
+        expected.addAll(values);
+        assertEquals(expected.size(), trie.size());
+        List<Value> actual = Lists.newArrayList(trie.values());
+        assertEquals(expected.size(), actual.size());
+        Iterator<Value> expectedIter = expected.iterator();
+        for (Value value : actual)
+            assertEquals(0, comparator.compare(expectedIter.next(), value));
+        trie.release();
+    }
+}
@@ -18,12 +18,20 @@
 
 package org.apache.cassandra.io.compress;
 
+import java.io.File;
+
+import com.google.common.collect.Iterables;
 import org.junit.Test;
 
 import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class CQLCompressionTest extends CQLTester
@@ -53,4 +61,59 @@ public class CQLCompressionTest extends CQLTester
             throw e.getCause();
         }
     }
+
+    @Test
+    public void zstdParamsTest() throws Throwable
+    {
+        createTable("create table %s (id int primary key, uh text) with compression = {'class':'ZstdCompressor', 'compression_level':9}");
+        assertEquals(9, ((ZstdCompressor)getCurrentColumnFamilyStore().metadata.params.compression.getSstableCompressor()).compressionLevel);
+
+        for (int i = 0; i < 1000; i++)
+            execute("insert into %s (id, uh) values (?, ?)", i, "value" + i);
+        flush();
+        for (int i = 0; i < 1000; i += 100)
+            assertRows(execute("select uh from %s where id = ?", i), row("value" + i));
+
+        createTable("create table %s (id int primary key, uh text) with compression = {'class':'ZstdCompressor'}");
+        assertEquals(ZstdCompressor.DEFAULT_COMPRESSION_LEVEL, ((ZstdCompressor)getCurrentColumnFamilyStore().metadata.params.compression.getSstableCompressor()).compressionLevel);
+    }
+
+    @Test
+    public void zstdDictionaryTest() throws Throwable
+    {
+        String withDictionary = createTable("create table %s (id int primary key, uh text) with compression = {'class':'ZstdCompressor', 'chunk_length_in_kb':4, 'dictionary_size_in_kb':16}");
+        String withoutDictionary = createTable("create table %s (id int primary key, uh text) with compression = {'class':'ZstdCompressor', 'chunk_length_in_kb':4}");
+
+        for (String table : new String[]{ withDictionary, withoutDictionary })
+        {
+            for (int i = 0; i < 10000; i++)
+            {
+                execute(String.format("insert into %s.%s (id, uh) values (?, ?)", KEYSPACE, table), i, json(i));
+                if (i % 2500 == 2499)
+                    Keyspace.open(KEYSPACE).getColumnFamilyStore(table).forceBlockingFlush();
+            }
+            Keyspace.open(KEYSPACE).getColumnFamilyStore(table).forceMajorCompaction();
+        }
+
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(withDictionary);
+        assertNotNull(cfs.getCompressionDictionary());
+        SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertTrue(new File(sstable.descriptor.filenameFor(Component.COMPRESSION_DICTIONARY)).exists());
+        assertNotNull(CompressionMetadata.create(sstable.getFilename()).parameters.dictionary());
+        assertTrue(sstable.onDiskLength() < Iterables.getOnlyElement(Keyspace.open(KEYSPACE).getColumnFamilyStore(withoutDictionary).getLiveSSTables()).onDiskLength());
+
+        for (int i = 0; i < 10000; i += 100)
+            assertRows(execute(String.format("select uh from %s.%s where id = ?", KEYSPACE, withDictionary), i), row(json(i)));
+
+        // sstables reopened from disk, e.g. after a restart, load their dictionary
+        cfs.clearUnsafe();
+        cfs.loadNewSSTables();
+        assertEquals(10000, execute(String.format("select * from %s.%s", KEYSPACE, withDictionary)).size());
+    }
+
+    private static String json(int i)
+    {
+        return String.format("{\"id\": %d, \"name\": \"user%d\", \"email\": \"user%d@example.com\", \"status\": \"%s\", \"score\": %d}",
+                             i, i % 1000, i % 1000, i % 3 == 0 ? "active" : "inactive", (i * 7919) % 10000);
+    }
 }
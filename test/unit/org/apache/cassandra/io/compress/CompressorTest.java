@@ -22,8 +22,10 @@ import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import com.google.common.io.Files;
@@ -31,6 +33,7 @@ import static org.junit.Assert.*;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.util.RandomAccessReader;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
@@ -41,7 +44,8 @@ public class CompressorTest
     ICompressor[] compressors = new ICompressor[] {
             LZ4Compressor.create(Collections.<String, String>emptyMap()),
             DeflateCompressor.create(Collections.<String, String>emptyMap()),
-            SnappyCompressor.create(Collections.<String, String>emptyMap())
+            SnappyCompressor.create(Collections.<String, String>emptyMap()),
+            ZstdCompressor.create(Collections.<String, String>emptyMap())
     };
 
     @Test
@@ -176,6 +180,63 @@ public class CompressorTest
         testByteBuffers();
     }
 
+    @Test
+    public void testZstdByteBuffers() throws IOException
+    {
+        compressor = ZstdCompressor.create(Collections.<String, String>emptyMap());
+        testByteBuffers();
+    }
+
+    @Test
+    public void testZstdDictionary() throws IOException
+    {
+        // small, similar blocks, which compress poorly on their own
+        Random random = new Random(0);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            samples.add(String.format("{\"id\": %d, \"name\": \"user%d\", \"status\": \"%s\"}",
+                                      i, random.nextInt(100), random.nextBoolean() ? "active" : "inactive").getBytes("UTF-8"));
+        byte[] dictionary = ZstdCompressor.trainDictionary(samples, 4096);
+
+        ZstdCompressor plain = ZstdCompressor.create(Collections.<String, String>emptyMap());
+        compressor = plain.withDictionary(dictionary);
+        testEmptyArray();
+        testLongArray();
+        testShortArray();
+        testMappedFile();
+        testByteBuffers();
+
+        byte[] block = samples.get(0);
+        assertTrue(compressedLength(compressor, block) < compressedLength(plain, block));
+    }
+
+    private static int compressedLength(ICompressor compressor, byte[] data) throws IOException
+    {
+        ByteBuffer compressed = ByteBuffer.allocate(compressor.initialCompressedBufferLength(data.length));
+        compressor.compress(ByteBuffer.wrap(data), compressed);
+        return compressed.position();
+    }
+
+    @Test
+    public void testZstdCompressionLevel() throws IOException
+    {
+        assertEquals(ZstdCompressor.DEFAULT_COMPRESSION_LEVEL, ZstdCompressor.create(Collections.<String, String>emptyMap()).compressionLevel);
+        ZstdCompressor high = ZstdCompressor.create(Collections.singletonMap(ZstdCompressor.COMPRESSION_LEVEL, "19"));
+        assertEquals(19, high.compressionLevel);
+        compressor = high;
+        testByteBuffers();
+
+        try
+        {
+            ZstdCompressor.create(Collections.singletonMap(ZstdCompressor.COMPRESSION_LEVEL, "100"));
+            fail();
+        }
+        catch (ConfigurationException e)
+        {
+            // expected
+        }
+    }
+
     private void testByteBuffers() throws IOException
     {
         assert compressor.supports(BufferType.OFF_HEAP);
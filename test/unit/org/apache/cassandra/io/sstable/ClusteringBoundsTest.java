@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.metrics.ClearableHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClusteringBoundsTest extends CQLTester
+{
+    private static final int WINDOWS = 4;
+    private static final int PARTITIONS = 10;
+    private static final int ROWS = 5;
+
+    @BeforeClass
+    public static void setUpClusteringBounds()
+    {
+        DatabaseDescriptor.setSSTablePartitionClusteringBounds(true);
+    }
+
+    @AfterClass
+    public static void tearDownClusteringBounds()
+    {
+        DatabaseDescriptor.setSSTablePartitionClusteringBounds(false);
+    }
+
+    @Test
+    public void testSkipSSTables() throws Throwable
+    {
+        testSkipSSTables("ASC");
+    }
+
+    @Test
+    public void testSkipSSTablesReversed() throws Throwable
+    {
+        testSkipSSTables("DESC");
+    }
+
+    private void testSkipSSTables(String order) throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, t bigint, v int, PRIMARY KEY (k, t)) WITH CLUSTERING ORDER BY (t " + order + ')');
+        disableCompaction();
+
+        // every sstable has rows in all the bands, but each partition only has rows of one band in each sstable
+        for (int w = 0; w < WINDOWS; w++)
+        {
+            for (int k = 0; k < PARTITIONS; k++)
+                for (int i = 0; i < ROWS; i++)
+                    execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?)", k, band(w, k) + i, w);
+            flush();
+        }
+        for (SSTableReader sstable : getCurrentColumnFamilyStore().getLiveSSTables())
+            assertTrue(sstable.components.contains(Component.CLUSTERING_BOUNDS));
+
+        for (int w = 0; w < WINDOWS; w++)
+        {
+            for (int k = 0; k < PARTITIONS; k++)
+            {
+                long from = band(w, k);
+                executeAndCheck(1, ROWS, "SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ?", k, from, from + 1000);
+                executeAndCheck(1, ROWS, "SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ? ORDER BY t DESC", k, from, from + 1000);
+                executeAndCheck(1, 1, "SELECT * FROM %s WHERE k = ? AND t = ?", k, from + 1);
+                // outside of any band
+                executeAndCheck(0, 0, "SELECT * FROM %s WHERE k = ? AND t > ? AND t < ?", k, from + ROWS, from + 1000);
+            }
+        }
+        // spanning two bands, and all of them
+        executeAndCheck(2, 2 * ROWS, "SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ?", 0, 1000L, 3000L);
+        executeAndCheck(2, 2, "SELECT * FROM %s WHERE k = ? AND t IN (?, ?)", 0, 1000L, 3000L);
+        executeAndCheck(WINDOWS, WINDOWS * ROWS, "SELECT * FROM %s WHERE k = ?", 0);
+        // a partition that is in no sstable
+        executeAndCheck(0, 0, "SELECT * FROM %s WHERE k = ? AND t >= ?", PARTITIONS, 0L);
+    }
+
+    @Test
+    public void testDeletions() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, t bigint, v int, PRIMARY KEY (k, t))");
+        disableCompaction();
+
+        for (int k = 0; k < 3; k++)
+            for (int i = 0; i < ROWS; i++)
+                execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?) USING TIMESTAMP 1", k, (long) i, k);
+        flush();
+
+        // a partition deletion, whose sstable has no rows of the partition
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE k = ?", 0);
+        // a range tombstone, next to rows that are outside of the queried slice
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE k = ? AND t >= ? AND t < ?", 1, 0L, 2L);
+        execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?) USING TIMESTAMP 2", 1, 1000L, 1);
+        // a row deletion
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE k = ? AND t = ?", 2, 3L);
+        flush();
+
+        assertEmpty(execute("SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ?", 0, 0L, 3L));
+        assertRowCount(execute("SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ?", 1, 0L, 3L), 1);
+        assertRowCount(execute("SELECT * FROM %s WHERE k = ? AND t IN (?, ?, ?)", 1, 0L, 1L, 2L), 1);
+        assertRowCount(execute("SELECT * FROM %s WHERE k = ? AND t >= ? AND t < ?", 2, 2L, 5L), 2);
+        assertEmpty(execute("SELECT * FROM %s WHERE k = ? AND t = ?", 2, 3L));
+
+        // the sstable of the deletions is only skipped for the slices that do not intersect them
+        SSTableReader deletions = null;
+        for (SSTableReader sstable : getCurrentColumnFamilyStore().getLiveSSTables())
+            if (deletions == null || sstable.descriptor.generation > deletions.descriptor.generation)
+                deletions = sstable;
+        // the bounds of a partition only record its first and last clustering, from the range tombstone to t = 1000
+        assertTrue(deletions.mayIntersect(key(1), slices(1, 2)));
+        assertTrue(deletions.mayIntersect(key(1), slices(999, 1001)));
+        assertFalse(deletions.mayIntersect(key(1), slices(1001, 2000)));
+        assertTrue(deletions.mayIntersect(key(0), slices(3, 5)));
+        assertFalse(deletions.mayIntersect(key(2), slices(0, 2)));
+        assertFalse(deletions.mayIntersect(key(3), slices(0, 2)));
+    }
+
+    @Test
+    public void testStaticColumns() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, t bigint, s int static, v int, PRIMARY KEY (k, t))");
+        disableCompaction();
+
+        execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?)", 0, 0L, 0);
+        flush();
+        // a static row only
+        execute("INSERT INTO %s (k, s) VALUES (?, ?)", 0, 1);
+        flush();
+
+        assertRows(execute("SELECT k, t, s, v FROM %s WHERE k = ? AND t >= ?", 0, 0L), row(0, 0L, 1, 0));
+        assertRows(execute("SELECT v FROM %s WHERE k = ? AND t >= ?", 0, 0L), row(0));
+    }
+
+    private static long band(int window, int partition)
+    {
+        return 1000L * ((window + partition) % WINDOWS);
+    }
+
+    private DecoratedKey key(int k)
+    {
+        return getCurrentColumnFamilyStore().decorateKey(Int32Type.instance.decompose(k));
+    }
+
+    // the slice of the rows from and to the given clusterings, inclusive
+    private Slices slices(long from, long to)
+    {
+        CFMetaData metadata = getCurrentColumnFamilyStore().metadata;
+        return Slices.with(metadata.comparator, Slice.make(metadata.comparator.make(from), metadata.comparator.make(to)));
+    }
+
+    private void executeAndCheck(int sstables, int rows, String query, Object... values) throws Throwable
+    {
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        ((ClearableHistogram) cfs.metric.sstablesPerReadHistogram.cf).clear();
+        assertRowCount(execute(query, values), rows);
+        assertEquals(query, sstables, cfs.metric.sstablesPerReadHistogram.cf.getSnapshot().getMax());
+    }
+}
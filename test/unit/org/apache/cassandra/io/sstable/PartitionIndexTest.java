@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionIndexTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUpPartitionIndex()
+    {
+        DatabaseDescriptor.setSSTablePartitionIndexType(Config.SSTablePartitionIndexType.trie);
+    }
+
+    @AfterClass
+    public static void tearDownPartitionIndex()
+    {
+        DatabaseDescriptor.setSSTablePartitionIndexType(Config.SSTablePartitionIndexType.summary);
+    }
+
+    // keys of various lengths, some being prefixes of others
+    private static List<String> keys()
+    {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            keys.add("key" + i);
+            keys.add("a long common prefix shared by many keys " + i);
+            keys.add("a long common prefix shared by many keys " + i + "!");
+        }
+        return keys;
+    }
+
+    @Test
+    public void testLookups() throws Throwable
+    {
+        // without key cache, so that all lookups go through the index
+        createTable("CREATE TABLE %s (k text, c int, v int, PRIMARY KEY (k, c)) WITH caching = {'keys': 'NONE'}");
+        List<String> keys = keys();
+        for (int i = 0; i < keys.size(); i++)
+            for (int c = 0; c < 2; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", keys.get(i), c, i);
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+            assertTrue(sstable.components.contains(Component.PARTITION_INDEX));
+        checkLookups(keys);
+
+        // the index of compacted sstables is built the same way
+        for (int i = 0; i < keys.size(); i += 3)
+            execute("UPDATE %s SET v = ? WHERE k = ? AND c = ?", i, keys.get(i), 2);
+        flush();
+        compact();
+        assertEquals(1, cfs.getLiveSSTables().size());
+        assertTrue(cfs.getLiveSSTables().iterator().next().components.contains(Component.PARTITION_INDEX));
+        checkLookups(keys);
+    }
+
+    private void checkLookups(List<String> keys) throws Throwable
+    {
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        for (int i = 0; i < keys.size(); i++)
+        {
+            assertRows(execute("SELECT v FROM %s WHERE k = ? AND c = ?", keys.get(i), 1), row(i));
+            assertEmpty(execute("SELECT v FROM %s WHERE k = ?", keys.get(i) + "1x"));
+            assertEmpty(execute("SELECT v FROM %s WHERE k = ?", keys.get(i).substring(0, keys.get(i).length() - 1) + "/"));
+        }
+        assertEmpty(execute("SELECT v FROM %s WHERE k = ?", "\u0000"));
+        assertEmpty(execute("SELECT v FROM %s WHERE k = ?", "zzz"));
+
+        // token range queries, with both inclusive and exclusive bounds
+        List<String> sorted = new ArrayList<>();
+        for (UntypedResultSet.Row row : execute("SELECT DISTINCT k FROM %s"))
+            sorted.add(row.getString("k"));
+        assertEquals(keys.size(), sorted.size());
+        for (int i = 0; i < sorted.size(); i += 37)
+        {
+            int j = Math.min(i + 50, sorted.size() - 1);
+            String from = sorted.get(i);
+            String to = sorted.get(j);
+            assertEquals(j - i, execute("SELECT DISTINCT k FROM %s WHERE token(k) > token(?) AND token(k) <= token(?)", from, to).size());
+            assertEquals(j - i, execute("SELECT DISTINCT k FROM %s WHERE token(k) >= token(?) AND token(k) < token(?)", from, to).size());
+        }
+
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            List<DecoratedKey> decorated = new ArrayList<>();
+            for (String key : sorted)
+                decorated.add(sstable.decorateKey(ByteBufferUtil.bytes(key)));
+            for (int i = 0; i < decorated.size(); i += 7)
+            {
+                DecoratedKey key = decorated.get(i);
+                RowIndexEntry entry = sstable.getPosition(key, SSTableReader.Operator.EQ, false);
+                assertEquals(entry.position, sstable.getPosition(key, SSTableReader.Operator.GE, false).position);
+                if (i > 0)
+                    assertEquals(entry.position, sstable.getPosition(decorated.get(i - 1), SSTableReader.Operator.GT, false).position);
+
+                // keys that are not in the sstable, which the index may not be able to tell apart from present ones
+                DecoratedKey absent = sstable.decorateKey(ByteBufferUtil.bytes(sorted.get(i) + "\u0000"));
+                assertNull(sstable.getPosition(absent, SSTableReader.Operator.EQ, false));
+                int index = Collections.binarySearch(decorated, absent);
+                assertTrue(index < 0);
+                index = -index - 1;
+                RowIndexEntry next = sstable.getPosition(absent, SSTableReader.Operator.GE, false);
+                if (index == decorated.size())
+                    assertNull(next);
+                else
+                    assertEquals(sstable.getPosition(decorated.get(index), SSTableReader.Operator.EQ, false).position, next.position);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.RowIndexEntry;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RowIndexTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUpRowIndex()
+    {
+        DatabaseDescriptor.setSSTablePartitionIndexType(Config.SSTablePartitionIndexType.trie);
+    }
+
+    @AfterClass
+    public static void tearDownRowIndex()
+    {
+        DatabaseDescriptor.setSSTablePartitionIndexType(Config.SSTablePartitionIndexType.summary);
+    }
+
+    @Test
+    public void testSlices() throws Throwable
+    {
+        testSlices(true);
+    }
+
+    @Test
+    public void testSlicesWithIndexOffHeap() throws Throwable
+    {
+        // the index blocks of the entries are then only read from the index file when needed
+        int cacheSize = DatabaseDescriptor.getColumnIndexCacheSize() / 1024;
+        DatabaseDescriptor.setColumnIndexCacheSize(0);
+        try
+        {
+            testSlices(false);
+        }
+        finally
+        {
+            DatabaseDescriptor.setColumnIndexCacheSize(cacheSize);
+        }
+    }
+
+    private void testSlices(boolean indexOnHeap) throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c1 int, c2 text, v text, PRIMARY KEY (k, c1, c2))");
+        String value = "a value that is long enough for partitions to span many index blocks";
+        for (int k = 0; k < 3; k++)
+        {
+            for (int c1 = 0; c1 < 300; c1++)
+                for (String c2 : new String[]{ "a", "bb", "c" })
+                    if ((c1 + c2.length()) % 7 != 0)
+                        execute("INSERT INTO %s (k, c1, c2, v) VALUES (?, ?, ?, ?)", k, c1 * 2, c2, value);
+            // range tombstones, whose bounds can start blocks
+            execute("DELETE FROM %s WHERE k = ? AND c1 > ? AND c1 < ?", k, 100, 120);
+            execute("DELETE FROM %s WHERE k = ? AND c1 = ? AND c2 >= ?", k, 200, "bb");
+        }
+        // a partition with a single block
+        execute("INSERT INTO %s (k, c1, c2, v) VALUES (?, ?, ?, ?)", 3, 0, "a", value);
+
+        List<List<Object>> expected = runQueries();
+        flush();
+
+        SSTableReader sstable = getCurrentColumnFamilyStore().getLiveSSTables().iterator().next();
+        assertTrue(sstable.components.contains(Component.ROW_INDEX));
+        for (int k = 0; k < 4; k++)
+        {
+            RowIndexEntry entry = sstable.getPosition(sstable.decorateKey(Int32Type.instance.decompose(k)), SSTableReader.Operator.EQ);
+            try (RowIndex.Searcher searcher = sstable.getRowIndex().open(entry.position))
+            {
+                assertEquals(k < 3, entry.isIndexed());
+                if (k < 3)
+                    assertEquals(indexOnHeap, entry.indexOnHeap());
+                assertEquals(k < 3, searcher != null);
+            }
+        }
+        assertEquals(expected, runQueries());
+    }
+
+    private List<List<Object>> runQueries() throws Throwable
+    {
+        List<List<Object>> results = new ArrayList<>();
+        for (int k = 0; k < 4; k++)
+        {
+            for (String order : new String[]{ "ASC", "DESC" })
+            {
+                collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? ORDER BY c1 " + order, k));
+                for (int from = -1; from < 620; from += 37)
+                {
+                    int to = from + 45;
+                    collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? AND c1 >= ? AND c1 < ? ORDER BY c1 " + order, k, from, to));
+                    collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? AND c1 > ? AND c1 <= ? ORDER BY c1 " + order, k, from, to));
+                    collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? AND c1 = ? AND c2 > ? ORDER BY c1 " + order, k, from + 1, "b"));
+                    collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? AND c1 IN (?, ?, ?) ORDER BY c1 " + order, k, from, from + 1, to + 1));
+                    collect(results, execute("SELECT c1, c2 FROM %s WHERE k = ? AND (c1, c2) >= (?, ?) AND (c1, c2) < (?, ?) ORDER BY c1 " + order, k, from + 1, "bb", to + 1, "a"));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void collect(List<List<Object>> results, UntypedResultSet rows)
+    {
+        List<Object> result = new ArrayList<>();
+        for (UntypedResultSet.Row row : rows)
+            result.add(row.getInt("c1") + ":" + row.getString("c2"));
+        results.add(result);
+    }
+}
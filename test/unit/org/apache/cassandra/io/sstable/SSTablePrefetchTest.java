@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SSTablePrefetchTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUpPrefetch()
+    {
+        DatabaseDescriptor.setConcurrentSSTablePrefetches(2);
+    }
+
+    @AfterClass
+    public static void tearDownPrefetch()
+    {
+        DatabaseDescriptor.setConcurrentSSTablePrefetches(0);
+    }
+
+    @Test
+    public void testReadsAcrossSSTables() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        disableCompaction();
+
+        for (int s = 0; s < 4; s++)
+        {
+            for (int k = 0; k < 20; k++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, s, k + s);
+            // overwrites of the rows of the previous sstable
+            execute("UPDATE %s SET v = ? WHERE k = ? AND c = ?", -s, s, Math.max(s - 1, 0));
+            flush();
+        }
+        assertTrue(SSTableReader.isPrefetchEnabled());
+
+        for (int k = 0; k < 20; k++)
+        {
+            assertRowCount(execute("SELECT * FROM %s WHERE k = ?", k), 4);
+            assertRowCount(execute("SELECT * FROM %s WHERE k = ? AND c >= ?", k, 2), 2);
+            assertRowCount(execute("SELECT * FROM %s WHERE k = ? ORDER BY c DESC", k), 4);
+        }
+        assertRows(execute("SELECT v FROM %s WHERE k = ? AND c = ?", 2, 1), row(-2));
+        assertEmpty(execute("SELECT * FROM %s WHERE k = ?", 20));
+    }
+
+    @Test
+    public void testPrefetchIntoChunkCache() throws Throwable
+    {
+        Assume.assumeTrue(ChunkCache.instance != null);
+
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int)");
+        disableCompaction();
+        for (int k = 0; k < 100; k++)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, k);
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        SSTableReader sstable = cfs.getLiveSSTables().iterator().next();
+        ChunkCache.instance.invalidateFile(sstable.getFilename());
+
+        long misses = ChunkCache.instance.metrics.misses.getCount();
+        sstable.prefetchAsync(cfs.decorateKey(Int32Type.instance.decompose(42)));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (ChunkCache.instance.metrics.misses.getCount() == misses && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(misses + 1, ChunkCache.instance.metrics.misses.getCount());
+
+        // the read finds the chunk loaded by the prefetch
+        assertRows(execute("SELECT v FROM %s WHERE k = ?", 42), row(42));
+        assertEquals(misses + 1, ChunkCache.instance.metrics.misses.getCount());
+    }
+
+    @Test
+    public void testQueuedPrefetchesAreBounded() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int)");
+        disableCompaction();
+        for (int k = 0; k < 100; k++)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, k);
+        flush();
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        SSTableReader sstable = cfs.getLiveSSTables().iterator().next();
+        int refs = sstable.selfRef().globalCount();
+
+        // the dropped prefetches release their ref, and those queued or running can't exceed the queue bound
+        for (int i = 0; i < 10000; i++)
+        {
+            sstable.prefetchAsync(cfs.decorateKey(Int32Type.instance.decompose(i % 100)));
+            assertTrue(sstable.selfRef().globalCount() <= refs + 2 + 2 * 32);
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (sstable.selfRef().globalCount() > refs && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(refs, sstable.selfRef().globalCount());
+    }
+}
@@ -316,6 +316,53 @@ public class RandomAccessReaderTest
         }
     }
 
+    @Test
+    public void testDropBehind() throws IOException
+    {
+        // written and read over several drop intervals
+        Parameters params = new Parameters(3 * DropBehindRebufferer.DROP_INTERVAL, 4096);
+        final File f = File.createTempFile("testDropBehind", "1");
+        f.deleteOnExit();
+
+        SequentialWriterOption option = SequentialWriterOption.newBuilder()
+                                                              .trickleFsyncByteInterval(1 << 20)
+                                                              .dropBehind(true)
+                                                              .build();
+        try (SequentialWriter writer = new SequentialWriter(f, option))
+        {
+            long numWritten = 0;
+            while (numWritten < params.fileLength)
+            {
+                writer.write(params.expected);
+                numWritten += params.expected.length;
+            }
+
+            writer.finish();
+        }
+
+        try (FileHandle.Builder builder = new FileHandle.Builder(f.getPath()).mmapped(true);
+             FileHandle fh = builder.complete();
+             RandomAccessReader reader = fh.createDropBehindReader(null))
+        {
+            assertEquals(f.length(), reader.length());
+
+            byte[] b = new byte[params.expected.length];
+            long numRead = 0;
+            while (numRead < params.fileLength)
+            {
+                reader.readFully(b);
+                assertTrue(Arrays.equals(params.expected, b));
+                numRead += b.length;
+            }
+            assertTrue(reader.isEOF());
+
+            // going back to what was read and dropped
+            reader.seek(params.expected.length);
+            reader.readFully(b);
+            assertTrue(Arrays.equals(params.expected, b));
+        }
+    }
+
     @Test
     public void testReadBytes() throws IOException
     {
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.locator;
+
+import java.net.InetAddress;
+import java.util.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveEndpointSnitchTest
+{
+    private static InetAddress self;
+    private static InetAddress host1;
+    private static InetAddress host2;
+    private static InetAddress host3;
+
+    @BeforeClass
+    public static void setupDD() throws Exception
+    {
+        DatabaseDescriptor.daemonInitialization();
+        StorageService.instance.unsafeInitialize();
+        self = FBUtilities.getBroadcastAddress();
+        host1 = InetAddress.getByName("127.0.0.2");
+        host2 = InetAddress.getByName("127.0.0.3");
+        host3 = InetAddress.getByName("127.0.0.4");
+    }
+
+    private static AdaptiveEndpointSnitch newSnitch()
+    {
+        SimpleSnitch ss = new SimpleSnitch();
+        return new AdaptiveEndpointSnitch(ss, String.valueOf(ss.hashCode()));
+    }
+
+    private static List<InetAddress> sorted(AdaptiveEndpointSnitch snitch)
+    {
+        return snitch.getSortedListByProximity(self, Arrays.asList(host1, host2, host3));
+    }
+
+    @Test
+    public void testKeepsOrderOfHealthyReplicas()
+    {
+        AdaptiveEndpointSnitch snitch = newSnitch();
+        try
+        {
+            for (InetAddress host : Arrays.asList(host1, host2, host3))
+                snitch.receiveTiming(host, 10);
+            for (int i = 0; i < 100; i++)
+                assertEquals(Arrays.asList(host1, host2, host3), sorted(snitch));
+        }
+        finally
+        {
+            snitch.close();
+        }
+    }
+
+    @Test
+    public void testAvoidsSlowReplica()
+    {
+        AdaptiveEndpointSnitch snitch = newSnitch();
+        try
+        {
+            snitch.receiveTiming(host1, 1000);
+            snitch.receiveTiming(host2, 10);
+            snitch.receiveTiming(host3, 10);
+            // a fast response right after a slow one doesn't hide it
+            snitch.receiveTiming(host1, 10);
+
+            Set<InetAddress> firsts = new HashSet<>();
+            for (int i = 0; i < 200; i++)
+            {
+                List<InetAddress> order = sorted(snitch);
+                assertEquals(host1, order.get(2));
+                firsts.add(order.get(0));
+            }
+            // the load moves to both other replicas
+            assertEquals(new HashSet<>(Arrays.asList(host2, host3)), firsts);
+        }
+        finally
+        {
+            snitch.close();
+        }
+    }
+
+    @Test
+    public void testRequestsInFlight()
+    {
+        AdaptiveEndpointSnitch snitch = newSnitch();
+        try
+        {
+            for (InetAddress host : Arrays.asList(host1, host2, host3))
+                snitch.receiveTiming(host, 10);
+
+            // a replica that stops responding is avoided before its requests time out
+            for (int i = 0; i < 10; i++)
+                snitch.requestSent(host1);
+            assertEquals(10, snitch.inFlight(host1));
+            for (int i = 0; i < 100; i++)
+                assertTrue(sorted(snitch).get(0) != host1);
+
+            for (int i = 0; i < 20; i++)
+                snitch.requestCompleted(host1);
+            assertEquals(0, snitch.inFlight(host1));
+            assertEquals(host1, sorted(snitch).get(0));
+        }
+        finally
+        {
+            snitch.close();
+        }
+    }
+}
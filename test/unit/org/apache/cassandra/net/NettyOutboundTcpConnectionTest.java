@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.net;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sends messages to the local node through a {@link NettyOutboundTcpConnection}, which are then read by the regular
+ * {@link IncomingTcpConnection}.
+ */
+public class NettyOutboundTcpConnectionTest
+{
+    private static final List<Integer> received = new CopyOnWriteArrayList<>();
+
+    private static final IMessageSink sink = new IMessageSink()
+    {
+        public boolean allowOutgoingMessage(MessageOut message, int id, InetAddress to)
+        {
+            return true;
+        }
+
+        public boolean allowIncomingMessage(MessageIn message, int id)
+        {
+            if (message.verb != MessagingService.Verb.ECHO)
+                return true;
+            received.add(id);
+            return false;
+        }
+    };
+
+    @BeforeClass
+    public static void setUp()
+    {
+        SchemaLoader.prepareServer();
+        MessagingService.instance().listen();
+        MessagingService.instance().addMessageSink(sink);
+    }
+
+    @AfterClass
+    public static void tearDown()
+    {
+        MessagingService.instance().clearMessageSinks();
+        DatabaseDescriptor.setInternodeCompression(Config.InternodeCompression.none);
+    }
+
+    @Test
+    public void testSendMessages() throws Exception
+    {
+        testSendMessages(Config.InternodeCompression.none);
+    }
+
+    @Test
+    public void testSendCompressedMessages() throws Exception
+    {
+        testSendMessages(Config.InternodeCompression.all);
+    }
+
+    @Test
+    public void testSendLargeMessages() throws Exception
+    {
+        testSendLargeMessages(Config.InternodeCompression.none);
+        testSendLargeMessages(Config.InternodeCompression.all);
+    }
+
+    private void testSendLargeMessages(Config.InternodeCompression compression) throws Exception
+    {
+        DatabaseDescriptor.setInternodeCompression(compression);
+        NettyOutboundTcpConnection connection = newConnection();
+        try
+        {
+            // messages spanning several of the buffers a batch is written in
+            byte[] payload = new byte[NettyOutboundTcpConnection.BATCH_SIZE * 3 + 17];
+            new Random(42).nextBytes(payload);
+            List<Integer> sent = new ArrayList<>();
+            for (int id = 0; id < 20; id++)
+            {
+                connection.enqueue(new MessageOut<>(MessagingService.Verb.ECHO).withParameter("payload", payload), id);
+                sent.add(id);
+            }
+            awaitReceived(sent, true);
+            assertEquals(20, connection.getCompletedMesssages());
+            assertEquals(0, connection.getDroppedMessages());
+        }
+        finally
+        {
+            connection.closeSocket(true);
+        }
+    }
+
+    private void testSendMessages(Config.InternodeCompression compression) throws Exception
+    {
+        DatabaseDescriptor.setInternodeCompression(compression);
+        NettyOutboundTcpConnection connection = newConnection();
+        try
+        {
+            // enough messages for several batches
+            List<Integer> sent = send(connection, 0, 5000);
+            awaitReceived(sent, true);
+            assertEquals(5000, connection.getCompletedMesssages());
+            assertEquals(0, connection.getPendingMessages());
+            assertEquals(0, connection.getDroppedMessages());
+        }
+        finally
+        {
+            connection.closeSocket(true);
+        }
+    }
+
+    @Test
+    public void testReconnect() throws Exception
+    {
+        DatabaseDescriptor.setInternodeCompression(Config.InternodeCompression.none);
+        NettyOutboundTcpConnection connection = newConnection();
+        try
+        {
+            List<Integer> sent = send(connection, 0, 100);
+            awaitReceived(sent, true);
+
+            // messages queued before a soft close are sent before it, and the ones after it on a new connection
+            sent = send(connection, 100, 100);
+            connection.softCloseSocket();
+            sent.addAll(send(connection, 200, 100));
+            awaitReceived(sent, false);
+
+            // a reset closes the connection right away, and the next messages reconnect
+            connection.closeSocket(false);
+            sent = send(connection, 300, 100);
+            awaitReceived(sent, true);
+            assertEquals(0, connection.getPendingMessages());
+        }
+        finally
+        {
+            connection.closeSocket(true);
+        }
+    }
+
+    private static NettyOutboundTcpConnection newConnection()
+    {
+        received.clear();
+        OutboundTcpConnectionPool pool = new OutboundTcpConnectionPool(FBUtilities.getBroadcastAddress(), null);
+        return new NettyOutboundTcpConnection(pool, "NettyOutboundTcpConnectionTest");
+    }
+
+    private static List<Integer> send(NettyOutboundTcpConnection connection, int firstId, int count)
+    {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = firstId; id < firstId + count; id++)
+        {
+            connection.enqueue(new MessageOut<>(MessagingService.Verb.ECHO), id);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * @param ordered whether the messages were all sent through the same socket, and so must be received in order
+     */
+    private static void awaitReceived(List<Integer> ids, boolean ordered) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.size() < ids.size() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        List<Integer> actual = new ArrayList<>(received);
+        if (!ordered)
+            Collections.sort(actual);
+        assertEquals(ids, actual);
+        received.clear();
+    }
+}
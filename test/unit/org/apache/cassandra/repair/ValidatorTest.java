@@ -37,6 +37,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.Schema;
 import org.apache.cassandra.db.BufferDecoratedKey;
 import org.apache.cassandra.db.ColumnFamilyStore;
@@ -59,6 +60,7 @@ import org.apache.cassandra.utils.MerkleTrees;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.UUIDGen;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -215,6 +217,68 @@ public class ValidatorTest
         assertEquals(trees.rowCount(), n);
     }
 
+    /**
+     * Validations split in groups of subtrees hashed concurrently should compute the same trees as sequential ones.
+     */
+    @Test
+    public void parallelValidationTest() throws Exception
+    {
+        Keyspace ks = Keyspace.open(keyspace);
+        ColumnFamilyStore cfs = ks.getColumnFamilyStore(columnFamily);
+        cfs.clearUnsafe();
+        cfs.disableAutoCompaction();
+
+        // overlapping sstables, so that partitions are merged
+        for (int i = 0; i < 3; i++)
+        {
+            CompactionsTest.populate(keyspace, columnFamily, 0, 1000, 0);
+            CompactionsTest.populate(keyspace, columnFamily, 1000 * (i + 1), 1000 * (i + 2), 0);
+            cfs.forceBlockingFlush();
+        }
+        assertEquals(3, cfs.getLiveSSTables().size());
+
+        Range<Token> fullRange = new Range<>(partitioner.getMinimumToken(), partitioner.getMinimumToken());
+        MerkleTrees sequential = validate(cfs, fullRange);
+        try
+        {
+            DatabaseDescriptor.setParallelValidationSubranges(4);
+            MerkleTrees parallel = validate(cfs, fullRange);
+
+            assertEquals(4001, sequential.rowCount());
+            assertEquals(sequential.rowCount(), parallel.rowCount());
+            assertNotNull(sequential.hash(fullRange));
+            assertArrayEquals(sequential.hash(fullRange), parallel.hash(fullRange));
+            assertTrue(MerkleTrees.difference(sequential, parallel).isEmpty());
+        }
+        finally
+        {
+            DatabaseDescriptor.setParallelValidationSubranges(1);
+        }
+    }
+
+    private MerkleTrees validate(ColumnFamilyStore cfs, Range<Token> range) throws Exception
+    {
+        UUID repairSessionId = UUIDGen.getTimeUUID();
+        RepairJobDesc desc = new RepairJobDesc(repairSessionId, UUIDGen.getTimeUUID(), cfs.keyspace.getName(),
+                                               cfs.getColumnFamilyName(), Collections.singletonList(range));
+        ActiveRepairService.instance.registerParentRepairSession(repairSessionId, FBUtilities.getBroadcastAddress(),
+                                                                 Collections.singletonList(cfs), desc.ranges, false, ActiveRepairService.UNREPAIRED_SSTABLE,
+                                                                 false);
+
+        CompletableFuture<MessageOut> outgoingMessageSink = registerOutgoingMessageSink();
+        try
+        {
+            CompactionManager.instance.submitValidation(cfs, new Validator(desc, FBUtilities.getBroadcastAddress(), 0, true));
+            ValidationComplete message = (ValidationComplete) outgoingMessageSink.get(TEST_TIMEOUT, TimeUnit.SECONDS).payload;
+            assertTrue(message.success());
+            return message.trees;
+        }
+        finally
+        {
+            MessagingService.instance().clearMessageSinks();
+        }
+    }
+
     private CompletableFuture<MessageOut> registerOutgoingMessageSink()
     {
         final CompletableFuture<MessageOut> future = new CompletableFuture<>();
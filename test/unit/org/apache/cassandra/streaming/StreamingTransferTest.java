@@ -17,8 +17,11 @@
  */
 package org.apache.cassandra.streaming;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -47,14 +50,19 @@ import org.apache.cassandra.dht.IPartitioner;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.streaming.messages.OutgoingFileMessage;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.concurrent.Refs;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(OrderedJUnit4ClassRunner.class)
@@ -77,6 +85,7 @@ public class StreamingTransferTest
     public static final String CF_STANDARD2 = "Standard2";
     public static final String CF_STANDARD3 = "Standard3";
     public static final String KEYSPACE2 = "StreamingTransferTest2";
+    public static final String CF_ENTIRE = "EntireSSTable1";
 
     @BeforeClass
     public static void defineSchema() throws Exception
@@ -94,7 +103,8 @@ public class StreamingTransferTest
                                                       .addClusteringColumn("cols", Int32Type.instance)
                                                       .addRegularColumn("val", BytesType.instance)
                                                       .build(),
-                                    SchemaLoader.compositeIndexCFMD(KEYSPACE1, CF_INDEX, true));
+                                    SchemaLoader.compositeIndexCFMD(KEYSPACE1, CF_INDEX, true),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_ENTIRE));
         SchemaLoader.createKeyspace(KEYSPACE2,
                                     KeyspaceParams.simple(1));
         SchemaLoader.createKeyspace(KEYSPACE_CACHEKEY,
@@ -386,6 +396,88 @@ public class StreamingTransferTest
         Assert.assertTrue(1 == Int32Type.instance.compose(r.clustering().get(0)));
     }
 
+    @Test
+    public void testTransferEntireSSTable() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_ENTIRE);
+        for (int i = 0; i < 100; i++)
+        {
+            new RowUpdateBuilder(cfs.metadata, 1234, "key" + i)
+                .clustering("col")
+                .add("val", "value" + i)
+                .build()
+                .applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+        SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        // not kept by the stream plan, so the receiver has to rewrite it
+        sstable.descriptor.getMetadataSerializer().mutateLevel(sstable.descriptor, 3);
+        sstable.reloadSSTableMetadata();
+
+        IPartitioner p = sstable.getPartitioner();
+        List<Range<Token>> all = Collections.singletonList(new Range<>(p.getMinimumToken(), p.getMinimumToken()));
+        List<Range<Token>> some = Collections.singletonList(new Range<>(p.getMinimumToken(), p.getToken(ByteBufferUtil.bytes("key5"))));
+
+        DatabaseDescriptor.setStreamEntireSSTables(true);
+        try
+        {
+            assertTrue(OutgoingFileMessage.shouldStreamEntireSSTable(sstable, sstable.getPositionsForRanges(all)));
+            assertFalse(OutgoingFileMessage.shouldStreamEntireSSTable(sstable, sstable.getPositionsForRanges(some)));
+
+            cfs.clearUnsafe();
+            transfer(sstable, all);
+        }
+        finally
+        {
+            DatabaseDescriptor.setStreamEntireSSTables(false);
+        }
+
+        SSTableReader received = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertFalse(sstable.descriptor.equals(received.descriptor));
+        assertEquals(0, received.getSSTableLevel());
+        assertEquals(sstable.getSSTableMetadata().repairedAt, received.getSSTableMetadata().repairedAt);
+        assertTrue(new File(received.descriptor.filenameFor(Component.SUMMARY)).exists());
+        assertArrayEquals(Files.readAllBytes(Paths.get(sstable.descriptor.filenameFor(Component.DATA))),
+                          Files.readAllBytes(Paths.get(received.descriptor.filenameFor(Component.DATA))));
+
+        assertEquals(100, Util.getAll(Util.cmd(cfs).build()).size());
+        for (int i = 0; i < 100; i++)
+            assertEquals(1, Util.getAll(Util.cmd(cfs, "key" + i).build()).size());
+    }
+
+    @Test
+    public void testEntireSSTableSnapshot() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_ENTIRE);
+        cfs.clearUnsafe();
+        for (int i = 0; i < 10; i++)
+        {
+            new RowUpdateBuilder(cfs.metadata, 1234, "key" + i)
+                .clustering("col")
+                .add("val", "value" + i)
+                .build()
+                .applyUnsafe();
+        }
+        cfs.forceBlockingFlush();
+        SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+
+        ComponentSnapshot snapshot = ComponentSnapshot.create(sstable);
+        File stats = snapshot.fileFor(sstable, Component.STATS);
+        byte[] snapshotStats = Files.readAllBytes(stats.toPath());
+        assertEquals(snapshotStats.length, snapshot.manifest().sizeOf(Component.STATS));
+
+        // rewriting the stats of the sstable before it is sent doesn't change the snapshot
+        sstable.descriptor.getMetadataSerializer().mutateRepairedAt(sstable.descriptor, 1234);
+        assertArrayEquals(snapshotStats, Files.readAllBytes(stats.toPath()));
+        for (Component component : snapshot.manifest())
+            assertEquals(snapshot.manifest().sizeOf(component), snapshot.fileFor(sstable, component).length());
+
+        snapshot.release();
+        assertFalse(stats.getParentFile().exists());
+        assertTrue(new File(sstable.descriptor.filenameFor(Component.STATS)).exists());
+        cfs.clearUnsafe();
+    }
+
     @Test
     public void testTransferTableViaRanges() throws Exception
     {
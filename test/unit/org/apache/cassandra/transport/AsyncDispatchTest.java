@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.transport;
+
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.exceptions.ReadFailureException;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncDispatchTest extends CQLTester
+{
+    @BeforeClass
+    public static void setUp()
+    {
+        DatabaseDescriptor.setNativeTransportAsyncDispatch(true);
+        requireNetwork();
+    }
+
+    @AfterClass
+    public static void tearDown()
+    {
+        DatabaseDescriptor.setNativeTransportAsyncDispatch(false);
+    }
+
+    @Test
+    public void testReadsAndWrites() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c))");
+
+        PreparedStatement insert = sessionNet().prepare(formatQuery("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)"));
+        for (int k = 0; k < 10; k++)
+            for (int c = 0; c < 20; c++)
+                sessionNet().execute(insert.bind(k, c, k + "-" + c));
+        executeNet(getDefaultVersion(), "DELETE FROM %s WHERE k = 0 AND c = 0");
+
+        // paged by the driver default page size
+        assertEquals(19, executeNet(getDefaultVersion(), "SELECT * FROM %s WHERE k = 0").all().size());
+        // not paged
+        List<Row> rows = executeNet(getDefaultVersion(), "SELECT v FROM %s WHERE k = 1 LIMIT 3").all();
+        assertEquals(3, rows.size());
+        assertEquals("1-2", rows.get(2).getString("v"));
+        // several pages
+        ResultSet pages = executeNetWithPaging("SELECT * FROM %s WHERE k = 2", 7);
+        assertFalse(pages.isFullyFetched());
+        assertEquals(20, pages.all().size());
+        // multiple partitions
+        assertEquals(6, executeNet(getDefaultVersion(), "SELECT * FROM %s WHERE k IN (3, 4) LIMIT 6").all().size());
+        assertEquals(40, executeNet(getDefaultVersion(), "SELECT * FROM %s WHERE k IN (3, 4)").all().size());
+        // synchronous fallbacks
+        assertEquals(199, executeNet(getDefaultVersion(), "SELECT * FROM %s").all().size());
+        assertEquals(20L, executeNet(getDefaultVersion(), "SELECT count(*) FROM %s WHERE k = 5").one().getLong(0));
+        assertTrue(executeNet(getDefaultVersion(), "UPDATE %s SET v = 'x' WHERE k = 6 AND c = 0 IF v = '6-0'").one().getBool(0));
+
+        PreparedStatement select = sessionNet().prepare(formatQuery("SELECT v FROM %s WHERE k = ? AND c = ?"));
+        assertEquals("x", sessionNet().execute(select.bind(6, 0)).one().getString("v"));
+        assertEquals("7-7", sessionNet().execute(select.bind(7, 7)).one().getString("v"));
+        assertEquals(0, sessionNet().execute(select.bind(42, 0)).all().size());
+    }
+
+    @Test
+    public void testWarnings() throws Throwable
+    {
+        int threshold = DatabaseDescriptor.getTombstoneWarnThreshold();
+        DatabaseDescriptor.setTombstoneWarnThreshold(5);
+        try
+        {
+            createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+            for (int c = 0; c < 10; c++)
+                executeNet(getDefaultVersion(), "DELETE FROM %s WHERE k = 0 AND c = ?", c);
+
+            Session session = sessionNet(ProtocolVersion.V4);
+            ResultSet result = session.execute(new SimpleStatement(formatQuery("SELECT * FROM %s WHERE k = 0")));
+            assertEquals(1, result.getExecutionInfo().getWarnings().size());
+
+            // the warnings of a request don't leak into the following ones
+            executeNet(ProtocolVersion.V4, "INSERT INTO %s (k, c, v) VALUES (1, 0, 0)");
+            result = session.execute(new SimpleStatement(formatQuery("SELECT * FROM %s WHERE k = 1")));
+            assertTrue(result.getExecutionInfo().getWarnings().isEmpty());
+        }
+        finally
+        {
+            DatabaseDescriptor.setTombstoneWarnThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testReadFailure() throws Throwable
+    {
+        int threshold = DatabaseDescriptor.getTombstoneFailureThreshold();
+        DatabaseDescriptor.setTombstoneFailureThreshold(5);
+        try
+        {
+            createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+            for (int c = 0; c < 10; c++)
+                executeNet(getDefaultVersion(), "DELETE FROM %s WHERE k = 0 AND c = ?", c);
+
+            try
+            {
+                executeNet(ProtocolVersion.V4, "SELECT * FROM %s WHERE k = 0");
+                fail("Expected a read failure");
+            }
+            catch (ReadFailureException e)
+            {
+                assertEquals(1, e.getFailures());
+            }
+        }
+        finally
+        {
+            DatabaseDescriptor.setTombstoneFailureThreshold(threshold);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.cassandra.io.util.DataOutputBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockedBloomFilterTest
+{
+    @Test
+    public void testOne()
+    {
+        try (IFilter bf = FilterFactory.getFilter(10000L, 0.01, true, false, true))
+        {
+            assertTrue(bf instanceof BlockedBloomFilter);
+            bf.add(FilterTestHelper.bytes("a"));
+            assertTrue(bf.isPresent(FilterTestHelper.bytes("a")));
+            assertFalse(bf.isPresent(FilterTestHelper.bytes("b")));
+
+            bf.clear();
+            assertFalse(bf.isPresent(FilterTestHelper.bytes("a")));
+        }
+    }
+
+    @Test
+    public void testFalsePositives()
+    {
+        testFalsePositives(0.1);
+        testFalsePositives(0.01);
+        testFalsePositives(0.001);
+    }
+
+    private static void testFalsePositives(double fpChance)
+    {
+        int elements = 100000;
+        int probes = 1000000;
+        long seed = new Random().nextLong();
+        Random random = new Random(seed);
+        try (IFilter bf = FilterFactory.getFilter(elements, fpChance, true, false, true))
+        {
+            long[] keys = new long[elements];
+            for (int i = 0; i < elements; i++)
+            {
+                keys[i] = random.nextLong();
+                bf.add(FilterTestHelper.wrap(ByteBufferUtil.bytes(keys[i])));
+            }
+            for (long key : keys)
+                assertTrue(bf.isPresent(FilterTestHelper.wrap(ByteBufferUtil.bytes(key))));
+
+            // other keys, distinct from the added ones
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++)
+            {
+                if (bf.isPresent(FilterTestHelper.wrap(ByteBufferUtil.bytes(String.valueOf(random.nextLong())))))
+                    falsePositives++;
+            }
+            double rate = (double) falsePositives / probes;
+            String message = String.format("fp rate %f for a chance of %f, seed %d", rate, fpChance, seed);
+            assertTrue(message, rate < fpChance * 1.1);
+            // the filter should not be much larger than needed
+            assertTrue(message, rate > fpChance * 0.7);
+        }
+    }
+
+    @Test
+    public void testSerialize() throws IOException
+    {
+        try (IFilter bf = FilterFactory.getFilter(1000L, 0.01, true, false, true))
+        {
+            for (int i = 0; i < 1000; i++)
+                bf.add(FilterTestHelper.wrap(ByteBufferUtil.bytes(i)));
+
+            DataOutputBuffer out = new DataOutputBuffer();
+            FilterFactory.serialize(bf, out);
+            assertEquals(bf.serializedSize(), out.getLength());
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.getData(), 0, out.getLength()));
+            try (IFilter bf2 = FilterFactory.deserialize(in, true, false))
+            {
+                assertTrue(bf2 instanceof BlockedBloomFilter);
+                assertEquals(bf.offHeapSize(), bf2.offHeapSize());
+                for (int i = 0; i < 2000; i++)
+                {
+                    assertEquals(bf.isPresent(FilterTestHelper.wrap(ByteBufferUtil.bytes(i))),
+                                 bf2.isPresent(FilterTestHelper.wrap(ByteBufferUtil.bytes(i))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClassicFallback()
+    {
+        // the old hash order is not supported by blocked filters
+        try (IFilter bf = FilterFactory.getFilter(1000L, 0.01, true, true, true))
+        {
+            assertTrue(bf instanceof BloomFilter);
+        }
+        // but all the chances supported by classic filters are
+        try (IFilter bf = FilterFactory.getFilter(1000L, BloomCalculations.minSupportedBloomFilterFpChance(), true, false, true))
+        {
+            assertTrue(bf instanceof BlockedBloomFilter);
+        }
+        assertTrue(FilterFactory.getFilter(1000L, 1.0, true, false, true) instanceof AlwaysPresentFilter);
+    }
+
+    @Test
+    public void testFalsePositiveProbability()
+    {
+        double previous = 1;
+        for (double bits = 1; bits <= BlockedBloomFilter.MAX_BITS_PER_ELEMENT; bits++)
+        {
+            double probability = BlockedBloomFilter.falsePositiveProbability(bits);
+            assertTrue(bits + " bits: " + probability, probability > 0 && probability < previous);
+            previous = probability;
+        }
+        // a blocked filter needs a bit more memory than a classic one for the default chance
+        long blocks = BlockedBloomFilter.blockCount(1000000, 0.01);
+        double bitsPerElement = blocks * BlockedBloomFilter.BLOCK_BITS / 1000000.0;
+        assertTrue(String.valueOf(bitsPerElement), bitsPerElement > 10 && bitsPerElement < 10.5);
+    }
+}
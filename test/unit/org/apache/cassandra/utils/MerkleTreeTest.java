@@ -406,6 +406,90 @@ public class MerkleTreeTest
         assertHashEquals(initialhash, restored.hash(full));
     }
 
+    @Test
+    public void testMoveOffHeap() throws Exception
+    {
+        Range<Token> full = new Range<>(tok(-1), tok(-1));
+
+        mt.maxsize(256);
+        mt.init();
+        // uneven splits, and leaves with hashes of different lengths
+        mt.split(tok(1));
+        mt.split(tok(3));
+        byte[] longer = "arbitrary!".getBytes();
+        int i = 0;
+        for (TreeRange range : mt.invalids())
+        {
+            if (i % 5 != 0)
+                range.addAll(new HIterator(range.right));
+            if (i % 7 == 0)
+                range.addHash(new RowHash(range.right, longer, longer.length));
+            range.ensureHashInitialised();
+            i++;
+        }
+
+        byte[] initialhash = mt.hash(full);
+        byte[] partialhash = mt.hash(new Range<>(tok(-1), tok(4)));
+        String initialString = mt.toString();
+        long rowCount = mt.rowCount();
+        List<TreeRange> initialRanges = Lists.newArrayList((Iterator<TreeRange>) mt.invalids());
+        DataOutputBuffer out = new DataOutputBuffer();
+        MerkleTree.serializer.serialize(mt, out, MessagingService.current_version);
+
+        MerkleTree onHeap = MerkleTree.serializer.deserialize(new DataInputBuffer(out.toByteArray()), MessagingService.current_version);
+        assertTrue(mt.tryMoveOffHeap());
+        assertTrue(mt.isOffHeap());
+
+        assertHashEquals(initialhash, mt.hash(full));
+        assertHashEquals(partialhash, mt.hash(new Range<>(tok(-1), tok(4))));
+        assertEquals(initialString, mt.toString());
+        assertEquals(rowCount, mt.rowCount());
+        assertEquals(initialRanges, Lists.newArrayList((Iterator<TreeRange>) mt.invalids()));
+        assertEquals(MerkleTree.serializer.serializedSize(onHeap, MessagingService.current_version),
+                     MerkleTree.serializer.serializedSize(mt, MessagingService.current_version));
+        DataOutputBuffer offHeapOut = new DataOutputBuffer();
+        MerkleTree.serializer.serialize(mt, offHeapOut, MessagingService.current_version);
+        assertArrayEquals(out.toByteArray(), offHeapOut.toByteArray());
+
+        // differences are the same whether trees are on or off heap
+        MerkleTree other = new MerkleTree(partitioner, fullRange(), RECOMMENDED_DEPTH, 256);
+        other.init();
+        for (TreeRange range : other.invalids())
+            range.addAll(new HIterator(range.right));
+        List<TreeRange> expected = MerkleTree.difference(onHeap, other);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, MerkleTree.difference(mt, other));
+        assertTrue(other.tryMoveOffHeap());
+        assertEquals(expected, MerkleTree.difference(mt, other));
+        assertEquals(expected, MerkleTree.difference(onHeap, other));
+
+        // a tree without hashes
+        MerkleTree unhashed = new MerkleTree(partitioner, fullRange(), RECOMMENDED_DEPTH, 16);
+        unhashed.init();
+        assertTrue(unhashed.tryMoveOffHeap());
+        assertNull(unhashed.hash(full));
+        assertEquals(Lists.newArrayList(full), MerkleTree.difference(mt, unhashed));
+
+        try
+        {
+            mt.split(tok(7));
+            fail("off heap trees should be read-only");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            mt.invalids().next().addHash(new RowHash(tok(1), DUMMY, DUMMY.length));
+            fail("off heap trees should be read-only");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
     @Test
     public void testDifference()
     {
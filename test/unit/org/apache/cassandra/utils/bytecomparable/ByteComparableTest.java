@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils.bytecomparable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import org.junit.Test;
+
+import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.marshal.*;
+import org.apache.cassandra.dht.*;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ByteComparableTest
+{
+    private static final Random random = new Random(42);
+
+    @Test
+    public void testLongs()
+    {
+        long[] values = { Long.MIN_VALUE, Long.MIN_VALUE + 1, -256, -1, 0, 1, 255, 256, Long.MAX_VALUE - 1, Long.MAX_VALUE };
+        for (long l : values)
+            for (long r : values)
+                assertSameOrder(Long.compare(l, r), () -> ByteSource.of(l), () -> ByteSource.of(r));
+    }
+
+    @Test
+    public void testVariableLengthBytesArePrefixFree()
+    {
+        byte[][] values = { {}, { 0 }, { 0, 0 }, { 0, 1 }, { 1 }, { 1, 0 }, { (byte) 0xFF }, { (byte) 0xFF, 0 } };
+        for (byte[] l : values)
+        {
+            for (byte[] r : values)
+            {
+                int expected = Integer.signum(FBUtilities.compareUnsigned(l, r, 0, 0, l.length, r.length));
+                assertSameOrder(expected, () -> ByteSource.of(l), () -> ByteSource.of(r));
+                // appending something to the encodings of different values must not change their order
+                if (expected != 0)
+                    assertSameOrder(expected, () -> ByteSource.of(ByteSource.of(l), ByteSource.oneByte(expected < 0 ? 0xFF : 0)), () -> ByteSource.of(ByteSource.of(r), ByteSource.oneByte(expected < 0 ? 0 : 0xFF)));
+            }
+        }
+    }
+
+    @Test
+    public void testStrings()
+    {
+        String[] values = { "", "\u0000", "\u0000a", "a", "a\u0000", "ab", "ÿ", "Ā", "￿" };
+        for (String l : values)
+            for (String r : values)
+                assertSameOrder(Integer.signum(l.compareTo(r)), () -> ByteSource.of(l), () -> ByteSource.of(r));
+    }
+
+    @Test
+    public void testMurmur3Positions()
+    {
+        testPositions(Murmur3Partitioner.instance);
+    }
+
+    @Test
+    public void testRandomPositions()
+    {
+        testPositions(RandomPartitioner.instance);
+        List<Token> tokens = new ArrayList<>();
+        for (String value : new String[]{ "-300", "-256", "-1", "0", "1", "255", "256", "170141183460469231731687303715884105728" })
+            tokens.add(new RandomPartitioner.BigIntegerToken(new BigInteger(value)));
+        for (Token l : tokens)
+            for (Token r : tokens)
+                assertSameOrder(Integer.signum(l.compareTo(r)), l, r);
+    }
+
+    @Test
+    public void testByteOrderedPositions()
+    {
+        testPositions(ByteOrderedPartitioner.instance);
+    }
+
+    @Test
+    public void testOrderPreservingPositions()
+    {
+        testPositions(OrderPreservingPartitioner.instance);
+    }
+
+    @Test
+    public void testLocalPositions()
+    {
+        testPositions(new LocalPartitioner(UTF8Type.instance));
+    }
+
+    @Test
+    public void testFixedLengthNumbers()
+    {
+        List<ByteBuffer> ints = new ArrayList<>(), longs = new ArrayList<>(), shorts = new ArrayList<>(), bytes = new ArrayList<>();
+        for (long v : new long[]{ Long.MIN_VALUE, Integer.MIN_VALUE, Short.MIN_VALUE, -129, -128, -1, 0, 1, 127, 128, Short.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE })
+        {
+            ints.add(Int32Type.instance.decompose((int) v));
+            longs.add(LongType.instance.decompose(v));
+            shorts.add(ShortType.instance.decompose((short) v));
+            bytes.add(ByteType.instance.decompose((byte) v));
+        }
+        for (int i = 0; i < 50; i++)
+        {
+            ints.add(Int32Type.instance.decompose(random.nextInt()));
+            longs.add(LongType.instance.decompose(random.nextLong()));
+        }
+        ints.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        longs.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(Int32Type.instance, ints);
+        testType(LongType.instance, longs);
+        testType(TimestampType.instance, longs);
+        testType(ShortType.instance, shorts);
+        testType(ByteType.instance, bytes);
+        testType(BooleanType.instance, Arrays.asList(ByteBufferUtil.EMPTY_BYTE_BUFFER, ByteBuffer.wrap(new byte[]{ 0 }),
+                                                     ByteBuffer.wrap(new byte[]{ 1 }), ByteBuffer.wrap(new byte[]{ 2 })));
+    }
+
+    @Test
+    public void testFloatingPoint()
+    {
+        List<ByteBuffer> floats = new ArrayList<>(), doubles = new ArrayList<>();
+        double[] values = { Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, -1, -Double.MIN_VALUE, -0.0, 0.0,
+                            Double.MIN_VALUE, 1, 1.5, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN };
+        for (double v : values)
+        {
+            floats.add(FloatType.instance.decompose((float) v));
+            doubles.add(DoubleType.instance.decompose(v));
+        }
+        for (int i = 0; i < 50; i++)
+        {
+            floats.add(FloatType.instance.decompose((float) random.nextGaussian()));
+            doubles.add(DoubleType.instance.decompose(random.nextGaussian() * 1e10));
+        }
+        // a NaN with a different bit pattern compares equal to the canonical one
+        floats.add(ByteBufferUtil.bytes(0x7fc00001));
+        floats.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        doubles.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(FloatType.instance, floats);
+        testType(DoubleType.instance, doubles);
+    }
+
+    @Test
+    public void testVarInts()
+    {
+        List<ByteBuffer> values = new ArrayList<>();
+        for (String v : new String[]{ "-1000000000000000000000", "-65536", "-256", "-255", "-129", "-128", "-1", "0", "1", "127", "128", "255", "256", "65536", "1000000000000000000000" })
+            values.add(IntegerType.instance.decompose(new BigInteger(v)));
+        for (int i = 0; i < 50; i++)
+            values.add(IntegerType.instance.decompose(new BigInteger(random.nextInt(100), random).subtract(BigInteger.ONE.shiftLeft(50))));
+        // sign-extended encodings of 1 and -1, which compare equal to the minimal ones
+        values.add(ByteBuffer.wrap(new byte[]{ 0, 0, 1 }));
+        values.add(ByteBuffer.wrap(new byte[]{ -1, -1 }));
+        values.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(IntegerType.instance, values);
+    }
+
+    @Test
+    public void testDecimals()
+    {
+        List<ByteBuffer> values = new ArrayList<>();
+        for (String v : new String[]{ "-1e100", "-12.5", "-12.34", "-1.00", "-1", "-0.001", "0", "0.000", "0.001", "0.0012", "0.01", "1", "1.0", "10", "12.34", "12.5", "1e-100", "1e100" })
+            values.add(DecimalType.instance.decompose(new BigDecimal(v)));
+        for (int i = 0; i < 50; i++)
+            values.add(DecimalType.instance.decompose(new BigDecimal(BigInteger.valueOf(random.nextInt(20000) - 10000), random.nextInt(10) - 5)));
+        values.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(DecimalType.instance, values);
+    }
+
+    @Test
+    public void testUUIDs()
+    {
+        List<ByteBuffer> timeUUIDs = new ArrayList<>(), uuids = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+        {
+            // few distinct timestamps, so that the rest of the UUIDs gets compared too
+            UUID timeUUID = UUIDGen.getTimeUUID(random.nextInt(3), 0, random.nextLong());
+            timeUUIDs.add(TimeUUIDType.instance.decompose(timeUUID));
+            uuids.add(UUIDType.instance.decompose(timeUUID));
+            uuids.add(UUIDType.instance.decompose(UUID.randomUUID()));
+            uuids.add(UUIDType.instance.decompose(new UUID(random.nextLong(), random.nextLong())));
+        }
+        timeUUIDs.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        uuids.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(TimeUUIDType.instance, timeUUIDs);
+        testType(UUIDType.instance, uuids);
+        testType(LexicalUUIDType.instance, uuids);
+    }
+
+    @Test
+    public void testByteOrderedTypes() throws UnknownHostException
+    {
+        List<ByteBuffer> strings = new ArrayList<>();
+        for (String v : new String[]{ "", "\u0000", "a", "a\u0000", "ab", "b", "ÿ", "Ā" })
+            strings.add(UTF8Type.instance.decompose(v));
+        testType(UTF8Type.instance, strings);
+        testType(BytesType.instance, strings);
+        testType(InetAddressType.instance, Arrays.asList(InetAddressType.instance.decompose(InetAddress.getByName("127.0.0.1")),
+                                                         InetAddressType.instance.decompose(InetAddress.getByName("10.0.0.255")),
+                                                         InetAddressType.instance.decompose(InetAddress.getByName("::1")),
+                                                         InetAddressType.instance.decompose(InetAddress.getByName("ff::1"))));
+        testType(EmptyType.instance, Collections.singletonList(ByteBufferUtil.EMPTY_BYTE_BUFFER));
+    }
+
+    @Test
+    public void testReversedTypes()
+    {
+        List<ByteBuffer> ints = new ArrayList<>();
+        for (int i = -3; i <= 3; i++)
+            ints.add(Int32Type.instance.decompose(i));
+        ints.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+        testType(ReversedType.getInstance(Int32Type.instance), ints);
+
+        List<ByteBuffer> strings = new ArrayList<>();
+        for (String v : new String[]{ "", "a", "a\u0000", "ab", "b" })
+            strings.add(UTF8Type.instance.decompose(v));
+        testType(ReversedType.getInstance(UTF8Type.instance), strings);
+    }
+
+    @Test
+    public void testCollectionsAndTuples()
+    {
+        ListType<Integer> listType = ListType.getInstance(Int32Type.instance, false);
+        SetType<String> setType = SetType.getInstance(UTF8Type.instance, false);
+        MapType<Integer, String> mapType = MapType.getInstance(Int32Type.instance, UTF8Type.instance, false);
+        TupleType tupleType = new TupleType(Arrays.asList(Int32Type.instance, UTF8Type.instance, LongType.instance));
+        CompositeType compositeType = CompositeType.getInstance(UTF8Type.instance, Int32Type.instance);
+
+        List<ByteBuffer> lists = new ArrayList<>(), sets = new ArrayList<>(), maps = new ArrayList<>(), tuples = new ArrayList<>(), composites = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+        {
+            List<Integer> list = new ArrayList<>();
+            Set<String> set = new TreeSet<>();
+            Map<Integer, String> map = new TreeMap<>();
+            for (int j = random.nextInt(4); j > 0; j--)
+            {
+                list.add(random.nextInt(3) - 1);
+                set.add(random.nextBoolean() ? "a" : "ab");
+                map.put(random.nextInt(2), random.nextBoolean() ? "" : "b");
+            }
+            lists.add(listType.decompose(list));
+            sets.add(setType.decompose(set));
+            maps.add(mapType.decompose(map));
+
+            // no empty values, which compare ignores when trailing but not when followed by a null
+            ByteBuffer[] components = { random.nextBoolean() ? null : Int32Type.instance.decompose(random.nextInt(2)),
+                                        random.nextBoolean() ? null : UTF8Type.instance.decompose(random.nextBoolean() ? "a" : "b"),
+                                        random.nextBoolean() ? null : LongType.instance.decompose((long) random.nextInt(2)) };
+            tuples.add(TupleType.buildValue(Arrays.copyOf(components, 1 + random.nextInt(3))));
+
+            ByteBuffer composite = random.nextBoolean()
+                                   ? CompositeType.build(random.nextInt(4) == 0, UTF8Type.instance.decompose(random.nextBoolean() ? "" : "a"))
+                                   : CompositeType.build(UTF8Type.instance.decompose("a"), Int32Type.instance.decompose(random.nextInt(2)));
+            // vary the end-of-component byte of the last component
+            composite.put(composite.limit() - 1, (byte) (random.nextInt(3) - 1));
+            composites.add(composite);
+        }
+        for (List<ByteBuffer> values : Arrays.asList(lists, sets, maps, tuples, composites))
+            values.add(ByteBufferUtil.EMPTY_BYTE_BUFFER);
+
+        testType(listType, lists);
+        testType(setType, sets);
+        testType(mapType, maps);
+        testType(tupleType, tuples);
+        testType(compositeType, composites);
+    }
+
+    @Test
+    public void testClusteringPrefixes()
+    {
+        ClusteringComparator comparator = new ClusteringComparator(Int32Type.instance, ReversedType.getInstance(UTF8Type.instance));
+        assertTrue(comparator.supportsByteComparable());
+
+        List<ClusteringPrefix> prefixes = new ArrayList<>();
+        prefixes.add(Clustering.STATIC_CLUSTERING);
+        prefixes.add(ClusteringBound.BOTTOM);
+        prefixes.add(ClusteringBound.TOP);
+        ByteBuffer[] ints = { null, ByteBufferUtil.EMPTY_BYTE_BUFFER, Int32Type.instance.decompose(-1), Int32Type.instance.decompose(1) };
+        ByteBuffer[] strings = { null, ByteBufferUtil.EMPTY_BYTE_BUFFER, UTF8Type.instance.decompose("a"), UTF8Type.instance.decompose("ab") };
+        for (ByteBuffer i : ints)
+        {
+            for (ByteBuffer s : strings)
+            {
+                ByteBuffer[] values = { i, s };
+                prefixes.add(Clustering.make(values));
+                for (ClusteringPrefix.Kind kind : ClusteringPrefix.Kind.values())
+                {
+                    if (kind.isBound())
+                    {
+                        prefixes.add(ClusteringBound.create(kind, new ByteBuffer[]{ i }));
+                        prefixes.add(ClusteringBound.create(kind, values));
+                    }
+                    else if (kind.isBoundary())
+                    {
+                        prefixes.add(ClusteringBoundary.create(kind, values));
+                    }
+                }
+            }
+        }
+
+        for (ClusteringPrefix l : prefixes)
+            for (ClusteringPrefix r : prefixes)
+                assertSameOrder(Integer.signum(comparator.compare(l, r)), comparator.asByteComparable(l), comparator.asByteComparable(r));
+    }
+
+    private static void testType(AbstractType<?> type, List<ByteBuffer> values)
+    {
+        assertTrue(type.supportsComparableBytes());
+        for (ByteBuffer l : values)
+        {
+            for (ByteBuffer r : values)
+            {
+                int expected = Integer.signum(type.compare(l, r));
+                // standalone empty values sort first, which is not what reversed types do
+                if (!type.isReversed() || (l.hasRemaining() && r.hasRemaining()))
+                    assertSameOrder(expected, () -> type.asComparableBytes(l), () -> type.asComparableBytes(r));
+                assertSameOrder(expected, () -> type.asComparableComponent(l), () -> type.asComparableComponent(r));
+                // components are prefix-free, so appending something to different values must not change their order
+                if (expected != 0)
+                    assertSameOrder(expected,
+                                    () -> ByteSource.of(type.asComparableComponent(l), ByteSource.oneByte(expected < 0 ? 0xFF : 0)),
+                                    () -> ByteSource.of(type.asComparableComponent(r), ByteSource.oneByte(expected < 0 ? 0 : 0xFF)));
+            }
+        }
+    }
+
+    private void testPositions(IPartitioner partitioner)
+    {
+        assertTrue(partitioner.hasByteComparableTokens());
+        List<PartitionPosition> positions = new ArrayList<>();
+        positions.add(partitioner.getMinimumToken().minKeyBound());
+        for (int i = 0; i < 50; i++)
+        {
+            byte[] key = new byte[random.nextInt(4)];
+            for (int j = 0; j < key.length; j++)
+                key[j] = (byte) ('a' + random.nextInt(3));
+            PartitionPosition position = partitioner.decorateKey(ByteBuffer.wrap(key));
+            positions.add(position);
+            positions.add(position.getToken().minKeyBound());
+            positions.add(position.getToken().maxKeyBound());
+        }
+
+        for (PartitionPosition l : positions)
+            for (PartitionPosition r : positions)
+                assertSameOrder(Integer.signum(l.compareTo(r)), l, r);
+    }
+
+    private static void assertSameOrder(int expected, ByteComparable left, ByteComparable right)
+    {
+        assertEquals(ByteComparable.toString(left) + " vs " + ByteComparable.toString(right),
+                     expected, Integer.signum(ByteComparable.compare(left, right)));
+    }
+}